@@ -5,6 +5,9 @@ import javafx.scene.Parent;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
 import java.io.IOException;
+import typingNinja.model.SettingsCache;
+import typingNinja.model.SqliteConnection;
+import typingNinja.model.lesson.LessonWriteQueue;
 import typingNinja.util.SceneNavigator;
 
 public class TypingNinjaApp extends Application {
@@ -25,6 +28,17 @@ public class TypingNinjaApp extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        // Drain queued lesson writes, then close the writer and pooled readers so the WAL is checkpointed
+        LessonWriteQueue.shutdownShared();
+        try {
+            SettingsCache.flush().get(5, java.util.concurrent.TimeUnit.SECONDS);
+        } catch (Exception ignored) {
+        }
+        SqliteConnection.shutdown();
+    }
+
     public static void main(String[] args) {
         launch();
     }
@@ -4,6 +4,7 @@ import typingNinja.model.INinjaContactDAO;
 import typingNinja.model.SqliteContactDAO;
 import typingNinja.model.NinjaUser;
 import typingNinja.model.SessionManager;
+import typingNinja.model.SettingsCache;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -176,6 +177,7 @@ public class CreateAccountController {
         System.out.println("Initialized Goals & Statistics for new user ID=" + newUser.getId());
 
         SessionManager.setUser(newUser.getId(), newUser.getUserName());
+        SettingsCache.load(newUser.getId());
         SessionManager.setCurrentPassword(password);
         SessionManager.setCurrentSecretAnswers(answer1, answer2);
 
@@ -6,10 +6,12 @@ import javafx.fxml.FXML;
 import javafx.geometry.Bounds;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TextArea;
+import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
@@ -22,21 +24,31 @@ import javafx.scene.text.TextAlignment;
 
 import typingNinja.controllers.lesson.KeyboardHands;
 import typingNinja.controllers.lesson.InputSection;
+import typingNinja.controllers.lesson.PassageView;
 import typingNinja.controllers.lesson.FreeTypingInput;
+import typingNinja.controllers.lesson.FrameUpdater;
+import typingNinja.controllers.lesson.LatencyProbe;
 import typingNinja.controllers.lesson.ProgressBar;
 import typingNinja.controllers.lesson.PauseMenu;
 import typingNinja.model.lesson.Lesson;
 import typingNinja.model.lesson.CustomPrompts;
+import typingNinja.model.lesson.GhostReplay;
+import typingNinja.model.lesson.KeyLatencyStore;
+import typingNinja.model.lesson.KeystrokeJournal;
+import typingNinja.model.lesson.KeystrokeJournalStore;
 import typingNinja.model.lesson.LessonDAO;
+import typingNinja.model.lesson.LessonWriteQueue;
+import typingNinja.model.lesson.NgramErrorModel;
+import typingNinja.model.lesson.NgramModelStore;
 import typingNinja.model.lesson.WeakKeyTracker;
 import typingNinja.model.lesson.StarRating;
 import typingNinja.model.auth.Session;
-import typingNinja.model.SettingsDAO;
-import typingNinja.model.SettingsDAO.SettingsRecord;
+import typingNinja.model.SettingsCache;
 import typingNinja.view.CongratulationsScene;
 import typingNinja.view.MainMenu;
 
 import javafx.stage.Stage;
+import typingNinja.util.AudioEngine;
 import typingNinja.util.SceneNavigator;
 
 /**
@@ -46,6 +58,7 @@ public class LessonActivePageController {
     @FXML private HBox buttonBar;
     @FXML private Button pauseButton;
     @FXML private Label timerLabel;
+    @FXML private Label latencyOverlay;
 
     @FXML private ScrollPane readingScroll;
     @FXML private StackPane readingStack;
@@ -76,32 +89,32 @@ public class LessonActivePageController {
     private PauseMenu pauseMenu;
     private KeyboardHands keyboardHands;
     private InputSection inputSection;
+    private PassageView passageView;
     private FreeTypingInput freeTypingInput;
+    private final FrameUpdater frames = new FrameUpdater();
+    private Node pendingCursor;
+    private GhostReplay ghostReplay;
+    private LatencyProbe latencyProbe;
     private final WeakKeyTracker weakKeyTracker = new WeakKeyTracker();
     private Integer currentLessonId;
     private int currentUserId;
     private final LessonDAO lessonDAO = new LessonDAO();
-    private final SettingsDAO settingsDAO = new SettingsDAO();
-    private boolean strictModePreferred = true;
+    private SettingsCache settings;
+    private final javafx.beans.value.ChangeListener<Boolean> strictModeListener = (o, ov, nv) -> {
+        if (inputSection != null) inputSection.setStrictMode(nv);
+    };
     private boolean freeMode = false;
     private EventHandler<KeyEvent> keyTypedHandler;
     private EventHandler<KeyEvent> keyPressedHandler;
     private static final double DEFAULT_CHARS_PER_WORD = 5.0;
     private static final double FREE_MODE_CHARS_PER_WORD = 6.5;
+    // Weak-key drills practise this many bigrams, a couple of them picked for speed rather than errors.
+    private static final int DRILL_PAIRS = 7;
+    private static final int SLOW_DRILL_PAIRS = 2;
 
     private boolean finishedByTyping = false;
-    private boolean lessonCompleteSoundEnabled = false;
-
-    private boolean keyboardSoundsEnabled = false;
-    private boolean typingErrorSoundsEnabled = false;
-    private javafx.scene.media.AudioClip typingClip;
-    private javafx.scene.media.AudioClip errorClip;
-    private javafx.scene.media.AudioClip[] typingPool;
-    private javafx.scene.media.AudioClip[] errorPool;
-    private int typingPoolIdx = 0, errorPoolIdx = 0;
-    private long lastTypingMs = 0, lastErrorMs = 0;
-    private static final long TYPING_GAP_MS = 25;
-    private static final long ERROR_GAP_MS  = 200;
+
+    private AudioEngine audio;
     private int lastErrorCount = 0;
 
     
@@ -110,15 +123,7 @@ public class LessonActivePageController {
         // Flip the completion flag so we can decide whether to fast-forward the timer.
         finishedByTyping = true;
         if (inputSection == null) return;
-        int passageLen = inputSection.getPassageLength();
-        int correctPos = inputSection.getCorrectPositions();
-        double percentCorrectOfPassage = passageLen > 0 ? (correctPos * 100.0 / passageLen) : 0.0;
-        int err = metrics.getErrors();
-        boolean perfect = (err == 0 && correctPos == passageLen);
-        double accuracyVal = metrics.getAccuracyPercent();
-        boolean passWithErrors = (percentCorrectOfPassage > 40.0 && accuracyVal >= 40.0);
-
-        if (perfect || passWithErrors) {
+        if (inputSection.session().passes()) {
             Platform.runLater(metrics::endLessonNow);
         } else {
             Platform.runLater(() -> showFadingErrorBanner("TOO MANY ERRORS — CORRECT AND CONTINUE"));
@@ -141,56 +146,19 @@ public class LessonActivePageController {
 
     private void playCompletionSoundIfEnabled() {
         // Respect the settings toggle before firing the celebratory chime.
-        if (!lessonCompleteSoundEnabled) return;
+        if (settings == null || !settings.isLessonCompleteSound()) return;
         try { typingNinja.util.SoundManager.playLessonComplete(); } catch (Exception ignored) {}
     }
 
-    private void initSoundClips() {
-        // Load any available audio variants so we can hand out quick feedback without pops.
-        try {
-            java.net.URL typingUrl = getClass().getResource("/typingNinja/Sounds/keyboard_click.wav");
-            if (typingUrl == null) typingUrl = getClass().getResource("/typingNinja/Sounds/typing.mp3");
-            if (typingUrl != null) {
-                typingClip = new javafx.scene.media.AudioClip(typingUrl.toExternalForm());
-                int n = 4;
-                typingPool = new javafx.scene.media.AudioClip[n];
-                for (int i = 0; i < n; i++) typingPool[i] = new javafx.scene.media.AudioClip(typingUrl.toExternalForm());
-            } else {
-                typingClip = null;
-                typingPool = null;
-            }
-        } catch (Exception ex) {
-            typingClip = null; typingPool = null;
-        }
-        try {
-            java.net.URL errorUrl = getClass().getResource("/typingNinja/Sounds/wrong_buzzer.mp3");
-            if (errorUrl != null) {
-                errorClip = new javafx.scene.media.AudioClip(errorUrl.toExternalForm());
-                int m = 2;
-                errorPool = new javafx.scene.media.AudioClip[m];
-                for (int i = 0; i < m; i++) errorPool[i] = new javafx.scene.media.AudioClip(errorUrl.toExternalForm());
-            } else {
-                errorClip = null;
-                errorPool = null;
-            }
-        } catch (Exception ex) {
-            errorClip = null; errorPool = null;
-        }
+    private void initSounds() {
+        // Decoding happens once per application; later lessons just reuse the shared engine.
+        audio = AudioEngine.shared();
     }
 
     private void playTypingKeySound() {
-        // Prevent the sound from spamming while still keeping the keyboard feeling responsive.
-        if (!keyboardSoundsEnabled) return;
-        long now = System.currentTimeMillis();
-        if (now - lastTypingMs < TYPING_GAP_MS) return;
-        lastTypingMs = now;
-        if (typingPool != null && typingPool.length > 0) {
-            javafx.scene.media.AudioClip c = typingPool[typingPoolIdx];
-            typingPoolIdx = (typingPoolIdx + 1) % typingPool.length;
-            c.play();
-        } else if (typingClip != null) {
-            typingClip.play();
-        }
+        // Every keystroke gets its click; overlapping clicks are mixed by the engine.
+        if (settings == null || !settings.isKeyboardSounds() || audio == null) return;
+        audio.play(AudioEngine.Cue.CLICK);
     }
 
     private void attachMetricsErrorSoundListener() {
@@ -200,24 +168,15 @@ public class LessonActivePageController {
         metrics.errorsProperty().addListener((o, oldVal, newVal) -> {
             int oldCount = (oldVal != null) ? oldVal.intValue() : lastErrorCount;
             int newCount = (newVal != null) ? newVal.intValue() : oldCount;
-            if (typingErrorSoundsEnabled && newCount > oldCount) {
+            if (settings != null && settings.isTypingErrorSounds() && newCount > oldCount) {
                 playErrorBuzzer();
             }
             lastErrorCount = newCount;
         });
     }
     private void playErrorBuzzer() {
-        // Guard the buzzer so clustered typos do not overwhelm the mix.
-        long now = System.currentTimeMillis();
-        if (now - lastErrorMs < ERROR_GAP_MS) return;
-        lastErrorMs = now;
-        if (errorPool != null && errorPool.length > 0) {
-            javafx.scene.media.AudioClip c = errorPool[errorPoolIdx];
-            errorPoolIdx = (errorPoolIdx + 1) % errorPool.length;
-            c.play();
-        } else if (errorClip != null) {
-            errorClip.play();
-        }
+        // The engine keeps buzzes at least 200 ms apart, so a burst of typos buzzes once.
+        if (audio != null) audio.play(AudioEngine.Cue.BUZZER);
     }
 
 
@@ -276,11 +235,7 @@ public class LessonActivePageController {
     private void cancelActiveLesson() {
         // Pending lessons are ephemeral; wipe them if the user bails out early.
         if (currentLessonId != null) {
-            try {
-                lessonDAO.deleteIfNotCompleted(currentLessonId, currentUserId);
-            } catch (Exception ex) {
-                ex.printStackTrace();
-            }
+            LessonWriteQueue.shared().submitCancelled(currentLessonId, currentUserId);
         }
     }
 
@@ -304,20 +259,26 @@ public class LessonActivePageController {
             message.getStyleClass().addAll("prompt-char", "mono");
             promptFlow.getChildren().setAll(message);
             freeTypingInput = new FreeTypingInput(userFlow, hiddenInput, keyboardHands, metrics, this::ensureCursorVisible);
-            keyTypedHandler = freeTypingInput::onKeyTyped;
-            keyPressedHandler = freeTypingInput::onKeyPressed;
+            keyTypedHandler = timed(freeTypingInput::onKeyTyped);
+            keyPressedHandler = timed(freeTypingInput::onKeyPressed);
             promptFlow.setTextAlignment(TextAlignment.LEFT);
             userFlow.setTextAlignment(TextAlignment.LEFT);
         } else {
+            promptFlow.getChildren().clear();
+            userFlow.getChildren().clear();
+            if (passageView != null) readingStack.getChildren().remove(passageView);
+            passageView = new PassageView(passage, readingScroll);
+            StackPane.setAlignment(passageView, Pos.TOP_LEFT);
+            readingStack.getChildren().add(passageView);
             inputSection = new InputSection(
-                    promptFlow, userFlow, hiddenInput, keyboardHands, metrics, passage, weakKeyTracker,
-                    this::ensureCursorVisible,
+                    passageView, hiddenInput, keyboardHands, metrics, passage, weakKeyTracker,
+                    frames, this::ensureCursorVisible,
                     this::onReachedEndOfText
             );
-            inputSection.setStrictMode(strictModePreferred);
+            inputSection.setStrictMode(settings == null || settings.isTypingErrors());
             keyboardHands.highlightExpected(inputSection.peekExpected());
-            keyTypedHandler = inputSection::onKeyTyped;
-            keyPressedHandler = inputSection::onKeyPressed;
+            keyTypedHandler = timed(inputSection::onKeyTyped);
+            keyPressedHandler = timed(inputSection::onKeyPressed);
             promptFlow.setTextAlignment(TextAlignment.LEFT);
             userFlow.setTextAlignment(TextAlignment.LEFT);
         }
@@ -334,10 +295,12 @@ public class LessonActivePageController {
         Platform.runLater(() -> {
             hiddenInput.setText("");
             hiddenInput.requestFocus();
+            latencyProbe.reset();
+            latencyProbe.attach(hiddenInput.getScene());
             metrics.start();
 
             if (currentLessonId != null) {
-                try { lessonDAO.markStarted(currentLessonId, currentUserId); } catch (Exception ex) { ex.printStackTrace(); }
+                LessonWriteQueue.shared().submitStarted(currentLessonId, currentUserId);
             }
             boolean timerExpired = metrics.timeRemainingProperty().get() <= 0;
 
@@ -349,42 +312,166 @@ public class LessonActivePageController {
         });
     }
 
-    private void ensureCursorVisible(Text cursorNode) {
-        // Keep the active caret quarter-screen from the edge to avoid sudden jumps.
-        if (cursorNode == null) return;
-        Platform.runLater(() -> {
-            Bounds viewportBounds = readingScroll.getViewportBounds();
-            Bounds contentBounds = readingStack.getBoundsInLocal();
-            Bounds cursorSceneBounds = cursorNode.localToScene(cursorNode.getBoundsInLocal());
-            Bounds contentSceneBounds = readingStack.localToScene(contentBounds);
-
-            double cursorY = cursorSceneBounds.getMinY() - contentSceneBounds.getMinY();
-            double cursorHeight = cursorSceneBounds.getHeight();
-            double viewportHeight = viewportBounds.getHeight();
-            double contentHeight = contentBounds.getHeight();
-
-            if (contentHeight <= viewportHeight) {
-                readingScroll.setVvalue(0);
-                return;
+    private EventHandler<KeyEvent> timed(EventHandler<KeyEvent> handler) {
+        // Stamp arrival before the handler runs so the probe sees the whole handling cost.
+        return e -> {
+            long arrived = System.nanoTime();
+            handler.handle(e);
+            if (e.isConsumed()) latencyProbe.keyHandled(arrived);
+        };
+    }
+
+    private java.util.List<String> weakPairsFor(int userId) {
+        // Prefer the decayed n-gram model, keeping a couple of slots for the slowest clean bigrams;
+        // users without journals fall back to the weak pair totals.
+        try {
+            java.util.List<String> ranked = NgramModelStore.cached(userId).weakest(2, NgramErrorModel.RANKED_LIMIT).stream()
+                    .filter(pair -> pair.indexOf(' ') < 0)
+                    .toList();
+            java.util.Set<String> pairs = new java.util.LinkedHashSet<>(
+                    ranked.subList(0, Math.min(ranked.size(), DRILL_PAIRS - SLOW_DRILL_PAIRS)));
+            KeyLatencyStore.load(userId).slowestPairs(DRILL_PAIRS).stream()
+                    .filter(pair -> pair.indexOf(' ') < 0 && !pairs.contains(pair))
+                    .limit(SLOW_DRILL_PAIRS)
+                    .forEach(pairs::add);
+            for (String pair : ranked) {
+                if (pairs.size() >= DRILL_PAIRS) break;
+                pairs.add(pair);
             }
+            if (!pairs.isEmpty()) return java.util.List.copyOf(pairs);
+            return lessonDAO.topWeakPairsForUserFromCompletedCustomLessons(userId, DRILL_PAIRS);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            return java.util.Collections.emptyList();
+        }
+    }
 
-            double minVisible = readingScroll.getVvalue() * (contentHeight - viewportHeight);
-            double maxVisible = minVisible + viewportHeight;
+    private void generatePassage(String prompt, Lesson lesson, int targetWords,
+                                 typingNinja.model.ai.OllamaTextService ollama,
+                                 typingNinja.model.ai.LocalSimpleTextService local) {
+        // Ollama first, then the local generator, then a stock prompt; the lesson starts on the FX thread.
+        java.util.concurrent.CompletableFuture
+                .supplyAsync(() -> {
+                    try {
+                        System.out.println("[AI] Trying Ollama (free/local). prompt='" + prompt + "' "
+                                + "flags: upper=" + lesson.isUpperCase()
+                                + " numbers=" + lesson.isNumbers()
+                                + " punct=" + lesson.isPunctuation()
+                                + " special=" + lesson.isSpecialChars());
+                        String t = ollama.generatePassage(
+                                prompt,
+                                targetWords,
+                                lesson.isUpperCase(),
+                                lesson.isNumbers(),
+                                lesson.isPunctuation(),
+                                lesson.isSpecialChars()
+                        );
+                        System.out.println("[AI] OllamaTextService SUCCESS");
+                        return t;
+                    } catch (Exception ex) {
+                        System.out.println("[AI] OllamaTextService FAILED → " + ex.getMessage());
+                        ex.printStackTrace();
+                        return null;
+                    }
+                })
+                .thenApply(text -> {
+                    if (text != null && !text.isBlank()) return text;
+                    System.out.println("[AI] Falling back to LocalSimpleTextService");
+                    try {
+                        return local.generatePassage(
+                                prompt,
+                                targetWords,
+                                lesson.isUpperCase(),
+                                lesson.isNumbers(),
+                                lesson.isPunctuation(),
+                                lesson.isSpecialChars()
+                        );
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                        return new typingNinja.model.lesson.CustomPrompts().current().text();
+                    }
+                })
+                .thenAccept(text -> {
+                    String finalPassage = (text == null || text.isBlank())
+                            ? new typingNinja.model.lesson.CustomPrompts().current().text()
+                            : text;
+                    Platform.runLater(() -> buildInputSectionAndStart(finalPassage));
+        });
+    }
 
-            double desiredTop = Math.max(0, cursorY - viewportHeight * 0.25);
-            double desiredBottom = cursorY + cursorHeight + viewportHeight * 0.25;
+    private void loadGhostReplay(String lessonType) {
+        // Fetch the personal best off the FX thread; the ghost joins whenever it arrives.
+        ghostReplay = null;
+        int userId = currentUserId;
+        java.util.concurrent.CompletableFuture
+                .supplyAsync(() -> {
+                    try {
+                        return KeystrokeJournalStore.loadPersonalBest(userId, lessonType);
+                    } catch (java.sql.SQLException e) {
+                        e.printStackTrace();
+                        return null;
+                    }
+                })
+                .thenAccept(journal -> {
+                    if (journal == null || journal.size() == 0) return;
+                    Platform.runLater(() -> {
+                        if (passageView == null || freeMode || hiddenInput.isDisabled()) return;
+                        ghostReplay = GhostReplay.of(journal);
+                        frames.request(FrameUpdater.GHOST);
+                    });
+                });
+    }
 
-            double newMin = minVisible;
+    private void advanceGhost() {
+        // Runs once per frame while the replay lasts, driven by the same clock as the lesson.
+        if (ghostReplay == null || passageView == null || metrics == null) return;
+        long now = metrics.elapsedNanos();
+        passageView.setGhost(ghostReplay.positionAt(now));
+        if (!ghostReplay.isFinished(now)) frames.request(FrameUpdater.GHOST);
+    }
 
-            if (cursorY < minVisible) {
-                newMin = desiredTop;
-            } else if (cursorY + cursorHeight > maxVisible) {
-                newMin = desiredBottom - viewportHeight;
-            }
+    private void ensureCursorVisible(Node cursorNode) {
+        // Remember the latest caret; the scroll itself runs at most once per frame.
+        if (cursorNode == null) return;
+        pendingCursor = cursorNode;
+        frames.request(FrameUpdater.SCROLL);
+    }
 
-            double vValue = newMin / (contentHeight - viewportHeight);
-            readingScroll.setVvalue(Math.max(0, Math.min(1, vValue)));
-        });
+    private void scrollCursorIntoView() {
+        // Keep the active caret quarter-screen from the edge to avoid sudden jumps.
+        Node cursorNode = pendingCursor;
+        if (cursorNode == null || cursorNode.getScene() == null) return;
+        Bounds viewportBounds = readingScroll.getViewportBounds();
+        Bounds contentBounds = readingStack.getBoundsInLocal();
+        Bounds cursorSceneBounds = cursorNode.localToScene(cursorNode.getBoundsInLocal());
+        Bounds contentSceneBounds = readingStack.localToScene(contentBounds);
+
+        double cursorY = cursorSceneBounds.getMinY() - contentSceneBounds.getMinY();
+        double cursorHeight = cursorSceneBounds.getHeight();
+        double viewportHeight = viewportBounds.getHeight();
+        double contentHeight = contentBounds.getHeight();
+
+        if (contentHeight <= viewportHeight) {
+            readingScroll.setVvalue(0);
+            return;
+        }
+
+        double minVisible = readingScroll.getVvalue() * (contentHeight - viewportHeight);
+        double maxVisible = minVisible + viewportHeight;
+
+        double desiredTop = Math.max(0, cursorY - viewportHeight * 0.25);
+        double desiredBottom = cursorY + cursorHeight + viewportHeight * 0.25;
+
+        double newMin = minVisible;
+
+        if (cursorY < minVisible) {
+            newMin = desiredTop;
+        } else if (cursorY + cursorHeight > maxVisible) {
+            newMin = desiredBottom - viewportHeight;
+        }
+
+        double vValue = newMin / (contentHeight - viewportHeight);
+        readingScroll.setVvalue(Math.max(0, Math.min(1, vValue)));
     }
 
     private void showLoadingPlaceholder() {
@@ -479,6 +566,9 @@ public class LessonActivePageController {
      */
     private void initialize() {
         // Bootstraps UI bindings, pulls the latest lesson selection, and launches the timer.
+        frames.on(FrameUpdater.STATS, () -> { if (metrics != null) metrics.publish(); });
+        frames.on(FrameUpdater.SCROLL, this::scrollCursorIntoView);
+        frames.on(FrameUpdater.GHOST, this::advanceGhost);
         promptFlow.setMinWidth(0);
         promptFlow.setMaxWidth(Double.MAX_VALUE);
         userFlow.setMinWidth(0);
@@ -498,6 +588,7 @@ public class LessonActivePageController {
         metrics.setCharsPerWord(DEFAULT_CHARS_PER_WORD);
         metrics.bindTimerLabel(timerLabel);
         metrics.bindStats(wpmLabel, errorsLabel, accuracyLabel);
+        metrics.deferPublishing(() -> frames.request(FrameUpdater.STATS));
         attachMetricsErrorSoundListener();
         rebuildPauseMenu();
 
@@ -511,19 +602,28 @@ public class LessonActivePageController {
         hidePrompt();
 
         currentUserId = Session.getCurrentUserId();
-        SettingsRecord settings = settingsDAO.fetch(currentUserId);
-        strictModePreferred = settings.typingErrors;
-        lessonCompleteSoundEnabled = settings.lessonCompleteSound;
-        keyboardSoundsEnabled = settings.keyboardSounds;
-        typingErrorSoundsEnabled = settings.typingErrorSounds;
-        initSoundClips();
+        settings = SettingsCache.forUser(currentUserId);
+        settings.typingErrorsProperty().addListener(new javafx.beans.value.WeakChangeListener<>(strictModeListener));
+        initSounds();
+        latencyProbe = new LatencyProbe(latencyOverlay);
         if (hiddenInput != null) {
             hiddenInput.addEventFilter(KeyEvent.KEY_TYPED, e -> playTypingKeySound());
+            hiddenInput.addEventFilter(KeyEvent.KEY_PRESSED, e -> {
+                if (e.getCode() == KeyCode.F3) {
+                    latencyProbe.toggleOverlay();
+                    e.consume();
+                }
+            });
         }
 
         readingScroll.setFitToWidth(true);
         readingScroll.setPannable(false);
         readingScroll.setHbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
+        readingScroll.vvalueProperty().addListener((obs, oldV, newV) -> {
+            if (freeMode && freeTypingInput != null && newV.doubleValue() <= 0 && oldV.doubleValue() > 0) {
+                freeTypingInput.revealEarlier();
+            }
+        });
         readingScroll.viewportBoundsProperty().addListener((obs, oldBounds, newBounds) -> {
             double width = Math.max(newBounds.getWidth() - 24, 0);
             promptFlow.setPrefWidth(width);
@@ -565,6 +665,7 @@ public class LessonActivePageController {
             metrics.setCharsPerWord(DEFAULT_CHARS_PER_WORD);
             metrics.bindTimerLabel(timerLabel);
             metrics.bindStats(wpmLabel, errorsLabel, accuracyLabel);
+            metrics.deferPublishing(() -> frames.request(FrameUpdater.STATS));
             attachMetricsErrorSoundListener();
             progressFeature = new typingNinja.controllers.lesson.ProgressBar(timeProgress);
             progressFeature.bindTo(metrics.timeRemainingProperty(), metrics.lessonSeconds());
@@ -600,84 +701,43 @@ public class LessonActivePageController {
                 } catch (Exception ignored) {}
                 int targetWords = Math.max(60, latest.getDurationMinutes() * wpmTarget);
 
-                String promptToSend = latest.getPrompt();
-                if ("PracticeWeakKeyCombos".equalsIgnoreCase(promptToSend)) {
-                    java.util.List<String> pairs = java.util.Collections.emptyList();
-                    try {
-                        pairs = lessonDAO.topWeakPairsForUserFromCompletedCustomLessons(currentUserId, 7);
-                    } catch (Exception ex) {
-                        ex.printStackTrace();
-                    }
-                    String joined = String.join(" ", pairs);
-                    StringBuilder sb = new StringBuilder();
-                    sb.append("PracticeWeakKeyCombos MODE.\n");
-                    if (!pairs.isEmpty()) {
-                        sb.append("You must incorporate these EXACT bigrams (case-sensitive, no spaces inside each bigram): ")
-                                .append(joined).append(".\n");
-                        sb.append("Write normal English sentences with clear grammar and readable vocabulary. ");
-                        sb.append("Embed each bigram inside ordinary words or right next to punctuation where natural ");
-                        sb.append("(e.g., Ab → Abbot/Abberfeld; c. → logic.). ");
-                        sb.append("Avoid alphabet drills or sequences like 'Ab Cd Ef'.\n");
-                        sb.append("Target density: include EACH listed bigram approximately ONCE every 10 words across the passage. ");
-                        sb.append("Keep characters in each bigram contiguous and preserve their original case.\n");
-                    } else {
-                        sb.append("No prior bigrams found; write clear, grammatical English sentences with varied vocabulary.\n");
-                    }
-                    sb.append("Return ONLY the passage text (no headings, quotes, or labels).");
-                    promptToSend = sb.toString();
-                    System.out.println("[AI] PracticeWeakKeyCombos pairs for user " + currentUserId + ": " + joined);
-                }
-                final String promptToUse = promptToSend;
                 Lesson finalLatest = latest;
-
-                java.util.concurrent.CompletableFuture
-                        .supplyAsync(() -> {
-                            try {
-                                System.out.println("[AI] Trying Ollama (free/local). prompt='" + promptToUse + "' "
-                                        + "flags: upper=" + finalLatest.isUpperCase()
-                                        + " numbers=" + finalLatest.isNumbers()
-                                        + " punct=" + finalLatest.isPunctuation()
-                                        + " special=" + finalLatest.isSpecialChars());
-                                String t = ollama.generatePassage(
-                                        promptToUse,
-                                        targetWords,
-                                        finalLatest.isUpperCase(),
-                                        finalLatest.isNumbers(),
-                                        finalLatest.isPunctuation(),
-                                        finalLatest.isSpecialChars()
-                                );
-                                System.out.println("[AI] OllamaTextService SUCCESS");
-                                return t;
-                            } catch (Exception ex) {
-                                System.out.println("[AI] OllamaTextService FAILED → " + ex.getMessage());
-                                ex.printStackTrace();
-                                return null;
-                            }
-                        })
-                        .thenApply(text -> {
-                            if (text != null && !text.isBlank()) return text;
-                            System.out.println("[AI] Falling back to LocalSimpleTextService");
-                            try {
-                                return local.generatePassage(
-                                        promptToUse,
-                                        targetWords,
-                                        finalLatest.isUpperCase(),
-                                        finalLatest.isNumbers(),
-                                        finalLatest.isPunctuation(),
-                                        finalLatest.isSpecialChars()
-                                );
-                            } catch (Exception e) {
-                                e.printStackTrace();
-                                return new typingNinja.model.lesson.CustomPrompts().current().text();
-                            }
-                        })
-                        .thenAccept(text -> {
-                            String finalPassage = (text == null || text.isBlank())
-                                    ? new typingNinja.model.lesson.CustomPrompts().current().text()
-                                    : text;
-                            Platform.runLater(() -> buildInputSectionAndStart(finalPassage));
-                });
-
+                if ("PracticeWeakKeyCombos".equalsIgnoreCase(latest.getPrompt())) {
+                    // The user's models are read off the FX thread; the drill itself takes milliseconds.
+                    int userId = currentUserId;
+                    java.util.concurrent.CompletableFuture
+                            .supplyAsync(() -> weakPairsFor(userId))
+                            .thenAccept(pairs -> {
+                                // The bundled corpus answers instantly and offline; the model is only asked when it has nothing.
+                                String drill = typingNinja.model.ai.BigramDrillService.shared().generateDrill(pairs, targetWords,
+                                        finalLatest.isUpperCase(), finalLatest.isNumbers(),
+                                        finalLatest.isPunctuation(), finalLatest.isSpecialChars());
+                                if (drill != null) {
+                                    Platform.runLater(() -> buildInputSectionAndStart(drill));
+                                    return;
+                                }
+                                String joined = String.join(" ", pairs);
+                                StringBuilder sb = new StringBuilder();
+                                sb.append("PracticeWeakKeyCombos MODE.\n");
+                                if (!pairs.isEmpty()) {
+                                    sb.append("You must incorporate these EXACT bigrams (case-sensitive, no spaces inside each bigram): ")
+                                            .append(joined).append(".\n");
+                                    sb.append("Write normal English sentences with clear grammar and readable vocabulary. ");
+                                    sb.append("Embed each bigram inside ordinary words or right next to punctuation where natural ");
+                                    sb.append("(e.g., Ab → Abbot/Abberfeld; c. → logic.). ");
+                                    sb.append("Avoid alphabet drills or sequences like 'Ab Cd Ef'.\n");
+                                    sb.append("Target density: include EACH listed bigram approximately ONCE every 10 words across the passage. ");
+                                    sb.append("Keep characters in each bigram contiguous and preserve their original case.\n");
+                                } else {
+                                    sb.append("No prior bigrams found; write clear, grammatical English sentences with varied vocabulary.\n");
+                                }
+                                sb.append("Return ONLY the passage text (no headings, quotes, or labels).");
+                                System.out.println("[AI] PracticeWeakKeyCombos pairs for user " + userId + ": " + joined);
+                                generatePassage(sb.toString(), finalLatest, targetWords, ollama, local);
+                            });
+                } else {
+                    generatePassage(latest.getPrompt(), finalLatest, targetWords, ollama, local);
+                }
             }
             else {
                 freeMode = false;
@@ -686,6 +746,7 @@ public class LessonActivePageController {
                 hidePrompt();
                 String fixed = typingNinja.model.lesson.FixedLessons.passageFor(lt);
                 buildInputSectionAndStart(fixed);
+                loadGhostReplay(lt);
             }
         }
 
@@ -702,6 +763,8 @@ public class LessonActivePageController {
         readingStack.setPadding(new Insets(16, 16, 8, 16));
 
         metrics.onLessonEnd(() -> {
+            frames.cancel();
+            latencyProbe.detach();
             if (freeMode) {
                 hiddenInput.setDisable(true);
             } else if (inputSection != null) {
@@ -723,27 +786,20 @@ public class LessonActivePageController {
             System.out.println(weakKeyTracker.debugDump());
             System.out.println("Top-5 pairs stored to DB: " + weakPairs);
             System.out.println("--------------------------------\n");
+            KeystrokeJournal journal = freeMode
+                    ? (freeTypingInput != null ? freeTypingInput.journal() : null)
+                    : (inputSection != null ? inputSection.journal() : null);
 
             boolean completed = false;
             boolean showResults = false;
             boolean timerExpired = (!freeMode) && metrics.timeRemainingProperty().get() <= 0;
 
             if (!freeMode && inputSection != null) {
-                int passageLen = inputSection.getPassageLength();
-                int correctPos = inputSection.getCorrectPositions();
-                double percentCorrectOfPassage = passageLen > 0 ? (correctPos * 100.0 / passageLen) : 0.0;
-
                 if (timerExpired) {
                     completed = true;
                     showResults = true;
                 } else if (finishedByTyping) {
-                    boolean perfect = (errorCount == 0 && correctPos == passageLen);
-                    boolean passWithErrors = (percentCorrectOfPassage > 40.0 && accuracyVal >= 40.0);
-
-                    if (perfect) {
-                        completed = true;
-                        showResults = true;
-                    } else if (passWithErrors) {
+                    if (inputSection.session().passes()) {
                         completed = true;
                         showResults = true;
                     } else {
@@ -755,18 +811,19 @@ public class LessonActivePageController {
                 showResults = true;
             }
 
+            // The results screen reads the saved row, so it opens only once the completion has committed.
+            java.util.concurrent.CompletableFuture<Void> saved = java.util.concurrent.CompletableFuture.completedFuture(null);
             if (completed && currentLessonId != null) {
-                try {
-                    lessonDAO.markCompleted(
-                            currentLessonId,
-                            currentUserId,
-                            star,
-                            wpmVal,
-                            accuracyVal,
-                            errorCount,
-                            weakPairs
-                    );
-                } catch (Exception ex) { ex.printStackTrace(); }
+                saved = LessonWriteQueue.shared().submitCompleted(
+                        currentLessonId,
+                        currentUserId,
+                        star,
+                        wpmVal,
+                        accuracyVal,
+                        errorCount,
+                        weakPairs,
+                        journal
+                );
             }
 
             var totalsChar = weakKeyTracker.totalsAllKeys();
@@ -775,16 +832,21 @@ public class LessonActivePageController {
                 totalsStr.put(String.valueOf(Character.toUpperCase(e.getKey())), e.getValue());
             }
             typingNinja.model.auth.Session.setLatestTotals(totalsStr);
+            typingNinja.model.auth.Session.setLatestSpeed(
+                    metrics.speedSeries(), metrics.getPeakWpm(), metrics.getBurstWpm());
+            typingNinja.model.auth.Session.setLatestLatency(
+                    latencyProbe.histogram().count() > 0 ? latencyProbe.summary() : null);
 
             boolean finalCompleted = completed;
             boolean finalTimedOut = timerExpired;
             boolean finalShowResults = showResults;
-            Platform.runLater(() -> {
+            saved.whenComplete((v, ex) -> Platform.runLater(() -> {
+                if (ex != null) ex.printStackTrace();
                 if (finalShowResults) {
                     playCompletionSoundIfEnabled();
                     openResultsView();
                 }
-            });
+            }));
         });
     }
 }
@@ -1,16 +1,24 @@
 package typingNinja.controllers;
 
+import typingNinja.model.LessonCsvExporter;
+import typingNinja.model.LessonHistoryCache;
 import typingNinja.model.SessionManager;
-import typingNinja.model.SqliteContactDAO;
 import typingNinja.view.MainMenu;
+import typingNinja.view.widgets.Stars;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.chart.LineChart;
 import javafx.scene.chart.XYChart;
+import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.HBox;
-import javafx.scene.layout.VBox;
 import javafx.scene.image.ImageView;
-import javafx.scene.image.Image;
 import javafx.scene.control.Button;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -21,14 +29,12 @@ import javafx.scene.image.WritableImage;
 import javafx.scene.control.Alert;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.PrintWriter;
-import java.io.FileWriter;
-import java.sql.*;
+import java.time.LocalDate;
 import javafx.embed.swing.SwingFXUtils;
 
 public class LessonHistoryController {
 
-    @FXML private VBox lessonList;
+    @FXML private ListView<LessonHistoryCache.Row> lessonList;
     @FXML private LineChart<String, Number> lineChart;
     @FXML private Label personalBestLabel;
     @FXML private Button backBtn;
@@ -37,10 +43,19 @@ public class LessonHistoryController {
     @FXML private Label settingsLabel;
     @FXML private Button exportCsvBtn;
     @FXML private Button exportPdfBtn;
+    @FXML private DatePicker exportFromDate;
+    @FXML private DatePicker exportToDate;
+    @FXML private ProgressBar exportProgress;
+
+    private static final int PREFETCH_ROWS = 10;
+    private static final double HISTORY_CELL_HEIGHT = 48;
 
     private boolean returnToProfile = false;
-    private final Connection conn = typingNinja.model.SqliteConnection.getInstance();
-    private final SqliteContactDAO dao = new SqliteContactDAO();
+    private final ObservableList<LessonHistoryCache.Row> historyRows = FXCollections.observableArrayList();
+    private LessonHistoryCache.Cursor nextCursor;
+    private boolean exhausted;
+    private boolean pageLoading;
+    private Task<Long> csvExport;
 
     public void setReturnToProfile(boolean value) {
         this.returnToProfile = value;
@@ -68,98 +83,109 @@ public class LessonHistoryController {
     }
 
     private void loadLessonList(int userId) {
-        lessonList.getChildren().clear();
-
-        String sql = "SELECT LessonID, WPM, StarRating, DateStarted FROM Lesson WHERE UserID = ? ORDER BY DateStarted DESC";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, userId);
-            ResultSet rs = ps.executeQuery();
-
-            while (rs.next()) {
-                double wpm = rs.getDouble("WPM");
-                double stars = rs.getDouble("StarRating");
-                String date = rs.getString("DateStarted");
-
-                HBox row = new HBox(20);
-                row.setStyle("-fx-background-color: #1C0A40; -fx-padding: 10; -fx-background-radius: 8;");
-                row.getChildren().add(new Label("WPM: " + wpm));
-                row.getChildren().add(new Label(date));
-
-                HBox starsBox = new HBox(5);
-                for (int i = 0; i < 5; i++) {
-                    Image img = new Image(
-                            getClass().getResourceAsStream(
-                                    i < stars
-                                            ? "/images/star_on.png"
-                                            : "/images/star_off.png"
-                            )
-                    );
-                    ImageView iv = new ImageView(img);
-                    iv.setFitWidth(18);
-                    iv.setFitHeight(18);
-                    starsBox.getChildren().add(iv);
-                }
-                row.getChildren().add(starsBox);
-
-                lessonList.getChildren().add(row);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        // Rows are fetched a page at a time; cells are recycled by the ListView as it scrolls.
+        historyRows.clear();
+        nextCursor = null;
+        exhausted = false;
+        pageLoading = false;
+        lessonList.setItems(historyRows);
+        lessonList.setFixedCellSize(HISTORY_CELL_HEIGHT);
+        lessonList.setCellFactory(lv -> new HistoryCell());
+        loadNextPage(userId);
+    }
+
+    private void loadNextPage(int userId) {
+        // At most one page request in flight; pages continue from the last row shown, so lessons
+        // completed while the list is open neither repeat nor push rows past the cursor.
+        if (pageLoading || exhausted) return;
+        pageLoading = true;
+        LessonHistoryCache.Cursor after = nextCursor;
+        LessonHistoryCache.preload(userId)
+                .thenApply(history -> history.historyPage(after, LessonHistoryCache.PAGE_SIZE))
+                .whenComplete((page, ex) -> Platform.runLater(() -> {
+                    pageLoading = false;
+                    if (ex != null) {
+                        lessonList.setPlaceholder(new Label("Could not load lessons."));
+                        return;
+                    }
+                    historyRows.addAll(page.rows());
+                    nextCursor = page.next();
+                    exhausted = page.next() == null;
+                    if (historyRows.isEmpty()) {
+                        lessonList.setPlaceholder(new Label("No lessons yet."));
+                    }
+                }));
     }
 
     private void plotLessonTrend(int userId) {
+        // Only the most recent lessons are plotted, taken from the cached history.
         lineChart.getData().clear();
+        LessonHistoryCache.preload(userId)
+                .thenApply(history -> history.recentTrend(LessonHistoryCache.TREND_POINTS))
+                .thenAccept(rows -> Platform.runLater(() -> {
+                    XYChart.Series<String, Number> series = new XYChart.Series<>();
+                    series.setName("Typing Speed (WPM)");
+                    for (LessonHistoryCache.Row row : rows) {
+                        series.getData().add(new XYChart.Data<>(row.dateStarted(), row.wpm()));
+                    }
+                    lineChart.getData().add(series);
+                }));
+    }
 
-        String sql = "SELECT DateStarted, WPM FROM Lesson WHERE UserID = ? ORDER BY DateStarted";
-        XYChart.Series<String, Number> series = new XYChart.Series<>();
-        series.setName("Typing Speed (WPM)");
-
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, userId);
-            ResultSet rs = ps.executeQuery();
+    private void loadPersonalBest(int userId) {
+        // The best lesson is one pass over the cached WPM column.
+        LessonHistoryCache.preload(userId).thenApply(history -> {
+            LessonHistoryCache.Entry best = history.personalBest();
+            if (best == null) return "No personal best data available.";
+            String formattedAccuracy = String.format("%.0f%%", best.accuracy());
+            return String.format(
+                    "Personal Best Full Keyboard Result: %d WPM at %s accuracy (achieved %s)",
+                    (int) best.wpm(), formattedAccuracy, best.dateStarted()
+            );
+        }).thenAccept(text -> Platform.runLater(() -> personalBestLabel.setText(text)));
+    }
 
-            while (rs.next()) {
-                String date = rs.getString("DateStarted");
-                double wpm = rs.getDouble("WPM");
-                series.getData().add(new XYChart.Data<>(date, wpm));
+    /**
+     * One recycled history row: the labels and star views are built once per cell and only
+     * their text and (shared) images change as the cell is reused.
+     */
+    private final class HistoryCell extends ListCell<LessonHistoryCache.Row> {
+        private final Label wpmLabel = new Label();
+        private final Label dateLabel = new Label();
+        private final ImageView[] stars = new ImageView[5];
+        private final HBox row = new HBox(20);
+
+        HistoryCell() {
+            row.setStyle("-fx-background-color: #1C0A40; -fx-padding: 10; -fx-background-radius: 8;");
+            HBox starsBox = new HBox(5);
+            for (int i = 0; i < stars.length; i++) {
+                stars[i] = new ImageView();
+                stars[i].setFitWidth(18);
+                stars[i].setFitHeight(18);
+                starsBox.getChildren().add(stars[i]);
             }
-        } catch (Exception e) {
-            e.printStackTrace();
+            row.getChildren().addAll(wpmLabel, dateLabel, starsBox);
+            setStyle("-fx-background-color: transparent; -fx-padding: 0 0 10 0;");
         }
 
-        lineChart.getData().add(series);
-    }
+        @Override
+        protected void updateItem(LessonHistoryCache.Row item, boolean empty) {
+            super.updateItem(item, empty);
+            if (empty || item == null) {
+                setGraphic(null);
+                return;
+            }
+            wpmLabel.setText("WPM: " + item.wpm());
+            dateLabel.setText(item.dateStarted());
+            for (int i = 0; i < stars.length; i++) {
+                stars[i].setImage(i < item.starRating() ? Stars.onImage() : Stars.offImage());
+            }
+            setGraphic(row);
 
-    private void loadPersonalBest(int userId) {
-        String sql = """
-            SELECT WPM, Accuracy, DateStarted
-            FROM Lesson
-            WHERE UserID = ?
-            ORDER BY WPM DESC
-            LIMIT 1
-        """;
-
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, userId);
-            ResultSet rs = ps.executeQuery();
-
-            if (rs.next()) {
-                int wpm = rs.getInt("WPM");
-                double acc = rs.getDouble("Accuracy");
-                String date = rs.getString("DateStarted");
-
-                String formattedAccuracy = String.format("%.0f%%", acc);
-                personalBestLabel.setText(String.format(
-                        "Personal Best Full Keyboard Result: %d WPM at %s accuracy (achieved %s)",
-                        wpm, formattedAccuracy, date
-                ));
-            } else {
-                personalBestLabel.setText("No personal best data available.");
+            // Ask for the next page once the viewport nears the end of what is loaded.
+            if (getIndex() >= historyRows.size() - PREFETCH_ROWS) {
+                loadNextPage(SessionManager.getCurrentUserId());
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            personalBestLabel.setText("Error loading personal best.");
         }
     }
 
@@ -214,38 +240,71 @@ public class LessonHistoryController {
     }
 
     private void exportToCsv() {
-        String sql = "SELECT LessonID, WPM, Accuracy, StarRating, DateStarted FROM Lesson WHERE UserID = ?";
+        // A second click while an export is running cancels it.
+        if (csvExport != null && csvExport.isRunning()) {
+            csvExport.cancel();
+            return;
+        }
         int userId = SessionManager.getCurrentUserId();
+        LocalDate from = exportFromDate.getValue();
+        LocalDate to = exportToDate.getValue();
+        if (from != null && to != null && from.isAfter(to)) {
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.setHeaderText("Invalid Date Range");
+            alert.setContentText("The start date must not be after the end date.");
+            alert.showAndWait();
+            return;
+        }
+
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Save Lesson History as CSV");
         fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
-        File file = fileChooser.showSaveDialog(null);
+        File file = fileChooser.showSaveDialog(exportCsvBtn.getScene().getWindow());
         if (file == null) return;
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
-            writer.println("LessonID,WPM,Accuracy,Stars,DateStarted");
-
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setInt(1, userId);
-                ResultSet rs = ps.executeQuery();
-
-                while (rs.next()) {
-                    writer.printf("%d,%.0f,%.1f,%d,%s%n",
-                            rs.getInt("LessonID"),
-                            rs.getDouble("WPM"),
-                            rs.getDouble("Accuracy"),
-                            rs.getInt("StarRating"),
-                            rs.getString("DateStarted"));
-                }
+        LessonCsvExporter exporter = new LessonCsvExporter();
+        Task<Long> task = new Task<>() {
+            @Override
+            protected Long call() throws Exception {
+                return exporter.export(userId, from, to, file.toPath(),
+                        (written, total) -> updateProgress(written, Math.max(total, 1)),
+                        this::isCancelled);
             }
+        };
+        csvExport = task;
 
+        exportProgress.progressProperty().bind(task.progressProperty());
+        exportProgress.setVisible(true);
+        exportCsvBtn.setText("Cancel Export");
+
+        task.setOnSucceeded(e -> {
+            finishCsvExport();
             Alert alert = new Alert(Alert.AlertType.INFORMATION);
             alert.setHeaderText("Export Successful");
-            alert.setContentText("Lesson history exported to:\n" + file.getAbsolutePath());
+            alert.setContentText(task.getValue() + " lessons exported to:\n" + file.getAbsolutePath());
             alert.showAndWait();
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        });
+        task.setOnCancelled(e -> finishCsvExport());
+        task.setOnFailed(e -> {
+            finishCsvExport();
+            task.getException().printStackTrace();
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setHeaderText("Export Failed");
+            alert.setContentText(String.valueOf(task.getException().getMessage()));
+            alert.showAndWait();
+        });
+
+        Thread worker = new Thread(task, "csv-export");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void finishCsvExport() {
+        // Put the button and progress bar back the way they were before the export.
+        exportProgress.progressProperty().unbind();
+        exportProgress.setVisible(false);
+        exportCsvBtn.setText("Export to CSV");
+        csvExport = null;
     }
 
     private void exportToPdf() {
@@ -2,8 +2,10 @@ package typingNinja.controllers;
 
 import typingNinja.model.INinjaContactDAO;
 import typingNinja.model.SqliteContactDAO;
+import typingNinja.model.LessonHistoryCache;
 import typingNinja.model.NinjaUser;
 import typingNinja.model.SessionManager;
+import typingNinja.model.SettingsCache;
 import typingNinja.model.auth.Session;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
@@ -80,6 +82,8 @@ public class LoginController {
 
         SessionManager.setUser(ninja.getId(), ninja.getUserName());
         SessionManager.setCurrentPassword(password);
+        SettingsCache.load(ninja.getId());
+        LessonHistoryCache.preload(ninja.getId());
 
         //close popup after login
         if (usernameField != null && usernameField.getScene() != null) {
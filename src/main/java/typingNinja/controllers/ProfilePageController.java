@@ -1,7 +1,10 @@
 package typingNinja.controllers;
 
+import typingNinja.model.LessonHistoryCache;
 import typingNinja.model.SessionManager;
 import typingNinja.model.SqliteContactDAO;
+import typingNinja.model.StatisticsRollup;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
@@ -12,8 +15,12 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import typingNinja.util.SceneNavigator;
+import typingNinja.view.widgets.Stars;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class ProfilePageController {
 
@@ -47,6 +54,12 @@ public class ProfilePageController {
     @FXML private Label mainMenuLabel;
     @FXML private Label settingsLabel;
 
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "profile-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
     private final SqliteContactDAO dao = new SqliteContactDAO();
     private int userId = -1;
     private boolean initialized = false;
@@ -82,9 +95,16 @@ public class ProfilePageController {
     private void ensureDataAndRefresh() {
         String name = SessionManager.getCurrentUsername();
         if (name != null && !name.isBlank()) usernameLabel.setText(name);
-        dao.safeInitUserData(userId);
-        dao.recalcUserStatistics(userId);
-        loadStats();
+        // The rollup may rebuild or wait behind a lesson batch, so it never runs on the FX thread.
+        int id = userId;
+        CompletableFuture.runAsync(() -> {
+                    dao.safeInitUserData(id);
+                    dao.refreshStatistics(id);
+                }, LOADER)
+                .whenComplete((v, ex) -> {
+                    if (ex != null) ex.printStackTrace();
+                    loadStats(id);
+                });
     }
 
     private enum GoalField { HOURS, WPM, ACCURACY }
@@ -109,7 +129,7 @@ public class ProfilePageController {
                 case WPM      -> dao.updateGoals(userId, null, val, null);
                 case ACCURACY -> dao.updateGoals(userId, null, null, val);
             }
-            loadStats();
+            loadStats(userId);
         });
     }
 
@@ -120,38 +140,46 @@ public class ProfilePageController {
     private String withPct(String v) { return nz(v) + "%";  }
     private String stripUnits(String v) { return v == null ? "" : v.replaceAll("[^0-9-]", ""); }
 
-    private void loadStats() {
-        SqliteContactDAO.ProfileStats s = dao.getUserGoalsAndStats(userId);
-        if (s == null) return;
+    private void loadStats(int id) {
+        // Goals and the weekly window stay in SQLite and are read on the loader, queued behind any refresh.
+        CompletableFuture.supplyAsync(() -> dao.getUserGoalsAndStats(id), LOADER)
+                .whenComplete((s, ex) -> Platform.runLater(() -> {
+                    if (ex != null) { ex.printStackTrace(); return; }
+                    if (s == null) return;
 
-        hoursGoalLabel.setText(nz(s.getEstHours()));
-        hoursActualLabel.setText(nz(s.getTimeActiveWeek()));
+                    hoursGoalLabel.setText(nz(s.getEstHours()));
+                    hoursActualLabel.setText(nz(s.getTimeActiveWeek()));
 
-        wpmGoalLabel.setText(withWpm(s.getEstWPM()));
-        wpmActualLabel.setText(withWpm(s.getTotalWPMWeek()));
+                    wpmGoalLabel.setText(withWpm(s.getEstWPM()));
+                    wpmActualLabel.setText(withWpm(s.getTotalWPMWeek()));
 
-        accGoalLabel.setText(withPct(s.getEstAccuracy()));
-        accActualLabel.setText(withPct(s.getTotalAccuracyWeek()));
+                    accGoalLabel.setText(withPct(s.getEstAccuracy()));
+                    accActualLabel.setText(withPct(s.getTotalAccuracyWeek()));
+                }));
 
-        starsValueLabel.setText(nz(s.getTotalStars()));
+        // Lifetime totals come from the history cached at login.
+        LessonHistoryCache.preload(id)
+                .thenApply(LessonHistoryCache::summary)
+                .thenAccept(h -> Platform.runLater(() -> {
+                    starsValueLabel.setText(String.valueOf(h.totalStars()));
 
-        beltLabel.setText("Belt: " + nz(s.getBelt()));
-        lessonsLabel.setText("Lessons completed: " + nz(s.getTotalLessons()));
-        avgWpmLabel.setText("Average WPM: " + nz(s.getAvgWPM()));
+                    beltLabel.setText("Belt: " + StatisticsRollup.beltFor(h.totalStars()));
+                    lessonsLabel.setText("Lessons completed: " + h.lessons());
+                    avgWpmLabel.setText("Average WPM: " + Math.round(h.avgWpm()));
 
-        fillRatingWithShuriken(highestRatingBox, parseDoubleSafe(s.getHighestRating()));
-        fillRatingWithShuriken(avgRatingBox,     parseDoubleSafe(s.getAvgRating()));
+                    fillRatingWithShuriken(highestRatingBox, h.highestRating());
+                    fillRatingWithShuriken(avgRatingBox,     h.avgRating());
+                }));
     }
 
-    private double parseDoubleSafe(String s) { try { return Double.parseDouble(s); } catch (Exception e) { return 0.0; } }
 
     private void fillRatingWithShuriken(HBox box, double rating) {
         box.getChildren().clear();
 
         int full = (int) Math.floor(Math.max(0, Math.min(5, rating)));
 
-        Image gold = new Image(getClass().getResource("/images/star_on.png").toExternalForm());
-        Image gray = new Image(getClass().getResource("/images/star_off.png").toExternalForm());
+        Image gold = Stars.onImage();
+        Image gray = Stars.offImage();
 
         for (int i = 0; i < 5; i++) {
             Image img = (i < full ? gold : gray);
@@ -176,8 +204,7 @@ public class ProfilePageController {
 
             String name = SessionManager.getCurrentUsername();
             if (name != null && !name.isBlank()) usernameLabel.setText(name);
-            dao.recalcUserStatistics(userId);
-            loadStats();
+            loadStats(userId);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
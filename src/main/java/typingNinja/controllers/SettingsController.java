@@ -1,7 +1,8 @@
 package typingNinja.controllers;
 
 import javafx.scene.Scene;
-import typingNinja.model.SettingsDAO;
+import typingNinja.model.SettingsCache;
+import typingNinja.model.auth.Session;
 import typingNinja.view.MainMenu;
 import javafx.fxml.FXML;
 import javafx.scene.Node;
@@ -40,9 +41,7 @@ public class SettingsController {
 
     private static final double BASE_WIDTH = 1920.0;
     private static final double BASE_HEIGHT = 1080.0;
-    private static final int USER_ID = 1;
 
-    private final SettingsDAO dao = new SettingsDAO();
     private boolean binding = false;
 
     /**
@@ -69,24 +68,25 @@ public class SettingsController {
         asButton(navMainMenu, this::goMainMenu);
         asButton(navProfile, () -> switchTo("/typingNinja/ProfilePage.fxml", "Profile - Typing Ninja"));
 
-        var rec = dao.fetch(USER_ID);
+        // Settings come from the login-time cache; writes go back to the database in the background
+        SettingsCache rec = SettingsCache.forUser(Session.getCurrentUserId());
         binding = true;
-        selectIfPresent(cmbLanguage, rec.displayLanguage);
-        selectIfPresent(cmbTheme, rec.theme);
-        selectIfPresent(cmbFontSize, rec.fontSize);
-        chkKeyboardSounds.setSelected(rec.keyboardSounds);
-        chkStopOnErrors.setSelected(rec.typingErrors);
-        chkErrorBuzzer.setSelected(rec.typingErrorSounds);
-        chkCelebration.setSelected(rec.lessonCompleteSound);
+        selectIfPresent(cmbLanguage, rec.displayLanguageProperty().get());
+        selectIfPresent(cmbTheme, rec.themeProperty().get());
+        selectIfPresent(cmbFontSize, rec.fontSizeProperty().get());
+        chkKeyboardSounds.setSelected(rec.isKeyboardSounds());
+        chkStopOnErrors.setSelected(rec.isTypingErrors());
+        chkErrorBuzzer.setSelected(rec.isTypingErrorSounds());
+        chkCelebration.setSelected(rec.isLessonCompleteSound());
         binding = false;
 
-        cmbLanguage.valueProperty().addListener((o, ov, nv) -> { if (!binding && nv != null) dao.update(USER_ID, "DisplayLanguage", nv); });
-        cmbTheme.valueProperty().addListener((o, ov, nv) -> { if (!binding && nv != null) dao.update(USER_ID, "Theme", nv); });
-        cmbFontSize.valueProperty().addListener((o, ov, nv) -> { if (!binding && nv != null) dao.update(USER_ID, "FontSize", nv); });
-        chkKeyboardSounds.selectedProperty().addListener((o, ov, nv) -> { if (!binding) dao.update(USER_ID, "KeyboardSounds", nv); });
-        chkStopOnErrors.selectedProperty().addListener((o, ov, nv) -> { if (!binding) dao.update(USER_ID, "TypingErrors", nv); });
-        chkErrorBuzzer.selectedProperty().addListener((o, ov, nv) -> { if (!binding) dao.update(USER_ID, "TypingErrorSounds", nv); });
-        chkCelebration.selectedProperty().addListener((o, ov, nv) -> { if (!binding) dao.update(USER_ID, "LessonCompleteSound", nv); });
+        cmbLanguage.valueProperty().addListener((o, ov, nv) -> { if (!binding && nv != null) rec.displayLanguageProperty().set(nv); });
+        cmbTheme.valueProperty().addListener((o, ov, nv) -> { if (!binding && nv != null) rec.themeProperty().set(nv); });
+        cmbFontSize.valueProperty().addListener((o, ov, nv) -> { if (!binding && nv != null) rec.fontSizeProperty().set(nv); });
+        chkKeyboardSounds.selectedProperty().addListener((o, ov, nv) -> { if (!binding) rec.keyboardSoundsProperty().set(nv); });
+        chkStopOnErrors.selectedProperty().addListener((o, ov, nv) -> { if (!binding) rec.typingErrorsProperty().set(nv); });
+        chkErrorBuzzer.selectedProperty().addListener((o, ov, nv) -> { if (!binding) rec.typingErrorSoundsProperty().set(nv); });
+        chkCelebration.selectedProperty().addListener((o, ov, nv) -> { if (!binding) rec.lessonCompleteSoundProperty().set(nv); });
 
         // Bind scaler after Stage is available
         javafx.application.Platform.runLater(() -> {
@@ -6,6 +6,7 @@ import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.stage.Stage;
+import java.util.Map;
 import typingNinja.util.SceneNavigator;
 
 /**
@@ -22,6 +23,8 @@ public class SubLessonSelectController {
     @FXML private Button btn1a, btn1b, btn1c, btn1d, btn1e, btn1f;
     @FXML private Button backButton;
 
+    private static final String NOT_COMPLETED = "Not Yet Completed";
+
     private final MainLessonDAO dao = new MainLessonDAO();
 
     private String codePrefix = "1";
@@ -81,15 +84,16 @@ public class SubLessonSelectController {
     }
 
     /**
-     * retrieves best time and date data for each sub-lesson and updates labels
+     * retrieves best time and date data for all sub-lessons in one lookup and updates labels
      */
     private void populateResults() {
-        if (lbl1a != null) lbl1a.setText(dao.getBestTimeAndDate(codePrefix + "a"));
-        if (lbl1b != null) lbl1b.setText(dao.getBestTimeAndDate(codePrefix + "b"));
-        if (lbl1c != null) lbl1c.setText(dao.getBestTimeAndDate(codePrefix + "c"));
-        if (lbl1d != null) lbl1d.setText(dao.getBestTimeAndDate(codePrefix + "d"));
-        if (lbl1e != null) lbl1e.setText(dao.getBestTimeAndDate(codePrefix + "e"));
-        if (lbl1f != null) lbl1f.setText(dao.getBestTimeAndDate(codePrefix + "f"));
+        Map<String, String> best = dao.getBestTimesAndDates(Session.getCurrentUserId());
+        if (lbl1a != null) lbl1a.setText(best.getOrDefault(codePrefix + "a", NOT_COMPLETED));
+        if (lbl1b != null) lbl1b.setText(best.getOrDefault(codePrefix + "b", NOT_COMPLETED));
+        if (lbl1c != null) lbl1c.setText(best.getOrDefault(codePrefix + "c", NOT_COMPLETED));
+        if (lbl1d != null) lbl1d.setText(best.getOrDefault(codePrefix + "d", NOT_COMPLETED));
+        if (lbl1e != null) lbl1e.setText(best.getOrDefault(codePrefix + "e", NOT_COMPLETED));
+        if (lbl1f != null) lbl1f.setText(best.getOrDefault(codePrefix + "f", NOT_COMPLETED));
     }
 
     /**
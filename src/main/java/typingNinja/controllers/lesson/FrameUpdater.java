@@ -0,0 +1,89 @@
+package typingNinja.controllers.lesson;
+
+import javafx.animation.AnimationTimer;
+
+/**
+ * Collapses view refreshes requested by the keystroke path into one pass per frame.
+ * <p>Key handlers update the model straight away and only raise dirty flags here; on the next
+ * pulse every raised flag runs its action once, however many keys arrived in between. The
+ * underlying {@link AnimationTimer} only runs while something is dirty, so an idle lesson costs
+ * nothing per frame.</p>
+ * <p>FX thread only.</p>
+ */
+public final class FrameUpdater {
+
+    /** Keyboard hint for the next expected key. */
+    public static final int HIGHLIGHT = 1;
+    /** WPM, error and accuracy tiles. */
+    public static final int STATS = 1 << 1;
+    /** Keeping the caret inside the reading viewport. */
+    public static final int SCROLL = 1 << 2;
+    /** Personal-best ghost cursor; re-requested every frame while a replay runs. */
+    public static final int GHOST = 1 << 3;
+    /** Dirty lines of the passage canvas. */
+    public static final int PASSAGE = 1 << 4;
+
+    private static final int FLAG_COUNT = 5;
+
+    private final Runnable[] actions = new Runnable[FLAG_COUNT];
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            flush();
+        }
+    };
+    private int dirty;
+    private boolean running;
+
+    /**
+     * Registers the action run when {@code flag} is dirty, replacing any earlier one.
+     *
+     * @param flag one of {@link #HIGHLIGHT}, {@link #STATS}, {@link #SCROLL}, {@link #GHOST}, {@link #PASSAGE}
+     * @param action refresh to run at most once per frame
+     */
+    public void on(int flag, Runnable action) {
+        // Actions are indexed by bit position so the flush loop is a plain array walk.
+        actions[Integer.numberOfTrailingZeros(flag)] = action;
+    }
+
+    /**
+     * Marks one or more flags dirty; their actions run on the next frame.
+     *
+     * @param flags bitwise OR of flag constants
+     */
+    public void request(int flags) {
+        // Cheap enough to call on every keystroke: a bit OR and, at most, one timer start.
+        dirty |= flags;
+        if (!running) {
+            running = true;
+            timer.start();
+        }
+    }
+
+    /**
+     * Runs the actions of every dirty flag now and clears them.
+     * Flags raised by an action run on the following frame.
+     */
+    public void flush() {
+        // Clear before running so actions may request follow-up work.
+        int pending = dirty;
+        dirty = 0;
+        for (int i = 0; i < FLAG_COUNT; i++) {
+            if ((pending & (1 << i)) != 0 && actions[i] != null) actions[i].run();
+        }
+        if (dirty == 0 && running) {
+            running = false;
+            timer.stop();
+        }
+    }
+
+    /**
+     * Drops pending work and stops the timer, e.g. when the lesson ends.
+     */
+    public void cancel() {
+        // Nothing is flushed; the caller is tearing the view down.
+        dirty = 0;
+        running = false;
+        timer.stop();
+    }
+}
@@ -1,25 +1,49 @@
 package typingNinja.controllers.lesson;
 
+import javafx.scene.Node;
 import javafx.scene.control.TextArea;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextFlow;
+import typingNinja.model.lesson.KeystrokeJournal;
 import typingNinja.model.lesson.Metrics;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Consumer;
 
 /**
  * Manages the lightweight input experience used by free typing lessons.
+ * <p>Everything typed is kept as plain characters. Only the line being typed is shown as one
+ * {@link Text} node per character; finished lines are merged into a single committed run, and
+ * the run only holds the most recent {@value #WINDOW_CHARS} characters or so. Older text stays
+ * in memory and can be brought back with {@link #revealEarlier()}, so the number of nodes, and
+ * with it the layout cost per keystroke, stays the same however long the session runs.</p>
  */
 public class FreeTypingInput {
+    /** Characters kept as individual nodes before the oldest half is merged into the run. */
+    public static final int ACTIVE_LIMIT = 64;
+    /** Committed characters shown while typing; older ones are hidden behind the marker. */
+    public static final int WINDOW_CHARS = 4_000;
+    static final int PAGE_CHARS = 4_000;
+    static final int REVEAL_LIMIT = 64_000;
+    static final int HISTORY_LIMIT = 1 << 20;
+    static final int DROP_CHUNK = 1 << 16;
+
     private final TextFlow userFlow;
     private final TextArea hiddenInput;
     private final KeyboardHands keyboard;
     private final Metrics metrics;
     private final Text cursor;
+    private final Text marker = new Text();
+    private final Text committed = new Text();
     private final Consumer<Text> cursorListener;
-    private int index = 0;
+    private final StringBuilder text = new StringBuilder();
+    private final KeystrokeJournal journal = new KeystrokeJournal();
+    private int windowStart;
+    private int activeStart;
+    private long droppedChars;
 
     /**
      * Builds a new free typing handler around the shared UI nodes.
@@ -35,7 +59,7 @@ public class FreeTypingInput {
                            KeyboardHands keyboard,
                            Metrics metrics,
                            Consumer<Text> cursorListener) {
-        // Wire up the shared UI nodes and keep a cursor sentinel we can reposition by hand.
+        // The flow always holds the marker, the committed run, the active line and the cursor.
         this.userFlow = userFlow;
         this.hiddenInput = hiddenInput;
         this.keyboard = keyboard;
@@ -43,8 +67,11 @@ public class FreeTypingInput {
         this.cursorListener = cursorListener;
         this.cursor = new Text("_");
         this.cursor.getStyleClass().addAll("cursor", "mono");
-        userFlow.getChildren().clear();
-        updateCursor();
+        marker.getStyleClass().addAll("free-scrollback", "mono");
+        committed.getStyleClass().addAll("free-typed", "mono");
+        userFlow.getChildren().setAll(marker, committed, cursor);
+        updateMarker();
+        notifyCursorListener();
     }
 
     /**
@@ -60,56 +87,146 @@ public class FreeTypingInput {
         if (c == '\r') c = '\n';
         if (c < 32 && c != '\n') { e.consume(); return; }
 
-        removeCursor();
-        char toHighlight = (c == '\n') ? '\n' : c;
-        keyboard.lightForChar(toHighlight);
+        keyboard.lightForChar(c);
+        journal.record(metrics.elapsedNanos(), c, c, KeystrokeJournal.CORRECT);
+        trimJournal();
         pushChar(c);
         metrics.incTyped(true);
-        updateCursor();
+        notifyCursorListener();
         e.consume();
     }
 
     /**
-     * Handles backspace so the user can correct mistakes.
+     * Handles backspace so the user can correct mistakes, including across committed lines.
      *
      * @param e physical key press event
      */
     public void onKeyPressed(KeyEvent e) {
         // Backspace is the only control key we care about in this lightweight mode.
         if (e.getCode() == KeyCode.BACK_SPACE) {
-            if (index > 0) {
-                removeCursor();
-                index--;
-                if (index < userFlow.getChildren().size()) {
-                    userFlow.getChildren().remove(index);
-                }
+            if (text.length() > 0) {
+                if (activeCount() == 0) reopenLastLine();
+                char erased = text.charAt(text.length() - 1);
+                journal.record(metrics.elapsedNanos(), erased, erased,
+                        KeystrokeJournal.BACKSPACE | KeystrokeJournal.CORRECT);
+                trimJournal();
+                text.setLength(text.length() - 1);
+                userFlow.getChildren().remove(activeNodeIndex(activeCount()));
                 metrics.decTypedIfBackspace(false);
                 keyboard.dim();
-                updateCursor();
+                notifyCursorListener();
             }
             e.consume();
         }
     }
 
+    /**
+     * Shows another page of older text above the committed run, for when the user scrolls back.
+     *
+     * @return {@code true} if more text became visible
+     */
+    public boolean revealEarlier() {
+        // The revealed window is capped so a trip far back cannot build one enormous run.
+        if (windowStart == 0 || activeStart - windowStart >= REVEAL_LIMIT) return false;
+        windowStart = lineStartAtOrBefore(Math.max(0, windowStart - PAGE_CHARS));
+        committed.setText(text.substring(windowStart, activeStart));
+        updateMarker();
+        return true;
+    }
+
+    /**
+     * @return the key events of this session, minus the oldest blocks of very long sessions;
+     *         free typing has no expected text, so each key counts as its own expectation
+     */
+    public KeystrokeJournal journal() { return journal; }
+
+    /** @return everything typed so far that is still kept in memory */
+    public String text() { return text.toString(); }
+
+    /** @return characters typed so far, including any dropped from the oldest history */
+    public long length() { return droppedChars + text.length(); }
+
+    private int activeCount() {
+        return text.length() - activeStart;
+    }
+
+    private int activeNodeIndex(int i) {
+        // Children are marker, committed run, active characters, cursor.
+        return 2 + i;
+    }
+
     private void pushChar(char c) {
-        // Mirror the typed character into the flow at the cursor so metrics match what is shown.
+        // New characters become their own node; finished lines are folded into the run.
+        text.append(c);
+        userFlow.getChildren().add(activeNodeIndex(activeCount() - 1), charNode(c));
+        if (c == '\n') commit(text.length());
+        else if (activeCount() > ACTIVE_LIMIT) commit(activeStart + ACTIVE_LIMIT / 2);
+    }
+
+    private Text charNode(char c) {
         Text t = new Text(String.valueOf(c));
         t.getStyleClass().addAll("free-typed", "mono");
-        userFlow.getChildren().add(index, t);
-        index++;
+        return t;
+    }
+
+    private void commit(int upTo) {
+        // Move the active characters before upTo into the run, then slide the window forward.
+        int moved = upTo - activeStart;
+        userFlow.getChildren().remove(activeNodeIndex(0), activeNodeIndex(moved));
+        activeStart = upTo;
+        if (activeStart - windowStart > WINDOW_CHARS) {
+            windowStart = lineStartAtOrAfter(activeStart - WINDOW_CHARS);
+        }
+        trimHistory();
+        committed.setText(text.substring(windowStart, activeStart));
+        updateMarker();
     }
 
-    private void removeCursor() {
-        // Temporarily pull the cursor node so we can drop it back at the right position.
-        userFlow.getChildren().remove(cursor);
+    private void reopenLastLine() {
+        // Hand the tail of the run back to the active line so backspace can keep going.
+        int from = Math.max(lineStartAtOrBefore(activeStart - 1), activeStart - ACTIVE_LIMIT / 2);
+        if (from < windowStart) windowStart = lineStartAtOrBefore(Math.max(0, from - WINDOW_CHARS));
+        List<Node> nodes = new ArrayList<>(activeStart - from);
+        for (int i = from; i < activeStart; i++) nodes.add(charNode(text.charAt(i)));
+        userFlow.getChildren().addAll(activeNodeIndex(0), nodes);
+        activeStart = from;
+        committed.setText(text.substring(windowStart, activeStart));
+        updateMarker();
     }
 
-    private void updateCursor() {
-        // Slide the cursor forward and let the caller adjust scroll position if needed.
-        removeCursor();
-        int insertionIndex = Math.min(index, userFlow.getChildren().size());
-        userFlow.getChildren().add(insertionIndex, cursor);
-        notifyCursorListener();
+    private void trimHistory() {
+        // Past about a million characters the oldest hidden block is let go.
+        if (text.length() <= HISTORY_LIMIT || windowStart < DROP_CHUNK) return;
+        text.delete(0, DROP_CHUNK);
+        windowStart -= DROP_CHUNK;
+        activeStart -= DROP_CHUNK;
+        droppedChars += DROP_CHUNK;
+    }
+
+    private void trimJournal() {
+        // Same budget as the text: past about a million events the oldest block is let go.
+        if (journal.size() > HISTORY_LIMIT) journal.dropOldest(DROP_CHUNK);
+    }
+
+    private int lineStartAtOrBefore(int pos) {
+        if (pos <= 0) return 0;
+        return text.lastIndexOf("\n", pos - 1) + 1;
+    }
+
+    private int lineStartAtOrAfter(int pos) {
+        int nl = text.indexOf("\n", pos);
+        return (nl >= 0 && nl < activeStart) ? nl + 1 : pos;
+    }
+
+    private void updateMarker() {
+        // Only shown while older text is hidden above the run.
+        long hidden = droppedChars + windowStart;
+        boolean show = hidden > 0;
+        marker.setVisible(show);
+        marker.setManaged(show);
+        if (!show) marker.setText("");
+        else if (windowStart > 0) marker.setText("… " + hidden + " earlier characters — scroll up for more\n");
+        else marker.setText("… " + hidden + " earlier characters no longer kept\n");
     }
 
     private void notifyCursorListener() {
@@ -1,13 +1,24 @@
 package typingNinja.controllers.lesson;
 
+import javafx.css.PseudoClass;
+import javafx.geometry.Insets;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import java.net.URL;
+import javafx.scene.image.Image;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.BackgroundFill;
+import javafx.scene.layout.BackgroundImage;
+import javafx.scene.layout.BackgroundPosition;
+import javafx.scene.layout.BackgroundRepeat;
+import javafx.scene.layout.BackgroundSize;
 import javafx.scene.layout.ColumnConstraints;
+import javafx.scene.layout.CornerRadii;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.RowConstraints;
+import javafx.scene.paint.Color;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -16,14 +27,48 @@ import java.util.Map;
 
 /**
  * Renders a virtual keyboard and hand hints to coach finger positioning.
+ * <p>Everything a highlight needs is looked up in {@code char}-indexed tables built once: the
+ * keycap to light, whether shift is involved and which finger's hand image to show. Keycaps are
+ * lit through the {@code :lit} pseudo-class and hand images are decoded once and shared, so a
+ * highlight is a few array reads and node state flips, and repeating the same character is
+ * skipped entirely.</p>
  */
 public class KeyboardHands {
+    private static final PseudoClass LIT = PseudoClass.getPseudoClass("lit");
+    private static final int TABLE_SIZE = 128;
+    private static final char NONE = '\uFFFF';
+
+    private static final String[] FINGERS = {
+            "left 1", "left 2", "left 3", "left 4", "left 5",
+            "right 1", "right 2", "right 3", "right 4", "right 5"
+    };
+    private static final byte DEFAULT_FINGER = fingerIndex("right 2");
+    private static final char[] BASE = new char[TABLE_SIZE];
+    private static final boolean[] SHIFT = new boolean[TABLE_SIZE];
+    private static final byte[] FINGER = new byte[TABLE_SIZE];
+    static {
+        // Derive the static tables from the same rules the per-call helpers used to apply.
+        for (char c = 0; c < TABLE_SIZE; c++) {
+            BASE[c] = baseChar(c);
+            SHIFT[c] = requiresShift(c);
+            FINGER[c] = fingerIndex(fingerTextFor(c));
+        }
+    }
+
+    private static final Background PLACEHOLDER =
+            new Background(new BackgroundFill(Color.web("#f0f0f0"), new CornerRadii(12), Insets.EMPTY));
+    private static Background[] handBackgrounds;
+
     private final GridPane grid;
     private final Region handsRegion;
     private final Label handsLabel;
     private final Map<String, Button> keyMap = new HashMap<>();
     private final List<Button> shiftKeys = new ArrayList<>();
+    private final Button[] keyByChar = new Button[TABLE_SIZE];
     private Button lit;
+    private boolean shiftLit;
+    private int shownFinger = -1;
+    private char lastExpected = NONE;
 
     /**
      * @param grid grid pane that hosts the visual keyboard
@@ -35,6 +80,28 @@ public class KeyboardHands {
         this.grid = grid;
         this.handsRegion = handsRegion;
         this.handsLabel = handsLabel;
+        if (handsRegion != null) handsRegion.setBackground(PLACEHOLDER);
+    }
+
+    private static synchronized Background[] handBackgrounds() {
+        // Decoded once per application and shared by every lesson screen.
+        if (handBackgrounds == null) {
+            Background[] out = new Background[FINGERS.length];
+            String[] exts = { ".png", ".jpg", ".jpeg", ".gif" };
+            BackgroundSize size = new BackgroundSize(0.9, 0.9, true, true, false, false);
+            for (int i = 0; i < FINGERS.length; i++) {
+                for (String ext : exts) {
+                    URL u = KeyboardHands.class.getResource("/typingNinja/Images/" + FINGERS[i] + ext);
+                    if (u == null) continue;
+                    Image image = new Image(u.toExternalForm(), true);
+                    out[i] = new Background(new BackgroundImage(image, BackgroundRepeat.NO_REPEAT,
+                            BackgroundRepeat.NO_REPEAT, BackgroundPosition.CENTER, size));
+                    break;
+                }
+            }
+            handBackgrounds = out;
+        }
+        return handBackgrounds;
     }
 
     /**
@@ -50,6 +117,9 @@ public class KeyboardHands {
         grid.getRowConstraints().clear();
         shiftKeys.clear();
         keyMap.clear();
+        lit = null;
+        shiftLit = false;
+        lastExpected = NONE;
 
         final int COLS = 64;
         for (int i = 0; i < COLS; i++) {
@@ -80,6 +150,11 @@ public class KeyboardHands {
         addRow(4, new String[][]{
                 {"Ctrl","7"},{"fn","6"},{"Alt","7"},{"Space","24"},{"Ctrl","10"},{"Alt","10"}
         });
+
+        for (char c = 0; c < TABLE_SIZE; c++) {
+            keyByChar[c] = keyMap.get(mapCharToKey(c).toLowerCase());
+        }
+        handBackgrounds();
     }
 
     private void addRow(int row, String[][] keys) {
@@ -106,18 +181,18 @@ public class KeyboardHands {
      */
     public void highlightExpected(char ch) {
         // Figure out which finger should move next and light both the key and the supporting shift.
-        char base = baseChar(ch);
-        boolean needShift = requiresShift(ch);
+        if (ch == lastExpected) return;
+        boolean inTable = ch < TABLE_SIZE;
+        char base = inTable ? BASE[ch] : ch;
+        boolean needShift = inTable ? SHIFT[ch] : Character.isUpperCase(ch);
 
         lightForChar(base);
-        updateHandsVisual(fingerTextFor(ch));
-
-        for (Button s : shiftKeys) s.getStyleClass().remove("keycap-lit");
-        if (needShift) {
-            for (Button s : shiftKeys) {
-                if (!s.getStyleClass().contains("keycap-lit")) s.getStyleClass().add("keycap-lit");
-            }
+        updateHandsVisual(inTable ? FINGER[ch] : DEFAULT_FINGER);
+        if (needShift != shiftLit) {
+            for (Button s : shiftKeys) s.pseudoClassStateChanged(LIT, needShift);
+            shiftLit = needShift;
         }
+        lastExpected = ch;
     }
 
     /**
@@ -127,12 +202,13 @@ public class KeyboardHands {
      */
     public void lightForChar(char ch) {
         // Keep only one key lit so the visual cue is unambiguous.
-        String key = mapCharToKey(ch).toLowerCase();
-        Button b = keyMap.get(key);
+        Button b = ch < TABLE_SIZE ? keyByChar[ch] : null;
         if (b == null) return;
-        if (lit != null) lit.getStyleClass().remove("keycap-lit");
+        lastExpected = NONE;
+        if (b == lit) return;
+        if (lit != null) lit.pseudoClassStateChanged(LIT, false);
         lit = b;
-        if (!lit.getStyleClass().contains("keycap-lit")) lit.getStyleClass().add("keycap-lit");
+        lit.pseudoClassStateChanged(LIT, true);
     }
 
     /**
@@ -140,11 +216,14 @@ public class KeyboardHands {
      */
     public void dim() {
         // Clear all highlights when the lesson pauses or completes.
-        if (lit != null) lit.getStyleClass().remove("keycap-lit");
+        if (lit != null) lit.pseudoClassStateChanged(LIT, false);
         lit = null;
-        for (Button s : shiftKeys) s.getStyleClass().remove("keycap-lit");
+        for (Button s : shiftKeys) s.pseudoClassStateChanged(LIT, false);
+        shiftLit = false;
+        lastExpected = NONE;
+        shownFinger = -1;
         if (handsRegion != null) {
-            handsRegion.setStyle("");
+            handsRegion.setBackground(PLACEHOLDER);
         }
         if (handsLabel != null) {
             handsLabel.setVisible(false);
@@ -152,7 +231,7 @@ public class KeyboardHands {
         }
     }
 
-    private String mapCharToKey(char ch) {
+    private static String mapCharToKey(char ch) {
         // Normalise characters into the labels we used when constructing buttons.
         if (ch == ' ') return "space";
         if (ch == '\n' || ch == '\r') return "enter";
@@ -174,7 +253,7 @@ public class KeyboardHands {
         }
     }
 
-    private boolean requiresShift(char ch) {
+    private static boolean requiresShift(char ch) {
         // Uppercase and symbol characters imply the shift key should glow too.
         if (Character.isUpperCase(ch)) return true;
         switch (ch) {
@@ -187,7 +266,7 @@ public class KeyboardHands {
         }
     }
 
-    private char baseChar(char ch) {
+    private static char baseChar(char ch) {
         // Reduce shifted characters back to their physical key so lighting stays consistent.
         if (Character.isUpperCase(ch)) return Character.toLowerCase(ch);
         switch (ch) {
@@ -200,7 +279,7 @@ public class KeyboardHands {
         }
     }
 
-    private String fingerTextFor(char ch) {
+    private static String fingerTextFor(char ch) {
         // Quick lookup for which finger owns a key; mostly home-row grouped heuristics.
         char c = Character.toLowerCase(ch);
         if (c == ' ') return "left 1";
@@ -217,26 +296,18 @@ public class KeyboardHands {
         return "right 2";
     }
 
-    private void updateHandsVisual(String descriptor) {
-        // Swap in a reference image if we have one, otherwise fall back to plain text coaching.
-        if (handsRegion == null) return;
-        String base = "/typingNinja/Images/";
-        String[] exts = { ".png", ".jpg", ".jpeg", ".gif" };
-        URL found = null;
-        for (String ext : exts) {
-            String candidate = base + descriptor + ext;
-            URL u = getClass().getResource(candidate);
-            if (u != null) { found = u; break; }
-        }
-        if (found != null) {
-            String url = found.toExternalForm();
-            String style = "-fx-background-color: transparent;" +
-                    "-fx-background-image: url('" + url + "');" +
-                    "-fx-background-repeat: no-repeat;" +
-                    "-fx-background-position: center;" +
-                    "-fx-background-size: 90% 90%;" +
-                    "-fx-background-radius: 16; -fx-border-radius: 16;";
-            handsRegion.setStyle(style);
+    private static byte fingerIndex(String descriptor) {
+        for (byte i = 0; i < FINGERS.length; i++) if (FINGERS[i].equals(descriptor)) return i;
+        return 0;
+    }
+
+    private void updateHandsVisual(int finger) {
+        // Swap in the preloaded reference image if we have one, otherwise fall back to plain text coaching.
+        if (handsRegion == null || finger == shownFinger) return;
+        shownFinger = finger;
+        Background image = handBackgrounds()[finger];
+        if (image != null) {
+            handsRegion.setBackground(image);
             if (handsLabel != null) {
                 handsLabel.setVisible(false);
                 handsLabel.setManaged(false);
@@ -246,7 +317,7 @@ public class KeyboardHands {
             if (handsLabel != null) {
                 handsLabel.setVisible(true);
                 handsLabel.setManaged(true);
-                handsLabel.setText(descriptor);
+                handsLabel.setText(FINGERS[finger]);
             }
         }
     }
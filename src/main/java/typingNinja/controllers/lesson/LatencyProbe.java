@@ -0,0 +1,123 @@
+package typingNinja.controllers.lesson;
+
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import typingNinja.model.lesson.LatencyHistogram;
+
+/**
+ * Measures keystroke-to-render latency on the lesson screen.
+ * <p>The lesson's key filters stamp {@link System#nanoTime()} as soon as a key event reaches
+ * the application and report it here once a handler has consumed the event. A post-layout pulse
+ * listener then records, for every key handled since the previous pulse, the time until the
+ * frame that shows it has been laid out and is about to render. JavaFX key events carry no OS
+ * timestamp, so time spent in the OS and the toolkit's event queue is not included.</p>
+ * <p>Pending stamps live in a fixed array; if more than {@value #MAX_PENDING} keys are handled
+ * within one frame, the extra ones are counted as dropped rather than recorded. An optional
+ * overlay label shows the running percentiles.</p>
+ */
+public final class LatencyProbe {
+
+    static final int MAX_PENDING = 64;
+    private static final long OVERLAY_REFRESH_NANOS = 500_000_000L;
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final long[] pending = new long[MAX_PENDING];
+    private final Runnable pulseListener = this::onPulse;
+    private final Label overlay;
+    private int pendingCount;
+    private long dropped;
+    private long lastOverlayRefresh;
+    private Scene scene;
+
+    /**
+     * @param overlay label used to show the live numbers; starts hidden
+     */
+    public LatencyProbe(Label overlay) {
+        // The overlay only takes space while shown and never takes input.
+        this.overlay = overlay;
+        overlay.setVisible(false);
+        overlay.managedProperty().bind(overlay.visibleProperty());
+        overlay.setMouseTransparent(true);
+    }
+
+    /**
+     * Starts watching the pulses of {@code scene}; call again when the lesson moves scenes.
+     *
+     * @param scene scene hosting the lesson
+     */
+    public void attach(Scene scene) {
+        // A single listener per probe, moved rather than duplicated.
+        if (this.scene == scene) return;
+        detach();
+        this.scene = scene;
+        if (scene != null) scene.addPostLayoutPulseListener(pulseListener);
+    }
+
+    /**
+     * Stops watching pulses; pending stamps are discarded.
+     */
+    public void detach() {
+        // Called when the lesson ends so stray frames do not skew the numbers.
+        if (scene != null) scene.removePostLayoutPulseListener(pulseListener);
+        scene = null;
+        pendingCount = 0;
+    }
+
+    /**
+     * Notes a key event handled by the lesson.
+     *
+     * @param arrivedNanos {@link System#nanoTime()} taken when the event reached the key filter
+     */
+    public void keyHandled(long arrivedNanos) {
+        // Keys are matched with the next pulse, which is requested in case nothing else changed.
+        if (pendingCount < MAX_PENDING) pending[pendingCount++] = arrivedNanos;
+        else dropped++;
+        Platform.requestNextPulse();
+    }
+
+    private void onPulse() {
+        if (pendingCount == 0 && !overlay.isVisible()) return;
+        long now = System.nanoTime();
+        for (int i = 0; i < pendingCount; i++) histogram.record(now - pending[i]);
+        pendingCount = 0;
+        if (overlay.isVisible() && now - lastOverlayRefresh >= OVERLAY_REFRESH_NANOS) {
+            lastOverlayRefresh = now;
+            overlay.setText("key→frame " + histogram.summary());
+        }
+    }
+
+    /**
+     * Shows or hides the overlay.
+     */
+    public void toggleOverlay() {
+        // Show the current numbers straight away rather than after the refresh interval.
+        boolean show = !overlay.isVisible();
+        overlay.setVisible(show);
+        if (show) {
+            lastOverlayRefresh = 0;
+            overlay.setText("key→frame " + histogram.summary());
+        }
+    }
+
+    /** @return histogram of the current lesson */
+    public LatencyHistogram histogram() { return histogram; }
+
+    /**
+     * @return one-line summary for the lesson result dump
+     */
+    public String summary() {
+        // Dropped keys are listed so a saturated frame is visible in the dump.
+        return histogram.summary() + (dropped > 0 ? " dropped=" + dropped : "");
+    }
+
+    /**
+     * Clears the histogram for a new lesson.
+     */
+    public void reset() {
+        // The overlay keeps its visibility across lessons.
+        histogram.reset();
+        pendingCount = 0;
+        dropped = 0;
+    }
+}
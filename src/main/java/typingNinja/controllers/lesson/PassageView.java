@@ -0,0 +1,425 @@
+package typingNinja.controllers.lesson;
+
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+
+import java.util.Arrays;
+import typingNinja.model.lesson.TypingSession;
+
+/**
+ * Draws a lesson passage and the student's typed overlay onto a single {@link Canvas}.
+ * <p>Each passage position has a glyph state (untyped, correct, wrong) and the character that
+ * was typed there. A keystroke marks only the affected lines dirty, and the dirty lines are
+ * repainted together once per frame, so the cost of a key press does not depend on how long
+ * the passage is or how many keys arrive within a frame. The canvas only covers
+ * the part of the passage visible in the surrounding {@link ScrollPane}; offscreen lines are
+ * never drawn, while the region itself reports the full wrapped height so scrolling works as
+ * before.</p>
+ * <p>The layout mirrors the previous TextFlow pair: every wrapped prompt line is followed by
+ * its typed overlay {@value #USER_OFFSET}px lower, and lines are {@value #LINE_SPACING}px apart.</p>
+ */
+public final class PassageView extends Region {
+
+    /** Glyph state of a passage position nobody has typed yet. */
+    public static final byte UNTYPED = TypingSession.UNTYPED;
+    /** Glyph state of a position typed correctly. */
+    public static final byte CORRECT = TypingSession.CORRECT;
+    /** Glyph state of a position typed incorrectly (relaxed mode only). */
+    public static final byte WRONG = TypingSession.WRONG;
+
+    static final double LINE_SPACING = 30;
+    static final double USER_OFFSET = 30;
+    private static final double FONT_SIZE = 26;
+    private static final int MAX_DIRTY = 8;
+
+    private static final Color PROMPT = Color.web("#111111");
+    private static final Color USER_CORRECT = Color.web("#58CD19");
+    private static final Color USER_WRONG = Color.web("#CD1919");
+    private static final Color CURSOR = Color.web("#3d3565", 0.85);
+    private static final Color GHOST = Color.web("#6B46FF", 0.35);
+
+    private static final String[] ASCII = new String[128];
+    static {
+        for (char c = 0; c < ASCII.length; c++) ASCII[c] = String.valueOf(c);
+    }
+
+    private static Font font;
+    private static double charWidth;
+    private static double lineHeight;
+    private static double baseline;
+
+    private final String passage;
+    private final ScrollPane viewport;
+    private final Canvas canvas = new Canvas();
+    private final Region caretMarker = new Region();
+
+    private final byte[] state;
+    private final char[] typed;
+    private int caret = 0;
+    private int ghost = -1;
+
+    private int[] lineStart = {0, 0};
+    private String[] lineText = {""};
+    private int lineCount = 1;
+    private double wrappedWidth = -1;
+
+    private double canvasTop = 0;
+    private int firstVisible = 0;
+    private int lastVisible = -1;
+    private final int[] dirty = new int[MAX_DIRTY];
+    private int dirtyCount = 0;
+    private boolean fullRepaint = true;
+    private Runnable requestPaint = null;
+    private boolean paintPending = false;
+
+    /**
+     * @param passage passage the student is typing
+     * @param viewport scroll pane whose viewport limits what is drawn; may be {@code null} to draw everything
+     */
+    public PassageView(String passage, ScrollPane viewport) {
+        // Measure the monospace font once, then listen for scrolling to move the canvas window.
+        ensureFontMetrics();
+        this.passage = passage == null ? "" : passage;
+        this.viewport = viewport;
+        this.state = new byte[this.passage.length()];
+        this.typed = new char[this.passage.length()];
+        canvas.setManaged(false);
+        canvas.setMouseTransparent(true);
+        caretMarker.setManaged(false);
+        caretMarker.setMouseTransparent(true);
+        caretMarker.setVisible(false);
+        getChildren().addAll(canvas, caretMarker);
+        setMinWidth(0);
+        setMaxWidth(Double.MAX_VALUE);
+        if (viewport != null) {
+            viewport.vvalueProperty().addListener((o, ov, nv) -> refreshViewport());
+            viewport.viewportBoundsProperty().addListener((o, ov, nv) -> refreshViewport());
+        }
+    }
+
+    /**
+     * Records the character typed at a passage position and repaints its line.
+     *
+     * @param idx passage position
+     * @param c character the student typed
+     * @param correct whether it matched the passage
+     */
+    public void setTyped(int idx, char c, boolean correct) {
+        if (idx < 0 || idx >= state.length) return;
+        state[idx] = correct ? CORRECT : WRONG;
+        typed[idx] = c;
+        markDirty(lineOf(idx));
+        changed();
+    }
+
+    /**
+     * Forgets whatever was typed at a passage position, e.g. after a backspace.
+     *
+     * @param idx passage position
+     */
+    public void clearTyped(int idx) {
+        if (idx < 0 || idx >= state.length) return;
+        state[idx] = UNTYPED;
+        typed[idx] = 0;
+        markDirty(lineOf(idx));
+        changed();
+    }
+
+    /**
+     * @param idx passage position
+     * @return glyph state at that position, {@link #UNTYPED} when out of range
+     */
+    public byte stateAt(int idx) {
+        return (idx >= 0 && idx < state.length) ? state[idx] : UNTYPED;
+    }
+
+    /**
+     * Moves the caret and repaints the lines it left and entered.
+     *
+     * @param idx passage position the caret sits before
+     */
+    public void setCaret(int idx) {
+        int clamped = Math.max(0, Math.min(idx, passage.length()));
+        if (clamped == caret && !fullRepaint) return;
+        markDirty(lineOf(caret));
+        caret = clamped;
+        markDirty(lineOf(caret));
+        positionCaretMarker();
+        changed();
+    }
+
+    /**
+     * Moves the ghost cursor that replays a recorded lesson, repainting only the lines it left
+     * and entered. The ghost is a translucent block behind the prompt, so it costs no nodes.
+     *
+     * @param idx passage position the ghost sits before, or {@code -1} to hide it
+     */
+    public void setGhost(int idx) {
+        int clamped = idx < 0 ? -1 : Math.min(idx, passage.length());
+        if (clamped == ghost) return;
+        if (ghost >= 0) markDirty(lineOf(ghost));
+        ghost = clamped;
+        if (ghost >= 0) markDirty(lineOf(ghost));
+        changed();
+    }
+
+    /**
+     * Defers repaints: the first change after a paint calls {@code requestPaint}, and the
+     * caller invokes {@link #paintPending()} once per frame.
+     *
+     * @param requestPaint schedules a later {@link #paintPending()}; {@code null} paints immediately
+     */
+    public void deferPainting(Runnable requestPaint) {
+        // The lesson screen hands in its frame scheduler here.
+        this.requestPaint = requestPaint;
+    }
+
+    /**
+     * Repaints every line marked dirty since the last paint.
+     */
+    public void paintPending() {
+        // One canvas pass, however many keys arrived since the last one.
+        paintPending = false;
+        paint();
+    }
+
+    /**
+     * Invisible node that tracks the caret cell, so callers can scroll it into view.
+     *
+     * @return caret marker node
+     */
+    public Node caretNode() {
+        return caretMarker;
+    }
+
+    /** @return number of wrapped lines at the current width */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    @Override
+    public Orientation getContentBias() {
+        return Orientation.HORIZONTAL;
+    }
+
+    @Override
+    protected double computePrefWidth(double height) {
+        return snappedLeftInset() + snappedRightInset();
+    }
+
+    @Override
+    protected double computePrefHeight(double width) {
+        if (width > 0) wrap(width - snappedLeftInset() - snappedRightInset());
+        return snappedTopInset() + snappedBottomInset() + lineCount * pitch();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        // Width changes rewrap the passage; everything visible is redrawn afterwards.
+        wrap(getWidth() - snappedLeftInset() - snappedRightInset());
+        positionCaretMarker();
+        refreshViewport();
+    }
+
+    private void wrap(double width) {
+        if (width <= 0 || width == wrappedWidth) return;
+        wrappedWidth = width;
+        int cols = Math.max(1, (int) Math.floor(width / charWidth));
+        int n = passage.length();
+        int[] starts = new int[Math.max(4, n / Math.max(1, cols) + 4)];
+        int lines = 0;
+        starts[lines++] = 0;
+        int lineBegin = 0;
+        int col = 0;
+        int lastBreak = -1;
+        for (int i = 0; i < n; i++) {
+            char c = passage.charAt(i);
+            if (c == '\n') {
+                if (lines == starts.length) starts = Arrays.copyOf(starts, lines * 2);
+                starts[lines++] = i + 1;
+                lineBegin = i + 1;
+                col = 0;
+                lastBreak = -1;
+                continue;
+            }
+            if (col >= cols && c != ' ') {
+                // Break after the last space on the line, or hard-break a word longer than the line.
+                int next = (lastBreak > lineBegin) ? lastBreak : i;
+                if (lines == starts.length) starts = Arrays.copyOf(starts, lines * 2);
+                starts[lines++] = next;
+                lineBegin = next;
+                col = i - next;
+                lastBreak = -1;
+            }
+            col++;
+            if (c == ' ') lastBreak = i + 1;
+        }
+        if (lines == starts.length) starts = Arrays.copyOf(starts, lines + 1);
+        starts[lines] = n;
+        lineStart = starts;
+        lineCount = lines;
+        lineText = new String[lines];
+        for (int l = 0; l < lines; l++) {
+            int end = lineStart[l + 1];
+            if (end > lineStart[l] && passage.charAt(end - 1) == '\n') end--;
+            lineText[l] = passage.substring(lineStart[l], end);
+        }
+        fullRepaint = true;
+    }
+
+    private int lineOf(int idx) {
+        // Binary search over line starts; the caret may sit one past the last character.
+        if (idx >= passage.length()) return lineCount - 1;
+        int lo = 0, hi = lineCount - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (lineStart[mid] <= idx) lo = mid; else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    private void markDirty(int line) {
+        if (fullRepaint) return;
+        for (int i = 0; i < dirtyCount; i++) if (dirty[i] == line) return;
+        if (dirtyCount == MAX_DIRTY) {
+            fullRepaint = true;
+        } else {
+            dirty[dirtyCount++] = line;
+        }
+    }
+
+    private void changed() {
+        if (requestPaint == null) {
+            paint();
+        } else if (!paintPending) {
+            paintPending = true;
+            requestPaint.run();
+        }
+    }
+
+    private void positionCaretMarker() {
+        int line = lineOf(caret);
+        int col = Math.max(0, caret - lineStart[line]);
+        caretMarker.resizeRelocate(snappedLeftInset() + col * charWidth,
+                snappedTopInset() + line * pitch(), charWidth, pitch());
+    }
+
+    private void refreshViewport() {
+        // Size the canvas to the visible slice of the passage and redraw it if it moved.
+        double height = Math.max(0, getHeight() - snappedTopInset() - snappedBottomInset());
+        double top = 0;
+        double bottom = height;
+        if (viewport != null && viewport.getContent() != null && getParent() == viewport.getContent()) {
+            double contentHeight = viewport.getContent().getLayoutBounds().getHeight();
+            double viewHeight = viewport.getViewportBounds().getHeight();
+            double range = viewport.getVmax() - viewport.getVmin();
+            double fraction = range > 0 ? (viewport.getVvalue() - viewport.getVmin()) / range : 0;
+            double scrolled = fraction * Math.max(0, contentHeight - viewHeight);
+            double offset = getBoundsInParent().getMinY() + snappedTopInset();
+            top = Math.max(0, scrolled - offset);
+            bottom = Math.min(height, scrolled - offset + viewHeight);
+        }
+        if (bottom <= top) {
+            canvas.setWidth(0);
+            canvas.setHeight(0);
+            lastVisible = -1;
+            return;
+        }
+        double pitch = pitch();
+        int first = Math.max(0, (int) Math.floor(top / pitch));
+        int last = Math.min(lineCount - 1, (int) Math.floor(bottom / pitch));
+        double newTop = first * pitch;
+        double newHeight = (last - first + 1) * pitch;
+        double width = Math.max(0, getWidth() - snappedLeftInset() - snappedRightInset());
+        if (first != firstVisible || last != lastVisible || newTop != canvasTop
+                || canvas.getWidth() != width || canvas.getHeight() != newHeight) {
+            firstVisible = first;
+            lastVisible = last;
+            canvasTop = newTop;
+            canvas.setWidth(width);
+            canvas.setHeight(newHeight);
+            canvas.relocate(snappedLeftInset(), snappedTopInset() + newTop);
+            fullRepaint = true;
+        }
+        paint();
+    }
+
+    private void paint() {
+        if (lastVisible < firstVisible) {
+            dirtyCount = 0;
+            return;
+        }
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setFont(font);
+        if (fullRepaint) {
+            gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+            for (int l = firstVisible; l <= lastVisible; l++) paintLine(gc, l);
+            fullRepaint = false;
+        } else {
+            for (int i = 0; i < dirtyCount; i++) {
+                int l = dirty[i];
+                if (l >= firstVisible && l <= lastVisible) {
+                    gc.clearRect(0, (l - firstVisible) * pitch(), canvas.getWidth(), pitch());
+                    paintLine(gc, l);
+                }
+            }
+        }
+        dirtyCount = 0;
+    }
+
+    private void paintLine(GraphicsContext gc, int line) {
+        double y = (line - firstVisible) * pitch() + baseline;
+        int start = lineStart[line];
+        int end = lineStart[line + 1];
+        if (ghost >= start && (ghost < end || (line == lineCount - 1 && ghost == end))) {
+            gc.setFill(GHOST);
+            gc.fillRect((ghost - start) * charWidth, (line - firstVisible) * pitch(), charWidth, lineHeight);
+        }
+        gc.setFill(PROMPT);
+        gc.fillText(lineText[line], 0, y);
+
+        double userY = y + USER_OFFSET;
+        for (int i = start; i < end; i++) {
+            byte s = state[i];
+            if (s == UNTYPED) continue;
+            char c = typed[i];
+            if (c == '\n' || c == ' ') continue;
+            gc.setFill(s == CORRECT ? USER_CORRECT : USER_WRONG);
+            gc.fillText(c < ASCII.length ? ASCII[c] : String.valueOf(c), (i - start) * charWidth, userY);
+        }
+        if (caret >= start && (caret < end || (line == lineCount - 1 && caret == end))) {
+            gc.setFill(CURSOR);
+            gc.fillText("_", (caret - start) * charWidth, userY);
+        }
+    }
+
+    private static double pitch() {
+        return lineHeight + LINE_SPACING;
+    }
+
+    private static synchronized void ensureFontMetrics() {
+        // Same families as the .mono style class; measured once for every view.
+        if (font != null) return;
+        String family = "Monospaced";
+        for (String candidate : new String[]{"Menlo", "Consolas", "Monaco"}) {
+            if (Font.getFamilies().contains(candidate)) {
+                family = candidate;
+                break;
+            }
+        }
+        font = Font.font(family, FontWeight.EXTRA_BOLD, FONT_SIZE);
+        Text probe = new Text("M");
+        probe.setFont(font);
+        charWidth = probe.getLayoutBounds().getWidth();
+        lineHeight = probe.getLayoutBounds().getHeight();
+        baseline = probe.getBaselineOffset();
+    }
+}
@@ -0,0 +1,14 @@
+package typingNinja.model;
+
+/**
+ * One completed lesson as shown on the certificates screen, already joined with its owner.
+ *
+ * @param lessonId lesson primary key
+ * @param wpm rounded words per minute
+ * @param acc rounded accuracy percentage
+ * @param completedAt completion time as stored
+ * @param lessonType lesson identifier, or {@code null} if unknown
+ * @param userName owner's username, or {@code null} if the user row is missing
+ */
+public record CertificateRow(int lessonId, int wpm, int acc, String completedAt,
+                             String lessonType, String userName) {}
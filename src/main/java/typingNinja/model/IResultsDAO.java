@@ -1,6 +1,7 @@
 package typingNinja.model;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IResultsDAO {
 
@@ -11,6 +12,16 @@ public interface IResultsDAO {
     List<Result> getLastN(int n) throws Exception;
 
     List<Result> getAll() throws Exception;
+
+    /**
+     * Streams the current user's last {@code n} completed lessons, oldest first, joined with
+     * the lesson type and username in a single query.
+     *
+     * @param n maximum number of rows
+     * @param sink receives each row as it is read
+     */
+    void forEachCertificateRow(int n, Consumer<CertificateRow> sink) throws Exception;
+
     int count() throws Exception;
 
     void deleteAll() throws Exception;
@@ -0,0 +1,165 @@
+package typingNinja.model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Streams a user's lesson history to a CSV file.
+ * <p>Rows are read with one forward-only cursor and written through a buffered writer on a
+ * {@link FileChannel}, so memory use does not grow with the size of the history. The file is
+ * written next to the target under a temporary name and moved into place only when the export
+ * finishes; a cancelled or failed export leaves no partial file behind.</p>
+ * <p>Blocking; callers run it on a background thread and pass a progress listener and a
+ * cancellation check.</p>
+ */
+public class LessonCsvExporter {
+
+    /** Reports how many rows have been written out of the expected total. */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * @param written rows written so far
+         * @param total rows expected in the export
+         */
+        void onProgress(long written, long total);
+    }
+
+    /** Columns exported, in file order. */
+    public static final String[] COLUMNS = {
+            "LessonID", "LessonType", "Prompt", "LessonDuration",
+            "UpperCase", "Numbers", "Punctuation", "SpecialChars",
+            "DateStarted", "DateCompleted", "StarRating", "WPM", "Accuracy",
+            "ErrorAmount", "WeakKeys"
+    };
+
+    private static final int BUFFER_CHARS = 64 * 1024;
+    private static final int PROGRESS_EVERY = 250;
+
+    /**
+     * Writes the user's lessons, oldest first, to {@code target}.
+     *
+     * @param userId owner of the lessons
+     * @param from first start date to include, or {@code null} for no lower bound
+     * @param to last start date to include, or {@code null} for no upper bound
+     * @param target file to create or replace
+     * @param progress receives progress updates; may be {@code null}
+     * @param cancelled polled between rows; returning {@code true} aborts the export
+     * @return number of lessons written
+     * @throws IOException when the file cannot be written
+     * @throws SQLException when the history cannot be read
+     * @throws CancellationException when the export was cancelled
+     */
+    public long export(int userId, LocalDate from, LocalDate to, Path target,
+                       ProgressListener progress, BooleanSupplier cancelled) throws IOException, SQLException {
+        String where = buildWhere(from, to);
+        Path dir = target.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, ".lesson-export-", ".csv.part");
+        boolean done = false;
+        try (Connection conn = SqliteConnection.reader()) {
+            long total = count(conn, userId, from, to, where);
+            if (progress != null) progress.onProgress(0, total);
+
+            long written = 0;
+            String sql = "SELECT " + String.join(", ", COLUMNS) + " FROM Lesson " + where
+                    + " ORDER BY DateStarted, LessonID";
+            try (FileChannel channel = FileChannel.open(tmp,
+                         StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_CHARS);
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+                bind(ps, userId, from, to);
+                writeRow(out, COLUMNS);
+                String[] values = new String[COLUMNS.length];
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        if (cancelled != null && cancelled.getAsBoolean()) {
+                            throw new CancellationException("Export cancelled");
+                        }
+                        for (int i = 0; i < COLUMNS.length; i++) values[i] = rs.getString(i + 1);
+                        writeRow(out, values);
+                        written++;
+                        if (progress != null && written % PROGRESS_EVERY == 0) {
+                            progress.onProgress(written, Math.max(total, written));
+                        }
+                    }
+                }
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            done = true;
+            if (progress != null) progress.onProgress(written, Math.max(total, written));
+            return written;
+        } finally {
+            if (!done) Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static String buildWhere(LocalDate from, LocalDate to) {
+        // Start dates are stored as 'yyyy-MM-dd HH:mm:ss', so plain string bounds use the index.
+        StringBuilder sb = new StringBuilder("WHERE UserID = ?");
+        if (from != null) sb.append(" AND DateStarted >= ?");
+        if (to != null) sb.append(" AND DateStarted < ?");
+        return sb.toString();
+    }
+
+    private static void bind(PreparedStatement ps, int userId, LocalDate from, LocalDate to) throws SQLException {
+        int i = 1;
+        ps.setInt(i++, userId);
+        if (from != null) ps.setString(i++, from.toString());
+        if (to != null) ps.setString(i, to.plusDays(1).toString());
+    }
+
+    private static long count(Connection conn, int userId, LocalDate from, LocalDate to, String where)
+            throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM Lesson " + where)) {
+            bind(ps, userId, from, to);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    private static void writeRow(Writer out, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) out.write(',');
+            writeField(out, values[i]);
+        }
+        out.write("\r\n");
+    }
+
+    /**
+     * Writes one field, quoting it (RFC 4180) when it holds a comma, quote or line break.
+     */
+    private static void writeField(Writer out, String value) throws IOException {
+        if (value == null) return;
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') out.write('"');
+            out.write(c);
+        }
+        out.write('"');
+    }
+}
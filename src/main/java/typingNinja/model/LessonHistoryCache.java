@@ -0,0 +1,550 @@
+package typingNinja.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * In-memory copy of a user's completed lessons, shared by every screen that shows history.
+ * <p>Each user's lessons are read once, normally right after login, into parallel primitive
+ * columns (ids, epoch seconds, WPM, accuracy, stars, errors and a code per lesson type).
+ * Charts, the history list, personal bests, averages, certificates and the results table are
+ * all answered from those columns. The lesson write queue upserts a lesson here after its
+ * completion commits; other writers that change a user's completed lessons call
+ * {@link #invalidate(int)}.</p>
+ * <p>Loads run on a background thread and are shared through a per-user future, so no lock is
+ * held during database I/O. FX code should go through {@link #preload(int)}; {@link #forUser(int)}
+ * blocks until the load has finished and is meant for background threads.</p>
+ * <p>Times are stored as the wall-clock values written to the database, encoded as seconds
+ * since the epoch in UTC, so they order and format back exactly as stored. Lessons that were
+ * never completed are not cached: they are either still on screen or deleted by the write
+ * queue when abandoned, and have no speed or stars to show.</p>
+ */
+public final class LessonHistoryCache {
+
+    /** Marks a missing or unreadable timestamp in the time columns. */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    /** Default number of rows per page requested by the history screen. */
+    public static final int PAGE_SIZE = 50;
+
+    /** Number of most recent lessons plotted on the WPM trend chart. */
+    public static final int TREND_POINTS = 60;
+
+    private static final DateTimeFormatter SQL_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Map<Integer, CompletableFuture<LessonHistoryCache>> LOADS = new ConcurrentHashMap<>();
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "history-cache-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final String SELECT = "SELECT l.LessonID, l.LessonType, l.DateStarted, l.DateCompleted, "
+            + "l.WPM, l.Accuracy, l.StarRating, l.ErrorAmount FROM Lesson l ";
+    private static final String LOAD = SELECT + "WHERE l.UserID = ? AND l." + StatisticsRollup.COMPLETED
+            + " ORDER BY l.LessonID";
+    private static final String ONE = SELECT + "WHERE l.LessonID = ? AND l.UserID = ? AND l."
+            + StatisticsRollup.COMPLETED;
+
+    static {
+        // Tests swap databases underneath the cache.
+        SqliteConnection.onReset(LessonHistoryCache::clearCache);
+    }
+
+    /**
+     * One row of the history list.
+     *
+     * @param lessonId lesson primary key
+     * @param wpm recorded words per minute
+     * @param starRating recorded star rating
+     * @param dateStarted start time as stored, or {@code null}
+     */
+    public record Row(int lessonId, double wpm, double starRating, String dateStarted) {}
+
+    /**
+     * Position after the last row of a page; pass it back to fetch the next page. Rows added
+     * while a list is open sort before the cursor, so later pages never repeat or skip rows.
+     *
+     * @param dateStarted start time of the last row, {@code null} once past every dated row
+     * @param lessonId id of the last row
+     */
+    public record Cursor(String dateStarted, int lessonId) {}
+
+    /**
+     * A page of rows and the cursor for the page after it.
+     *
+     * @param rows rows in display order
+     * @param next cursor for the following page, or {@code null} when this was the last page
+     */
+    public record Page(List<Row> rows, Cursor next) {}
+
+    /**
+     * One cached lesson, materialised on demand.
+     *
+     * @param lessonId lesson primary key
+     * @param lessonType lesson identifier, or {@code null} if unknown
+     * @param dateStarted start time as stored, or {@code null}
+     * @param dateCompleted completion time as stored, or {@code null} if unreadable
+     * @param wpm recorded words per minute
+     * @param accuracy recorded accuracy percentage
+     * @param starRating recorded star rating
+     * @param errors recorded error count
+     */
+    public record Entry(int lessonId, String lessonType, String dateStarted, String dateCompleted,
+                        double wpm, double accuracy, double starRating, int errors) {}
+
+    /**
+     * Totals over every completed lesson, matching what {@link StatisticsRollup} keeps.
+     *
+     * @param lessons number of completed lessons
+     * @param avgWpm mean words per minute
+     * @param highestRating best star rating
+     * @param avgRating mean star rating
+     * @param totalStars sum of whole stars per lesson
+     */
+    public record Summary(int lessons, double avgWpm, double highestRating, double avgRating, int totalStars) {}
+
+    /** Primitive comparison of two row indexes. */
+    private interface RowOrder {
+        int compare(int a, int b);
+    }
+
+    private final int userId;
+    private final String userName;
+    private int size;
+    private int[] ids = new int[16];
+    private long[] started = new long[16];
+    private long[] completed = new long[16];
+    private double[] wpm = new double[16];
+    private double[] accuracy = new double[16];
+    private double[] stars = new double[16];
+    private int[] errors = new int[16];
+    private short[] types = new short[16];
+    private final List<String> typeNames = new ArrayList<>();
+    private final Map<String, Short> typeCodes = new HashMap<>();
+
+    // Row orders, rebuilt lazily after a change.
+    private int[] byCompleted;
+    private int[] byHistory;
+    private int datedCount;
+
+    private LessonHistoryCache(int userId, String userName) {
+        this.userId = userId;
+        this.userName = userName;
+    }
+
+    /**
+     * Starts loading a user's history in the background unless it is cached or loading already.
+     * Called at login; FX code chains its work onto the returned future.
+     *
+     * @param userId owner of the lessons
+     * @return future completed with the history, or exceptionally if the read failed
+     */
+    public static CompletableFuture<LessonHistoryCache> preload(int userId) {
+        // A failed load is forgotten so the next caller tries again instead of seeing an empty history.
+        CompletableFuture<LessonHistoryCache> load = LOADS.get(userId);
+        if (load != null && load.isCompletedExceptionally()) {
+            LOADS.remove(userId, load);
+        }
+        CompletableFuture<LessonHistoryCache> created = new CompletableFuture<>();
+        load = LOADS.putIfAbsent(userId, created);
+        if (load != null) return load;
+        LOADER.execute(() -> {
+            try {
+                created.complete(read(userId));
+            } catch (SQLException e) {
+                e.printStackTrace();
+                LOADS.remove(userId, created);
+                created.completeExceptionally(e);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Returns a user's history, waiting for it to load if necessary. Do not call on the FX thread.
+     *
+     * @param userId owner of the lessons
+     * @return cached history
+     * @throws SQLException when the history could not be read
+     */
+    public static LessonHistoryCache forUser(int userId) throws SQLException {
+        // Background callers (DAOs, loaders) block here; the FX thread uses preload instead.
+        try {
+            return preload(userId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException sql) throw sql;
+            throw e;
+        }
+    }
+
+    /**
+     * Adds or refreshes one just-completed lesson in its owner's cached history. Users whose
+     * history is neither cached nor loading are skipped; their next load reads the lesson anyway.
+     *
+     * @param userId owner of the lesson
+     * @param lessonId lesson whose completion has been committed
+     */
+    public static void lessonCompleted(int userId, int lessonId) {
+        // A loaded history is updated at once; a load in flight gets the upsert chained onto it,
+        // so a load that read the table before the commit still ends up with the lesson.
+        while (true) {
+            CompletableFuture<LessonHistoryCache> load = LOADS.get(userId);
+            if (load == null || load.isCompletedExceptionally()) return;
+            if (load.isDone()) {
+                refresh(load.join(), lessonId);
+                return;
+            }
+            if (LOADS.replace(userId, load, load.thenApplyAsync(cache -> refresh(cache, lessonId), LOADER))) return;
+        }
+    }
+
+    /**
+     * Drops a user's cached history after a change that was not applied to it.
+     *
+     * @param userId user whose lessons changed
+     */
+    public static void invalidate(int userId) {
+        // A load still in flight is left to its waiters but never installed again.
+        LOADS.remove(userId);
+    }
+
+    /**
+     * Forgets every cached history, e.g. when a test swaps the database.
+     */
+    public static void clearCache() {
+        LOADS.clear();
+    }
+
+    public int getUserId() { return userId; }
+
+    /**
+     * @return owner's username, or {@code null} if the user row is missing
+     */
+    public String getUserName() { return userName; }
+
+    /**
+     * @return number of completed lessons
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns one page of the history list: lessons with a start time newest first, then the
+     * undated ones newest id first.
+     *
+     * @param after cursor returned with the previous page, or {@code null} for the first page
+     * @param limit maximum rows to return
+     * @return the page; empty with a {@code null} cursor when there is nothing more
+     */
+    public synchronized Page historyPage(Cursor after, int limit) {
+        // Binary search for the first row past the cursor, then copy out at most limit rows.
+        int[] order = historyOrder();
+        int from = 0;
+        if (after != null) {
+            long at = parse(after.dateStarted());
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compareHistory(started[order[mid]], ids[order[mid]], at, after.lessonId()) <= 0) lo = mid + 1;
+                else hi = mid;
+            }
+            from = lo;
+        }
+        int end = (int) Math.min(size, (long) from + Math.max(0, limit));
+        List<Row> rows = new ArrayList<>(end - from);
+        for (int k = from; k < end; k++) {
+            int i = order[k];
+            rows.add(new Row(ids[i], wpm[i], stars[i], format(started[i])));
+        }
+        if (end >= size || rows.isEmpty()) return new Page(rows, null);
+        Row last = rows.get(rows.size() - 1);
+        return new Page(rows, new Cursor(last.dateStarted(), last.lessonId()));
+    }
+
+    /**
+     * Returns the most recent lessons with a start time for the WPM trend chart, oldest first.
+     *
+     * @param points maximum number of points
+     * @return rows in chronological order
+     */
+    public synchronized List<Row> recentTrend(int points) {
+        // Dated rows lead the history order, newest first.
+        int[] order = historyOrder();
+        int n = Math.min(Math.max(0, points), datedCount);
+        List<Row> rows = new ArrayList<>(n);
+        for (int k = n - 1; k >= 0; k--) {
+            int i = order[k];
+            rows.add(new Row(0, wpm[i], 0, format(started[i])));
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the lesson with the highest WPM; the earliest one wins a tie.
+     *
+     * @return the best lesson, or {@code null} when there are none
+     */
+    public synchronized Entry personalBest() {
+        // One pass over a primitive column.
+        int best = -1;
+        for (int i = 0; i < size; i++) {
+            if (best < 0 || wpm[i] > wpm[best]) best = i;
+        }
+        return best < 0 ? null : entry(best);
+    }
+
+    /**
+     * Returns totals over every completed lesson.
+     *
+     * @return lesson count, averages, best rating and star total
+     */
+    public synchronized Summary summary() {
+        // Same arithmetic as the rollup's aggregate query, including the per-lesson star truncation.
+        double sumWpm = 0, sumRating = 0, highest = 0;
+        int totalStars = 0;
+        for (int i = 0; i < size; i++) {
+            sumWpm += wpm[i];
+            sumRating += stars[i];
+            highest = Math.max(highest, stars[i]);
+            totalStars += (int) stars[i];
+        }
+        return size == 0
+                ? new Summary(0, 0, 0, 0, 0)
+                : new Summary(size, sumWpm / size, highest, sumRating / size, totalStars);
+    }
+
+    /**
+     * Returns rounded WPM of the last {@code n} completed lessons, oldest first.
+     * Hold the cache's monitor across this and {@link #recentAccuracy(int)} to keep them aligned.
+     *
+     * @param n maximum number of lessons
+     * @return rounded words per minute
+     */
+    public synchronized int[] recentWpm(int n) {
+        // Completion order, as the results screen has always used.
+        int[] order = completedOrder();
+        int count = Math.min(Math.max(0, n), size);
+        int[] out = new int[count];
+        for (int k = 0; k < count; k++) out[k] = (int) Math.round(wpm[order[size - count + k]]);
+        return out;
+    }
+
+    /**
+     * Returns rounded accuracy of the last {@code n} completed lessons, oldest first.
+     *
+     * @param n maximum number of lessons
+     * @return rounded accuracy percentages
+     */
+    public synchronized int[] recentAccuracy(int n) {
+        // Aligned with recentWpm.
+        int[] order = completedOrder();
+        int count = Math.min(Math.max(0, n), size);
+        int[] out = new int[count];
+        for (int k = 0; k < count; k++) out[k] = (int) Math.round(accuracy[order[size - count + k]]);
+        return out;
+    }
+
+    /**
+     * Returns the last {@code n} completed lessons in completion order, oldest first.
+     *
+     * @param n maximum number of lessons
+     * @return the lessons
+     */
+    public synchronized List<Entry> recentCompleted(int n) {
+        // Entries are only built for the rows asked for.
+        int[] order = completedOrder();
+        int count = Math.min(Math.max(0, n), size);
+        List<Entry> out = new ArrayList<>(count);
+        for (int k = size - count; k < size; k++) out.add(entry(order[k]));
+        return out;
+    }
+
+    /**
+     * Streams the last {@code n} completed lessons, oldest first, as certificate rows.
+     *
+     * @param n maximum number of lessons
+     * @param sink receives each row
+     */
+    public void forEachCertificateRow(int n, Consumer<CertificateRow> sink) {
+        // Rows are copied out first so the sink never runs under the lock.
+        for (Entry e : recentCompleted(n)) {
+            sink.accept(new CertificateRow(e.lessonId(), (int) Math.round(e.wpm()), (int) Math.round(e.accuracy()),
+                    e.dateCompleted(), e.lessonType(), userName));
+        }
+    }
+
+    private static LessonHistoryCache read(int userId) throws SQLException {
+        // One pooled reader serves both the username and the lessons.
+        try (Connection conn = SqliteConnection.reader()) {
+            LessonHistoryCache cache = new LessonHistoryCache(userId, userName(conn, userId));
+            try (PreparedStatement ps = conn.prepareStatement(LOAD)) {
+                ps.setInt(1, userId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) cache.upsert(rs);
+                }
+            }
+            return cache;
+        }
+    }
+
+    private static String userName(Connection conn, int userId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT Username FROM Users WHERE UserID = ?")) {
+            ps.setInt(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    private static LessonHistoryCache refresh(LessonHistoryCache cache, int lessonId) {
+        // A single primary-key read; on failure the user's entry is dropped and reloaded later.
+        try (Connection conn = SqliteConnection.reader();
+             PreparedStatement ps = conn.prepareStatement(ONE)) {
+            ps.setInt(1, lessonId);
+            ps.setInt(2, cache.userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    synchronized (cache) {
+                        cache.upsert(rs);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            LOADS.remove(cache.userId);
+        }
+        return cache;
+    }
+
+    private void upsert(ResultSet rs) throws SQLException {
+        // Completions arrive newest last, so an existing row is searched for from the end.
+        int id = rs.getInt("LessonID");
+        int i = size - 1;
+        while (i >= 0 && ids[i] != id) i--;
+        if (i < 0) {
+            if (size == ids.length) grow();
+            i = size++;
+        }
+        ids[i] = id;
+        types[i] = typeCode(rs.getString("LessonType"));
+        started[i] = parse(rs.getString("DateStarted"));
+        completed[i] = parse(rs.getString("DateCompleted"));
+        wpm[i] = rs.getDouble("WPM");
+        accuracy[i] = rs.getDouble("Accuracy");
+        stars[i] = rs.getDouble("StarRating");
+        errors[i] = rs.getInt("ErrorAmount");
+        byCompleted = null;
+        byHistory = null;
+    }
+
+    private void grow() {
+        int n = ids.length * 2;
+        ids = Arrays.copyOf(ids, n);
+        started = Arrays.copyOf(started, n);
+        completed = Arrays.copyOf(completed, n);
+        wpm = Arrays.copyOf(wpm, n);
+        accuracy = Arrays.copyOf(accuracy, n);
+        stars = Arrays.copyOf(stars, n);
+        errors = Arrays.copyOf(errors, n);
+        types = Arrays.copyOf(types, n);
+    }
+
+    private short typeCode(String type) {
+        // Lesson types repeat heavily, so each distinct one is stored once.
+        if (type == null) return -1;
+        Short code = typeCodes.get(type);
+        if (code == null) {
+            code = (short) typeNames.size();
+            typeNames.add(type);
+            typeCodes.put(type, code);
+        }
+        return code;
+    }
+
+    private Entry entry(int i) {
+        return new Entry(ids[i], types[i] < 0 ? null : typeNames.get(types[i]),
+                format(started[i]), format(completed[i]), wpm[i], accuracy[i], stars[i], errors[i]);
+    }
+
+    private int[] completedOrder() {
+        // Completion time, then id, ascending; unreadable times sort first like NULLs in SQLite.
+        if (byCompleted == null) {
+            byCompleted = sorted((a, b) -> {
+                int c = Long.compare(completed[a], completed[b]);
+                return c != 0 ? c : Integer.compare(ids[a], ids[b]);
+            });
+        }
+        return byCompleted;
+    }
+
+    private int[] historyOrder() {
+        // Dated rows newest first, then undated rows by id, newest first.
+        if (byHistory == null) {
+            byHistory = sorted((a, b) -> compareHistory(started[a], ids[a], started[b], ids[b]));
+            int dated = 0;
+            for (int i = 0; i < size; i++) if (started[i] != NO_TIME) dated++;
+            datedCount = dated;
+        }
+        return byHistory;
+    }
+
+    private static int compareHistory(long startedA, int idA, long startedB, int idB) {
+        // Negative when A is listed before B.
+        boolean datedA = startedA != NO_TIME, datedB = startedB != NO_TIME;
+        if (datedA != datedB) return datedA ? -1 : 1;
+        int c = Long.compare(startedB, startedA);
+        return c != 0 ? c : Integer.compare(idB, idA);
+    }
+
+    private int[] sorted(RowOrder order) {
+        // Bottom-up merge sort over plain int indexes; stable and allocation-light.
+        int[] rows = new int[size];
+        for (int i = 0; i < size; i++) rows[i] = i;
+        int[] buf = new int[size];
+        for (int width = 1; width < size; width *= 2) {
+            for (int lo = 0; lo < size; lo += 2 * width) {
+                int mid = Math.min(lo + width, size), hi = Math.min(lo + 2 * width, size);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) buf[k++] = order.compare(rows[j], rows[i]) < 0 ? rows[j++] : rows[i++];
+                while (i < mid) buf[k++] = rows[i++];
+                while (j < hi) buf[k++] = rows[j++];
+            }
+            int[] t = rows;
+            rows = buf;
+            buf = t;
+        }
+        return rows;
+    }
+
+    private static long parse(String at) {
+        // Stored times are "yyyy-MM-dd HH:mm:ss"; anything else is treated as missing.
+        if (at == null) return NO_TIME;
+        try {
+            return LocalDateTime.parse(at, SQL_TIME).toEpochSecond(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            return NO_TIME;
+        }
+    }
+
+    private static String format(long at) {
+        return at == NO_TIME ? null : LocalDateTime.ofEpochSecond(at, 0, ZoneOffset.UTC).format(SQL_TIME);
+    }
+}
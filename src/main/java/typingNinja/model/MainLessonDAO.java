@@ -1,8 +1,12 @@
 package typingNinja.model;
 
 import java.sql.*;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 import typingNinja.model.auth.Session;
 
 /**
@@ -12,70 +16,15 @@ import typingNinja.model.auth.Session;
  */
 
 public class MainLessonDAO {
-    private final Connection connection;
 
+    private static final String NOT_COMPLETED = "Not Yet Completed";
+    private static final DateTimeFormatter DISPLAY_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy", Locale.ENGLISH);
 
     /**
-     * creates a new DAO instance and ensures the lesson table exists
+     * creates a new DAO instance; the lesson table and its indexes are managed by
+     * {@link SchemaMigrator} when the database is opened
      */
     public MainLessonDAO() {
-        connection = SqliteConnection.getInstance();
-        createTableIfNeeded();
-        ensureOptionalColumns();
-    }
-
-    /**
-     * creates the main lesson table if it doesn't already exist
-     */
-    private void createTableIfNeeded() {
-        final String sql = """
-            CREATE TABLE IF NOT EXISTS Lesson (
-                LessonID      INTEGER PRIMARY KEY AUTOINCREMENT,
-                UserID        INTEGER NOT NULL,
-                LessonType    TEXT    NOT NULL,
-                CreatedAt     TEXT    DEFAULT CURRENT_TIMESTAMP
-            )
-            """;
-        try (Statement st = connection.createStatement()) {
-            st.execute(sql);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * ensures optional columns exist for extended lesson tracking
-     */
-    private void ensureOptionalColumns() {
-        addColumnIfMissing("Prompt", "TEXT");
-        addColumnIfMissing("LessonDuration", "INTEGER");
-        addColumnIfMissing("UpperCase", "INTEGER");
-        addColumnIfMissing("Numbers", "INTEGER");
-        addColumnIfMissing("Punctuation", "INTEGER");
-        addColumnIfMissing("SpecialChars", "INTEGER");
-        addColumnIfMissing("DateStarted", "TEXT");
-        addColumnIfMissing("DateCompleted", "TEXT");
-    }
-
-    /**
-     * add a column to the lesson table if it does not exist
-     * @param col the column name
-     * @param type the column sql data type
-     */
-    private void addColumnIfMissing(String col, String type) {
-        try (PreparedStatement ps = connection.prepareStatement(
-                "SELECT 1 FROM pragma_table_info('Lesson') WHERE name = ?")) {
-            ps.setString(1, col);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (!rs.next()) {
-                    try (Statement alter = connection.createStatement()) {
-                        alter.execute("ALTER TABLE Lesson ADD COLUMN " + col + " " + type);
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
     }
 
     /**
@@ -85,10 +34,14 @@ public class MainLessonDAO {
      */
     public void insertSelection(int userId, String lessonType) {
         final String sql = "INSERT INTO Lesson (UserID, LessonType, DateStarted) VALUES (?, ?, datetime('now'))";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setInt(1, userId);
-            ps.setString(2, lessonType);
-            ps.executeUpdate();
+        try {
+            SqliteConnection.write(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                    ps.setInt(1, userId);
+                    ps.setString(2, lessonType);
+                    return ps.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -119,15 +72,19 @@ public class MainLessonDAO {
             VALUES
               (?, 'CustomTopic', ?, ?, ?, ?, ?, ?, datetime('now'))
             """;
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setInt(1, userId);
-            ps.setString(2, prompt);
-            ps.setInt(3, lessonDuration);
-            ps.setInt(4, upperCase ? 1 : 0);
-            ps.setInt(5, numbers ? 1 : 0);
-            ps.setInt(6, punctuation ? 1 : 0);
-            ps.setInt(7, specialChars ? 1 : 0);
-            ps.executeUpdate();
+        try {
+            SqliteConnection.write(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                    ps.setInt(1, userId);
+                    ps.setString(2, prompt);
+                    ps.setInt(3, lessonDuration);
+                    ps.setInt(4, upperCase ? 1 : 0);
+                    ps.setInt(5, numbers ? 1 : 0);
+                    ps.setInt(6, punctuation ? 1 : 0);
+                    ps.setInt(7, specialChars ? 1 : 0);
+                    return ps.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -143,10 +100,14 @@ public class MainLessonDAO {
             INSERT INTO Lesson (UserID, LessonType, LessonDuration, DateStarted)
             VALUES (?, 'FreeType', ?, datetime('now'))
             """;
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setInt(1, userId);
-            ps.setInt(2, lessonDuration);
-            ps.executeUpdate();
+        try {
+            SqliteConnection.write(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                    ps.setInt(1, userId);
+                    ps.setInt(2, lessonDuration);
+                    return ps.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -155,37 +116,35 @@ public class MainLessonDAO {
     /** Returns formatted best time and date for the current user,
      * or "Not Yet Completed" if none valid. */
     public String getBestTimeAndDate(String lessonType) {
-        int userId = Session.getCurrentUserId();
-        final String sql = """
-            SELECT 
-                (strftime('%s', DateCompleted) - strftime('%s', DateStarted)) AS seconds,
-                DateCompleted
-            FROM Lesson
-            WHERE UserID = ? 
-              AND LessonType = ?
-              AND DateCompleted IS NOT NULL
-              AND DateStarted IS NOT NULL
-              AND strftime('%s', DateCompleted) > strftime('%s', DateStarted)
-            ORDER BY seconds ASC
-            LIMIT 1
-            """;
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+        return getBestTimesAndDates(Session.getCurrentUserId())
+                .getOrDefault(lessonType, NOT_COMPLETED);
+    }
+
+    /**
+     * returns the formatted best time and date for every lesson type the user has completed,
+     * read in one query from the per-user best-times table kept up to date on completion
+     * @param userId the user's ID
+     * @return lesson type to display text; types never completed are absent
+     */
+    public Map<String, String> getBestTimesAndDates(int userId) {
+        final String sql = "SELECT LessonType, BestSeconds, CompletedAt FROM LessonBestTime WHERE UserID = ?";
+        Map<String, String> out = new HashMap<>();
+        try (Connection connection = SqliteConnection.reader();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setInt(1, userId);
-            ps.setString(2, lessonType);
             try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    int seconds = rs.getInt("seconds");
-                    String dateCompleted = rs.getString("DateCompleted");
+                while (rs.next()) {
+                    String dateCompleted = rs.getString("CompletedAt");
                     if (dateCompleted != null && dateCompleted.length() >= 10) {
-                        String formatted = formatDate(dateCompleted);
-                        return "Best time: " + seconds + " seconds\nCompleted " + formatted;
+                        out.put(rs.getString("LessonType"),
+                                "Best time: " + rs.getInt("BestSeconds") + " seconds\nCompleted " + formatDate(dateCompleted));
                     }
                 }
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return "Not Yet Completed";
+        return out;
     }
 
     /**
@@ -193,19 +152,11 @@ public class MainLessonDAO {
      * @param dateTime the date-time string from SQLite
      * @return formatted date string
      */
-
-    private String formatDate(String dateTime) {
+    private static String formatDate(String dateTime) {
         try {
-            var in = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.ENGLISH);
-            var out = new SimpleDateFormat("dd/MM/yyyy", Locale.ENGLISH);
-            return out.format(in.parse(dateTime));
-        } catch (Exception e) {
-            try {
-                var in = new SimpleDateFormat("yyyy-MM-dd", Locale.ENGLISH);
-                var out = new SimpleDateFormat("dd/MM/yyyy", Locale.ENGLISH);
-                return out.format(in.parse(dateTime));
-            } catch (Exception ignored) {}
+            return LocalDate.parse(dateTime.substring(0, 10)).format(DISPLAY_DATE);
+        } catch (DateTimeParseException e) {
+            return dateTime;
         }
-        return dateTime;
     }
 }
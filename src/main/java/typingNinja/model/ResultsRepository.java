@@ -1,18 +1,15 @@
 package typingNinja.model;
 
-import typingNinja.model.SqliteConnection;
+import typingNinja.model.auth.Session;
 
-import java.sql.Connection;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 
 public final class ResultsRepository {
 
     private static IResultsDAO dao() {
-        Connection c = SqliteConnection.getInstance();
-        return new SqliteResultsDAO(c);
+        return new SqliteResultsDAO();
     }
 
     public static void ensureTable() {
@@ -26,16 +23,19 @@ public final class ResultsRepository {
     public static record Metrics(List<Integer> wpm, List<Integer> acc) {}
 
     public static Metrics loadLastN(int n) {
+        // Read straight from the cached history's columns, oldest first; the lock keeps both columns aligned.
+        int[] wpm, acc;
         try {
-            var rows = dao().getLastN(n);
-            Collections.reverse(rows);
-            List<Integer> w = new ArrayList<>();
-            List<Integer> a = new ArrayList<>();
-            for (var r : rows) { w.add(r.wpm()); a.add(r.acc()); }
-            return new Metrics(w, a);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+            LessonHistoryCache history = LessonHistoryCache.forUser(Session.getCurrentUserId());
+            synchronized (history) {
+                wpm = history.recentWpm(n);
+                acc = history.recentAccuracy(n);
+            }
+        } catch (Exception e) { throw new RuntimeException(e); }
+        List<Integer> w = new ArrayList<>(wpm.length);
+        List<Integer> a = new ArrayList<>(acc.length);
+        for (int i = 0; i < wpm.length; i++) { w.add(wpm[i]); a.add(acc[i]); }
+        return new Metrics(w, a);
     }
 
     private ResultsRepository() {}
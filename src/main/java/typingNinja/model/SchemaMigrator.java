@@ -0,0 +1,292 @@
+package typingNinja.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import typingNinja.model.lesson.KeyLatencyStore;
+import typingNinja.model.lesson.NgramModelStore;
+import typingNinja.model.lesson.WeakPairStore;
+
+/**
+ * Versioned schema migrations for the application database.
+ * <p>The current version lives in a one-row {@code schema_version} table. Each migration runs
+ * in its own transaction and bumps the version, so opening an up-to-date database costs a
+ * single lookup. {@link SqliteConnection} runs this whenever it opens the writer, which means
+ * DAOs never need their own {@code CREATE TABLE} or column probes.</p>
+ */
+public final class SchemaMigrator {
+
+    private record Migration(int version, String description, SqliteConnection.SqlWork<Void> work) {}
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Lesson table and optional columns", SchemaMigrator::lessonTable),
+            new Migration(2, "Lesson indexes for history and results queries", conn -> exec(conn,
+                    "CREATE INDEX IF NOT EXISTS idx_lesson_user_completed ON Lesson(UserID, DateCompleted)",
+                    "CREATE INDEX IF NOT EXISTS idx_lesson_user_type_completed ON Lesson(UserID, LessonType, DateCompleted)",
+                    "CREATE INDEX IF NOT EXISTS idx_lesson_user_wpm ON Lesson(UserID, WPM DESC)",
+                    "CREATE INDEX IF NOT EXISTS idx_lesson_user_started ON Lesson(UserID, DateStarted)")),
+            new Migration(3, "Statistics rollup tables", conn -> exec(conn,
+                    """
+                    CREATE TABLE IF NOT EXISTS StatisticsDaily (
+                        UserID INTEGER NOT NULL,
+                        Day TEXT NOT NULL,
+                        Lessons INTEGER NOT NULL DEFAULT 0,
+                        ActiveSeconds REAL NOT NULL DEFAULT 0,
+                        SumWPM REAL NOT NULL DEFAULT 0,
+                        SumAccuracy REAL NOT NULL DEFAULT 0,
+                        PRIMARY KEY (UserID, Day)
+                    )
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS StatisticsRollupState (
+                        UserID INTEGER PRIMARY KEY,
+                        RebuiltAt TEXT NOT NULL
+                    )
+                    """)),
+            new Migration(4, "Per-user best time for each lesson type", conn -> {
+                exec(conn, """
+                    CREATE TABLE IF NOT EXISTS LessonBestTime (
+                        UserID INTEGER NOT NULL,
+                        LessonType TEXT NOT NULL,
+                        BestSeconds INTEGER NOT NULL,
+                        CompletedAt TEXT NOT NULL,
+                        PRIMARY KEY (UserID, LessonType)
+                    )
+                    """);
+                StatisticsRollup.rebuildBestTimes(conn, null);
+                return null;
+            }),
+            new Migration(5, "Normalized weak key pairs and per-user totals", conn -> {
+                exec(conn, """
+                    CREATE TABLE IF NOT EXISTS LessonWeakPair (
+                        UserID INTEGER NOT NULL,
+                        LessonID INTEGER NOT NULL,
+                        Prev TEXT NOT NULL,
+                        Expected TEXT NOT NULL,
+                        Count INTEGER NOT NULL,
+                        CompletedAt TEXT,
+                        PRIMARY KEY (LessonID, Prev, Expected)
+                    )
+                    """,
+                    "CREATE INDEX IF NOT EXISTS idx_lesson_weak_pair_user ON LessonWeakPair(UserID, CompletedAt)",
+                    """
+                    CREATE TABLE IF NOT EXISTS UserWeakPair (
+                        UserID INTEGER NOT NULL,
+                        Prev TEXT NOT NULL,
+                        Expected TEXT NOT NULL,
+                        Count INTEGER NOT NULL,
+                        LastSeen TEXT,
+                        PRIMARY KEY (UserID, Prev, Expected)
+                    )
+                    """,
+                    "CREATE INDEX IF NOT EXISTS idx_user_weak_pair_top ON UserWeakPair(UserID, Count DESC, Prev, Expected)");
+                WeakPairStore.rebuild(conn, null);
+                return null;
+            }),
+            new Migration(6, "Keystroke journal per completed lesson", conn -> exec(conn,
+                    """
+                    CREATE TABLE IF NOT EXISTS LessonJournal (
+                        LessonID INTEGER PRIMARY KEY,
+                        UserID INTEGER NOT NULL,
+                        Events INTEGER NOT NULL,
+                        Data BLOB NOT NULL
+                    )
+                    """,
+                    "CREATE INDEX IF NOT EXISTS idx_lesson_journal_user ON LessonJournal(UserID)")),
+            new Migration(7, "Per-user keystroke interval sketches", conn -> {
+                exec(conn, """
+                    CREATE TABLE IF NOT EXISTS UserKeyLatency (
+                        UserID INTEGER PRIMARY KEY,
+                        Samples INTEGER NOT NULL,
+                        Data BLOB NOT NULL,
+                        UpdatedAt TEXT
+                    )
+                    """);
+                KeyLatencyStore.rebuild(conn, null);
+                return null;
+            }),
+            new Migration(8, "Per-user decayed n-gram error model", conn -> {
+                exec(conn, """
+                    CREATE TABLE IF NOT EXISTS UserNgramModel (
+                        UserID INTEGER PRIMARY KEY,
+                        Entries INTEGER NOT NULL,
+                        Data BLOB NOT NULL,
+                        UpdatedAt TEXT
+                    )
+                    """);
+                NgramModelStore.rebuild(conn, null);
+                return null;
+            })
+    );
+
+    /**
+     * Hot queries whose plans must use an index rather than scanning {@code Lesson}.
+     * Parameters are bound as {@code 1} / {@code '1a'} when explaining.
+     */
+    private static final List<String> HOT_QUERIES = List.of(
+            "SELECT LessonID, WPM, StarRating, DateStarted FROM Lesson WHERE UserID = ? AND DateStarted IS NOT NULL"
+                    + " AND (DateStarted, LessonID) < (?, ?) ORDER BY DateStarted DESC, LessonID DESC LIMIT 50",
+            "SELECT WPM, Accuracy, DateStarted FROM Lesson WHERE UserID = ? ORDER BY WPM DESC LIMIT 1",
+            "SELECT LessonID FROM Lesson WHERE UserID = ? AND DateCompleted IS NOT NULL ORDER BY DateCompleted DESC",
+            "SELECT DateCompleted FROM Lesson WHERE UserID = ? AND LessonType = ? AND DateCompleted IS NOT NULL",
+            "SELECT COUNT(*) FROM Lesson WHERE UserID = ? AND DateCompleted IS NOT NULL"
+    );
+
+    private SchemaMigrator() {}
+
+    /**
+     * Returns the newest schema version this build knows about.
+     *
+     * @return latest migration version
+     */
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+    }
+
+    /**
+     * Brings the database behind {@code conn} up to {@link #latestVersion()}.
+     * Must be called before the connection is shared with other threads.
+     *
+     * @param conn writer connection
+     * @throws SQLException when a migration fails; earlier migrations stay committed
+     */
+    public static void migrate(Connection conn) throws SQLException {
+        exec(conn, "CREATE TABLE IF NOT EXISTS schema_version (version INTEGER NOT NULL)");
+        int current = currentVersion(conn);
+        if (current >= latestVersion()) return;
+
+        boolean prevAutoCommit = conn.getAutoCommit();
+        try {
+            for (Migration m : MIGRATIONS) {
+                if (m.version() <= current) continue;
+                conn.setAutoCommit(false);
+                try {
+                    m.work().apply(conn);
+                    try (Statement st = conn.createStatement()) {
+                        st.executeUpdate("DELETE FROM schema_version");
+                        st.executeUpdate("INSERT INTO schema_version (version) VALUES (" + m.version() + ")");
+                    }
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+        } finally {
+            conn.setAutoCommit(prevAutoCommit);
+        }
+    }
+
+    /**
+     * Reads the recorded schema version, or {@code 0} for a database that was never migrated.
+     *
+     * @param conn connection to read from
+     * @return recorded version
+     * @throws SQLException when the lookup fails
+     */
+    public static int currentVersion(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Runs {@code EXPLAIN QUERY PLAN} for a statement and returns the plan detail lines.
+     *
+     * @param conn connection to explain on
+     * @param sql statement with {@code ?} placeholders
+     * @return plan rows as reported by SQLite
+     * @throws SQLException when the statement cannot be prepared
+     */
+    public static List<String> explain(Connection conn, String sql) throws SQLException {
+        List<String> plan = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            int params = ps.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= params; i++) {
+                // UserID is always the first parameter; anything after it is a lesson type.
+                if (i == 1) ps.setInt(i, 1); else ps.setString(i, "1a");
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) plan.add(rs.getString("detail"));
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Lists the hot queries whose plan still contains a full scan of {@code Lesson}.
+     *
+     * @param conn connection to explain on
+     * @return offending statements, empty when every hot query uses an index
+     * @throws SQLException when a statement cannot be explained
+     */
+    public static List<String> queriesScanningLesson(Connection conn) throws SQLException {
+        List<String> offenders = new ArrayList<>();
+        for (String sql : HOT_QUERIES) {
+            for (String step : explain(conn, sql)) {
+                if (step.startsWith("SCAN Lesson") && !step.contains("USING")) {
+                    offenders.add(sql);
+                    break;
+                }
+            }
+        }
+        return offenders;
+    }
+
+    private static Void lessonTable(Connection conn) throws SQLException {
+        // Fresh installs get the full table; older files only gain the columns they lack.
+        exec(conn, """
+                CREATE TABLE IF NOT EXISTS Lesson (
+                    LessonID       INTEGER PRIMARY KEY AUTOINCREMENT,
+                    UserID         INTEGER NOT NULL,
+                    LessonType     TEXT    NOT NULL,
+                    Prompt         TEXT,
+                    LessonDuration INTEGER,
+                    UpperCase      INTEGER,
+                    Numbers        INTEGER,
+                    Punctuation    INTEGER,
+                    SpecialChars   INTEGER,
+                    DateStarted    TEXT,
+                    DateCompleted  TEXT,
+                    StarRating     REAL,
+                    WPM            REAL,
+                    Accuracy       REAL,
+                    ErrorAmount    INTEGER,
+                    WeakKeys       TEXT,
+                    CreatedAt      TEXT    DEFAULT CURRENT_TIMESTAMP
+                )
+                """);
+        String[][] optional = {
+                {"Prompt", "TEXT"}, {"LessonDuration", "INTEGER"}, {"UpperCase", "INTEGER"},
+                {"Numbers", "INTEGER"}, {"Punctuation", "INTEGER"}, {"SpecialChars", "INTEGER"},
+                {"DateStarted", "TEXT"}, {"DateCompleted", "TEXT"}, {"StarRating", "REAL"},
+                {"WPM", "REAL"}, {"Accuracy", "REAL"}, {"ErrorAmount", "INTEGER"}, {"WeakKeys", "TEXT"}
+        };
+        List<String> existing = new ArrayList<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT name FROM pragma_table_info('Lesson')")) {
+            while (rs.next()) existing.add(rs.getString(1));
+        }
+        for (String[] col : optional) {
+            if (!existing.contains(col[0])) {
+                exec(conn, "ALTER TABLE Lesson ADD COLUMN " + col[0] + " " + col[1]);
+            }
+        }
+        return null;
+    }
+
+    private static Void exec(Connection conn, String... statements) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            for (String sql : statements) st.execute(sql);
+        }
+        return null;
+    }
+}
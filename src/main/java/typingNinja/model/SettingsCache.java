@@ -0,0 +1,134 @@
+package typingNinja.model;
+
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.Property;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-memory copy of the signed-in user's settings.
+ * <p>Loaded once at login with a single read, then served from memory: screens read and bind to
+ * the observable properties, and every change is written back to {@link SettingsDAO} on a
+ * background thread.
+ * An open lesson that listens to a property picks up toggles from the settings page live.</p>
+ */
+public final class SettingsCache {
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "settings-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static SettingsCache current;
+
+    private final int userId;
+    private final SettingsDAO dao;
+    private boolean loading = false;
+    private boolean rowEnsured = false;
+
+    private final StringProperty displayLanguage = new SimpleStringProperty(this, "displayLanguage");
+    private final StringProperty theme = new SimpleStringProperty(this, "theme");
+    private final StringProperty fontSize = new SimpleStringProperty(this, "fontSize");
+    private final BooleanProperty keyboardSounds = new SimpleBooleanProperty(this, "keyboardSounds");
+    private final BooleanProperty typingErrors = new SimpleBooleanProperty(this, "typingErrors");
+    private final BooleanProperty typingErrorSounds = new SimpleBooleanProperty(this, "typingErrorSounds");
+    private final BooleanProperty lessonCompleteSound = new SimpleBooleanProperty(this, "lessonCompleteSound");
+
+    private SettingsCache(int userId, SettingsDAO dao) {
+        this.userId = userId;
+        this.dao = dao;
+        apply(dao.load(userId));
+        writeThrough("DisplayLanguage", displayLanguage);
+        writeThrough("Theme", theme);
+        writeThrough("FontSize", fontSize);
+        writeThrough("KeyboardSounds", keyboardSounds);
+        writeThrough("TypingErrors", typingErrors);
+        writeThrough("TypingErrorSounds", typingErrorSounds);
+        writeThrough("LessonCompleteSound", lessonCompleteSound);
+    }
+
+    /**
+     * Loads (or reloads) the settings for a user and makes them the current cache.
+     * Called at login so later screens never touch the database for settings.
+     *
+     * @param userId user who just signed in
+     * @return the freshly loaded cache
+     */
+    public static synchronized SettingsCache load(int userId) {
+        current = new SettingsCache(userId, new SettingsDAO());
+        return current;
+    }
+
+    /**
+     * Returns the cached settings for a user, loading them only if a different user
+     * (or nobody) was cached before.
+     *
+     * @param userId user whose settings are needed
+     * @return cache for that user
+     */
+    public static synchronized SettingsCache forUser(int userId) {
+        if (current == null || current.userId != userId) {
+            return load(userId);
+        }
+        return current;
+    }
+
+    /**
+     * Returns a future that completes once every queued settings write has reached the database.
+     *
+     * @return flush barrier
+     */
+    public static CompletableFuture<Void> flush() {
+        return CompletableFuture.runAsync(() -> {}, WRITER);
+    }
+
+    private void apply(SettingsDAO.SettingsRecord rec) {
+        loading = true;
+        try {
+            displayLanguage.set(rec.displayLanguage);
+            theme.set(rec.theme);
+            fontSize.set(rec.fontSize);
+            keyboardSounds.set(rec.keyboardSounds);
+            typingErrors.set(rec.typingErrors);
+            typingErrorSounds.set(rec.typingErrorSounds);
+            lessonCompleteSound.set(rec.lessonCompleteSound);
+        } finally {
+            loading = false;
+        }
+    }
+
+    private <T> void writeThrough(String column, Property<T> property) {
+        property.addListener((o, ov, nv) -> {
+            if (loading || nv == null) return;
+            WRITER.execute(() -> {
+                // The row is created lazily, on the writer thread, the first time anything changes.
+                if (!rowEnsured) {
+                    dao.ensureRow(userId);
+                    rowEnsured = true;
+                }
+                dao.update(userId, column, nv);
+            });
+        });
+    }
+
+    public int getUserId() { return userId; }
+
+    public StringProperty displayLanguageProperty() { return displayLanguage; }
+    public StringProperty themeProperty() { return theme; }
+    public StringProperty fontSizeProperty() { return fontSize; }
+    public BooleanProperty keyboardSoundsProperty() { return keyboardSounds; }
+    public BooleanProperty typingErrorsProperty() { return typingErrors; }
+    public BooleanProperty typingErrorSoundsProperty() { return typingErrorSounds; }
+    public BooleanProperty lessonCompleteSoundProperty() { return lessonCompleteSound; }
+
+    public boolean isKeyboardSounds() { return keyboardSounds.get(); }
+    public boolean isTypingErrors() { return typingErrors.get(); }
+    public boolean isTypingErrorSounds() { return typingErrorSounds.get(); }
+    public boolean isLessonCompleteSound() { return lessonCompleteSound.get(); }
+}
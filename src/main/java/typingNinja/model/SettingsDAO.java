@@ -5,25 +5,23 @@ import java.util.Set;
 
 public class SettingsDAO {
 
-    private static final String DB_URL = "jdbc:sqlite:TypingNinjaSQL.db";
     private static final Set<String> ALLOWED =
             Set.of("DisplayLanguage","Theme","FontSize",
                     "KeyboardSounds","TypingErrors","TypingErrorSounds","LessonCompleteSound");
 
-    private Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL);
-    }
-
     public void ensureRow(int userId) {
         String sql = "INSERT INTO Settings (UserID, DisplayLanguage, Theme, FontSize, " +
                 "KeyboardSounds, TypingErrors, TypingErrorSounds, LessonCompleteSound) " +
                 "SELECT ?, 'English', 'Dark Blue', 'Medium', 1, 1, 1, 1 " +
                 "WHERE NOT EXISTS (SELECT 1 FROM Settings WHERE UserID = ?)";
-        try (Connection c = getConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, userId);
-            ps.setInt(2, userId);
-            ps.executeUpdate();
+        try {
+            SqliteConnection.write(c -> {
+                try (PreparedStatement ps = c.prepareStatement(sql)) {
+                    ps.setInt(1, userId);
+                    ps.setInt(2, userId);
+                    return ps.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -31,10 +29,20 @@ public class SettingsDAO {
 
     public SettingsRecord fetch(int userId) {
         ensureRow(userId);
+        return load(userId);
+    }
+
+    /**
+     * Reads a user's settings without creating the row, falling back to defaults when absent.
+     *
+     * @param userId user whose settings are read
+     * @return stored settings or the defaults
+     */
+    public SettingsRecord load(int userId) {
         String sql = "SELECT DisplayLanguage, Theme, FontSize, " +
                 "KeyboardSounds, TypingErrors, TypingErrorSounds, LessonCompleteSound " +
                 "FROM Settings WHERE UserID = ?";
-        try (Connection c = getConnection();
+        try (Connection c = SqliteConnection.reader();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setInt(1, userId);
             try (ResultSet rs = ps.executeQuery()) {
@@ -60,15 +68,18 @@ public class SettingsDAO {
         if (!ALLOWED.contains(column)) return;
 
         String sql = "UPDATE Settings SET " + column + " = ? WHERE UserID = ?";
-        try (Connection c = getConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-            if (value instanceof Boolean) {
-                ps.setInt(1, ((Boolean) value) ? 1 : 0);
-            } else {
-                ps.setString(1, String.valueOf(value));
-            }
-            ps.setInt(2, userId);
-            ps.executeUpdate();
+        try {
+            SqliteConnection.write(c -> {
+                try (PreparedStatement ps = c.prepareStatement(sql)) {
+                    if (value instanceof Boolean) {
+                        ps.setInt(1, ((Boolean) value) ? 1 : 0);
+                    } else {
+                        ps.setString(1, String.valueOf(value));
+                    }
+                    ps.setInt(2, userId);
+                    return ps.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1,23 +1,100 @@
 package typingNinja.model;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Connection manager for the application database.
+ * The file is opened in WAL mode so a single serialized writer and a small pool of
+ * read-only connections can work side by side: history and profile reads no longer
+ * queue behind lesson writes.
+ */
 public class SqliteConnection {
+    private static final int READER_POOL_SIZE = 3;
+    private static final long READER_WAIT_MS = 5000;
+    private static final int BUSY_TIMEOUT_MS = 5000;
+    private static final int CACHE_SIZE_KIB = 8192;
+    private static final long MMAP_SIZE_BYTES = 64L * 1024 * 1024;
+
     private static Connection instance = null;
+    private static final ReentrantLock WRITE_LOCK = new ReentrantLock();
+    private static final Object READER_LOCK = new Object();
+    private static final Deque<Connection> idleReaders = new ArrayDeque<>();
+    private static int openReaders = 0;
+    private static int generation = 0;
+    private static final List<Runnable> RESET_HOOKS = new CopyOnWriteArrayList<>();
+
+    /**
+     * Unit of work executed against a connection handed out by the manager.
+     *
+     * @param <T> result type produced by the work
+     */
+    @FunctionalInterface
+    public interface SqlWork<T> {
+        T apply(Connection connection) throws SQLException;
+    }
 
     private SqliteConnection() {
-        // Resolve an absolute path to ensure we are always using the intended DB file
-        String dbFilePath = Paths.get(System.getProperty("user.dir"), "TypingNinjaSQL.db").toString();
-        String url = "jdbc:sqlite:" + dbFilePath;
         try {
-            instance = DriverManager.getConnection(url);
+            instance = open(false);
         } catch (SQLException sqlEx) {
             System.err.println(sqlEx);
+            return;
+        }
+        try {
+            // Runs once per opened database, before the writer is visible to any other thread.
+            SchemaMigrator.migrate(instance);
+        } catch (SQLException sqlEx) {
+            sqlEx.printStackTrace();
         }
     }
 
+    private static String url() {
+        // Resolve an absolute path to ensure we are always using the intended DB file
+        String dbFilePath = Paths.get(System.getProperty("user.dir"), "TypingNinjaSQL.db").toString();
+        return "jdbc:sqlite:" + dbFilePath;
+    }
+
+    private static Connection open(boolean readOnly) throws SQLException {
+        // Every handle gets the same tuning; readers are additionally locked to query-only.
+        Connection c = DriverManager.getConnection(url());
+        try (Statement st = c.createStatement()) {
+            st.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MS);
+            if (!readOnly) {
+                st.execute("PRAGMA journal_mode = WAL");
+            }
+            st.execute("PRAGMA synchronous = NORMAL");
+            st.execute("PRAGMA cache_size = -" + CACHE_SIZE_KIB);
+            st.execute("PRAGMA mmap_size = " + MMAP_SIZE_BYTES);
+            st.execute("PRAGMA temp_store = MEMORY");
+            if (readOnly) {
+                st.execute("PRAGMA query_only = ON");
+            }
+        } catch (SQLException e) {
+            c.close();
+            throw e;
+        }
+        return c;
+    }
+
+    /**
+     * Returns the shared writer connection. All inserts, updates and deletes should
+     * go through {@link #write(SqlWork)} so they are serialized on this handle.
+     *
+     * @return the writer connection
+     */
     public static synchronized Connection getInstance() {
         try {
             if (instance == null || instance.isClosed()) {
@@ -30,17 +107,193 @@ public class SqliteConnection {
         return instance;
     }
 
+    /**
+     * Runs the supplied work on the writer connection while holding the write lock,
+     * so concurrent callers never interleave statements on the shared handle.
+     *
+     * @param work statements to execute
+     * @param <T> result type
+     * @return whatever the work returns
+     * @throws SQLException when the work fails
+     */
+    public static <T> T write(SqlWork<T> work) throws SQLException {
+        WRITE_LOCK.lock();
+        try {
+            Connection c = getInstance();
+            if (c == null) throw new SQLException("SQLite writer connection is unavailable.");
+            return work.apply(c);
+        } finally {
+            WRITE_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Borrows a read-only connection from the pool. Closing the returned handle gives it
+     * back to the pool instead of closing the file, so callers can use try-with-resources.
+     * <p>When the calling thread is inside {@link #write(SqlWork)}, the writer itself is
+     * returned so the caller can read its own uncommitted changes. Every other caller gets a
+     * pooled reader and sees only committed rows.</p>
+     *
+     * @return a pooled connection that must be closed after use
+     * @throws SQLException when no connection can be opened
+     */
+    public static Connection reader() throws SQLException {
+        Connection writer = readYourWritesHandle();
+        if (writer != null) return wrap(writer, -1);
+
+        int gen;
+        Connection physical = null;
+        synchronized (READER_LOCK) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(READER_WAIT_MS);
+            while (idleReaders.isEmpty() && openReaders >= READER_POOL_SIZE) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) throw new SQLException("Timed out waiting for a pooled SQLite reader.");
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(READER_LOCK, left);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a pooled SQLite reader.", ie);
+                }
+            }
+            gen = generation;
+            if (!idleReaders.isEmpty()) {
+                physical = idleReaders.pop();
+            } else {
+                openReaders++;
+            }
+        }
+        if (physical == null) {
+            try {
+                // Make sure the writer exists first so the file is already switched to WAL.
+                getInstance();
+                physical = open(true);
+            } catch (SQLException e) {
+                synchronized (READER_LOCK) {
+                    if (gen == generation) openReaders--;
+                    READER_LOCK.notifyAll();
+                }
+                throw e;
+            }
+        }
+        return wrap(physical, gen);
+    }
+
+    private static Connection readYourWritesHandle() {
+        // Only the thread holding the write lock may see the writer's uncommitted rows.
+        return WRITE_LOCK.isHeldByCurrentThread() ? getInstance() : null;
+    }
+
+    private static void release(Connection physical, int gen) {
+        // Hand a reader back, or drop it if the pool was reset while it was borrowed.
+        boolean keep;
+        synchronized (READER_LOCK) {
+            keep = gen == generation;
+            try {
+                keep = keep && !physical.isClosed() && physical.getAutoCommit();
+            } catch (SQLException e) {
+                keep = false;
+            }
+            if (keep) {
+                idleReaders.push(physical);
+            } else if (gen == generation) {
+                openReaders--;
+            }
+            READER_LOCK.notifyAll();
+        }
+        if (!keep) {
+            try { physical.close(); } catch (SQLException ignored) {}
+        }
+    }
+
+    private static Connection wrap(Connection physical, int gen) {
+        return (Connection) Proxy.newProxyInstance(
+                SqliteConnection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new PooledHandle(physical, gen));
+    }
+
+    /**
+     * Closes the writer and every pooled reader. Called when the application exits so the
+     * WAL is checkpointed back into the main database file.
+     */
+    public static void shutdown() {
+        synchronized (READER_LOCK) {
+            generation++;
+            while (!idleReaders.isEmpty()) {
+                try { idleReaders.pop().close(); } catch (SQLException ignored) {}
+            }
+            openReaders = 0;
+            READER_LOCK.notifyAll();
+        }
+        synchronized (SqliteConnection.class) {
+            if (instance != null) {
+                try {
+                    instance.close();
+                } catch (SQLException ignored) {
+                }
+                instance = null;
+            }
+        }
+    }
+
+    /**
+     * Registers work to run on {@link #resetForTests()}, such as dropping a cache of rows
+     * read from the database being discarded. Caches register from their static initializer.
+     *
+     * @param hook action to run after the connections are closed
+     */
+    public static void onReset(Runnable hook) {
+        // Copy-on-write: registrations happen once per class, resets are rare.
+        RESET_HOOKS.add(hook);
+    }
+
     /**
      * Test-only hook that lets unit tests isolate themselves by closing and nulling the singleton.
      * Production code should never call this.
      */
     public static void resetForTests() {
-        if (instance != null) {
-            try {
-                instance.close();
-            } catch (SQLException ignored) {
+        shutdown();
+        for (Runnable hook : RESET_HOOKS) hook.run();
+    }
+
+    /**
+     * Proxy handler that turns {@code close()} into "return to pool" for borrowed handles.
+     */
+    private static final class PooledHandle implements InvocationHandler {
+        private final Connection physical;
+        private final int gen;
+        private boolean closed = false;
+
+        PooledHandle(Connection physical, int gen) {
+            this.physical = physical;
+            this.gen = gen;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        if (gen >= 0) release(physical, gen);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + physical + "]";
+                default:
+                    if (closed) throw new SQLException("Connection handle has already been returned to the pool.");
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
             }
-            instance = null;
         }
     }
 }
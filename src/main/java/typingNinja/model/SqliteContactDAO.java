@@ -5,30 +5,31 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class SqliteContactDAO implements INinjaContactDAO {
-    private final Connection connection;
 
     public SqliteContactDAO() {
-        connection = SqliteConnection.getInstance();
         createTable();
     }
 
     private void createTable() {
-        try (Statement statement = connection.createStatement()) {
-            String query = "CREATE TABLE IF NOT EXISTS Users (" +
-                    "UserID INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                    "Username TEXT NOT NULL UNIQUE, " +
-                    "PasswordHash TEXT NOT NULL, " +
-                    "SecretQuestion1 TEXT NOT NULL, " +
-                    "SecretQuestion2 TEXT NOT NULL, " +
-                    "SecretQuestion1Answer TEXT NOT NULL, " +
-                    "SecretQuestion2Answer TEXT NOT NULL" +
-                    ")";
-            statement.execute(query);
-
-            // Ensure no legacy table remains to repopulate Users on startup
-            try (Statement drop = connection.createStatement()) {
-                drop.execute("DROP TABLE IF EXISTS NinjaUsers");
-            }
+        String query = "CREATE TABLE IF NOT EXISTS Users (" +
+                "UserID INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "Username TEXT NOT NULL UNIQUE, " +
+                "PasswordHash TEXT NOT NULL, " +
+                "SecretQuestion1 TEXT NOT NULL, " +
+                "SecretQuestion2 TEXT NOT NULL, " +
+                "SecretQuestion1Answer TEXT NOT NULL, " +
+                "SecretQuestion2Answer TEXT NOT NULL" +
+                ")";
+        try {
+            SqliteConnection.write(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(query);
+                }
+                // Ensure no legacy table remains to repopulate Users on startup
+                try (Statement drop = connection.createStatement()) {
+                    return drop.execute("DROP TABLE IF EXISTS NinjaUsers");
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -37,19 +38,24 @@ public class SqliteContactDAO implements INinjaContactDAO {
     @Override
     public void addNinjaUser(NinjaUser ninjaUser) {
         String sql = "INSERT INTO Users (Username, PasswordHash, SecretQuestion1, SecretQuestion2, SecretQuestion1Answer, SecretQuestion2Answer) VALUES (?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setString(1, ninjaUser.getUserName());
-            ps.setString(2, ninjaUser.getPasswordHash());
-            ps.setString(3, ninjaUser.getSecretQuestion1());
-            ps.setString(4, ninjaUser.getSecretQuestion2());
-            ps.setString(5, ninjaUser.getSecretQuestion1Answer());
-            ps.setString(6, ninjaUser.getSecretQuestion2Answer());
-            ps.executeUpdate();
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                if (rs.next()) {
-                    ninjaUser.setId(rs.getInt(1));
+        try {
+            SqliteConnection.write(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                    ps.setString(1, ninjaUser.getUserName());
+                    ps.setString(2, ninjaUser.getPasswordHash());
+                    ps.setString(3, ninjaUser.getSecretQuestion1());
+                    ps.setString(4, ninjaUser.getSecretQuestion2());
+                    ps.setString(5, ninjaUser.getSecretQuestion1Answer());
+                    ps.setString(6, ninjaUser.getSecretQuestion2Answer());
+                    ps.executeUpdate();
+                    try (ResultSet rs = ps.getGeneratedKeys()) {
+                        if (rs.next()) {
+                            ninjaUser.setId(rs.getInt(1));
+                        }
+                    }
                 }
-            }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -58,15 +64,19 @@ public class SqliteContactDAO implements INinjaContactDAO {
     @Override
     public void updateNinjaUser(NinjaUser ninjaUser) {
         String sql = "UPDATE Users SET Username = ?, PasswordHash = ?, SecretQuestion1 = ?, SecretQuestion2 = ?, SecretQuestion1Answer = ?, SecretQuestion2Answer = ? WHERE UserID = ?";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, ninjaUser.getUserName());
-            ps.setString(2, ninjaUser.getPasswordHash());
-            ps.setString(3, ninjaUser.getSecretQuestion1());
-            ps.setString(4, ninjaUser.getSecretQuestion2());
-            ps.setString(5, ninjaUser.getSecretQuestion1Answer());
-            ps.setString(6, ninjaUser.getSecretQuestion2Answer());
-            ps.setInt(7, ninjaUser.getId());
-            ps.executeUpdate();
+        try {
+            SqliteConnection.write(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                    ps.setString(1, ninjaUser.getUserName());
+                    ps.setString(2, ninjaUser.getPasswordHash());
+                    ps.setString(3, ninjaUser.getSecretQuestion1());
+                    ps.setString(4, ninjaUser.getSecretQuestion2());
+                    ps.setString(5, ninjaUser.getSecretQuestion1Answer());
+                    ps.setString(6, ninjaUser.getSecretQuestion2Answer());
+                    ps.setInt(7, ninjaUser.getId());
+                    return ps.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -75,9 +85,13 @@ public class SqliteContactDAO implements INinjaContactDAO {
     @Override
     public void deleteNinjaUser(NinjaUser ninjaUser) {
         String sql = "DELETE FROM Users WHERE UserID = ?";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setInt(1, ninjaUser.getId());
-            ps.executeUpdate();
+        try {
+            SqliteConnection.write(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                    ps.setInt(1, ninjaUser.getId());
+                    return ps.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -86,7 +100,8 @@ public class SqliteContactDAO implements INinjaContactDAO {
     @Override
     public NinjaUser getNinjaUser(String userName) {
         String sql = "SELECT UserID, Username, PasswordHash, SecretQuestion1, SecretQuestion2, SecretQuestion1Answer, SecretQuestion2Answer FROM Users WHERE Username = ?";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+        try (Connection connection = SqliteConnection.reader();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
             ps.setString(1, userName);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
@@ -112,7 +127,8 @@ public class SqliteContactDAO implements INinjaContactDAO {
     public List<NinjaUser> getAllNinjas() {
         List<NinjaUser> users = new ArrayList<>();
         String sql = "SELECT UserID, Username, PasswordHash, SecretQuestion1, SecretQuestion2, SecretQuestion1Answer, SecretQuestion2Answer FROM Users";
-        try (Statement st = connection.createStatement(); ResultSet rs = st.executeQuery(sql)) {
+        try (Connection connection = SqliteConnection.reader();
+             Statement st = connection.createStatement(); ResultSet rs = st.executeQuery(sql)) {
             while (rs.next()) {
                 NinjaUser user = new NinjaUser(
                         rs.getString("Username"),
@@ -132,112 +148,90 @@ public class SqliteContactDAO implements INinjaContactDAO {
     }
     public void safeInitUserData(int userId) {
         try {
-            String checkGoals = "SELECT COUNT(*) FROM Goals WHERE UserID = ?";
-            try (PreparedStatement ps = connection.prepareStatement(checkGoals)) {
-                ps.setInt(1, userId);
-                ResultSet rs = ps.executeQuery();
-                if (rs.next() && rs.getInt(1) == 0) {
-                    String goalsSql = "INSERT INTO Goals (UserID, EstHours, EstWPM, EstAccuracy) VALUES (?, 0, 0, 0)";
-                    try (PreparedStatement insert = connection.prepareStatement(goalsSql)) {
-                        insert.setInt(1, userId);
-                        insert.executeUpdate();
+            SqliteConnection.write(connection -> {
+                String checkGoals = "SELECT COUNT(*) FROM Goals WHERE UserID = ?";
+                try (PreparedStatement ps = connection.prepareStatement(checkGoals)) {
+                    ps.setInt(1, userId);
+                    ResultSet rs = ps.executeQuery();
+                    if (rs.next() && rs.getInt(1) == 0) {
+                        String goalsSql = "INSERT INTO Goals (UserID, EstHours, EstWPM, EstAccuracy) VALUES (?, 0, 0, 0)";
+                        try (PreparedStatement insert = connection.prepareStatement(goalsSql)) {
+                            insert.setInt(1, userId);
+                            insert.executeUpdate();
+                        }
                     }
                 }
-            }
 
-            String checkStats = "SELECT COUNT(*) FROM Statistics WHERE UserID = ?";
-            try (PreparedStatement ps = connection.prepareStatement(checkStats)) {
-                ps.setInt(1, userId);
-                ResultSet rs = ps.executeQuery();
-                if (rs.next() && rs.getInt(1) == 0) {
-                    String statsSql = """
-                INSERT INTO Statistics (UserID, TimeActiveWeek, TotalWPMWeek, TotalAccuracyWeek,
-                                        Belt, TotalLessons, AvgWPM, HighestRating, AvgRating, TotalStars)
-                VALUES (?, 0, 0, 0, 'White', 0, 0, 0, 0, 0)
-                """;
-                    try (PreparedStatement insert = connection.prepareStatement(statsSql)) {
-                        insert.setInt(1, userId);
-                        insert.executeUpdate();
+                String checkStats = "SELECT COUNT(*) FROM Statistics WHERE UserID = ?";
+                try (PreparedStatement ps = connection.prepareStatement(checkStats)) {
+                    ps.setInt(1, userId);
+                    ResultSet rs = ps.executeQuery();
+                    if (rs.next() && rs.getInt(1) == 0) {
+                        String statsSql = """
+                    INSERT INTO Statistics (UserID, TimeActiveWeek, TotalWPMWeek, TotalAccuracyWeek,
+                                            Belt, TotalLessons, AvgWPM, HighestRating, AvgRating, TotalStars)
+                    VALUES (?, 0, 0, 0, 'White', 0, 0, 0, 0, 0)
+                    """;
+                        try (PreparedStatement insert = connection.prepareStatement(statsSql)) {
+                            insert.setInt(1, userId);
+                            insert.executeUpdate();
+                        }
                     }
                 }
-            }
+                return null;
+            });
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
     public void recalcUserStatistics(int userId) {
+        // Full rebuild from the lesson table; day-to-day updates arrive as deltas instead.
         try {
-            int totalLessons = 0;
-            try (PreparedStatement ps = connection.prepareStatement("SELECT COUNT(*) FROM Lesson WHERE UserID = ?")) {
-                ps.setInt(1, userId);
-                ResultSet rs = ps.executeQuery();
-                if (rs.next()) totalLessons = rs.getInt(1);
-            }
-
-            double avgWPM = 0;
-            try (PreparedStatement ps = connection.prepareStatement("SELECT AVG(WPM) FROM Lesson WHERE UserID = ?")) {
-                ps.setInt(1, userId);
-                ResultSet rs = ps.executeQuery();
-                if (rs.next()) avgWPM = rs.getDouble(1);
-            }
-
-            double highestRating = 0;
-            try (PreparedStatement ps = connection.prepareStatement("SELECT MAX(StarRating) FROM Lesson WHERE UserID = ?")) {
-                ps.setInt(1, userId);
-                ResultSet rs = ps.executeQuery();
-                if (rs.next()) highestRating = rs.getDouble(1);
-            }
-
-            double avgRating = 0;
-            try (PreparedStatement ps = connection.prepareStatement("SELECT AVG(StarRating) FROM Lesson WHERE UserID = ?")) {
-                ps.setInt(1, userId);
-                ResultSet rs = ps.executeQuery();
-                if (rs.next()) avgRating = rs.getDouble(1);
-            }
-
-            int totalStars = 0;
-            try (PreparedStatement ps = connection.prepareStatement("SELECT SUM(CAST(StarRating AS INT)) FROM Lesson WHERE UserID = ?")) {
-                ps.setInt(1, userId);
-                ResultSet rs = ps.executeQuery();
-                if (rs.next()) totalStars = rs.getInt(1);
-            }
-
-            String belt = "White";
-            if (totalStars >= 15 && totalStars <= 39) belt = "Yellow";
-            else if (totalStars >= 40 && totalStars <= 79) belt = "Blue";
-            else if (totalStars >= 80 && totalStars <= 139) belt = "Green";
-            else if (totalStars >= 140 && totalStars <= 239) belt = "Orange";
-            else if (totalStars >= 240 && totalStars <= 379) belt = "Red";
-            else if (totalStars >= 380 && totalStars <= 539) belt = "Brown";
-            else if (totalStars >= 800) belt = "Black";
-
-            String update = """
-            UPDATE Statistics
-            SET TotalLessons = ?, AvgWPM = ?, HighestRating = ?, AvgRating = ?, TotalStars = ?, Belt = ?
-            WHERE UserID = ?
-            """;
-            try (PreparedStatement ps = connection.prepareStatement(update)) {
-                ps.setInt(1, totalLessons);
-                ps.setDouble(2, avgWPM);
-                ps.setDouble(3, highestRating);
-                ps.setDouble(4, avgRating);
-                ps.setInt(5, totalStars);
-                ps.setString(6, belt);
-                ps.setInt(7, userId);
-                ps.executeUpdate();
-            }
+            boolean consistent = SqliteConnection.write(connection -> {
+                StatisticsRollup.rebuild(connection, userId);
+                return StatisticsRollup.verify(connection, userId);
+            });
+            System.out.println("Recalculated statistics for userId=" + userId + " consistent=" + consistent);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
 
-            System.out.println("Recalculated statistics for userId=" + userId +
-                    " Lessons=" + totalLessons +
-                    " AvgWPM=" + avgWPM +
-                    " HighestRating=" + highestRating +
-                    " AvgRating=" + avgRating +
-                    " TotalStars=" + totalStars +
-                    " Belt=" + belt);
+    /**
+     * Brings the profile statistics up to date without rescanning lesson history: totals are
+     * maintained as lessons complete, so this only slides the weekly window (or builds the
+     * rollup the first time a user is seen).
+     *
+     * @param userId the ID of the user whose profile is being shown
+     */
+    public void refreshStatistics(int userId) {
+        try {
+            SqliteConnection.write(connection -> {
+                StatisticsRollup.ensureCurrent(connection, userId);
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
 
+    /**
+     * Checks the running totals against the lesson table and rebuilds them if they drifted.
+     *
+     * @param userId the ID of the user to check
+     * @return {@code true} if the totals were already consistent
+     */
+    public boolean verifyStatistics(int userId) {
+        try {
+            return SqliteConnection.write(connection -> {
+                if (StatisticsRollup.verify(connection, userId)) return true;
+                StatisticsRollup.rebuild(connection, userId);
+                return false;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
+            return false;
         }
     }
 
@@ -250,12 +244,16 @@ public class SqliteContactDAO implements INinjaContactDAO {
         EstAccuracy= COALESCE(?, EstAccuracy)
     WHERE UserID = ?
     """;
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            if (estHours == null) ps.setObject(1, null); else ps.setInt(1, estHours);
-            if (estWPM   == null) ps.setObject(2, null); else ps.setInt(2, estWPM);
-            if (estAccuracy == null) ps.setObject(3, null); else ps.setInt(3, estAccuracy);
-            ps.setInt(4, userId);
-            ps.executeUpdate();
+        try {
+            SqliteConnection.write(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                    if (estHours == null) ps.setObject(1, null); else ps.setInt(1, estHours);
+                    if (estWPM   == null) ps.setObject(2, null); else ps.setInt(2, estWPM);
+                    if (estAccuracy == null) ps.setObject(3, null); else ps.setInt(3, estAccuracy);
+                    ps.setInt(4, userId);
+                    return ps.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -310,7 +308,8 @@ public class SqliteContactDAO implements INinjaContactDAO {
     WHERE u.UserID = ?;
     """;
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = SqliteConnection.reader();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, userId);
             ResultSet rs = stmt.executeQuery();
 
@@ -342,20 +341,21 @@ public class SqliteContactDAO implements INinjaContactDAO {
         INSERT OR IGNORE INTO Goals (UserID, EstHours, EstWPM, EstAccuracy)
         VALUES (?, 0, 0, 0)
         """;
-            try (PreparedStatement ps = connection.prepareStatement(insertGoals)) {
-                ps.setInt(1, userId);
-                ps.executeUpdate();
-            }
-
             String insertStats = """
         INSERT OR IGNORE INTO Statistics (UserID, TimeActiveWeek, TotalWPMWeek, TotalAccuracyWeek,
                                           Belt, TotalLessons, AvgWPM, HighestRating, AvgRating, TotalStars)
         VALUES (?, 0, 0, 0, 'White', 0, 0, 0, 0, 0)
         """;
-            try (PreparedStatement ps = connection.prepareStatement(insertStats)) {
-                ps.setInt(1, userId);
-                ps.executeUpdate();
-            }
+            SqliteConnection.write(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(insertGoals)) {
+                    ps.setInt(1, userId);
+                    ps.executeUpdate();
+                }
+                try (PreparedStatement ps = connection.prepareStatement(insertStats)) {
+                    ps.setInt(1, userId);
+                    return ps.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
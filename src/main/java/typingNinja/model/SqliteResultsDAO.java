@@ -2,11 +2,16 @@ package typingNinja.model;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import typingNinja.model.auth.Session;
+import typingNinja.model.lesson.WeakPairStore;
 
 
 
-/** Results DAO that reuses the main Lesson table; NEVER creates/changes schema. */
+/**
+ * Results DAO that reuses the main Lesson table; NEVER creates/changes schema.
+ * Reads are answered from {@link LessonHistoryCache}; writes go to SQLite and then update it.
+ */
 public class SqliteResultsDAO implements IResultsDAO {
 
     // Table / Columns in main DB
@@ -18,11 +23,8 @@ public class SqliteResultsDAO implements IResultsDAO {
     private static final String COL_TYPE  = "LessonType";   // TEXT
     private static final String COL_DONE  = "DateCompleted";// TEXT (ISO datetime)
 
-    private final Connection connection;
-
-    public SqliteResultsDAO(Connection connection) {
-        if (connection == null) throw new IllegalStateException("SQLite connection is null.");
-        this.connection = connection;
+    /** Reads borrow pooled connections and writes go through the serialized writer. */
+    public SqliteResultsDAO() {
     }
 
     /** Team rule: do NOT touch schema at runtime. */
@@ -30,113 +32,103 @@ public class SqliteResultsDAO implements IResultsDAO {
 
     @Override
     public long addResult(int wpm, int acc) throws Exception {
-        int userId = resolveCurrentUserId(connection);
-
-        // 1) Try to UPDATE the latest "in-progress" lesson (no DateCompleted yet)
-        long updatedId = updateLatestInProgress(userId, wpm, acc);
-        if (updatedId > 0) return updatedId;
-
-        // 2) Otherwise INSERT a fresh completed lesson, inheriting recent LessonType (or default '1a')
-        String lessonType = fetchLatestLessonTypeOrDefault(userId, "1a");
-        final String insert = "INSERT INTO " + TBL +
-                " (" + COL_UID + "," + COL_WPM + "," + COL_ACC + "," + COL_TYPE + "," + COL_DONE + ") " +
-                "VALUES (?, ?, ?, ?, datetime('now'))";
-        try (PreparedStatement ps = connection.prepareStatement(insert, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setInt(1, userId);
-            ps.setDouble(2, wpm);
-            ps.setDouble(3, acc);
-            ps.setString(4, lessonType);
-            ps.executeUpdate();
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                return rs.next() ? rs.getLong(1) : -1L;
+        long lessonId = SqliteConnection.write(connection -> {
+            int userId = resolveCurrentUserId(connection);
+
+            // 1) Try to UPDATE the latest "in-progress" lesson (no DateCompleted yet)
+            long updatedId = updateLatestInProgress(connection, userId, wpm, acc);
+            if (updatedId > 0) {
+                StatisticsRollup.lessonCompleted(connection, (int) updatedId);
+                WeakPairStore.lessonCompleted(connection, (int) updatedId);
+                return updatedId;
             }
-        }
+
+            // 2) Otherwise INSERT a fresh completed lesson, inheriting recent LessonType (or default '1a')
+            String lessonType = fetchLatestLessonTypeOrDefault(connection, userId, "1a");
+            final String insert = "INSERT INTO " + TBL +
+                    " (" + COL_UID + "," + COL_WPM + "," + COL_ACC + "," + COL_TYPE + "," + COL_DONE + ") " +
+                    "VALUES (?, ?, ?, ?, datetime('now'))";
+            try (PreparedStatement ps = connection.prepareStatement(insert, Statement.RETURN_GENERATED_KEYS)) {
+                ps.setInt(1, userId);
+                ps.setDouble(2, wpm);
+                ps.setDouble(3, acc);
+                ps.setString(4, lessonType);
+                ps.executeUpdate();
+                long id;
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    id = rs.next() ? rs.getLong(1) : -1L;
+                }
+                if (id > 0) {
+                    StatisticsRollup.lessonCompleted(connection, (int) id);
+                    WeakPairStore.lessonCompleted(connection, (int) id);
+                }
+                return id;
+            }
+        });
+        if (lessonId > 0) LessonHistoryCache.lessonCompleted(Session.getCurrentUserId(), (int) lessonId);
+        return lessonId;
     }
 
     @Override
     public List<Result> getLastN(int n) throws Exception {
-        // 原来可能是：int userId = resolveCurrentUserId();
-        Integer userId = resolveCurrentUserId(connection);
-        if (userId == null) return java.util.Collections.emptyList();
-
-        final String sql =
-                "SELECT " + COL_ID + " AS id, " + COL_WPM + " AS wpm, " + COL_ACC + " AS acc, " + COL_DONE + " AS createdAt " +
-                        "FROM " + TBL + " " +
-                        "WHERE " + COL_UID + "=? AND " + COL_DONE + " IS NOT NULL " +
-                        "ORDER BY datetime(" + COL_DONE + ") DESC, " + COL_ID + " DESC LIMIT ?";
-
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setInt(1, userId);
-            ps.setInt(2, n);
-            try (ResultSet rs = ps.executeQuery()) {
-                List<Result> out = new ArrayList<>();
-                while (rs.next()) {
-                    out.add(new Result(
-                            rs.getInt("id"),
-                            (int)Math.round(rs.getDouble("wpm")),
-                            (int)Math.round(rs.getDouble("acc")),
-                            rs.getString("createdAt")
-                    ));
-                }
-                return out; // 新→旧，调用层会反转成 旧→新 画图
-            }
-        }
+        // Served from the cached history; newest first, the caller reverses it for charts.
+        List<Result> out = toResults(history().recentCompleted(n));
+        java.util.Collections.reverse(out);
+        return out;
     }
 
     @Override
     public List<Result> getAll() throws Exception {
-        Integer userId = resolveCurrentUserId(connection);
-        if (userId == null) return java.util.Collections.emptyList();
-
-        final String sql =
-                "SELECT " + COL_ID + " AS id, " + COL_WPM + " AS wpm, " + COL_ACC + " AS acc, " + COL_DONE + " AS createdAt " +
-                        "FROM " + TBL + " " +
-                        "WHERE " + COL_UID + "=? AND " + COL_DONE + " IS NOT NULL " +
-                        "ORDER BY datetime(" + COL_DONE + ") ASC, " + COL_ID + " ASC";
+        // Oldest first, straight from the cached history.
+        LessonHistoryCache history = history();
+        return toResults(history.recentCompleted(history.size()));
+    }
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setInt(1, userId);
-            try (ResultSet rs = ps.executeQuery()) {
-                List<Result> out = new ArrayList<>();
-                while (rs.next()) {
-                    out.add(new Result(
-                            rs.getInt("id"),
-                            (int)Math.round(rs.getDouble("wpm")),
-                            (int)Math.round(rs.getDouble("acc")),
-                            rs.getString("createdAt")
-                    ));
-                }
-                return out;
-            }
-        }
+    @Override
+    public void forEachCertificateRow(int n, Consumer<CertificateRow> sink) throws Exception {
+        // Newest n from the cached history, replayed oldest first with the cached username.
+        history().forEachCertificateRow(n, sink);
     }
 
     @Override
     public int count() throws Exception {
-        Integer userId = resolveCurrentUserId(connection);
-        if (userId == null) return 0;
-
-        final String sql = "SELECT COUNT(*) FROM " + TBL + " WHERE " + COL_UID + "=? AND " + COL_DONE + " IS NOT NULL";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setInt(1, userId);
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next() ? rs.getInt(1) : 0;
-            }
-        }
+        return history().size();
     }
 
     @Override
     public void deleteAll() throws Exception {
-        int userId = resolveCurrentUserId(connection);
         final String sql = "DELETE FROM " + TBL + " WHERE " + COL_UID + "=? AND " + COL_DONE + " IS NOT NULL";
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setInt(1, userId);
-            ps.executeUpdate();
-        }
+        SqliteConnection.write(connection -> {
+            int userId = resolveCurrentUserId(connection);
+            int removed;
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setInt(1, userId);
+                removed = ps.executeUpdate();
+            }
+            // Bulk removal: cheaper to rebuild the (now empty) totals than to replay deltas.
+            StatisticsRollup.rebuild(connection, userId);
+            WeakPairStore.rebuild(connection, userId);
+            return removed;
+        });
+        LessonHistoryCache.invalidate(Session.getCurrentUserId());
     }
 
     // ---------- helpers ----------
 
+    private static LessonHistoryCache history() throws SQLException {
+        // Reads follow the signed-in user, as the SQL versions did; callers run off the FX thread.
+        return LessonHistoryCache.forUser(Session.getCurrentUserId());
+    }
+
+    private static List<Result> toResults(List<LessonHistoryCache.Entry> entries) {
+        List<Result> out = new ArrayList<>(entries.size());
+        for (LessonHistoryCache.Entry e : entries) {
+            out.add(new Result(e.lessonId(), (int) Math.round(e.wpm()), (int) Math.round(e.accuracy()),
+                    e.dateCompleted()));
+        }
+        return out;
+    }
+
     /** Return the latest (max UserID) user; adjust if you have a proper current-user context. */
 // 需要：import com.example.addressbook.auth.Session;
     private Integer resolveCurrentUserId(Connection c) throws SQLException {
@@ -154,7 +146,7 @@ public class SqliteResultsDAO implements IResultsDAO {
 
 
     /** Try to update the most recent in-progress lesson; return its id if updated, or 0 if none. */
-    private long updateLatestInProgress(int userId, int wpm, int acc) throws SQLException {
+    private long updateLatestInProgress(Connection connection, int userId, int wpm, int acc) throws SQLException {
         // Find latest lesson for this user that has NO DateCompleted yet
         final String findSql = "SELECT " + COL_ID + " FROM " + TBL +
                 " WHERE " + COL_UID + "=? AND " + COL_DONE + " IS NULL ORDER BY " + COL_ID + " DESC LIMIT 1";
@@ -179,7 +171,7 @@ public class SqliteResultsDAO implements IResultsDAO {
     }
 
     /** Fetch latest LessonType for this user, or fallback to default. */
-    private String fetchLatestLessonTypeOrDefault(int userId, String def) throws SQLException {
+    private String fetchLatestLessonTypeOrDefault(Connection connection, int userId, String def) throws SQLException {
         final String sql = "SELECT " + COL_TYPE + " FROM " + TBL +
                 " WHERE " + COL_UID + "=? AND " + COL_TYPE + " IS NOT NULL" +
                 " ORDER BY " + COL_ID + " DESC LIMIT 1";
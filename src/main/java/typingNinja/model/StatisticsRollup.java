@@ -0,0 +1,401 @@
+package typingNinja.model;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Keeps the per-user {@code Statistics} row up to date with deltas instead of rescanning
+ * {@code Lesson} every time the profile opens.
+ * <p>Each completed lesson is folded into the running totals and into a per-day bucket in
+ * {@code StatisticsDaily} (created by {@link SchemaMigrator}); the weekly columns are summed from the last seven buckets.
+ * {@link #verify(Connection, int)} and {@link #rebuild(Connection, int)} recompute everything
+ * from the lesson table when the running totals are missing or suspect.</p>
+ * <p>All methods expect the writer connection, normally from inside
+ * {@link SqliteConnection#write(SqliteConnection.SqlWork)}.</p>
+ */
+public final class StatisticsRollup {
+
+    /** Default value of {@code Lesson.DateCompleted} in the shipped schema; marks rows never finished. */
+    private static final String PENDING_PLACEHOLDER = "2025-09-14 20:59:00";
+
+    /**
+     * SQL predicate for rows that count as completed lessons. Pending rows either have no
+     * completion time or still carry the schema's placeholder.
+     */
+    public static final String COMPLETED =
+            "DateCompleted IS NOT NULL AND DateCompleted <> '" + PENDING_PLACEHOLDER + "'";
+
+    private static final String ACTIVE_SECONDS =
+            "MAX(0, MIN(COALESCE((julianday(DateCompleted) - julianday(DateStarted)) * 86400, 0), " +
+            "CASE WHEN LessonDuration > 0 THEN LessonDuration * 60 ELSE 86400 END))";
+
+    /** Wall-clock seconds between start and completion, as the sub-lesson screen reports them. */
+    public static final String ELAPSED_SECONDS =
+            "(strftime('%s', DateCompleted) - strftime('%s', DateStarted))";
+
+    private static final String BEST_TIMES_SELECT =
+            "INSERT OR REPLACE INTO LessonBestTime (UserID, LessonType, BestSeconds, CompletedAt) " +
+            "SELECT UserID, LessonType, Secs, DateCompleted FROM (" +
+            "SELECT UserID, LessonType, " + ELAPSED_SECONDS + " AS Secs, DateCompleted, " +
+            "ROW_NUMBER() OVER (PARTITION BY UserID, LessonType ORDER BY " + ELAPSED_SECONDS + ", LessonID) AS rn " +
+            "FROM Lesson WHERE " + COMPLETED + " AND DateStarted IS NOT NULL AND " + ELAPSED_SECONDS + " > 0 ";
+
+    private static final double EPSILON = 0.01;
+
+    private StatisticsRollup() {}
+
+    /**
+     * Returns whether the given lesson row already counts towards the rollups.
+     *
+     * @param conn writer connection
+     * @param lessonId lesson to inspect
+     * @return {@code true} when the row is completed
+     * @throws SQLException when the lookup fails
+     */
+    public static boolean isCounted(Connection conn, int lessonId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT 1 FROM Lesson WHERE LessonID = ? AND " + COMPLETED)) {
+            ps.setInt(1, lessonId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Folds a freshly completed lesson into its owner's totals and daily bucket.
+     *
+     * @param conn writer connection
+     * @param lessonId lesson that has just been completed
+     */
+    public static void lessonCompleted(Connection conn, int lessonId) {
+        // Totals and best time each get a savepoint, so a failure in one never undoes the other.
+        int userId = -1;
+        try {
+            String sql = "SELECT UserID, WPM, Accuracy, StarRating, date(DateCompleted) AS Day, " +
+                    ACTIVE_SECONDS + " AS Secs FROM Lesson WHERE LessonID = ? AND " + COMPLETED;
+            double wpm, accuracy, star, secs;
+            String day;
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setInt(1, lessonId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) return;
+                    userId = rs.getInt("UserID");
+                    wpm = rs.getDouble("WPM");
+                    accuracy = rs.getDouble("Accuracy");
+                    star = rs.getDouble("StarRating");
+                    day = rs.getString("Day");
+                    secs = rs.getDouble("Secs");
+                }
+            }
+            try {
+                inSavepoint(conn, "best_time", () -> applyBestTime(conn, lessonId));
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            int owner = userId;
+            inSavepoint(conn, "rollup", () -> applyDelta(conn, owner, wpm, accuracy, star, day, secs));
+        } catch (SQLException e) {
+            e.printStackTrace();
+            if (userId > 0) markStale(conn, userId);
+        }
+    }
+
+    /** Statements run under one savepoint by {@link #inSavepoint}. */
+    @FunctionalInterface
+    private interface SavepointWork {
+        void run() throws SQLException;
+    }
+
+    private static void inSavepoint(Connection conn, String name, SavepointWork work) throws SQLException {
+        // Rolled back to on failure and rethrown; the caller's transaction carries on.
+        try (Statement st = conn.createStatement()) { st.execute("SAVEPOINT " + name); }
+        try {
+            work.run();
+            try (Statement st = conn.createStatement()) { st.execute("RELEASE " + name); }
+        } catch (SQLException e) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("ROLLBACK TO " + name);
+                st.execute("RELEASE " + name);
+            }
+            throw e;
+        }
+    }
+
+    private static void applyDelta(Connection conn, int userId,
+                                   double wpm, double accuracy, double star, String day, double secs) throws SQLException {
+        if (!hasState(conn, userId)) {
+            // Totals were never built for this user; a rebuild already includes this row.
+            rebuild(conn, userId);
+            return;
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement("""
+                INSERT INTO StatisticsDaily (UserID, Day, Lessons, ActiveSeconds, SumWPM, SumAccuracy)
+                VALUES (?, ?, ?, ?, ?, ?)
+                ON CONFLICT(UserID, Day) DO UPDATE SET
+                    Lessons = Lessons + excluded.Lessons,
+                    ActiveSeconds = ActiveSeconds + excluded.ActiveSeconds,
+                    SumWPM = SumWPM + excluded.SumWPM,
+                    SumAccuracy = SumAccuracy + excluded.SumAccuracy
+                """)) {
+            ps.setInt(1, userId);
+            ps.setString(2, day);
+            ps.setInt(3, 1);
+            ps.setDouble(4, secs);
+            ps.setDouble(5, wpm);
+            ps.setDouble(6, accuracy);
+            ps.executeUpdate();
+        }
+
+        int lessons = 0, stars = 0;
+        double avgWpm = 0, avgRating = 0, highest = 0, timeActive = 0;
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT TotalLessons, AvgWPM, AvgRating, HighestRating, TotalStars, TotalTimeActive " +
+                "FROM Statistics WHERE UserID = ?")) {
+            ps.setInt(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    rebuild(conn, userId);
+                    return;
+                }
+                lessons = rs.getInt(1);
+                avgWpm = rs.getDouble(2);
+                avgRating = rs.getDouble(3);
+                highest = rs.getDouble(4);
+                stars = rs.getInt(5);
+                timeActive = rs.getDouble(6);
+            }
+        }
+
+        int newLessons = lessons + 1;
+        writeTotals(conn, userId, newLessons,
+                (avgWpm * lessons + wpm) / newLessons,
+                Math.max(highest, star),
+                (avgRating * lessons + star) / newLessons,
+                stars + (int) star,
+                timeActive * 3600.0 + secs);
+        refreshWeek(conn, userId);
+    }
+
+    private static void applyBestTime(Connection conn, int lessonId) throws SQLException {
+        // Keep the stored best unless this lesson beat it.
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO LessonBestTime (UserID, LessonType, BestSeconds, CompletedAt) " +
+                "SELECT UserID, LessonType, " + ELAPSED_SECONDS + ", DateCompleted FROM Lesson " +
+                "WHERE LessonID = ? AND DateStarted IS NOT NULL AND " + ELAPSED_SECONDS + " > 0 " +
+                "ON CONFLICT(UserID, LessonType) DO UPDATE SET " +
+                "BestSeconds = excluded.BestSeconds, CompletedAt = excluded.CompletedAt " +
+                "WHERE excluded.BestSeconds < LessonBestTime.BestSeconds")) {
+            ps.setInt(1, lessonId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Recomputes the per-lesson-type best times from the lesson table.
+     *
+     * @param conn writer connection
+     * @param userId user to rebuild, or {@code null} for every user
+     * @throws SQLException when the rebuild fails
+     */
+    public static void rebuildBestTimes(Connection conn, Integer userId) throws SQLException {
+        if (userId == null) {
+            try (Statement st = conn.createStatement()) {
+                st.executeUpdate("DELETE FROM LessonBestTime");
+                st.executeUpdate(BEST_TIMES_SELECT + ") WHERE rn = 1");
+            }
+            return;
+        }
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM LessonBestTime WHERE UserID = ?")) {
+            ps.setInt(1, userId);
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conn.prepareStatement(BEST_TIMES_SELECT + "AND UserID = ?) WHERE rn = 1")) {
+            ps.setInt(1, userId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Recomputes the weekly window columns from the last seven daily buckets.
+     *
+     * @param conn writer connection
+     * @param userId user to refresh
+     * @throws SQLException when the update fails
+     */
+    public static void refreshWeek(Connection conn, int userId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("""
+                UPDATE Statistics SET
+                    TimeActiveWeek = (SELECT ROUND(COALESCE(SUM(ActiveSeconds), 0) / 3600.0, 1)
+                                      FROM StatisticsDaily WHERE UserID = ?1 AND Day >= date('now','localtime','-6 days')),
+                    TotalWPMWeek = (SELECT COALESCE(ROUND(SUM(SumWPM) / NULLIF(SUM(Lessons), 0)), 0)
+                                    FROM StatisticsDaily WHERE UserID = ?1 AND Day >= date('now','localtime','-6 days')),
+                    TotalAccuracyWeek = (SELECT COALESCE(ROUND(SUM(SumAccuracy) / NULLIF(SUM(Lessons), 0)), 0)
+                                         FROM StatisticsDaily WHERE UserID = ?1 AND Day >= date('now','localtime','-6 days'))
+                WHERE UserID = ?1
+                """)) {
+            ps.setInt(1, userId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Cheap profile-load hook: rebuilds once for users that have never been rolled up,
+     * otherwise just slides the weekly window forward.
+     *
+     * @param conn writer connection
+     * @param userId user whose statistics are about to be shown
+     * @throws SQLException when the refresh fails
+     */
+    public static void ensureCurrent(Connection conn, int userId) throws SQLException {
+        if (hasState(conn, userId)) {
+            refreshWeek(conn, userId);
+        } else {
+            rebuild(conn, userId);
+        }
+    }
+
+    /**
+     * Compares the running totals against a fresh aggregate over the lesson table.
+     *
+     * @param conn connection to read from
+     * @param userId user to check
+     * @return {@code true} when the stored totals match the lesson history
+     * @throws SQLException when the queries fail
+     */
+    public static boolean verify(Connection conn, int userId) throws SQLException {
+        Totals fresh = aggregate(conn, userId);
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT TotalLessons, AvgWPM, AvgRating, HighestRating, TotalStars FROM Statistics WHERE UserID = ?")) {
+            ps.setInt(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return false;
+                return rs.getInt(1) == fresh.lessons
+                        && Math.abs(rs.getDouble(2) - fresh.avgWpm) < EPSILON
+                        && Math.abs(rs.getDouble(3) - fresh.avgRating) < EPSILON
+                        && Math.abs(rs.getDouble(4) - fresh.highest) < EPSILON
+                        && rs.getInt(5) == fresh.stars;
+            }
+        }
+    }
+
+    /**
+     * Recomputes totals and daily buckets from scratch for one user.
+     *
+     * @param conn writer connection
+     * @param userId user to rebuild
+     * @throws SQLException when the rebuild fails
+     */
+    public static void rebuild(Connection conn, int userId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM StatisticsDaily WHERE UserID = ?")) {
+            ps.setInt(1, userId);
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO StatisticsDaily (UserID, Day, Lessons, ActiveSeconds, SumWPM, SumAccuracy) " +
+                "SELECT UserID, date(DateCompleted), COUNT(*), SUM(" + ACTIVE_SECONDS + "), " +
+                "COALESCE(SUM(WPM), 0), COALESCE(SUM(Accuracy), 0) " +
+                "FROM Lesson WHERE UserID = ? AND " + COMPLETED + " GROUP BY date(DateCompleted)")) {
+            ps.setInt(1, userId);
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = conn.prepareStatement("""
+                INSERT OR IGNORE INTO Statistics (UserID, TimeActiveWeek, TotalWPMWeek, TotalAccuracyWeek,
+                                                  Belt, TotalLessons, AvgWPM, HighestRating, AvgRating, TotalStars)
+                VALUES (?, 0, 0, 0, 'White', 0, 0, 0, 0, 0)
+                """)) {
+            ps.setInt(1, userId);
+            ps.executeUpdate();
+        }
+
+        rebuildBestTimes(conn, userId);
+
+        Totals t = aggregate(conn, userId);
+        writeTotals(conn, userId, t.lessons, t.avgWpm, t.highest, t.avgRating, t.stars, t.activeSeconds);
+        refreshWeek(conn, userId);
+
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT OR REPLACE INTO StatisticsRollupState (UserID, RebuiltAt) VALUES (?, datetime('now','localtime'))")) {
+            ps.setInt(1, userId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Maps a star total onto the belt names accepted by the {@code Statistics} table.
+     *
+     * @param totalStars accumulated stars
+     * @return belt name
+     */
+    public static String beltFor(int totalStars) {
+        String belt = "White";
+        if (totalStars >= 15 && totalStars <= 39) belt = "Yellow";
+        else if (totalStars >= 40 && totalStars <= 79) belt = "Blue";
+        else if (totalStars >= 80 && totalStars <= 139) belt = "Green";
+        else if (totalStars >= 140 && totalStars <= 239) belt = "Orange";
+        else if (totalStars >= 240 && totalStars <= 379) belt = "Red";
+        else if (totalStars >= 380 && totalStars <= 539) belt = "Brown";
+        else if (totalStars >= 800) belt = "Black";
+        return belt;
+    }
+
+    private record Totals(int lessons, double avgWpm, double highest, double avgRating, int stars, double activeSeconds) {}
+
+    private static Totals aggregate(Connection conn, int userId) throws SQLException {
+        // One pass over the user's completed lessons instead of five separate scans.
+        String sql = "SELECT COUNT(*), COALESCE(AVG(WPM), 0), COALESCE(MAX(StarRating), 0), " +
+                "COALESCE(AVG(StarRating), 0), COALESCE(SUM(CAST(StarRating AS INT)), 0), " +
+                "COALESCE(SUM(" + ACTIVE_SECONDS + "), 0) FROM Lesson WHERE UserID = ? AND " + COMPLETED;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return new Totals(rs.getInt(1), rs.getDouble(2), rs.getDouble(3),
+                        rs.getDouble(4), rs.getInt(5), rs.getDouble(6));
+            }
+        }
+    }
+
+    private static void writeTotals(Connection conn, int userId, int lessons, double avgWpm, double highest,
+                                    double avgRating, int stars, double activeSeconds) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("""
+                UPDATE Statistics
+                SET TotalLessons = ?, AvgWPM = ?, HighestRating = ?, AvgRating = ?, TotalStars = ?, Belt = ?,
+                    TotalTimeActive = ?
+                WHERE UserID = ?
+                """)) {
+            ps.setInt(1, lessons);
+            ps.setDouble(2, avgWpm);
+            ps.setDouble(3, highest);
+            ps.setDouble(4, avgRating);
+            ps.setInt(5, stars);
+            ps.setString(6, beltFor(stars));
+            ps.setDouble(7, activeSeconds / 3600.0);
+            ps.setInt(8, userId);
+            ps.executeUpdate();
+        }
+    }
+
+    private static boolean hasState(Connection conn, int userId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM StatisticsRollupState WHERE UserID = ?")) {
+            ps.setInt(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static void markStale(Connection conn, int userId) {
+        // Forget the rollup so the next profile load rebuilds it from the lesson table.
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM StatisticsRollupState WHERE UserID = ?")) {
+            ps.setInt(1, userId);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package typingNinja.model.ai;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Builds weak-key drills offline from a bundled sentence corpus.
+ * <p>The corpus is read once and indexed per combination of the four lesson toggles: sentences
+ * that need a disabled digit or symbol are dropped, the rest are lowercased or stripped of
+ * punctuation as the toggles demand, and every printable-ASCII bigram gets a posting list of
+ * the sentences containing it. A drill is then assembled greedily from the postings of the
+ * requested bigrams, so it takes a few milliseconds and never waits on a model.</p>
+ */
+public final class BigramDrillService {
+
+    /** Classpath location of the corpus; one sentence per line, {@code #} starts a comment line. */
+    public static final String CORPUS = "/typingNinja/Corpus/sentences.txt";
+    /** Share of the drill's words that should carry one of the requested bigrams. */
+    public static final double TARGET_DENSITY = 0.25;
+
+    private static final int FIRST = 32;
+    private static final int SPAN = 95;
+    private static final int[] NO_POSTINGS = new int[0];
+    private static final String PUNCTUATION = ".,;:!?'\"-";
+    private static final String SPECIALS = "#@$%^&*()[]{}<>~`|\\/_+=";
+    private static BigramDrillService shared;
+
+    private final List<String> corpus;
+    private final Index[] indexes = new Index[16];
+
+    /**
+     * Creates a service over the given sentences.
+     *
+     * @param corpus sentences to draw drills from
+     */
+    public BigramDrillService(List<String> corpus) {
+        // Copy so later changes to the caller's list cannot disturb cached indexes.
+        this.corpus = List.copyOf(corpus);
+    }
+
+    /**
+     * Returns the service backed by the bundled corpus, loading it on first use.
+     *
+     * @return shared service instance
+     */
+    public static synchronized BigramDrillService shared() {
+        // A missing corpus leaves an empty service, which makes callers fall back to AI passages.
+        if (shared == null) shared = new BigramDrillService(loadCorpus());
+        return shared;
+    }
+
+    /**
+     * Assembles a passage rich in the given bigrams.
+     *
+     * @param bigrams two-character sequences to practise, most important first
+     * @param targetWords approximate passage length in words
+     * @param includeUpper whether uppercase should appear
+     * @param includeNumbers whether digits should appear
+     * @param includePunct whether punctuation should appear
+     * @param includeSpecial whether special symbols should appear
+     * @return drill text, or {@code null} when the corpus contains none of the bigrams
+     */
+    public String generateDrill(List<String> bigrams, int targetWords,
+                                boolean includeUpper, boolean includeNumbers,
+                                boolean includePunct, boolean includeSpecial) {
+        // Greedy cover: each pick is the unused sentence giving the most still-needed hits per word.
+        Index index = index(includeUpper, includeNumbers, includePunct, includeSpecial);
+        List<String> targets = targets(bigrams, includeUpper, index);
+        if (targets.isEmpty()) return null;
+
+        int words = Math.max(1, targetWords);
+        int[] need = new int[targets.size()];
+        Arrays.fill(need, Math.max(2, (int) Math.ceil(words * TARGET_DENSITY / targets.size())));
+        int[][] hits = new int[targets.size()][];
+        Set<Integer> candidates = new LinkedHashSet<>();
+        for (int t = 0; t < targets.size(); t++) {
+            hits[t] = new int[index.sentences.size()];
+            for (int id : index.postings(targets.get(t))) {
+                hits[t][id] = count(index.sentences.get(id), targets.get(t));
+                candidates.add(id);
+            }
+        }
+
+        boolean[] used = new boolean[index.sentences.size()];
+        List<String> picked = new ArrayList<>();
+        int total = 0;
+        int last = -1;
+        while (total < words) {
+            int best = -1;
+            double bestScore = 0;
+            for (int id : candidates) {
+                if (used[id]) continue;
+                int useful = 0;
+                int all = 0;
+                for (int t = 0; t < targets.size(); t++) {
+                    useful += Math.min(need[t], hits[t][id]);
+                    all += hits[t][id];
+                }
+                // Still-needed hits dominate; raw hits break ties once every need is met.
+                double score = (useful * 64.0 + all) / index.words[id];
+                if (score > bestScore) {
+                    best = id;
+                    bestScore = score;
+                }
+            }
+            if (best < 0) break;
+            used[best] = true;
+            last = best;
+            picked.add(index.sentences.get(best));
+            total += index.words[best];
+            for (int t = 0; t < targets.size(); t++) need[t] = Math.max(0, need[t] - hits[t][best]);
+        }
+
+        // Short on target sentences: pad with unused ones first, starting at a point chosen by the
+        // targets, then allow repeats as long as no sentence directly follows itself.
+        int n = index.sentences.size();
+        int start = Math.floorMod(targets.hashCode(), n);
+        for (int i = 0; total < words && i < 2 * n; i++) {
+            int id = (start + i) % n;
+            if ((i < n && used[id]) || id == last) continue;
+            picked.add(index.sentences.get(id));
+            total += index.words[id];
+            last = id;
+        }
+        return PassageConstraintEnforcer.enforce(String.join(" ", picked),
+                includeUpper, includeNumbers, includePunct, includeSpecial);
+    }
+
+    /**
+     * Returns the sentences a drill may use under the given toggles, as they would appear in it.
+     *
+     * @param includeUpper whether uppercase should appear
+     * @param includeNumbers whether digits should appear
+     * @param includePunct whether punctuation should appear
+     * @param includeSpecial whether special symbols should appear
+     * @return the filtered sentences
+     */
+    public List<String> sentences(boolean includeUpper, boolean includeNumbers,
+                                  boolean includePunct, boolean includeSpecial) {
+        // Exposed for checks that a drill only contains what the lesson allows.
+        return index(includeUpper, includeNumbers, includePunct, includeSpecial).sentences;
+    }
+
+    private List<String> targets(List<String> bigrams, boolean includeUpper, Index index) {
+        // Keep usable, distinct pairs that the corpus can actually provide.
+        Set<String> out = new LinkedHashSet<>();
+        if (bigrams == null) return List.of();
+        for (String pair : bigrams) {
+            if (pair == null || pair.length() != 2) continue;
+            String p = includeUpper ? pair : pair.toLowerCase(Locale.ROOT);
+            if (index.postings(p).length > 0) out.add(p);
+        }
+        return List.copyOf(out);
+    }
+
+    private synchronized Index index(boolean upper, boolean numbers, boolean punct, boolean special) {
+        // Sixteen toggle combinations at most, each built on first use.
+        int mask = (upper ? 1 : 0) | (numbers ? 2 : 0) | (punct ? 4 : 0) | (special ? 8 : 0);
+        Index index = indexes[mask];
+        if (index == null) {
+            index = new Index(corpus, upper, numbers, punct, special);
+            indexes[mask] = index;
+        }
+        return index;
+    }
+
+    private static int count(String text, String pair) {
+        // Overlapping matches count, so "ll" occurs twice in "lll".
+        int c = 0;
+        for (int i = text.indexOf(pair); i >= 0; i = text.indexOf(pair, i + 1)) c++;
+        return c;
+    }
+
+    private static int code(char a, char b) {
+        // Printable ASCII pairs map onto 0 .. 95*95-1; anything else has no code.
+        if (a < FIRST || a >= FIRST + SPAN || b < FIRST || b >= FIRST + SPAN) return -1;
+        return (a - FIRST) * SPAN + (b - FIRST);
+    }
+
+    private static List<String> loadCorpus() {
+        // Blank lines and comment lines are skipped.
+        List<String> lines = new ArrayList<>();
+        try (InputStream in = BigramDrillService.class.getResourceAsStream(CORPUS)) {
+            if (in == null) return lines;
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) lines.add(line);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return lines;
+    }
+
+    /** Filtered sentences for one toggle combination plus their bigram postings. */
+    private static final class Index {
+        final List<String> sentences;
+        final int[] words;
+        final int[][] postings = new int[SPAN * SPAN][];
+
+        Index(List<String> corpus, boolean upper, boolean numbers, boolean punct, boolean special) {
+            // Two passes over the postings: count per code, then fill exact-size arrays.
+            List<String> kept = new ArrayList<>();
+            for (String s : corpus) {
+                String f = filter(s, upper, numbers, punct, special);
+                if (f != null) kept.add(f);
+            }
+            sentences = List.copyOf(kept);
+            words = new int[sentences.size()];
+            int[] sizes = new int[SPAN * SPAN];
+            int[] last = new int[SPAN * SPAN];
+            Arrays.fill(last, -1);
+            for (int id = 0; id < sentences.size(); id++) {
+                String s = sentences.get(id);
+                words[id] = s.split(" ").length;
+                for (int i = 1; i < s.length(); i++) {
+                    int c = code(s.charAt(i - 1), s.charAt(i));
+                    if (c >= 0 && last[c] != id) {
+                        last[c] = id;
+                        sizes[c]++;
+                    }
+                }
+            }
+            Arrays.fill(last, -1);
+            int[] fill = new int[SPAN * SPAN];
+            for (int id = 0; id < sentences.size(); id++) {
+                String s = sentences.get(id);
+                for (int i = 1; i < s.length(); i++) {
+                    int c = code(s.charAt(i - 1), s.charAt(i));
+                    if (c < 0 || last[c] == id) continue;
+                    last[c] = id;
+                    if (postings[c] == null) postings[c] = new int[sizes[c]];
+                    postings[c][fill[c]++] = id;
+                }
+            }
+        }
+
+        int[] postings(String pair) {
+            // Unknown and non-ASCII pairs simply have no postings.
+            int c = code(pair.charAt(0), pair.charAt(1));
+            return c < 0 || postings[c] == null ? NO_POSTINGS : postings[c];
+        }
+
+        private static String filter(String s, boolean upper, boolean numbers, boolean punct, boolean special) {
+            // Sentences that rely on a disabled digit or symbol are dropped rather than mangled.
+            StringBuilder sb = new StringBuilder(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                char ch = s.charAt(i);
+                if (Character.isDigit(ch) && !numbers) return null;
+                if (SPECIALS.indexOf(ch) >= 0 && !special) return null;
+                if (PUNCTUATION.indexOf(ch) >= 0 && !punct) {
+                    if (ch != '\'') sb.append(' ');
+                    continue;
+                }
+                sb.append(upper ? ch : Character.toLowerCase(ch));
+            }
+            String out = sb.toString().replaceAll("\\s+", " ").trim();
+            return out.isEmpty() ? null : out;
+        }
+    }
+}
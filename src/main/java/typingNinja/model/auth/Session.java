@@ -39,4 +39,57 @@ public class Session {
         // Defensive copy keeps downstream code from mutating our shared map.
         latestTotals = (m == null) ? new LinkedHashMap<>() : m;
     }
+
+    private static volatile int[] latestSpeedSeries = new int[0];
+    private static volatile int latestPeakWpm = 0;
+    private static volatile int latestBurstWpm = 0;
+
+    /**
+     * @return rolling WPM sampled once per second over the most recent lesson
+     */
+    public static int[] getLatestSpeedSeries() {
+        // Read by the results screen to draw the speed curve.
+        return latestSpeedSeries;
+    }
+
+    /** @return peak rolling WPM of the most recent lesson */
+    public static int getLatestPeakWpm() { return latestPeakWpm; }
+
+    /** @return burst WPM of the most recent lesson */
+    public static int getLatestBurstWpm() { return latestBurstWpm; }
+
+    /**
+     * Stores the speed profile captured at lesson completion.
+     *
+     * @param series per-second rolling WPM samples
+     * @param peakWpm highest sampled rolling WPM
+     * @param burstWpm fastest short-window WPM
+     */
+    public static void setLatestSpeed(int[] series, int peakWpm, int burstWpm) {
+        // Replace all three together so the results screen never mixes two lessons.
+        latestSpeedSeries = (series == null) ? new int[0] : series;
+        latestPeakWpm = peakWpm;
+        latestBurstWpm = burstWpm;
+    }
+
+    private static volatile String latestLatency = "";
+
+    /**
+     * @return key-to-frame latency summary of the most recent lesson, or an empty string when
+     *         no keys were measured
+     */
+    public static String getLatestLatency() {
+        // Shown on the results screen next to the speed curve.
+        return latestLatency;
+    }
+
+    /**
+     * Stores the key-to-frame latency summary captured at lesson completion.
+     *
+     * @param summary one-line percentile summary, or {@code null} when nothing was measured
+     */
+    public static void setLatestLatency(String summary) {
+        // Normalised to an empty string so readers never check for null.
+        latestLatency = (summary == null) ? "" : summary;
+    }
 }
@@ -0,0 +1,80 @@
+package typingNinja.model.lesson;
+
+import java.util.Arrays;
+
+/**
+ * Plays a recorded {@link KeystrokeJournal} back as a moving cursor position.
+ * <p>The journal is reduced once to the moments the recorded cursor moved: a placed key moves
+ * it forward, a backspace moves it back, and strict-mode rejections leave it where it was.
+ * Playback keeps a playhead into those moments, so advancing with a steadily increasing lesson
+ * clock costs only the events that happened since the previous frame; a clock that jumps back
+ * falls back to a binary search.</p>
+ */
+public final class GhostReplay {
+
+    private final long[] times;
+    private final int[] positions;
+    private int playhead;
+
+    private GhostReplay(long[] times, int[] positions) {
+        this.times = times;
+        this.positions = positions;
+    }
+
+    /**
+     * @param journal recorded lesson to replay
+     * @return replay of the cursor movements in {@code journal}
+     */
+    public static GhostReplay of(KeystrokeJournal journal) {
+        // Only cursor moves matter to the ghost; everything else is dropped here.
+        int n = journal.size();
+        long[] times = new long[n];
+        int[] positions = new int[n];
+        int count = 0;
+        int pos = 0;
+        for (int i = 0; i < n; i++) {
+            int flags = journal.flagsAt(i);
+            if ((flags & KeystrokeJournal.REJECTED) != 0) continue;
+            if ((flags & KeystrokeJournal.BACKSPACE) != 0) {
+                if (pos == 0) continue;
+                pos--;
+            } else {
+                pos++;
+            }
+            times[count] = journal.timeAt(i);
+            positions[count] = pos;
+            count++;
+        }
+        return new GhostReplay(Arrays.copyOf(times, count), Arrays.copyOf(positions, count));
+    }
+
+    /**
+     * Moves the playhead to {@code nanos} on the lesson clock.
+     *
+     * @param nanos lesson-clock time in nanoseconds
+     * @return cursor position the recording had reached at that time
+     */
+    public int positionAt(long nanos) {
+        // Forward steps walk; anything earlier than the playhead is found by binary search.
+        if (playhead > 0 && times[playhead - 1] > nanos) {
+            int found = Arrays.binarySearch(times, 0, playhead, nanos);
+            playhead = found >= 0 ? found + 1 : -found - 1;
+            while (playhead < times.length && playhead > 0 && times[playhead] == times[playhead - 1]) playhead++;
+        }
+        while (playhead < times.length && times[playhead] <= nanos) playhead++;
+        return playhead == 0 ? 0 : positions[playhead - 1];
+    }
+
+    /**
+     * @param nanos lesson-clock time in nanoseconds
+     * @return {@code true} once every recorded move has been played
+     */
+    public boolean isFinished(long nanos) {
+        return times.length == 0 || nanos >= times[times.length - 1];
+    }
+
+    /** @return lesson-clock time of the last recorded move, or {@code 0} for an empty replay */
+    public long durationNanos() {
+        return times.length == 0 ? 0 : times[times.length - 1];
+    }
+}
@@ -0,0 +1,336 @@
+package typingNinja.model.lesson;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inter-key intervals of correct keystrokes, per expected key and per previous/expected bigram.
+ * <p>Each key and each bigram owns a log-linear histogram of {@value #BUCKETS} buckets in
+ * milliseconds: four buckets per power of two, so quantiles are reported within about 12% of
+ * their true value, and anything beyond roughly 16&nbsp;s lands in the last bucket. Key rows are
+ * dense; bigram rows are handed out on first use from a pool that can never exceed one row per
+ * printable ASCII bigram, so memory is bounded however many lessons are merged in. Sketches
+ * add up exactly, which is how a user's lessons are combined. Not thread-safe.</p>
+ */
+public final class KeyLatencySketch {
+
+    /** Fewer samples than this and a key's median is not trusted for display. */
+    public static final int MIN_SAMPLES = 3;
+
+    private static final int FIRST = ' ';
+    private static final int KEYS = 95;
+    private static final int NO_PREV = KEYS;
+    private static final int SUB_BITS = 2;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 14;
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_COUNT;
+    private static final int FORMAT_VERSION = 1;
+    private static final int CLEAN = KeystrokeJournal.CORRECT;
+    private static final int NOT_CLEAN = KeystrokeJournal.BACKSPACE | KeystrokeJournal.REJECTED;
+
+    private final int[] keyCounts = new int[KEYS * BUCKETS];
+    private final int[] keyTotals = new int[KEYS];
+    private final int[] bigramRow = new int[KEYS * KEYS];
+    private int[] bigramCounts = new int[16 * BUCKETS];
+    private int[] bigramTotals = new int[16];
+    private int[] bigramOwner = new int[16];
+    private int bigramRows;
+    private long samples;
+
+    /**
+     * Builds the sketch of one lesson from its keystroke journal.
+     * <p>A keystroke counts when it and the event before it were both correct, placed keys; its
+     * interval is the lesson-clock time between the two, and the earlier key's expected
+     * character is its bigram context. Intervals around mistakes and backspaces are left out,
+     * since they measure recovering from an error rather than reaching for the key.</p>
+     *
+     * @param journal key events of a lesson; may be {@code null}
+     * @return sketch of the lesson's clean intervals
+     */
+    public static KeyLatencySketch fromJournal(KeystrokeJournal journal) {
+        // One pass over the parallel arrays; pauses are already excluded by the lesson clock.
+        KeyLatencySketch sketch = new KeyLatencySketch();
+        if (journal == null) return sketch;
+        for (int i = 1; i < journal.size(); i++) {
+            if (!isClean(journal.flagsAt(i)) || !isClean(journal.flagsAt(i - 1))) continue;
+            sketch.record(journal.expectedAt(i - 1), journal.expectedAt(i),
+                    journal.timeAt(i) - journal.timeAt(i - 1));
+        }
+        return sketch;
+    }
+
+    private static boolean isClean(int flags) {
+        return (flags & CLEAN) != 0 && (flags & NOT_CLEAN) == 0;
+    }
+
+    /**
+     * Records one interval.
+     *
+     * @param prev character typed before, or {@code '\0'} when there is no usable context
+     * @param expected character that was typed correctly
+     * @param intervalNanos time since the previous keystroke; negative values count as zero
+     */
+    public void record(char prev, char expected, long intervalNanos) {
+        // Untracked keys are ignored; an untracked previous key only drops the bigram.
+        int e = index(expected);
+        if (e < 0) return;
+        int bucket = bucketOf(Math.max(0, intervalNanos) / 1_000_000L);
+        keyCounts[e * BUCKETS + bucket]++;
+        keyTotals[e]++;
+        samples++;
+        int p = index(prev);
+        if (p < 0) return;
+        int row = bigramRowFor(p * KEYS + e);
+        bigramCounts[row * BUCKETS + bucket]++;
+        bigramTotals[row]++;
+    }
+
+    /**
+     * Adds every count of {@code other} to this sketch.
+     *
+     * @param other sketch to fold in; left unchanged
+     */
+    public void merge(KeyLatencySketch other) {
+        // Histograms with identical buckets merge by plain addition.
+        for (int i = 0; i < keyCounts.length; i++) keyCounts[i] += other.keyCounts[i];
+        for (int e = 0; e < KEYS; e++) keyTotals[e] += other.keyTotals[e];
+        for (int r = 0; r < other.bigramRows; r++) {
+            int row = bigramRowFor(other.bigramOwner[r]);
+            for (int b = 0; b < BUCKETS; b++) {
+                bigramCounts[row * BUCKETS + b] += other.bigramCounts[r * BUCKETS + b];
+            }
+            bigramTotals[row] += other.bigramTotals[r];
+        }
+        samples += other.samples;
+    }
+
+    /** @return number of recorded intervals */
+    public long samples() { return samples; }
+
+    /** @param expected key @return intervals recorded for it */
+    public int count(char expected) {
+        int e = index(expected);
+        return e < 0 ? 0 : keyTotals[e];
+    }
+
+    /** @param prev previous key @param expected key @return intervals recorded for the bigram */
+    public int count(char prev, char expected) {
+        int row = existingRow(prev, expected);
+        return row < 0 ? 0 : bigramTotals[row];
+    }
+
+    /**
+     * @param expected key
+     * @param percentile value in {@code (0, 100]}, e.g. {@code 50}
+     * @return interval in milliseconds at that percentile, or {@code 0} when nothing was recorded
+     */
+    public long percentileMillis(char expected, double percentile) {
+        int e = index(expected);
+        return e < 0 ? 0 : percentile(keyCounts, e, keyTotals[e], percentile);
+    }
+
+    /**
+     * @param prev previous key
+     * @param expected key
+     * @param percentile value in {@code (0, 100]}
+     * @return interval in milliseconds at that percentile, or {@code 0} when nothing was recorded
+     */
+    public long percentileMillis(char prev, char expected, double percentile) {
+        int row = existingRow(prev, expected);
+        return row < 0 ? 0 : percentile(bigramCounts, row, bigramTotals[row], percentile);
+    }
+
+    /**
+     * Lists the keys with the highest median interval.
+     *
+     * @param k maximum number of keys
+     * @return keys with at least {@value #MIN_SAMPLES} samples, slowest first, ties in character order
+     */
+    public List<Character> slowestKeys(int k) {
+        // At most 95 candidates, so a sort per call is cheap.
+        List<Character> keys = new ArrayList<>();
+        for (int e = 0; e < KEYS; e++) {
+            if (keyTotals[e] >= MIN_SAMPLES) keys.add(charOf(e));
+        }
+        keys.sort((a, b) -> {
+            int byMedian = Long.compare(percentileMillis(b, 50), percentileMillis(a, 50));
+            return byMedian != 0 ? byMedian : Character.compare(a, b);
+        });
+        return keys.subList(0, Math.min(Math.max(0, k), keys.size()));
+    }
+
+    /**
+     * Lists the bigrams with the highest median interval, e.g. for a drill.
+     *
+     * @param k maximum number of bigrams
+     * @return two-character strings with at least {@value #MIN_SAMPLES} samples, slowest first,
+     *         ties in string order
+     */
+    public List<String> slowestPairs(int k) {
+        // Each candidate packs its median above its bigram code, so one primitive sort ranks them;
+        // codes follow (previous, expected) character order, which breaks ties.
+        long[] keys = new long[bigramRows];
+        int n = 0;
+        for (int r = 0; r < bigramRows; r++) {
+            if (bigramTotals[r] < MIN_SAMPLES) continue;
+            long median = percentile(bigramCounts, r, bigramTotals[r], 50);
+            keys[n++] = (median << 14) | (KEYS * KEYS - 1 - bigramOwner[r]);
+        }
+        Arrays.sort(keys, 0, n);
+        List<String> out = new ArrayList<>();
+        for (int i = n - 1; i >= 0 && out.size() < k; i--) {
+            int bigram = KEYS * KEYS - 1 - (int) (keys[i] & 0x3FFF);
+            out.add("" + charOf(bigram / KEYS) + charOf(bigram % KEYS));
+        }
+        return out;
+    }
+
+    /**
+     * @return median interval in milliseconds for every trackable key, in
+     *         {@link WeakKeyTracker#ALL_KEYS} order; {@code 0} below {@value #MIN_SAMPLES} samples
+     */
+    public Map<Character, Integer> medianMillisAllKeys() {
+        // Same shape as WeakKeyTracker.totalsAllKeys so the heatmap can treat both layers alike.
+        Map<Character, Integer> out = new LinkedHashMap<>(KEYS);
+        for (char c : WeakKeyTracker.ALL_KEYS) {
+            int e = index(c);
+            out.put(c, keyTotals[e] >= MIN_SAMPLES ? (int) percentileMillis(c, 50) : 0);
+        }
+        return out;
+    }
+
+    /**
+     * Packs the sketch into its storage form; only non-empty buckets are written.
+     *
+     * @return encoded sketch; never {@code null}
+     */
+    public byte[] encode() {
+        // Rows as (prev, expected) index bytes, then (bucket, count) pairs.
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + bigramRows * 8);
+        out.write(FORMAT_VERSION);
+        int rows = bigramRows;
+        for (int e = 0; e < KEYS; e++) if (keyTotals[e] > 0) rows++;
+        KeystrokeJournal.writeVarint(out, rows);
+        for (int e = 0; e < KEYS; e++) {
+            if (keyTotals[e] > 0) writeRow(out, NO_PREV, e, keyCounts, e);
+        }
+        for (int r = 0; r < bigramRows; r++) {
+            writeRow(out, bigramOwner[r] / KEYS, bigramOwner[r] % KEYS, bigramCounts, r);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Rebuilds a sketch from {@link #encode()} output.
+     *
+     * @param data encoded sketch
+     * @return decoded sketch
+     * @throws IllegalArgumentException when the data is truncated, malformed or of an unknown version
+     */
+    public static KeyLatencySketch decode(byte[] data) {
+        // Totals are recomputed from the buckets rather than trusted from the blob.
+        KeystrokeJournal.Reader in = new KeystrokeJournal.Reader(data);
+        int version = in.readByte();
+        if (version != FORMAT_VERSION) throw new IllegalArgumentException("Unknown sketch version " + version);
+        KeyLatencySketch sketch = new KeyLatencySketch();
+        long rows = in.readVarint();
+        for (long r = 0; r < rows; r++) {
+            int p = in.readByte();
+            int e = in.readByte();
+            if (p > NO_PREV || e >= KEYS) throw new IllegalArgumentException("Bad sketch row " + p + "/" + e);
+            int row = p == NO_PREV ? e : sketch.bigramRowFor(p * KEYS + e);
+            int[] counts = p == NO_PREV ? sketch.keyCounts : sketch.bigramCounts;
+            long buckets = in.readVarint();
+            for (long b = 0; b < buckets; b++) {
+                int bucket = in.readByte();
+                if (bucket >= BUCKETS) throw new IllegalArgumentException("Bad sketch bucket " + bucket);
+                int n = (int) in.readVarint();
+                counts[row * BUCKETS + bucket] += n;
+                if (p == NO_PREV) {
+                    sketch.keyTotals[e] += n;
+                    sketch.samples += n;
+                } else {
+                    sketch.bigramTotals[row] += n;
+                }
+            }
+        }
+        return sketch;
+    }
+
+    private static void writeRow(ByteArrayOutputStream out, int prev, int expected, int[] counts, int row) {
+        int nonEmpty = 0;
+        for (int b = 0; b < BUCKETS; b++) if (counts[row * BUCKETS + b] > 0) nonEmpty++;
+        out.write(prev);
+        out.write(expected);
+        KeystrokeJournal.writeVarint(out, nonEmpty);
+        for (int b = 0; b < BUCKETS; b++) {
+            int n = counts[row * BUCKETS + b];
+            if (n == 0) continue;
+            out.write(b);
+            KeystrokeJournal.writeVarint(out, n);
+        }
+    }
+
+    private int existingRow(char prev, char expected) {
+        int p = index(prev), e = index(expected);
+        if (p < 0 || e < 0) return -1;
+        return bigramRow[p * KEYS + e] - 1;
+    }
+
+    private int bigramRowFor(int bigram) {
+        // Rows are numbered from one in the index so a zeroed slot means "none yet".
+        int row = bigramRow[bigram] - 1;
+        if (row >= 0) return row;
+        if (bigramRows == bigramOwner.length) {
+            int cap = bigramOwner.length * 2;
+            bigramCounts = Arrays.copyOf(bigramCounts, cap * BUCKETS);
+            bigramTotals = Arrays.copyOf(bigramTotals, cap);
+            bigramOwner = Arrays.copyOf(bigramOwner, cap);
+        }
+        row = bigramRows++;
+        bigramOwner[row] = bigram;
+        bigramRow[bigram] = row + 1;
+        return row;
+    }
+
+    private static long percentile(int[] counts, int row, int total, double percentile) {
+        // Walk the row until the running count covers the rank, then report that bucket's midpoint.
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100.0, percentile) / 100.0));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[row * BUCKETS + b];
+            if (seen >= rank) return midpointOf(b);
+        }
+        return midpointOf(BUCKETS - 1);
+    }
+
+    private static int index(char c) {
+        int i = c - FIRST;
+        return (i >= 0 && i < KEYS) ? i : -1;
+    }
+
+    private static char charOf(int index) {
+        return (char) (index + FIRST);
+    }
+
+    private static int bucketOf(long millis) {
+        if (millis < SUB_COUNT) return (int) millis;
+        int exponent = 63 - Long.numberOfLeadingZeros(millis);
+        if (exponent > MAX_EXPONENT) return BUCKETS - 1;
+        int sub = (int) (millis >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    private static long midpointOf(int bucket) {
+        if (bucket < SUB_COUNT) return bucket;
+        int exponent = bucket / SUB_COUNT + SUB_BITS - 1;
+        long sub = bucket % SUB_COUNT;
+        long width = 1L << (exponent - SUB_BITS);
+        return (1L << exponent) + sub * width + width / 2;
+    }
+}
@@ -0,0 +1,131 @@
+package typingNinja.model.lesson;
+
+import typingNinja.model.SqliteConnection;
+import typingNinja.model.StatisticsRollup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-user running totals of keystroke intervals.
+ * <p>{@code UserKeyLatency} holds one {@link KeyLatencySketch#encode() encoded} sketch per user.
+ * Every completed lesson's sketch, derived from its keystroke journal, is merged into it in the
+ * same transaction as the completion, so the row always covers exactly the completed lessons
+ * that have a journal. The table is created, and filled from existing journals, by the schema
+ * migrator.</p>
+ * <p>All writers expect the writer connection, normally from inside
+ * {@link SqliteConnection#write(SqliteConnection.SqlWork)}.</p>
+ */
+public final class KeyLatencyStore {
+
+    private KeyLatencyStore() {}
+
+    /**
+     * Adds the intervals of a lesson that has just been completed to its owner's totals.
+     *
+     * @param conn writer connection
+     * @param userId owner of the lesson
+     * @param journal key events of the lesson; {@code null} or empty journals are ignored
+     * @param at completion time, stored as the row's update time
+     * @throws SQLException when a read or write fails
+     */
+    public static void lessonCompleted(Connection conn, int userId, KeystrokeJournal journal, String at)
+            throws SQLException {
+        // The sketch is built here, on the writer thread, like the journal blob itself.
+        if (journal == null || journal.size() < 2) return;
+        KeyLatencySketch lesson = KeyLatencySketch.fromJournal(journal);
+        if (lesson.samples() == 0) return;
+        KeyLatencySketch total = read(conn, userId);
+        total.merge(lesson);
+        write(conn, userId, total, at);
+    }
+
+    /**
+     * Recomputes the totals from the stored journals, for one user or for everyone.
+     *
+     * @param conn writer connection
+     * @param userId user to rebuild, or {@code null} for all users
+     * @throws SQLException when a statement fails
+     */
+    public static void rebuild(Connection conn, Integer userId) throws SQLException {
+        // Replays every completed lesson's journal; only used by migrations and repairs.
+        String filter = userId == null ? "" : " WHERE UserID = ?";
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM UserKeyLatency" + filter)) {
+            if (userId != null) ps.setInt(1, userId);
+            ps.executeUpdate();
+        }
+        String sql = "SELECT l.UserID, l.DateCompleted, j.Data FROM Lesson l JOIN LessonJournal j ON j.LessonID = l.LessonID "
+                + "WHERE " + StatisticsRollup.COMPLETED + (userId == null ? "" : " AND l.UserID = ?");
+        Map<Integer, KeyLatencySketch> totals = new HashMap<>();
+        Map<Integer, String> latest = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            if (userId != null) ps.setInt(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int user = rs.getInt("UserID");
+                    byte[] data = rs.getBytes("Data");
+                    if (data == null) continue;
+                    KeyLatencySketch lesson;
+                    try {
+                        lesson = KeyLatencySketch.fromJournal(KeystrokeJournal.decode(data));
+                    } catch (IllegalArgumentException e) {
+                        e.printStackTrace();
+                        continue;
+                    }
+                    totals.computeIfAbsent(user, u -> new KeyLatencySketch()).merge(lesson);
+                    String at = rs.getString("DateCompleted");
+                    latest.merge(user, at == null ? "" : at, (a, b) -> a.compareTo(b) >= 0 ? a : b);
+                }
+            }
+        }
+        for (Map.Entry<Integer, KeyLatencySketch> e : totals.entrySet()) {
+            if (e.getValue().samples() > 0) write(conn, e.getKey(), e.getValue(), latest.get(e.getKey()));
+        }
+    }
+
+    /**
+     * Loads a user's merged intervals.
+     *
+     * @param userId user whose totals are wanted
+     * @return merged sketch; empty when the user has no recorded intervals
+     * @throws SQLException when the query fails
+     */
+    public static KeyLatencySketch load(int userId) throws SQLException {
+        // A single primary-key lookup on a pooled reader.
+        try (Connection conn = SqliteConnection.reader()) {
+            return read(conn, userId);
+        }
+    }
+
+    private static KeyLatencySketch read(Connection conn, int userId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT Data FROM UserKeyLatency WHERE UserID = ?")) {
+            ps.setInt(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                byte[] data = rs.next() ? rs.getBytes(1) : null;
+                if (data == null) return new KeyLatencySketch();
+                try {
+                    return KeyLatencySketch.decode(data);
+                } catch (IllegalArgumentException e) {
+                    // A damaged row is started over rather than blocking every later completion.
+                    e.printStackTrace();
+                    return new KeyLatencySketch();
+                }
+            }
+        }
+    }
+
+    private static void write(Connection conn, int userId, KeyLatencySketch sketch, String at) throws SQLException {
+        String sql = "INSERT OR REPLACE INTO UserKeyLatency (UserID, Samples, Data, UpdatedAt) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, userId);
+            ps.setLong(2, sketch.samples());
+            ps.setBytes(3, sketch.encode());
+            ps.setString(4, at);
+            ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package typingNinja.model.lesson;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Records every key event of one lesson in parallel primitive arrays.
+ * <p>Each event is a timestamp on the lesson clock (nanoseconds since the lesson started, pauses
+ * excluded), the expected character, the character actually typed or erased, and a set of
+ * flags. Recording only writes into the arrays, which double when full, so the typing path
+ * never allocates per event. {@link #encode()} packs the journal into a small blob: timestamps
+ * as unsigned varint deltas, characters as varints, and the actual character left out whenever
+ * it equals the expected one.</p>
+ */
+public final class KeystrokeJournal {
+
+    /** The key matched the expected character; on an erase, the erased character was correct. */
+    public static final int CORRECT = 1;
+    /** The event is a backspace that erased {@code actual} from the expected position. */
+    public static final int BACKSPACE = 2;
+    /** The typed character was counted but not placed (strict mode). */
+    public static final int REJECTED = 4;
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int ACTUAL_DIFFERS = 0x80;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] times;
+    private char[] expected;
+    private char[] actual;
+    private byte[] flags;
+    private int size;
+
+    /**
+     * Creates an empty journal with room for a typical lesson.
+     */
+    public KeystrokeJournal() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private KeystrokeJournal(int capacity) {
+        int cap = Math.max(16, capacity);
+        times = new long[cap];
+        expected = new char[cap];
+        actual = new char[cap];
+        flags = new byte[cap];
+    }
+
+    /**
+     * Appends one event.
+     *
+     * @param nanos    lesson-clock time of the event in nanoseconds
+     * @param expected character the passage expected, or the typed character in free typing
+     * @param actual   character typed, or erased for {@link #BACKSPACE}
+     * @param flags    combination of {@link #CORRECT}, {@link #BACKSPACE} and {@link #REJECTED}
+     */
+    public void record(long nanos, char expected, char actual, int flags) {
+        // Growth is the only allocation, and happens a handful of times per long lesson.
+        if (size == times.length) grow();
+        times[size] = nanos;
+        this.expected[size] = expected;
+        this.actual[size] = actual;
+        this.flags[size] = (byte) flags;
+        size++;
+    }
+
+    /** @return number of recorded events */
+    public int size() { return size; }
+
+    /** @param i event index @return lesson-clock time in nanoseconds */
+    public long timeAt(int i) { return times[check(i)]; }
+
+    /** @param i event index @return expected character */
+    public char expectedAt(int i) { return expected[check(i)]; }
+
+    /** @param i event index @return typed or erased character */
+    public char actualAt(int i) { return actual[check(i)]; }
+
+    /** @param i event index @return event flags */
+    public int flagsAt(int i) { return flags[check(i)]; }
+
+    /**
+     * Forgets every event but keeps the arrays for the next lesson.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Forgets the oldest events, for sessions that would otherwise grow without bound.
+     *
+     * @param count number of events to drop; more than {@link #size()} empties the journal
+     */
+    public void dropOldest(int count) {
+        // One shift per array; callers drop in large chunks so this stays rare.
+        int n = Math.max(0, Math.min(count, size));
+        int keep = size - n;
+        System.arraycopy(times, n, times, 0, keep);
+        System.arraycopy(expected, n, expected, 0, keep);
+        System.arraycopy(actual, n, actual, 0, keep);
+        System.arraycopy(flags, n, flags, 0, keep);
+        size = keep;
+    }
+
+    /**
+     * Packs the journal into its storage form.
+     *
+     * @return encoded journal; never {@code null}
+     */
+    public byte[] encode() {
+        // About six bytes per keystroke: a nanosecond delta varint, a flags byte and an ASCII varint.
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + size * 5);
+        out.write(FORMAT_VERSION);
+        writeVarint(out, size);
+        long prev = 0;
+        for (int i = 0; i < size; i++) {
+            writeVarint(out, Math.max(0, times[i] - prev));
+            prev = Math.max(prev, times[i]);
+            boolean differs = actual[i] != expected[i];
+            out.write((flags[i] & 0x7F) | (differs ? ACTUAL_DIFFERS : 0));
+            writeVarint(out, expected[i]);
+            if (differs) writeVarint(out, actual[i]);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Rebuilds a journal from {@link #encode()} output.
+     *
+     * @param data encoded journal
+     * @return decoded journal
+     * @throws IllegalArgumentException when the data is truncated or of an unknown version
+     */
+    public static KeystrokeJournal decode(byte[] data) {
+        // Timestamps that went backwards were stored as zero deltas and stay clamped.
+        Reader in = new Reader(data);
+        int version = in.readByte();
+        if (version != FORMAT_VERSION) throw new IllegalArgumentException("Unknown journal version " + version);
+        int count = (int) in.readVarint();
+        KeystrokeJournal journal = new KeystrokeJournal(Math.min(count, data.length));
+        long t = 0;
+        for (int i = 0; i < count; i++) {
+            t += in.readVarint();
+            int f = in.readByte();
+            char exp = (char) in.readVarint();
+            char act = (f & ACTUAL_DIFFERS) != 0 ? (char) in.readVarint() : exp;
+            journal.record(t, exp, act, f & 0x7F);
+        }
+        return journal;
+    }
+
+    private int check(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("Event " + i + " of " + size);
+        return i;
+    }
+
+    private void grow() {
+        int cap = times.length * 2;
+        times = Arrays.copyOf(times, cap);
+        expected = Arrays.copyOf(expected, cap);
+        actual = Arrays.copyOf(actual, cap);
+        flags = Arrays.copyOf(flags, cap);
+    }
+
+    static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /** Sequential reader over encoded blobs; shared with the other encoders in this package. */
+    static final class Reader {
+        private final byte[] data;
+        private int pos;
+
+        Reader(byte[] data) { this.data = data; }
+
+        int readByte() {
+            if (pos >= data.length) throw new IllegalArgumentException("Truncated data");
+            return data[pos++] & 0xFF;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+    }
+}
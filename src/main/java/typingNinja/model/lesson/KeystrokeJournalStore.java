@@ -0,0 +1,71 @@
+package typingNinja.model.lesson;
+
+import typingNinja.model.SqliteConnection;
+import typingNinja.model.StatisticsRollup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Storage for the keystroke journal of completed lessons.
+ * <p>Each completed lesson gets at most one row in {@code LessonJournal}, keyed by its
+ * {@code LessonID}, holding the {@link KeystrokeJournal#encode() encoded} blob. The blob lives
+ * in its own table so the history and results queries on {@code Lesson} never page it in.
+ * The table is created by the schema migrator.</p>
+ */
+public final class KeystrokeJournalStore {
+
+    private KeystrokeJournalStore() {}
+
+    /**
+     * Stores the journal of a lesson, replacing any earlier one. Empty journals are skipped.
+     *
+     * @param conn writer connection
+     * @param lessonId lesson the journal belongs to
+     * @param userId owner of the lesson
+     * @param journal recorded events
+     * @throws SQLException when the write fails
+     */
+    public static void save(Connection conn, int lessonId, int userId, KeystrokeJournal journal) throws SQLException {
+        // Encoded here, on the writer thread, so the lesson screen never pays for it.
+        if (journal == null || journal.size() == 0) return;
+        String sql = "INSERT OR REPLACE INTO LessonJournal (LessonID, UserID, Events, Data) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, lessonId);
+            ps.setInt(2, userId);
+            ps.setInt(3, journal.size());
+            ps.setBytes(4, journal.encode());
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Loads the journal of a user's fastest completed lesson of one type, timed the same way as
+     * the best times in {@code LessonBestTime}. Lessons finished before journals were recorded
+     * are skipped, so this is the best lesson that can be replayed.
+     *
+     * @param userId owner of the lessons
+     * @param lessonType lesson type, e.g. {@code "1a"}
+     * @return decoded journal, or {@code null} when no completed lesson of that type has one
+     * @throws SQLException when the query fails
+     */
+    public static KeystrokeJournal loadPersonalBest(int userId, String lessonType) throws SQLException {
+        // Walks the user's completed lessons of this type through the (UserID, LessonType, DateCompleted) index.
+        String sql = "SELECT j.Data FROM Lesson l JOIN LessonJournal j ON j.LessonID = l.LessonID "
+                + "WHERE l.UserID = ? AND l.LessonType = ? AND " + StatisticsRollup.COMPLETED
+                + " AND DateStarted IS NOT NULL AND " + StatisticsRollup.ELAPSED_SECONDS + " > 0 "
+                + "ORDER BY " + StatisticsRollup.ELAPSED_SECONDS + ", l.LessonID LIMIT 1";
+        try (Connection conn = SqliteConnection.reader();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, userId);
+            ps.setString(2, lessonType);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return null;
+                byte[] data = rs.getBytes(1);
+                return data == null ? null : KeystrokeJournal.decode(data);
+            }
+        }
+    }
+}
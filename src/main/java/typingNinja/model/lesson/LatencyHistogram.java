@@ -0,0 +1,101 @@
+package typingNinja.model.lesson;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free histogram of latencies in microseconds.
+ * <p>Buckets are log-linear: values below 16&nbsp;µs get a bucket each, and every power of two
+ * above that is split into 16 equal sub-buckets, so any recorded value is reported within about
+ * 6% of its true size. Values beyond roughly a minute land in the last bucket. Memory never
+ * grows, recording is a couple of atomic increments, and readers may query while writers are
+ * recording.</p>
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 26;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos latency in nanoseconds; negative values are treated as zero
+     */
+    public void record(long nanos) {
+        // Stored at microsecond resolution; nothing on this path allocates or locks.
+        long micros = Math.max(0, nanos / 1_000);
+        counts.incrementAndGet(bucketOf(micros));
+        total.incrementAndGet();
+        long seen = max.get();
+        while (micros > seen && !max.compareAndSet(seen, micros)) seen = max.get();
+    }
+
+    /** @return number of recorded latencies */
+    public long count() { return total.get(); }
+
+    /** @return largest recorded latency in microseconds, or {@code 0} when empty */
+    public long maxMicros() { return max.get(); }
+
+    /**
+     * @param percentile value in {@code (0, 100]}, e.g. {@code 99}
+     * @return upper bound of the bucket holding that percentile, in microseconds, capped at the
+     *         maximum; {@code 0} when empty
+     */
+    public long percentileMicros(double percentile) {
+        // Walk the buckets until the running count covers the requested rank.
+        long n = total.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(n * Math.min(100.0, percentile) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBoundOf(i), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * Clears every bucket. Not atomic with respect to concurrent writers.
+     */
+    public void reset() {
+        // Used between lessons, when nothing is recording.
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        total.set(0);
+        max.set(0);
+    }
+
+    /**
+     * @return one-line summary with the count, p50, p95, p99 and max in milliseconds
+     */
+    public String summary() {
+        // Read once per dump, so the formatting cost stays off the hot path.
+        return String.format("n=%d p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms",
+                count(),
+                percentileMicros(50) / 1000.0,
+                percentileMicros(95) / 1000.0,
+                percentileMicros(99) / 1000.0,
+                maxMicros() / 1000.0);
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros < SUB_COUNT) return (int) micros;
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) return BUCKETS - 1;
+        int sub = (int) (micros >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_COUNT) return bucket;
+        int exponent = bucket / SUB_COUNT + SUB_BITS - 1;
+        long sub = bucket % SUB_COUNT;
+        long width = 1L << (exponent - SUB_BITS);
+        return (1L << exponent) + (sub + 1) * width - 1;
+    }
+}
@@ -1,13 +1,14 @@
 package typingNinja.model.lesson;
 
+import typingNinja.model.LessonHistoryCache;
 import typingNinja.model.SqliteConnection;
+import typingNinja.model.StatisticsRollup;
 import java.sql.*;
 
 /**
  * Data access object for core lesson records.
  */
 public class LessonDAO {
-    private final Connection conn = SqliteConnection.getInstance();
 
     /**
      * Returns the most recent lesson row for the supplied user id.
@@ -26,7 +27,8 @@ public class LessonDAO {
       ORDER BY LessonID DESC
       LIMIT 1
     """;
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = SqliteConnection.reader();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, userId);
             try (ResultSet rs = ps.executeQuery()) {
                 if (!rs.next()) return null;
@@ -54,11 +56,28 @@ public class LessonDAO {
      */
     public void markStarted(int lessonId, int userId) throws SQLException {
         // Stamp the start time once the student actually begins typing.
-        String sql = "UPDATE Lesson SET DateStarted = datetime('now','localtime') WHERE LessonID = ? AND UserID = ?";
+        SqliteConnection.write(conn -> markStarted(conn, lessonId, userId, null));
+    }
+
+    /**
+     * Statement-level variant of {@link #markStarted(int, int)} used when several lesson
+     * writes are batched on the writer connection.
+     *
+     * @param conn writer connection
+     * @param lessonId lesson to update
+     * @param userId owner of the lesson
+     * @param startedAt local timestamp captured when the event happened, or {@code null} for now
+     * @return number of rows updated
+     * @throws SQLException when the update fails
+     */
+    int markStarted(Connection conn, int lessonId, int userId, String startedAt) throws SQLException {
+        // Prefer the caller's timestamp so queued writes keep the real start time.
+        String sql = "UPDATE Lesson SET DateStarted = COALESCE(?, datetime('now','localtime')) WHERE LessonID = ? AND UserID = ?";
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, lessonId);
-            ps.setInt(2, userId);
-            ps.executeUpdate();
+            ps.setString(1, startedAt);
+            ps.setInt(2, lessonId);
+            ps.setInt(3, userId);
+            return ps.executeUpdate();
         }
     }
 
@@ -78,21 +97,54 @@ public class LessonDAO {
                               double starRating, double wpm, double accuracy, int errors,
                               String weakKeys) throws SQLException {
         // Record the final stats whenever a lesson reaches a valid end state.
+        SqliteConnection.write(conn -> markCompleted(conn, lessonId, userId,
+                starRating, wpm, accuracy, errors, weakKeys, null));
+        LessonHistoryCache.lessonCompleted(userId, lessonId);
+    }
+
+    /**
+     * Statement-level variant of {@link #markCompleted(int, int, double, double, double, int, String)}
+     * used when several lesson writes are batched on the writer connection.
+     *
+     * @param conn writer connection
+     * @param lessonId lesson to update
+     * @param userId owner of the lesson
+     * @param starRating final star rating
+     * @param wpm final words per minute
+     * @param accuracy accuracy percentage
+     * @param errors total errors recorded
+     * @param weakKeys weak key string to store alongside the row
+     * @param completedAt local timestamp captured when the lesson ended, or {@code null} for now
+     * @return number of rows updated
+     * @throws SQLException when the update fails
+     */
+    int markCompleted(Connection conn, int lessonId, int userId,
+                      double starRating, double wpm, double accuracy, int errors,
+                      String weakKeys, String completedAt) throws SQLException {
+        // Same update as the public method, minus the locking.
         String sql = """
       UPDATE Lesson
-      SET DateCompleted = datetime('now','localtime'),
+      SET DateCompleted = COALESCE(?, datetime('now','localtime')),
           StarRating = ?, WPM = ?, Accuracy = ?, ErrorAmount = ?, WeakKeys = ?
       WHERE LessonID = ? AND UserID = ?
     """;
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setDouble(1, starRating);
-            ps.setDouble(2, wpm);
-            ps.setDouble(3, accuracy);
-            ps.setInt(4, errors);
-            ps.setString(5, weakKeys);
-            ps.setInt(6, lessonId);
-            ps.setInt(7, userId);
-            ps.executeUpdate();
+            ps.setString(1, completedAt);
+            ps.setDouble(2, starRating);
+            ps.setDouble(3, wpm);
+            ps.setDouble(4, accuracy);
+            ps.setInt(5, errors);
+            ps.setString(6, weakKeys);
+            ps.setInt(7, lessonId);
+            ps.setInt(8, userId);
+            boolean wasCounted = StatisticsRollup.isCounted(conn, lessonId);
+            int rows = ps.executeUpdate();
+            if (rows > 0 && !wasCounted) {
+                // Fold the finished lesson into the running profile totals in the same transaction.
+                StatisticsRollup.lessonCompleted(conn, lessonId);
+                WeakPairStore.lessonCompleted(conn, lessonId);
+            }
+            return rows;
         }
     }
 
@@ -105,16 +157,30 @@ public class LessonDAO {
      */
     public void deleteIfNotCompleted(int lessonId, int userId) throws SQLException {
         // Cleanup helper for when a lesson is cancelled before it finishes.
-        String sql = "DELETE FROM Lesson WHERE LessonID = ? AND UserID = ? AND DateCompleted IS NULL";
+        SqliteConnection.write(conn -> deleteIfNotCompleted(conn, lessonId, userId));
+    }
+
+    /**
+     * Statement-level variant of {@link #deleteIfNotCompleted(int, int)} used by batched writes.
+     *
+     * @param conn writer connection
+     * @param lessonId lesson to remove
+     * @param userId owner of the lesson
+     * @return number of rows deleted
+     * @throws SQLException when the delete fails
+     */
+    int deleteIfNotCompleted(Connection conn, int lessonId, int userId) throws SQLException {
+        // Only pending rows are removed; finished lessons stay in history.
+        String sql = "DELETE FROM Lesson WHERE LessonID = ? AND UserID = ? AND NOT (" + StatisticsRollup.COMPLETED + ")";
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, lessonId);
             ps.setInt(2, userId);
-            ps.executeUpdate();
+            return ps.executeUpdate();
         }
     }
 
     /**
-     * Aggregates the most common weak key bigrams across completed custom lessons.
+     * Returns the most common weak key bigrams across completed custom lessons.
      *
      * @param userId user whose history should be analysed
      * @param k maximum number of bigrams to return
@@ -122,43 +188,16 @@ public class LessonDAO {
      * @throws SQLException when the query fails
      */
     public java.util.List<String> topWeakPairsForUserFromCompletedCustomLessons(int userId, int k) throws java.sql.SQLException {
-        // Aggregate bigram mistakes from finished custom lessons to feed the AI prompts.
-        String sql = """
-        SELECT WeakKeys
-        FROM Lesson
-        WHERE UserID = ?
-          AND LessonType = 'CustomTopic'
-          AND WeakKeys IS NOT NULL AND LENGTH(TRIM(WeakKeys)) > 0
-          AND DateCompleted IS NOT NULL
-    """;
-        java.util.Map<String, Integer> counts = new java.util.HashMap<>();
-        try (java.sql.PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setInt(1, userId);
-            try (java.sql.ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    String wk = rs.getString(1);
-                    if (wk == null || wk.isBlank()) continue;
-                    for (String token : wk.trim().split("\\s+")) {
-                        if (token.equals("--")) continue;
-                        String pair = token.replace("|", "");
-                        if (pair.length() != 2) continue;
-                        char a = pair.charAt(0), b = pair.charAt(1);
-                        if (!WeakKeyTracker.trackable(a) || !WeakKeyTracker.trackable(b)) continue;
-                        counts.merge(pair, 1, Integer::sum);
-                    }
-                }
-            }
+        // Read from the per-user totals kept current on completion to feed the AI prompts.
+        try (Connection conn = SqliteConnection.reader()) {
+            java.util.List<String> pairs = WeakPairStore.topPairs(conn, userId, k);
+            if (!pairs.isEmpty() || !WeakPairStore.hasSourceLessons(conn, userId)) return pairs;
         }
-        java.util.List<java.util.Map.Entry<String,Integer>> list = new java.util.ArrayList<>(counts.entrySet());
-        list.sort((e1, e2) -> {
-            int c = Integer.compare(e2.getValue(), e1.getValue());
-            return (c != 0) ? c : e1.getKey().compareTo(e2.getKey());
+        // Totals are missing although lessons exist, e.g. rows written outside markCompleted: rebuild once.
+        return SqliteConnection.write(conn -> {
+            WeakPairStore.rebuild(conn, userId);
+            return WeakPairStore.topPairs(conn, userId, k);
         });
-        java.util.List<String> out = new java.util.ArrayList<>(Math.min(k, list.size()));
-        for (int i = 0; i < list.size() && out.size() < k; i++) {
-            out.add(list.get(i).getKey());
-        }
-        return out;
     }
 
 }
@@ -0,0 +1,367 @@
+package typingNinja.model.lesson;
+
+import typingNinja.model.LessonHistoryCache;
+import typingNinja.model.SqliteConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind queue for lesson lifecycle events.
+ * <p>A single background thread drains started/completed/cancelled events, coalesces what it
+ * can and applies each batch in one transaction on the writer connection, so the FX thread
+ * never waits on SQLite. Events for the same lesson are applied in submission order, and every
+ * submission returns a future that completes once its write has been committed.</p>
+ */
+public final class LessonWriteQueue {
+
+    private static final int MAX_BATCH = 64;
+    private static final long SHUTDOWN_WAIT_MS = 5000;
+    private static final DateTimeFormatter SQL_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static LessonWriteQueue shared;
+
+    private enum Kind { STARTED, COMPLETED, CANCELLED, FLUSH, STOP }
+
+    private static final class Op {
+        final Kind kind;
+        final int lessonId;
+        final int userId;
+        final String at;
+        final double starRating, wpm, accuracy;
+        final int errors;
+        final String weakKeys;
+        final KeystrokeJournal journal;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        /** Set on the writer thread once this op's rows have been committed. */
+        boolean written;
+
+        Op(Kind kind, int lessonId, int userId, String at,
+           double starRating, double wpm, double accuracy, int errors, String weakKeys,
+           KeystrokeJournal journal) {
+            this.kind = kind;
+            this.lessonId = lessonId;
+            this.userId = userId;
+            this.at = at;
+            this.starRating = starRating;
+            this.wpm = wpm;
+            this.accuracy = accuracy;
+            this.errors = errors;
+            this.weakKeys = weakKeys;
+            this.journal = journal;
+        }
+
+        static Op of(Kind kind, int lessonId, int userId) {
+            return new Op(kind, lessonId, userId, null, 0, 0, 0, 0, null, null);
+        }
+    }
+
+    private final BlockingQueue<Op> queue = new LinkedBlockingQueue<>();
+    private final LessonDAO lessonDAO = new LessonDAO();
+    private final Thread worker;
+    private volatile boolean accepting = true;
+
+    private LessonWriteQueue() {
+        worker = new Thread(this::runLoop, "lesson-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Returns the application-wide queue, starting its writer thread on first use.
+     *
+     * @return shared queue instance
+     */
+    public static synchronized LessonWriteQueue shared() {
+        // Lazily (re)start so tests and app restarts get a live worker.
+        if (shared == null) {
+            shared = new LessonWriteQueue();
+        }
+        return shared;
+    }
+
+    /**
+     * Queues the start timestamp for a lesson. The time is captured now, not when the row is written.
+     *
+     * @param lessonId lesson to update
+     * @param userId owner of the lesson
+     * @return future completed once the row has been committed
+     */
+    public CompletableFuture<Void> submitStarted(int lessonId, int userId) {
+        // Capture the wall-clock time up front so queueing delay never skews history.
+        return enqueue(new Op(Kind.STARTED, lessonId, userId, now(), 0, 0, 0, 0, null, null));
+    }
+
+    /**
+     * Queues the completion metrics for a finished lesson.
+     *
+     * @param lessonId lesson to update
+     * @param userId owner of the lesson
+     * @param starRating final star rating
+     * @param wpm final words per minute
+     * @param accuracy accuracy percentage
+     * @param errors total errors recorded
+     * @param weakKeys weak key string to store alongside the row
+     * @return future completed once the row has been committed
+     */
+    public CompletableFuture<Void> submitCompleted(int lessonId, int userId,
+                                                   double starRating, double wpm, double accuracy,
+                                                   int errors, String weakKeys) {
+        // Same fields as LessonDAO.markCompleted, stamped with the real end time.
+        return submitCompleted(lessonId, userId, starRating, wpm, accuracy, errors, weakKeys, null);
+    }
+
+    /**
+     * Queues the completion metrics for a finished lesson together with its keystroke journal.
+     * The journal is encoded and stored on the writer thread, and its keystroke intervals are
+     * merged into the user's latency totals, in the same transaction as the completion, so the
+     * caller must not record into it afterwards.
+     *
+     * @param lessonId lesson to update
+     * @param userId owner of the lesson
+     * @param starRating final star rating
+     * @param wpm final words per minute
+     * @param accuracy accuracy percentage
+     * @param errors total errors recorded
+     * @param weakKeys weak key string to store alongside the row
+     * @param journal every key event of the lesson; may be {@code null}
+     * @return future completed once the row has been committed
+     */
+    public CompletableFuture<Void> submitCompleted(int lessonId, int userId,
+                                                   double starRating, double wpm, double accuracy,
+                                                   int errors, String weakKeys, KeystrokeJournal journal) {
+        // The journal rides along with the completion so both land or neither does.
+        return enqueue(new Op(Kind.COMPLETED, lessonId, userId, now(),
+                starRating, wpm, accuracy, errors, weakKeys, journal));
+    }
+
+    /**
+     * Queues removal of a lesson row that never reached completion.
+     *
+     * @param lessonId lesson to remove
+     * @param userId owner of the lesson
+     * @return future completed once the delete has been committed
+     */
+    public CompletableFuture<Void> submitCancelled(int lessonId, int userId) {
+        // Cancel is ordered after any start/complete already queued for the lesson.
+        return enqueue(Op.of(Kind.CANCELLED, lessonId, userId));
+    }
+
+    /**
+     * Returns a future that completes once everything submitted before this call is on disk.
+     *
+     * @return flush barrier
+     */
+    public CompletableFuture<Void> flush() {
+        // A marker op: it completes after every earlier batch has finished.
+        return enqueue(Op.of(Kind.FLUSH, 0, 0));
+    }
+
+    /**
+     * Flushes pending writes and stops the shared writer thread, waiting a bounded time.
+     * Called on application exit before the database connections are closed.
+     */
+    public static void shutdownShared() {
+        LessonWriteQueue q;
+        synchronized (LessonWriteQueue.class) {
+            q = shared;
+            shared = null;
+        }
+        if (q != null) q.shutdown();
+    }
+
+    private void shutdown() {
+        // Stop accepting, let the worker drain everything already queued, then join.
+        accepting = false;
+        queue.add(Op.of(Kind.STOP, 0, 0));
+        try {
+            worker.join(SHUTDOWN_WAIT_MS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<Void> enqueue(Op op) {
+        if (!accepting) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Lesson write queue is shut down."));
+        }
+        queue.add(op);
+        return op.done;
+    }
+
+    private static String now() {
+        return LocalDateTime.now().format(SQL_TIME);
+    }
+
+    private void runLoop() {
+        // Block for the first op, then take whatever else is already waiting as one batch.
+        List<Op> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException ie) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            boolean stop = false;
+            for (Op op : batch) {
+                if (op.kind == Kind.STOP) stop = true;
+            }
+            process(batch);
+            batch.clear();
+            if (stop) {
+                // Drain anything that raced in before accepting flipped.
+                queue.drainTo(batch);
+                if (!batch.isEmpty()) process(batch);
+                return;
+            }
+        }
+    }
+
+    private void process(List<Op> batch) {
+        List<Op> writes = coalesce(batch);
+
+        Throwable failure = null;
+        if (!writes.isEmpty()) {
+            try {
+                applyInTransaction(writes);
+            } catch (SQLException e) {
+                // One bad row should not sink the rest: replay them individually.
+                e.printStackTrace();
+                failure = replayIndividually(batch);
+            }
+        }
+
+        for (Op op : batch) {
+            // Cached n-gram models and histories change only once the completion is committed and visible.
+            if (op.kind != Kind.COMPLETED || !op.written || op.done.isCompletedExceptionally()) continue;
+            NgramModelStore.invalidate(op.userId);
+            LessonHistoryCache.lessonCompleted(op.userId, op.lessonId);
+        }
+
+        for (Op op : batch) {
+            if (op.done.isDone()) continue;
+            if (failure != null && op.kind != Kind.FLUSH && op.kind != Kind.STOP) {
+                op.done.completeExceptionally(failure);
+            } else {
+                op.done.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Drops writes that a later event in the same batch makes redundant, keeping per-lesson order.
+     */
+    private static List<Op> coalesce(List<Op> batch) {
+        Map<Integer, List<Op>> perLesson = new LinkedHashMap<>();
+        for (Op op : batch) {
+            if (op.kind == Kind.STARTED || op.kind == Kind.COMPLETED || op.kind == Kind.CANCELLED) {
+                perLesson.computeIfAbsent(op.lessonId, k -> new ArrayList<>()).add(op);
+            }
+        }
+        List<Op> out = new ArrayList<>(batch.size());
+        for (List<Op> ops : perLesson.values()) {
+            Op pendingStart = null;
+            for (Op op : ops) {
+                switch (op.kind) {
+                    case STARTED -> {
+                        // Keep the earliest start; a restart before any write changes nothing.
+                        if (pendingStart == null) pendingStart = op;
+                    }
+                    case CANCELLED -> {
+                        // A start that is cancelled in the same batch never needs to hit disk.
+                        pendingStart = null;
+                        out.add(op);
+                    }
+                    default -> {
+                        if (pendingStart != null) out.add(pendingStart);
+                        pendingStart = null;
+                        out.add(op);
+                    }
+                }
+            }
+            if (pendingStart != null) out.add(pendingStart);
+        }
+        return out;
+    }
+
+    private void applyInTransaction(List<Op> writes) throws SQLException {
+        SqliteConnection.write(conn -> {
+            boolean prev = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                int[] rows = new int[writes.size()];
+                for (int i = 0; i < writes.size(); i++) rows[i] = apply(conn, writes.get(i));
+                conn.commit();
+                // Only a committed, row-affecting write counts as confirmed.
+                for (int i = 0; i < writes.size(); i++) writes.get(i).written = rows[i] > 0;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(prev);
+            }
+            return null;
+        });
+    }
+
+    private Throwable replayIndividually(List<Op> batch) {
+        Throwable last = null;
+        for (Op op : batch) {
+            if (op.kind != Kind.STARTED && op.kind != Kind.COMPLETED && op.kind != Kind.CANCELLED) continue;
+            try {
+                // Each op gets its own transaction so a failure part-way through leaves nothing behind.
+                applyInTransaction(List.of(op));
+                op.done.complete(null);
+            } catch (SQLException e) {
+                e.printStackTrace();
+                op.done.completeExceptionally(e);
+                last = e;
+            }
+        }
+        return last;
+    }
+
+    private int apply(Connection conn, Op op) throws SQLException {
+        return switch (op.kind) {
+            case STARTED -> lessonDAO.markStarted(conn, op.lessonId, op.userId, op.at);
+            case COMPLETED -> {
+                int rows = lessonDAO.markCompleted(conn, op.lessonId, op.userId,
+                        op.starRating, op.wpm, op.accuracy, op.errors, op.weakKeys, op.at);
+                if (rows > 0) {
+                    KeystrokeJournalStore.save(conn, op.lessonId, op.userId, op.journal);
+                    KeyLatencyStore.lessonCompleted(conn, op.userId, op.journal, op.at);
+                    NgramModelStore.lessonCompleted(conn, op.userId, op.journal, op.at);
+                }
+                yield rows;
+            }
+            case CANCELLED -> lessonDAO.deleteIfNotCompleted(conn, op.lessonId, op.userId);
+            default -> 0;
+        };
+    }
+
+    /**
+     * Waits for the shared queue to drain, bounded so a wedged database cannot hang the caller.
+     *
+     * @param timeoutMs maximum time to wait
+     * @return {@code true} when all earlier writes completed in time
+     */
+    public static boolean awaitIdle(long timeoutMs) {
+        try {
+            shared().flush().get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
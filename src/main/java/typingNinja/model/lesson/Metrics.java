@@ -1,5 +1,6 @@
 package typingNinja.model.lesson;
 
+import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.beans.property.IntegerProperty;
@@ -8,44 +9,98 @@ import javafx.beans.property.SimpleIntegerProperty;
 import javafx.scene.control.Label;
 import javafx.util.Duration;
 
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
 /**
  * Tracks timing, speed, and accuracy statistics for an active lesson.
+ * <p>Lesson time comes from a monotonic {@link System#nanoTime()} clock with pauses subtracted
+ * exactly; the timeline only samples that clock a few times a second to refresh the countdown
+ * and to notice the end of the lesson. Correct keystrokes are stamped with lesson time in a
+ * fixed ring buffer, which backs the rolling-window WPM, the burst WPM and a once-per-second
+ * speed series for the results screen.</p>
  */
-public class Metrics {
+public final class Metrics {
+    /** Window of the live rolling WPM, in seconds. */
+    public static final int ROLLING_WINDOW_SECONDS = 10;
+    /** Window of the burst WPM (fastest stretch of the lesson), in seconds. */
+    public static final int BURST_WINDOW_SECONDS = 3;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final Duration TICK = Duration.millis(100);
+    // Power of two; far more correct keys than anyone types in a rolling window.
+    private static final int RING_SIZE = 1024;
+    private static final int RING_MASK = RING_SIZE - 1;
+
     private final int lessonSeconds;
     private final IntegerProperty timeRemaining = new SimpleIntegerProperty();
     private final IntegerProperty charsTyped = new SimpleIntegerProperty(0);
     private final IntegerProperty errors = new SimpleIntegerProperty(0);
     private final IntegerProperty wpm = new SimpleIntegerProperty(0);
+    private final IntegerProperty liveWpm = new SimpleIntegerProperty(0);
     private final IntegerProperty errorRatePercent = new SimpleIntegerProperty(0);
     private Timeline timer;
     private boolean ended = false;
     private double charsPerWord = 5.0;
     private Runnable onEnd = () -> {};
+    private int typedCount = 0;
+    private int errorCount = 0;
+    private Runnable requestPublish = null;
+    private boolean publishPending = false;
+
+    private final LongSupplier clock;
+    private boolean started = false;
+    private long startNanos;
+    private long pausedNanos;
+    private long pauseStartNanos = -1;
+    private long endNanos = -1;
+
+    private final long[] stamps = new long[RING_SIZE];
+    private long stampCount = 0;
+    private long burstTail = 0;
+    private int burstWpm = 0;
+    private final int[] series;
+    private int samples = 0;
+    private int peakWpm = 0;
 
     /**
      * @param lessonSeconds total length of the lesson in seconds
      */
     public Metrics(int lessonSeconds) {
+        this(lessonSeconds, System::nanoTime);
+    }
+
+    /**
+     * @param lessonSeconds total length of the lesson in seconds
+     * @param clock monotonic nanosecond clock; tests pass a fake one
+     */
+    public Metrics(int lessonSeconds, LongSupplier clock) {
         // Core timer and counters shared across controllers.
         this.lessonSeconds = lessonSeconds;
+        this.clock = clock;
+        this.series = new int[Math.max(0, lessonSeconds)];
         this.timeRemaining.set(lessonSeconds);
         buildTimer();
     }
 
     private void buildTimer() {
-        // A one-second heartbeat drives the stats and signals when time runs out.
-        timer = new Timeline(new KeyFrame(Duration.seconds(1), e -> {
-            int t = timeRemaining.get() - 1;
-            timeRemaining.set(t);
-            recomputeDerived(lessonSeconds - t);
-            if (t <= 0) {
-                timer.stop();
-                ended = true;
-                onEnd.run();
-            }
-        }));
-        timer.setCycleCount(lessonSeconds);
+        // The heartbeat only samples the clock; it never decides how much time has passed.
+        timer = new Timeline(new KeyFrame(TICK, e -> tick()));
+        timer.setCycleCount(Animation.INDEFINITE);
+    }
+
+    private void tick() {
+        long elapsed = elapsedNanos();
+        int secondsElapsed = (int) Math.min(lessonSeconds, elapsed / NANOS_PER_SECOND);
+        timeRemaining.set(lessonSeconds - secondsElapsed);
+        catchUpSamples(elapsed);
+        recomputeDerived();
+        if (elapsed >= lessonSeconds * NANOS_PER_SECOND && !ended) {
+            timer.stop();
+            endNanos = lessonSeconds * NANOS_PER_SECOND;
+            ended = true;
+            onEnd.run();
+        }
     }
 
     /**
@@ -55,6 +110,11 @@ public class Metrics {
         // Play from the top, resetting if another run already burned through the timer.
         if (timeRemaining.get() <= 0) reset();
         ended = false;
+        started = true;
+        startNanos = clock.getAsLong();
+        pausedNanos = 0;
+        pauseStartNanos = -1;
+        endNanos = -1;
         timer.playFromStart();
     }
 
@@ -62,7 +122,8 @@ public class Metrics {
      * Pauses the timer without resetting counters.
      */
     public void pause() {
-        // Pause is cheap because Timeline handles the bookkeeping.
+        // The clock stops exactly here; the time until resume is excluded from the lesson.
+        if (started && pauseStartNanos < 0 && endNanos < 0) pauseStartNanos = clock.getAsLong();
         timer.pause();
     }
 
@@ -71,6 +132,10 @@ public class Metrics {
      */
     public void resume() {
         // Resume picks up where pause left off.
+        if (pauseStartNanos >= 0) {
+            pausedNanos += clock.getAsLong() - pauseStartNanos;
+            pauseStartNanos = -1;
+        }
         timer.play();
     }
 
@@ -81,24 +146,51 @@ public class Metrics {
         // Restore counters and timer to their initial state.
         timer.stop();
         ended = false;
+        started = false;
+        pausedNanos = 0;
+        pauseStartNanos = -1;
+        endNanos = -1;
         timeRemaining.set(lessonSeconds);
+        typedCount = 0;
+        errorCount = 0;
+        publishPending = false;
+        stampCount = 0;
+        burstTail = 0;
+        burstWpm = 0;
+        samples = 0;
+        peakWpm = 0;
         charsTyped.set(0);
         errors.set(0);
         wpm.set(0);
+        liveWpm.set(0);
         errorRatePercent.set(0);
     }
 
+    /**
+     * Lesson time so far: wall time since {@link #start()} minus pauses, frozen once the lesson
+     * ends.
+     *
+     * @return elapsed lesson time in nanoseconds
+     */
+    public long elapsedNanos() {
+        // Paused or ended lessons report the instant the clock stopped.
+        if (!started) return 0;
+        if (endNanos >= 0) return endNanos;
+        long now = pauseStartNanos >= 0 ? pauseStartNanos : clock.getAsLong();
+        return Math.max(0, now - startNanos - pausedNanos);
+    }
+
     /**
      * Records a new keystroke and updates speed/accuracy metrics.
      *
      * @param correct whether the keystroke matched the expected character
      */
     public void incTyped(boolean correct) {
-        // Called for every keypress so we can keep WPM and error rate reactive.
-        charsTyped.set(charsTyped.get() + 1);
-        if (!correct) errors.set(errors.get() + 1);
-        int secondsElapsed = lessonSeconds - timeRemaining.get();
-        recomputeDerived(Math.max(1, secondsElapsed));
+        // Called for every keypress; the counters move now, the bound properties on publish.
+        typedCount++;
+        if (correct) stamp(elapsedNanos());
+        else errorCount++;
+        countersChanged();
     }
 
     /**
@@ -107,26 +199,112 @@ public class Metrics {
      * @param wasError whether the removed character was previously counted as an error
      */
     public void decTypedIfBackspace(boolean wasError) {
-        // Rewind stats when the user backspaces, keeping error count honest.
-        if (charsTyped.get() > 0) charsTyped.set(charsTyped.get() - 1);
-        if (wasError && errors.get() > 0) errors.set(errors.get() - 1);
-        int secondsElapsed = Math.max(1, lessonSeconds - timeRemaining.get());
-        recomputeDerived(secondsElapsed);
+        // Rewind stats when the user backspaces, keeping error count honest; an erased correct
+        // key also gives back its speed stamp, so corrections never count toward the live WPM.
+        if (typedCount > 0) typedCount--;
+        if (wasError && errorCount > 0) errorCount--;
+        else if (!wasError) unstamp();
+        countersChanged();
     }
 
-    private void recomputeDerived(int secondsElapsed) {
+    /**
+     * Coalesces property updates: instead of refreshing the bound properties on every keystroke,
+     * the first change after a publish calls {@code requestPublish}, and the caller invokes
+     * {@link #publish()} once per frame.
+     *
+     * @param requestPublish schedules a later {@link #publish()}; {@code null} publishes immediately
+     */
+    public void deferPublishing(Runnable requestPublish) {
+        // The lesson screen hands in its frame scheduler here.
+        this.requestPublish = requestPublish;
+    }
+
+    /**
+     * Pushes the current counters into the observable properties and recomputes the derived
+     * speed and error-rate figures.
+     */
+    public void publish() {
+        // One batch of property writes, however many keys arrived since the last one.
+        publishPending = false;
+        recomputeDerived();
+    }
+
+    private void countersChanged() {
+        if (requestPublish == null) {
+            publish();
+        } else if (!publishPending) {
+            publishPending = true;
+            requestPublish.run();
+        }
+    }
+
+    private void recomputeDerived() {
         // All the secondary metrics flow through here so updates stay consistent.
-        double minutes = Math.max(1.0 / 60.0, secondsElapsed / 60.0);
-        int correctChars = Math.max(0, charsTyped.get() - errors.get());
-        double divisor = Math.max(1.0, charsPerWord);
-        int computedWpm = (int) Math.round((correctChars / divisor) / minutes);
-        wpm.set(Math.max(0, computedWpm));
-        int typed = Math.max(1, charsTyped.get());
-        int err = Math.max(0, errors.get());
+        charsTyped.set(typedCount);
+        errors.set(errorCount);
+        double minutes = Math.max(NANOS_PER_SECOND, elapsedNanos()) / (60.0 * NANOS_PER_SECOND);
+        int correctChars = Math.max(0, typedCount - errorCount);
+        wpm.set(Math.max(0, toWpm(correctChars, minutes)));
+        liveWpm.set(rollingWpmAt(elapsedNanos()));
+        int typed = Math.max(1, typedCount);
+        int err = Math.max(0, errorCount);
         int rate = (int) Math.round((err * 100.0) / typed);
         errorRatePercent.set(rate);
     }
 
+    private int toWpm(long chars, double minutes) {
+        double divisor = Math.max(1.0, charsPerWord);
+        return (int) Math.round((chars / divisor) / minutes);
+    }
+
+    private void stamp(long at) {
+        // Ring write plus an amortised O(1) slide of the burst window's tail.
+        stamps[(int) (stampCount & RING_MASK)] = at;
+        stampCount++;
+        long oldest = Math.max(0, stampCount - RING_SIZE);
+        if (burstTail < oldest) burstTail = oldest;
+        long windowStart = at - BURST_WINDOW_SECONDS * NANOS_PER_SECOND;
+        while (burstTail < stampCount && stamps[(int) (burstTail & RING_MASK)] <= windowStart) burstTail++;
+        if (at >= BURST_WINDOW_SECONDS * NANOS_PER_SECOND) {
+            burstWpm = Math.max(burstWpm, toWpm(stampCount - burstTail, BURST_WINDOW_SECONDS / 60.0));
+        }
+    }
+
+    private void unstamp() {
+        // Drop the newest stamp; the burst already reached stays as the lesson's record.
+        if (stampCount > 0) stampCount--;
+        if (burstTail > stampCount) burstTail = stampCount;
+    }
+
+    private int countStamps(long fromExclusive, long toInclusive) {
+        // Stamps are in order, so walk back from the newest until we leave the window.
+        int count = 0;
+        long oldest = Math.max(0, stampCount - RING_SIZE);
+        for (long i = stampCount - 1; i >= oldest; i--) {
+            long t = stamps[(int) (i & RING_MASK)];
+            if (t <= fromExclusive) break;
+            if (t <= toInclusive) count++;
+        }
+        return count;
+    }
+
+    private int rollingWpmAt(long at) {
+        // Early in the lesson the window is shorter than ROLLING_WINDOW_SECONDS.
+        long window = Math.min(ROLLING_WINDOW_SECONDS * NANOS_PER_SECOND, Math.max(NANOS_PER_SECOND, at));
+        int chars = countStamps(at - window, at);
+        return toWpm(chars, window / (60.0 * NANOS_PER_SECOND));
+    }
+
+    private void catchUpSamples(long elapsed) {
+        // One sample per whole second of lesson time, taken at that second's boundary.
+        int due = (int) Math.min(series.length, elapsed / NANOS_PER_SECOND);
+        while (samples < due) {
+            int v = rollingWpmAt((samples + 1) * NANOS_PER_SECOND);
+            series[samples++] = v;
+            if (v > peakWpm) peakWpm = v;
+        }
+    }
+
     /**
      * Binds the timer label to the remaining seconds in a friendly format.
      */
@@ -139,8 +317,9 @@ public class Metrics {
      * Binds the statistics labels to the computed metrics.
      */
     public void bindStats(Label wpmLabel, Label errorsLabel, Label accuracyLabel) {
-        // These bindings keep the dashboard tiles in sync with the numbers we track.
-        wpmLabel.textProperty().bind(wpm.asString());
+        // These bindings keep the dashboard tiles in sync with the numbers we track; the speed
+        // tile shows the rolling WPM, the lesson average goes to the results screen.
+        wpmLabel.textProperty().bind(liveWpm.asString());
         errorsLabel.textProperty().bind(errors.asString());
         accuracyLabel.textProperty().bind(errorRatePercent.asString().concat("%"));
     }
@@ -163,6 +342,9 @@ public class Metrics {
         if (timer != null) {
             timer.stop();
         }
+        endNanos = elapsedNanos();
+        catchUpSamples(endNanos);
+        publish();
         timeRemaining.set(0);
         onEnd.run();
     }
@@ -191,14 +373,53 @@ public class Metrics {
         return errors;
     }
 
+    /** @return read-only view of the rolling-window WPM, refreshed by the heartbeat */
+    public ReadOnlyIntegerProperty liveWpmProperty() {
+        // Smooth, recent speed for widgets that want it next to the lesson average.
+        return liveWpm;
+    }
+
     /** Convenience accessor for tests and summary views. */
     public int getWpm() { return wpm.get(); }
 
+    /**
+     * @return WPM over the last {@value #ROLLING_WINDOW_SECONDS} seconds of lesson time
+     */
+    public int getLiveWpm() {
+        // Computed on demand from the ring buffer, so it is exact between heartbeats too.
+        return rollingWpmAt(elapsedNanos());
+    }
+
+    /**
+     * @return fastest WPM over any {@value #BURST_WINDOW_SECONDS}-second stretch so far
+     */
+    public int getBurstWpm() { return burstWpm; }
+
+    /**
+     * @return highest sampled rolling WPM so far
+     */
+    public int getPeakWpm() {
+        // Sampling is lazy, so bring the series up to date first.
+        catchUpSamples(elapsedNanos());
+        return peakWpm;
+    }
+
+    /**
+     * Rolling WPM sampled at every whole second of lesson time, for the results speed curve.
+     *
+     * @return one value per elapsed second, oldest first
+     */
+    public int[] speedSeries() {
+        // Copy so callers can keep the series after the lesson object is gone.
+        catchUpSamples(elapsedNanos());
+        return Arrays.copyOf(series, samples);
+    }
+
     /** @return current error count */
-    public int getErrors() { return errors.get(); }
+    public int getErrors() { return errorCount; }
 
     /** @return raw typed character count including mistakes */
-    public int getCharsTyped() { return charsTyped.get(); }
+    public int getCharsTyped() { return typedCount; }
 
     /**
      * @return accuracy percentage in the range {@code 0..100}
@@ -220,8 +441,7 @@ public class Metrics {
         // Free mode tweaks this so WPM reflects the looser pacing.
         if (value > 0) {
             this.charsPerWord = value;
-            int secondsElapsed = Math.max(1, lessonSeconds - timeRemaining.get());
-            recomputeDerived(secondsElapsed);
+            recomputeDerived();
         }
     }
 }
@@ -0,0 +1,391 @@
+package typingNinja.model.lesson;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A user's error and slowness rates for every unigram, bigram and trigram they have typed, with
+ * older lessons fading out exponentially.
+ * <p>Each n-gram ending at a keystroke keeps four decayed sums: attempts, errors, timed clean
+ * keystrokes and their total interval. When a lesson is added, everything already in the model
+ * is first scaled by {@code 0.5^(days / }{@value #HALF_LIFE_DAYS}{@code )}, so a lesson from two
+ * weeks ago counts half. Entries that have faded below a sixteenth of an attempt are dropped,
+ * which keeps the model to the n-grams the user still types.</p>
+ * <p>Rates are smoothed towards the user's own averages, so an n-gram seen twice cannot outrank
+ * one seen fifty times on luck alone. Only n-grams worse than average are ranked, and the
+ * ranking per order is computed once whenever the model changes, which makes
+ * {@link #weakest(int, int)} a copy of a short array. Instances are not thread-safe while being
+ * updated; readers should be handed a finished model.</p>
+ */
+public final class NgramErrorModel {
+
+    /** Age in days at which a lesson's keystrokes count half. */
+    public static final double HALF_LIFE_DAYS = 14;
+    /** Maximum number of ranked n-grams kept per order. */
+    public static final int RANKED_LIMIT = 64;
+
+    static final int MAX_ENTRIES = 1 << 15;
+    private static final double MIN_ATTEMPTS = 2;
+    private static final double PRIOR_WEIGHT = 5;
+    private static final double QUANTUM = 16;
+    private static final long MAX_INTERVAL_MS = 5_000;
+    private static final int FIRST = ' ';
+    private static final int KEYS = 95;
+    private static final int BASE = KEYS + 1;
+    private static final int FORMAT_VERSION = 1;
+
+    private int[] slots = new int[256];
+    private int[] codes = new int[128];
+    private double[] attempts = new double[128];
+    private double[] errors = new double[128];
+    private double[] timed = new double[128];
+    private double[] timeSum = new double[128];
+    private int size;
+    private double updatedDay = Double.NaN;
+    private final String[][] ranked = new String[3][0];
+
+    /**
+     * Folds one lesson into the model.
+     * <p>Every typed key is an attempt at the n-grams of the passage ending at its position; a
+     * key that did not match is an error. Keys that were correct and followed a correct key are
+     * also timed, unless the gap is over five seconds, which is a pause rather than a slow key.
+     * Backspaces move the position back and are not attempts themselves.</p>
+     *
+     * @param journal key events of the lesson; {@code null} is ignored
+     * @param epochDay when the lesson was completed, in days since the epoch
+     */
+    public void addLesson(KeystrokeJournal journal, double epochDay) {
+        // Lessons arriving out of order are discounted instead of the model being aged backwards.
+        if (journal == null || journal.size() == 0) return;
+        double weight = 1;
+        if (Double.isNaN(updatedDay) || epochDay >= updatedDay) {
+            decayTo(epochDay);
+        } else {
+            weight = Math.pow(0.5, (updatedDay - epochDay) / HALF_LIFE_DAYS);
+        }
+
+        char[] placed = new char[64];
+        int depth = 0;
+        long prevTime = 0;
+        boolean prevClean = false;
+        for (int i = 0; i < journal.size(); i++) {
+            int flags = journal.flagsAt(i);
+            char expected = journal.expectedAt(i);
+            long time = journal.timeAt(i);
+            if ((flags & KeystrokeJournal.BACKSPACE) != 0) {
+                if (depth > 0) depth--;
+                prevClean = false;
+                continue;
+            }
+            boolean correct = (flags & KeystrokeJournal.CORRECT) != 0;
+            boolean rejected = (flags & KeystrokeJournal.REJECTED) != 0;
+            long interval = correct && prevClean ? (time - prevTime) / 1_000_000L : -1;
+            if (interval > MAX_INTERVAL_MS) interval = -1;
+            char p1 = depth > 0 ? placed[depth - 1] : '\0';
+            char p2 = depth > 1 ? placed[depth - 2] : '\0';
+            observe(p2, p1, expected, !correct, Math.max(-1, interval), weight);
+            if (!rejected) {
+                if (depth == placed.length) placed = Arrays.copyOf(placed, depth * 2);
+                placed[depth++] = expected;
+            }
+            prevClean = correct && !rejected;
+            prevTime = time;
+        }
+        compact();
+        rank();
+    }
+
+    /**
+     * Returns the n-grams the user most needs to practise.
+     *
+     * @param order n-gram length, 1 to 3
+     * @param k maximum number to return
+     * @return n-grams, neediest first; at most {@value #RANKED_LIMIT}
+     */
+    public List<String> weakest(int order, int k) {
+        // Served from the ranking computed when the model last changed.
+        if (order < 1 || order > 3 || k <= 0) return Collections.emptyList();
+        String[] list = ranked[order - 1];
+        return List.of(Arrays.copyOf(list, Math.min(k, list.length)));
+    }
+
+    /**
+     * @param ngram one to three characters
+     * @return decayed number of attempts, {@code 0} when unseen
+     */
+    public double attempts(String ngram) {
+        int slot = find(codeOf(ngram));
+        return slot < 0 ? 0 : attempts[slot];
+    }
+
+    /**
+     * @param ngram one to three characters
+     * @return smoothed error rate in {@code [0, 1]}; the user's average when unseen
+     */
+    public double errorRate(String ngram) {
+        // Smoothed with PRIOR_WEIGHT attempts at the user's average rate.
+        double base = baseErrorRate();
+        int slot = find(codeOf(ngram));
+        if (slot < 0) return base;
+        return (errors[slot] + base * PRIOR_WEIGHT) / (attempts[slot] + PRIOR_WEIGHT);
+    }
+
+    /**
+     * @param ngram one to three characters
+     * @return smoothed mean interval relative to the user's average, {@code 1} when unseen
+     */
+    public double slowness(String ngram) {
+        // Smoothed with PRIOR_WEIGHT keystrokes at the user's average interval.
+        double base = baseIntervalMillis();
+        int slot = find(codeOf(ngram));
+        if (slot < 0) return 1;
+        return (timeSum[slot] + base * PRIOR_WEIGHT) / (timed[slot] + PRIOR_WEIGHT) / base;
+    }
+
+    /** @return number of n-grams held */
+    public int size() { return size; }
+
+    /** @return day of the newest lesson folded in, or {@code NaN} for an empty model */
+    public double updatedDay() { return updatedDay; }
+
+    /**
+     * Packs the model into its storage form. Sums are stored in sixteenths, intervals in
+     * whole milliseconds.
+     *
+     * @return encoded model; never {@code null}
+     */
+    public byte[] encode() {
+        // Around ten bytes per n-gram, almost all of it small varints.
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + size * 10);
+        out.write(FORMAT_VERSION);
+        KeystrokeJournal.writeVarint(out, Double.isNaN(updatedDay) ? 0 : Math.round(updatedDay * 86_400) + 1);
+        KeystrokeJournal.writeVarint(out, size);
+        for (int i = 0; i < size; i++) {
+            KeystrokeJournal.writeVarint(out, codes[i]);
+            KeystrokeJournal.writeVarint(out, Math.round(attempts[i] * QUANTUM));
+            KeystrokeJournal.writeVarint(out, Math.round(errors[i] * QUANTUM));
+            KeystrokeJournal.writeVarint(out, Math.round(timed[i] * QUANTUM));
+            KeystrokeJournal.writeVarint(out, Math.round(timeSum[i]));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Rebuilds a model from {@link #encode()} output.
+     *
+     * @param data encoded model
+     * @return decoded model, ranked and ready to query
+     * @throws IllegalArgumentException when the data is truncated, malformed or of an unknown version
+     */
+    public static NgramErrorModel decode(byte[] data) {
+        // Codes are validated so a damaged blob cannot smuggle in out-of-range characters.
+        KeystrokeJournal.Reader in = new KeystrokeJournal.Reader(data);
+        int version = in.readByte();
+        if (version != FORMAT_VERSION) throw new IllegalArgumentException("Unknown model version " + version);
+        NgramErrorModel model = new NgramErrorModel();
+        long seconds = in.readVarint();
+        model.updatedDay = seconds == 0 ? Double.NaN : (seconds - 1) / 86_400.0;
+        long count = in.readVarint();
+        for (long i = 0; i < count; i++) {
+            long code = in.readVarint();
+            if (code <= 0 || code >= (long) BASE * BASE * BASE || orderOf((int) code) == 0) {
+                throw new IllegalArgumentException("Bad n-gram code " + code);
+            }
+            int slot = model.slotFor((int) code);
+            model.attempts[slot] += in.readVarint() / QUANTUM;
+            model.errors[slot] += in.readVarint() / QUANTUM;
+            model.timed[slot] += in.readVarint() / QUANTUM;
+            model.timeSum[slot] += in.readVarint();
+        }
+        model.rank();
+        return model;
+    }
+
+    private void observe(char p2, char p1, char expected, boolean error, long intervalMs, double weight) {
+        // Longer n-grams only exist when every character before them is trackable.
+        int e = index(expected);
+        if (e < 0) return;
+        int code = e + 1;
+        add(code, error, intervalMs, weight);
+        int i1 = index(p1);
+        if (i1 < 0) return;
+        code += (i1 + 1) * BASE;
+        add(code, error, intervalMs, weight);
+        int i2 = index(p2);
+        if (i2 < 0) return;
+        code += (i2 + 1) * BASE * BASE;
+        add(code, error, intervalMs, weight);
+    }
+
+    private void add(int code, boolean error, long intervalMs, double weight) {
+        int slot = slotFor(code);
+        attempts[slot] += weight;
+        if (error) errors[slot] += weight;
+        if (intervalMs >= 0) {
+            timed[slot] += weight;
+            timeSum[slot] += intervalMs * weight;
+        }
+    }
+
+    private void decayTo(double epochDay) {
+        // A uniform scale; the ranking is refreshed after the lesson is added.
+        if (!Double.isNaN(updatedDay) && epochDay > updatedDay) {
+            double factor = Math.pow(0.5, (epochDay - updatedDay) / HALF_LIFE_DAYS);
+            for (int i = 0; i < size; i++) {
+                attempts[i] *= factor;
+                errors[i] *= factor;
+                timed[i] *= factor;
+                timeSum[i] *= factor;
+            }
+        }
+        updatedDay = epochDay;
+    }
+
+    private void compact() {
+        // Drop faded entries and rehash; raise the floor until the model fits its cap.
+        double threshold = 1 / QUANTUM;
+        while (true) {
+            int live = 0;
+            for (int i = 0; i < size; i++) if (attempts[i] >= threshold) live++;
+            if (live <= MAX_ENTRIES) break;
+            threshold *= 2;
+        }
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (attempts[i] < threshold) continue;
+            codes[kept] = codes[i];
+            attempts[kept] = attempts[i];
+            errors[kept] = errors[i];
+            timed[kept] = timed[i];
+            timeSum[kept] = timeSum[i];
+            kept++;
+        }
+        size = kept;
+        Arrays.fill(slots, 0);
+        for (int i = 0; i < size; i++) slots[probe(codes[i])] = i + 1;
+    }
+
+    private void rank() {
+        // Each ratio is 1 at the user's average, so only n-grams worse than average overall are ranked.
+        double baseError = baseErrorRate();
+        double baseInterval = baseIntervalMillis();
+        double[] need = new double[size];
+        List<List<Integer>> byOrder = List.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+        for (int i = 0; i < size; i++) {
+            if (attempts[i] < MIN_ATTEMPTS) continue;
+            double errorRatio = (errors[i] + baseError * PRIOR_WEIGHT) / (attempts[i] + PRIOR_WEIGHT) / baseError;
+            double slowRatio = (timeSum[i] + baseInterval * PRIOR_WEIGHT) / (timed[i] + PRIOR_WEIGHT) / baseInterval;
+            need[i] = errorRatio + slowRatio;
+            if (need[i] <= 2) continue;
+            byOrder.get(orderOf(codes[i]) - 1).add(i);
+        }
+        for (int o = 0; o < 3; o++) {
+            List<Integer> list = byOrder.get(o);
+            list.sort((a, b) -> {
+                int byNeed = Double.compare(need[b], need[a]);
+                return byNeed != 0 ? byNeed : Integer.compare(codes[a], codes[b]);
+            });
+            int n = Math.min(RANKED_LIMIT, list.size());
+            String[] out = new String[n];
+            for (int r = 0; r < n; r++) out[r] = textOf(codes[list.get(r)]);
+            ranked[o] = out;
+        }
+    }
+
+    private double baseErrorRate() {
+        // One smoothed error per hundred attempts keeps an error-free user from dividing by zero.
+        double a = 0, e = 0;
+        for (int i = 0; i < size; i++) {
+            if (codes[i] >= BASE) continue;
+            a += attempts[i];
+            e += errors[i];
+        }
+        return (e + 1) / (a + 100);
+    }
+
+    private double baseIntervalMillis() {
+        double t = 0, sum = 0;
+        for (int i = 0; i < size; i++) {
+            if (codes[i] >= BASE) continue;
+            t += timed[i];
+            sum += timeSum[i];
+        }
+        return t > 0 && sum > 0 ? sum / t : 1;
+    }
+
+    private int find(int code) {
+        if (code <= 0) return -1;
+        return slots[probe(code)] - 1;
+    }
+
+    private int slotFor(int code) {
+        // Open addressing into dense parallel arrays; both grow by doubling.
+        int p = probe(code);
+        if (slots[p] != 0) return slots[p] - 1;
+        if (size == codes.length) {
+            int cap = size * 2;
+            codes = Arrays.copyOf(codes, cap);
+            attempts = Arrays.copyOf(attempts, cap);
+            errors = Arrays.copyOf(errors, cap);
+            timed = Arrays.copyOf(timed, cap);
+            timeSum = Arrays.copyOf(timeSum, cap);
+        }
+        codes[size] = code;
+        size++;
+        if (size * 2 > slots.length) {
+            slots = new int[slots.length * 2];
+            for (int i = 0; i < size; i++) slots[probe(codes[i])] = i + 1;
+        } else {
+            slots[p] = size;
+        }
+        return size - 1;
+    }
+
+    private int probe(int code) {
+        int mask = slots.length - 1;
+        int h = code * 0x9E3779B1;
+        int p = (h ^ (h >>> 16)) & mask;
+        while (slots[p] != 0 && codes[slots[p] - 1] != code) p = (p + 1) & mask;
+        return p;
+    }
+
+    private static int codeOf(String ngram) {
+        // Characters are stored as index + 1 in base 96, oldest first, so zero means "none".
+        if (ngram == null || ngram.isEmpty() || ngram.length() > 3) return 0;
+        int code = 0;
+        for (int i = 0; i < ngram.length(); i++) {
+            int c = index(ngram.charAt(i));
+            if (c < 0) return 0;
+            code = code * BASE + c + 1;
+        }
+        return code;
+    }
+
+    private static String textOf(int code) {
+        StringBuilder sb = new StringBuilder(3);
+        while (code > 0) {
+            sb.append((char) (code % BASE - 1 + FIRST));
+            code /= BASE;
+        }
+        return sb.reverse().toString();
+    }
+
+    private static int orderOf(int code) {
+        // Returns 0 for codes with an empty digit, which no n-gram produces.
+        int order = 0;
+        while (code > 0) {
+            if (code % BASE == 0) return 0;
+            code /= BASE;
+            order++;
+        }
+        return order;
+    }
+
+    private static int index(char c) {
+        int i = c - FIRST;
+        return (i >= 0 && i < KEYS) ? i : -1;
+    }
+}
@@ -0,0 +1,200 @@
+package typingNinja.model.lesson;
+
+import typingNinja.model.SqliteConnection;
+import typingNinja.model.StatisticsRollup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Storage for each user's {@link NgramErrorModel}.
+ * <p>{@code UserNgramModel} holds one encoded model per user. Completed lessons are folded in
+ * from their keystroke journal in the same transaction as the completion. Readers go through
+ * {@link #cached(int)}, which decodes a user's row once and keeps the finished model in memory;
+ * the write queue drops the cached copy after committing a completion, so the next read sees
+ * it. The table is created, and filled from existing journals, by the schema migrator.</p>
+ * <p>All writers expect the writer connection, normally from inside
+ * {@link SqliteConnection#write(SqliteConnection.SqlWork)}.</p>
+ */
+public final class NgramModelStore {
+
+    private static final DateTimeFormatter SQL_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Map<Integer, NgramErrorModel> CACHE = new ConcurrentHashMap<>();
+    private static final Object LOCK = new Object();
+    // Bumped by every invalidation; a read that started before one is not cached.
+    private static long generation;
+
+    static {
+        // Tests swap databases underneath the cache.
+        SqliteConnection.onReset(NgramModelStore::clearCache);
+    }
+
+    private NgramModelStore() {}
+
+    /**
+     * Folds a lesson that has just been completed into its owner's model.
+     *
+     * @param conn writer connection
+     * @param userId owner of the lesson
+     * @param journal key events of the lesson; {@code null} or empty journals are ignored
+     * @param at completion time as stored in {@code Lesson.DateCompleted}
+     * @throws SQLException when a read or write fails
+     */
+    public static void lessonCompleted(Connection conn, int userId, KeystrokeJournal journal, String at)
+            throws SQLException {
+        // A fresh model is decoded here, so readers holding the cached one never see it change.
+        // The caller invalidates the cache once the transaction has committed.
+        if (journal == null || journal.size() == 0) return;
+        NgramErrorModel model = read(conn, userId);
+        model.addLesson(journal, epochDay(at));
+        write(conn, userId, model, at);
+    }
+
+    /**
+     * Recomputes the models from the stored journals, for one user or for everyone.
+     *
+     * @param conn writer connection
+     * @param userId user to rebuild, or {@code null} for all users
+     * @throws SQLException when a statement fails
+     */
+    public static void rebuild(Connection conn, Integer userId) throws SQLException {
+        // Journals are replayed oldest first so the decay is applied exactly as it happened.
+        String filter = userId == null ? "" : " WHERE UserID = ?";
+        try (PreparedStatement ps = conn.prepareStatement("DELETE FROM UserNgramModel" + filter)) {
+            if (userId != null) ps.setInt(1, userId);
+            ps.executeUpdate();
+        }
+        String sql = "SELECT l.UserID, l.DateCompleted, j.Data FROM Lesson l JOIN LessonJournal j ON j.LessonID = l.LessonID "
+                + "WHERE " + StatisticsRollup.COMPLETED + (userId == null ? "" : " AND l.UserID = ?")
+                + " ORDER BY l.DateCompleted, l.LessonID";
+        Map<Integer, NgramErrorModel> models = new HashMap<>();
+        Map<Integer, String> latest = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            if (userId != null) ps.setInt(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int user = rs.getInt("UserID");
+                    byte[] data = rs.getBytes("Data");
+                    if (data == null) continue;
+                    KeystrokeJournal journal;
+                    try {
+                        journal = KeystrokeJournal.decode(data);
+                    } catch (IllegalArgumentException e) {
+                        e.printStackTrace();
+                        continue;
+                    }
+                    String at = rs.getString("DateCompleted");
+                    models.computeIfAbsent(user, u -> new NgramErrorModel()).addLesson(journal, epochDay(at));
+                    latest.put(user, at);
+                }
+            }
+        }
+        for (Map.Entry<Integer, NgramErrorModel> e : models.entrySet()) {
+            write(conn, e.getKey(), e.getValue(), latest.get(e.getKey()));
+        }
+        if (userId == null) clearCache();
+        else invalidate(userId);
+    }
+
+    /**
+     * Returns a user's model, decoding it from the database only on the first call after it
+     * changed. The returned model must not be modified. Misses read the database, so FX code
+     * should call this from a background thread.
+     *
+     * @param userId user whose model is wanted
+     * @return the user's model; empty when they have no recorded lessons
+     * @throws SQLException when the query fails
+     */
+    public static NgramErrorModel cached(int userId) throws SQLException {
+        // Misses take one primary-key lookup on a pooled reader; hits take a map lookup. The read
+        // runs outside the lock and is only cached if no invalidation happened meanwhile.
+        NgramErrorModel model = CACHE.get(userId);
+        if (model != null) return model;
+        long seen;
+        synchronized (LOCK) {
+            seen = generation;
+        }
+        try (Connection conn = SqliteConnection.reader()) {
+            model = read(conn, userId);
+        }
+        synchronized (LOCK) {
+            if (generation == seen) {
+                NgramErrorModel raced = CACHE.putIfAbsent(userId, model);
+                if (raced != null) model = raced;
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Drops a user's cached model after a committed change.
+     *
+     * @param userId user whose model changed
+     */
+    public static void invalidate(int userId) {
+        // Called after commit; invalidating earlier could cache the pre-commit row again.
+        synchronized (LOCK) {
+            generation++;
+            CACHE.remove(userId);
+        }
+    }
+
+    /**
+     * Forgets every cached model, e.g. when a test swaps the database.
+     */
+    public static void clearCache() {
+        synchronized (LOCK) {
+            generation++;
+            CACHE.clear();
+        }
+    }
+
+    private static NgramErrorModel read(Connection conn, int userId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT Data FROM UserNgramModel WHERE UserID = ?")) {
+            ps.setInt(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                byte[] data = rs.next() ? rs.getBytes(1) : null;
+                if (data == null) return new NgramErrorModel();
+                try {
+                    return NgramErrorModel.decode(data);
+                } catch (IllegalArgumentException e) {
+                    // A damaged row is started over rather than blocking every later completion.
+                    e.printStackTrace();
+                    return new NgramErrorModel();
+                }
+            }
+        }
+    }
+
+    private static void write(Connection conn, int userId, NgramErrorModel model, String at) throws SQLException {
+        String sql = "INSERT OR REPLACE INTO UserNgramModel (UserID, Entries, Data, UpdatedAt) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, userId);
+            ps.setInt(2, model.size());
+            ps.setBytes(3, model.encode());
+            ps.setString(4, at);
+            ps.executeUpdate();
+        }
+    }
+
+    private static double epochDay(String at) {
+        // Local wall-clock time is fine here; only differences between lessons matter.
+        if (at != null) {
+            try {
+                return LocalDateTime.parse(at, SQL_TIME).toEpochSecond(ZoneOffset.UTC) / 86_400.0;
+            } catch (DateTimeParseException e) {
+                e.printStackTrace();
+            }
+        }
+        return LocalDateTime.now().toEpochSecond(ZoneOffset.UTC) / 86_400.0;
+    }
+}
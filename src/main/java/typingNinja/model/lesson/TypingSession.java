@@ -0,0 +1,283 @@
+package typingNinja.model.lesson;
+
+import java.util.Arrays;
+
+/**
+ * Headless state machine for typing a fixed passage.
+ * <p>Holds the cursor, the per-position glyph state and the keystroke counters in primitive
+ * arrays sized once from the passage, so feeding it a keystroke never allocates. Every change is
+ * reported to the registered listeners as one {@code (event, position, char)} triple; the lesson
+ * screen subscribes to repaint and update its stats, while tests and synthetic typists can drive
+ * it directly without JavaFX.</p>
+ * <p>Not thread-safe; drive a session from one thread.</p>
+ */
+public final class TypingSession {
+
+    /** Glyph state of a passage position nobody has typed yet. */
+    public static final byte UNTYPED = 0;
+    /** Glyph state of a position typed correctly. */
+    public static final byte CORRECT = 1;
+    /** Glyph state of a position typed incorrectly (relaxed mode only). */
+    public static final byte WRONG = 2;
+
+    /** The expected character was typed at {@code position}. */
+    public static final int TYPED = 1;
+    /** A wrong character was placed at {@code position} (relaxed mode). */
+    public static final int MISTYPED = 2;
+    /** A wrong character was counted but not placed, cursor unchanged (strict mode). */
+    public static final int REJECTED = 3;
+    /** A correctly typed position was erased by backspace. */
+    public static final int ERASED = 4;
+    /** A mistyped position was erased by backspace. */
+    public static final int ERASED_ERROR = 5;
+    /** The cursor has reached the end of the passage. */
+    public static final int COMPLETED = 6;
+
+    /** Receives every state change of a session. */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param event one of the event constants of {@link TypingSession}
+         * @param position passage index the event applies to
+         * @param ch character typed or erased; {@code '\0'} for {@link #COMPLETED}
+         */
+        void onEvent(int event, int position, char ch);
+    }
+
+    private static final Listener[] NO_LISTENERS = new Listener[0];
+
+    private final char[] passage;
+    private final byte[] state;
+    private final char[] typed;
+    private final boolean[] errorCounted;
+    private final WeakKeyTracker weakKeys;
+    private Listener[] listeners = NO_LISTENERS;
+    private boolean strictMode = true;
+    private int index;
+    private int keystrokes;
+    private int errors;
+    private int correctPositions;
+
+    /**
+     * @param passage literal passage to be typed
+     * @param weakKeys tracker for first mistakes at each position; may be {@code null}
+     */
+    public TypingSession(String passage, WeakKeyTracker weakKeys) {
+        // All per-position storage is allocated here, never on the keystroke path.
+        this.passage = passage.toCharArray();
+        this.state = new byte[this.passage.length];
+        this.typed = new char[this.passage.length];
+        this.errorCounted = new boolean[this.passage.length];
+        this.weakKeys = weakKeys;
+    }
+
+    /**
+     * Subscribes to state changes. Listeners are called in registration order.
+     *
+     * @param listener callback to add
+     */
+    public void addListener(Listener listener) {
+        // Copy-on-add keeps dispatch a plain array walk.
+        Listener[] next = Arrays.copyOf(listeners, listeners.length + 1);
+        next[listeners.length] = listener;
+        listeners = next;
+    }
+
+    /**
+     * Enables or disables strict mode where incorrect characters block forward progress.
+     *
+     * @param strict {@code true} for strict mode, {@code false} for relaxed mode
+     */
+    public void setStrictMode(boolean strict) {
+        // Only affects keystrokes that arrive after the switch.
+        this.strictMode = strict;
+    }
+
+    /** @return whether wrong keys are rejected instead of placed */
+    public boolean isStrictMode() { return strictMode; }
+
+    /**
+     * Feeds one printable keystroke.
+     *
+     * @param c character as delivered by the keyboard; {@code '\r'} is treated as a newline
+     * @param shiftDown whether shift was held, applied through {@link #applyShift(char)}
+     * @return the event emitted, or {@code 0} when the keystroke was ignored
+     */
+    public int type(char c, boolean shiftDown) {
+        // Control characters and input past the end are dropped without counting.
+        if (c == '\r') c = '\n';
+        if (c < 32 && c != '\n') return 0;
+        if (index >= passage.length) return 0;
+        if (shiftDown) c = applyShift(c);
+        char expected = passage[index];
+        boolean match = c == expected;
+        if (!match && weakKeys != null && !errorCounted[index]
+                && WeakKeyTracker.trackable(expected) && WeakKeyTracker.trackable(c)) {
+            weakKeys.record(index > 0 ? passage[index - 1] : '\0', expected, c);
+            errorCounted[index] = true;
+        }
+        return advance(c, match);
+    }
+
+    /**
+     * Feeds the enter key. Only a newline in the passage accepts it; elsewhere it counts as a
+     * mistake, placed or rejected depending on the mode.
+     *
+     * @return the event emitted, or {@code 0} when the passage is already complete
+     */
+    public int enter() {
+        // Enter never feeds the weak-key tracker since newlines are not trackable.
+        if (index >= passage.length) return 0;
+        return advance('\n', passage[index] == '\n');
+    }
+
+    /**
+     * Steps the cursor back one position, undoing that position's keystroke.
+     *
+     * @return {@link #ERASED} or {@link #ERASED_ERROR}, or {@code 0} at the start of the passage
+     */
+    public int backspace() {
+        // The erased position goes back to untyped so accuracy is recomputed cleanly.
+        if (index == 0) return 0;
+        index--;
+        boolean wasError = state[index] == WRONG;
+        if (state[index] == CORRECT) correctPositions--;
+        state[index] = UNTYPED;
+        if (keystrokes > 0) keystrokes--;
+        if (wasError && errors > 0) errors--;
+        int event = wasError ? ERASED_ERROR : ERASED;
+        fire(event, index, typed[index]);
+        typed[index] = 0;
+        return event;
+    }
+
+    private int advance(char c, boolean match) {
+        keystrokes++;
+        if (!match) errors++;
+        int event;
+        if (match) {
+            state[index] = CORRECT;
+            correctPositions++;
+            event = TYPED;
+        } else if (strictMode) {
+            fire(REJECTED, index, c);
+            return REJECTED;
+        } else {
+            state[index] = WRONG;
+            event = MISTYPED;
+        }
+        typed[index] = c;
+        int at = index++;
+        fire(event, at, c);
+        if (index >= passage.length) fire(COMPLETED, index, '\0');
+        return event;
+    }
+
+    private void fire(int event, int position, char ch) {
+        Listener[] ls = listeners;
+        for (int i = 0; i < ls.length; i++) ls[i].onEvent(event, position, ch);
+    }
+
+    /**
+     * Maps a character to its shifted counterpart on a US layout.
+     * <p>A manual map keeps the behaviour predictable even when the keyboard layout shifts.</p>
+     *
+     * @param c unshifted character
+     * @return shifted character, or {@code c} when it has none
+     */
+    public static char applyShift(char c) {
+        if (Character.isLetter(c)) return Character.toUpperCase(c);
+        switch (c) {
+            case '1': return '!';
+            case '2': return '@';
+            case '3': return '#';
+            case '4': return '$';
+            case '5': return '%';
+            case '6': return '^';
+            case '7': return '&';
+            case '8': return '*';
+            case '9': return '(';
+            case '0': return ')';
+            case '-': return '_';
+            case '=': return '+';
+            case '[': return '{';
+            case ']': return '}';
+            case '\\': return '|';
+            case ';': return ':';
+            case '\'': return '"';
+            case ',': return '<';
+            case '.': return '>';
+            case '/': return '?';
+            case '`': return '~';
+            default: return c;
+        }
+    }
+
+    /**
+     * @return the next expected character or {@code '\0'} if the passage is complete
+     */
+    public char peekExpected() { return index < passage.length ? passage[index] : '\0'; }
+
+    /**
+     * @param idx passage position
+     * @return character the passage expects at {@code idx}
+     */
+    public char expectedAt(int idx) { return passage[idx]; }
+
+    /** @return cursor position, equal to the number of placed characters */
+    public int index() { return index; }
+
+    /** @return passage length */
+    public int length() { return passage.length; }
+
+    /**
+     * @param idx passage index
+     * @return glyph state at {@code idx}: {@link #UNTYPED}, {@link #CORRECT} or {@link #WRONG}
+     */
+    public byte stateAt(int idx) { return state[idx]; }
+
+    /**
+     * @param idx passage index
+     * @return character placed at {@code idx}, or {@code '\0'} when untyped
+     */
+    public char typedAt(int idx) { return typed[idx]; }
+
+    /** @return whether the cursor has reached the end of the passage */
+    public boolean isComplete() { return index >= passage.length; }
+
+    /** @return count of passage positions currently typed correctly */
+    public int correctPositions() { return correctPositions; }
+
+    /** @return keystrokes counted so far, including rejected ones, less backspaced ones */
+    public int keystrokes() { return keystrokes; }
+
+    /** @return mistakes counted so far, less backspaced ones */
+    public int errors() { return errors; }
+
+    /**
+     * @return accuracy percentage in the range {@code 0..100}, matching {@link Metrics}
+     */
+    public double accuracyPercent() {
+        // Same formula as Metrics so the pass rule and the stats tiles agree.
+        if (keystrokes <= 0) return 0.0;
+        return (Math.max(keystrokes - errors, 0) * 100.0) / keystrokes;
+    }
+
+    /** @return whether every position is correct and no mistake is outstanding */
+    public boolean isPerfect() {
+        return errors == 0 && correctPositions == passage.length;
+    }
+
+    /**
+     * Decides whether a finished passage counts as completed: either perfect, or more than 40%
+     * of the passage correct with at least 40% accuracy.
+     *
+     * @return {@code true} when the lesson may end as completed
+     */
+    public boolean passes() {
+        // Anything below the bar sends the student back to correct their mistakes.
+        if (isPerfect()) return true;
+        double percentOfPassage = passage.length > 0 ? (correctPositions * 100.0 / passage.length) : 0.0;
+        return percentOfPassage > 40.0 && accuracyPercent() >= 40.0;
+    }
+}
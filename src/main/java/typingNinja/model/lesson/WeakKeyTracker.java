@@ -4,11 +4,31 @@ import java.util.*;
 
 /**
  * Captures per-key and contextual mistake statistics during structured lessons.
+ * <p>All counts live in dense {@code int[]} matrices indexed by the 95 printable ASCII
+ * characters, so recording a mistake is a handful of array increments. The per-key winners
+ * (most frequent misinput and most troublesome preceding key) and the ranking of keys by
+ * mistakes are kept up to date as counts grow, which makes the top-k summaries a short walk
+ * that is cheap enough to call while a lesson is running. Characters outside printable ASCII
+ * are not tracked.</p>
  */
 public class WeakKeyTracker {
-    private final Map<Character, Integer> totals = new HashMap<>();
-    private final Map<Character, Map<Character, Integer>> misinputs = new HashMap<>();
-    private final Map<String, Map<Character, Integer>> ctx = new HashMap<>();
+    private static final int FIRST = ' ';
+    private static final int KEYS = 95;
+    private static final int NO_PREV = KEYS;
+    private static final int CTX_INITIAL_CAPACITY = 256;
+
+    private final int[] totals = new int[KEYS];
+    private final int[] misinputs = new int[KEYS * KEYS];
+    private final int[] ctxTotals = new int[(KEYS + 1) * KEYS];
+    private final int[] ctxBest = new int[KEYS * KEYS];
+    private final int[] bestMisinput = new int[KEYS];
+    private final int[] bestPrev = new int[KEYS];
+    private final int[] order = new int[KEYS];
+    private final int[] rank = new int[KEYS];
+    private int[] ctxKeys = new int[CTX_INITIAL_CAPACITY];
+    private int[] ctxCounts = new int[CTX_INITIAL_CAPACITY];
+    private int ctxSize;
+
     public static final List<Character> ALL_KEYS;
     static {
         // Precompute a stable ordering of trackable characters.
@@ -21,6 +41,19 @@ public class WeakKeyTracker {
         ALL_KEYS = Collections.unmodifiableList(keys);
     }
 
+    /**
+     * Creates an empty tracker; every key starts unranked, in character order.
+     */
+    public WeakKeyTracker() {
+        // Ties are broken by character, so the initial ranking is plain ASCII order.
+        Arrays.fill(bestMisinput, -1);
+        Arrays.fill(bestPrev, -1);
+        for (int i = 0; i < KEYS; i++) {
+            order[i] = i;
+            rank[i] = i;
+        }
+    }
+
     /**
      * Records a mistake for the expected character under the supplied context.
      *
@@ -29,14 +62,43 @@ public class WeakKeyTracker {
      * @param actual character that was actually typed
      */
     public void record(Character prevExpected, char expected, char actual) {
+        // Boxed variant kept for callers without a previous character.
+        record(prevExpected == null ? '\0' : prevExpected.charValue(), expected, actual);
+    }
+
+    /**
+     * Records a mistake for the expected character under the supplied context without boxing.
+     *
+     * @param prevExpected character that preceded the mistake, or {@code '\0'} for none
+     * @param expected character that should have been typed
+     * @param actual character that was actually typed
+     */
+    public void record(char prevExpected, char expected, char actual) {
         // Count this mistake by key, by misinput, and by the two-character context.
-        if (!trackable(expected) || !trackable(actual)) return;
-        totals.merge(expected, 1, Integer::sum);
-        misinputs.computeIfAbsent(expected, k -> new HashMap<>())
-                .merge(actual, 1, Integer::sum);
-        String key = key(prevExpected, expected);
-        ctx.computeIfAbsent(key, k -> new HashMap<>())
-                .merge(actual, 1, Integer::sum);
+        int e = index(expected);
+        int a = index(actual);
+        if (e < 0 || a < 0) return;
+        int p = index(prevExpected);
+        if (p < 0) p = NO_PREV;
+
+        totals[e]++;
+        promote(e);
+
+        int ea = e * KEYS + a;
+        misinputs[ea]++;
+        int inContext = incrementContext((p * KEYS + e) * KEYS + a);
+        if (inContext > ctxBest[ea]) ctxBest[ea] = inContext;
+        int best = bestMisinput[e];
+        if (best < 0 || outranks(e, a, best)) bestMisinput[e] = a;
+
+        if (p != NO_PREV) {
+            int here = ++ctxTotals[p * KEYS + e];
+            int bp = bestPrev[e];
+            int bpCount = bp < 0 ? -1 : ctxTotals[bp * KEYS + e];
+            if (here > bpCount || (here == bpCount && p < bp)) bestPrev[e] = p;
+        } else {
+            ctxTotals[p * KEYS + e]++;
+        }
     }
 
     /**
@@ -48,9 +110,68 @@ public class WeakKeyTracker {
         return !(c == '\n' || c == '\r' || c == '\t');
     }
 
-    private static String key(Character prev, char expected) {
-        // Pack the previous character and expected key into a simple map key.
-        return (prev == null ? "\u0000" : String.valueOf(prev)) + "|" + expected;
+    private static int index(char c) {
+        int i = c - FIRST;
+        return (i >= 0 && i < KEYS) ? i : -1;
+    }
+
+    private static char charOf(int index) {
+        return (char) (index + FIRST);
+    }
+
+    private boolean outranks(int e, int a, int b) {
+        // More misinputs first, then the strongest single context, then the lower character.
+        int ma = misinputs[e * KEYS + a], mb = misinputs[e * KEYS + b];
+        if (ma != mb) return ma > mb;
+        int ca = ctxBest[e * KEYS + a], cb = ctxBest[e * KEYS + b];
+        if (ca != cb) return ca > cb;
+        return a < b;
+    }
+
+    private void promote(int e) {
+        // Counts only grow, so a key can only move towards the front of the ranking.
+        int r = rank[e];
+        while (r > 0) {
+            int ahead = order[r - 1];
+            if (totals[ahead] > totals[e] || (totals[ahead] == totals[e] && ahead < e)) break;
+            order[r] = ahead;
+            rank[ahead] = r;
+            r--;
+        }
+        order[r] = e;
+        rank[e] = r;
+    }
+
+    private int incrementContext(int key) {
+        // Open addressing over (prev, expected, actual); only a few hundred triples occur per lesson.
+        if ((ctxSize + 1) * 2 > ctxKeys.length) growContext();
+        int slot = slotOf(key + 1, ctxKeys);
+        if (ctxKeys[slot] == 0) {
+            ctxKeys[slot] = key + 1;
+            ctxSize++;
+        }
+        return ++ctxCounts[slot];
+    }
+
+    private static int slotOf(int stored, int[] keys) {
+        int mask = keys.length - 1;
+        int h = stored * 0x9E3779B1;
+        int slot = (h ^ (h >>> 16)) & mask;
+        while (keys[slot] != 0 && keys[slot] != stored) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private void growContext() {
+        int[] oldKeys = ctxKeys;
+        int[] oldCounts = ctxCounts;
+        ctxKeys = new int[oldKeys.length * 2];
+        ctxCounts = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0) continue;
+            int slot = slotOf(oldKeys[i], ctxKeys);
+            ctxKeys[slot] = oldKeys[i];
+            ctxCounts[slot] = oldCounts[i];
+        }
     }
 
     /**
@@ -61,22 +182,16 @@ public class WeakKeyTracker {
      */
     public String topPairsString(int k) {
         // Produce the most troublesome expected/misinput pairs for quick summaries.
-        List<String> pairs = new ArrayList<>(k);
-
-        List<Map.Entry<Character,Integer>> sorted = new ArrayList<>(totals.entrySet());
-        sorted.sort((a,b) -> {
-            int cmp = Integer.compare(b.getValue(), a.getValue());
-            return cmp != 0 ? cmp : Character.compare(a.getKey(), b.getKey());
-        });
-
-        for (var e : sorted) {
-            if (pairs.size() >= k) break;
-            char expected = e.getKey();
-            Character mis = bestMisinput(expected);
-            if (mis != null) pairs.add("" + expected + mis);
+        StringBuilder sb = new StringBuilder(k * 3);
+        int found = 0;
+        for (int r = 0; r < KEYS && found < k; r++) {
+            int e = order[r];
+            if (totals[e] == 0) break;
+            if (bestMisinput[e] < 0) continue;
+            appendPair(sb, charOf(e), charOf(bestMisinput[e]));
+            found++;
         }
-        while (pairs.size() < k) pairs.add("--");
-        return String.join(" ", pairs);
+        return pad(sb, found, k);
     }
 
     /**
@@ -87,85 +202,55 @@ public class WeakKeyTracker {
      */
     public String topPrevExpectedPairsString(int k) {
         // Focus on two-character contexts so we can craft smarter free-typing prompts.
-        java.util.List<String> out = new java.util.ArrayList<>(k);
-
-        java.util.List<java.util.Map.Entry<Character,Integer>> sorted =
-                new java.util.ArrayList<>(totals.entrySet());
-        sorted.sort((a,b) -> {
-            int cmp = Integer.compare(b.getValue(), a.getValue());
-            return (cmp != 0) ? cmp : Character.compare(a.getKey(), b.getKey());
-        });
-
-        for (var e : sorted) {
-            if (out.size() >= k) break;
-            char expected = e.getKey();
-            Character bestPrev = bestPrevForExpected(expected);
-            if (bestPrev != null) {
-                out.add("" + bestPrev + expected);
-            }
+        StringBuilder sb = new StringBuilder(k * 3);
+        int found = 0;
+        for (int r = 0; r < KEYS && found < k; r++) {
+            int e = order[r];
+            if (totals[e] == 0) break;
+            if (bestPrev[e] < 0) continue;
+            appendPair(sb, charOf(bestPrev[e]), charOf(e));
+            found++;
         }
-
-        while (out.size() < k) out.add("--");
-        return String.join(" ", out);
+        return pad(sb, found, k);
     }
 
-    /** Find the prev char that maximizes total mistakes at (prev, expected), summing across misinputs. */
-    private Character bestPrevForExpected(char expected) {
-        // Look for the preceding character that leads to the most mistakes on this key.
-        int bestCount = -1;
-        Character bestPrev = null;
-        String suffix = "|" + expected;
-
-        for (var entry : ctx.entrySet()) {
-            String key = entry.getKey();
-            if (!key.endsWith(suffix)) continue;
-
-            char prev = key.charAt(0);
-            if (!trackable(prev)) continue;
-
-            int totalHere = 0;
-            for (int v : entry.getValue().values()) totalHere += v;
+    private static void appendPair(StringBuilder sb, char first, char second) {
+        if (sb.length() > 0) sb.append(' ');
+        sb.append(first).append(second);
+    }
 
-            if (totalHere > bestCount || (totalHere == bestCount && (bestPrev == null || prev < bestPrev))) {
-                bestCount = totalHere;
-                bestPrev = prev;
-            }
+    private static String pad(StringBuilder sb, int found, int k) {
+        for (int i = found; i < k; i++) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append("--");
         }
-        return bestPrev;
+        return sb.toString();
     }
 
+    /** @return immutable view of total mistakes per expected key */
+    public Map<Character, Integer> totals() {
+        Map<Character, Integer> out = new LinkedHashMap<>();
+        for (int e = 0; e < KEYS; e++) {
+            if (totals[e] > 0) out.put(charOf(e), totals[e]);
+        }
+        return Collections.unmodifiableMap(out);
+    }
 
-    private Character bestMisinput(char expected) {
-        // Tie-break multiple misinputs by checking which context sees them most often.
-        Map<Character,Integer> counts = misinputs.get(expected);
-        if (counts == null || counts.isEmpty()) return null;
-
-        int max = counts.values().stream().max(Integer::compareTo).orElse(0);
-        List<Character> tied = new ArrayList<>();
-        for (var e : counts.entrySet()) if (e.getValue() == max) tied.add(e.getKey());
-        if (tied.size() == 1) return tied.get(0);
-
-        int bestScore = -1;
-        Character best = null;
-        String suffix = "|" + expected;
-        for (char candidate : tied) {
-            int candidateBest = 0;
-            for (var ctxEntry : ctx.entrySet()) {
-                if (ctxEntry.getKey().endsWith(suffix)) {
-                    candidateBest = Math.max(candidateBest, ctxEntry.getValue().getOrDefault(candidate, 0));
-                }
-            }
-            if (candidateBest > bestScore || (candidateBest == bestScore && (best == null || candidate < best))) {
-                bestScore = candidateBest;
-                best = candidate;
+    /** @return immutable view of misinput breakdowns per expected key */
+    public Map<Character, Map<Character, Integer>> misinputs() {
+        Map<Character, Map<Character, Integer>> out = new LinkedHashMap<>();
+        for (int e = 0; e < KEYS; e++) {
+            if (totals[e] == 0) continue;
+            Map<Character, Integer> row = new LinkedHashMap<>();
+            for (int a = 0; a < KEYS; a++) {
+                int n = misinputs[e * KEYS + a];
+                if (n > 0) row.put(charOf(a), n);
             }
+            out.put(charOf(e), Collections.unmodifiableMap(row));
         }
-        return best;
+        return Collections.unmodifiableMap(out);
     }
-    /** @return immutable view of total mistakes per expected key */
-    public Map<Character, Integer> totals() { return Collections.unmodifiableMap(totals); }
-    /** @return immutable view of misinput breakdowns per expected key */
-    public Map<Character, Map<Character, Integer>> misinputs() { return Collections.unmodifiableMap(misinputs); }
+
     /**
      * @return formatted diagnostic string containing totals, misinputs, and context data
      */
@@ -174,59 +259,57 @@ public class WeakKeyTracker {
         StringBuilder sb = new StringBuilder();
 
         sb.append("=== Weak Key Totals (expected -> count) ===\n");
-        var totalMap = totalsAllKeys();
-        var totalList = new ArrayList<>(totalMap.entrySet());
-        totalList.sort((a,b) -> {
-            int cmp = Integer.compare(b.getValue(), a.getValue());
-            return (cmp != 0) ? cmp : Character.compare(a.getKey(), b.getKey());
-        });
-        for (var e : totalList) {
-            sb.append(e.getKey()).append(" : ").append(e.getValue()).append('\n');
+        for (int r = 0; r < KEYS; r++) {
+            int e = order[r];
+            sb.append(charOf(e)).append(" : ").append(totals[e]).append('\n');
         }
 
         sb.append("\n=== Misinputs per Expected (expected -> misinput=count, ...) ===\n");
-        for (var e : totalList) {
-            char expected = e.getKey();
-            var mm = misinputs.get(expected);
-            if (mm == null || mm.isEmpty()) continue;
-            var list = new ArrayList<>(mm.entrySet());
-            list.sort((x,y) -> {
-                int cmp = Integer.compare(y.getValue(), x.getValue());
-                return (cmp != 0) ? cmp : Character.compare(x.getKey(), y.getKey());
-            });
-            sb.append(expected).append(" -> ");
-            boolean first = true;
-            for (var m : list) {
-                if (!first) sb.append(", ");
-                first = false;
-                sb.append(m.getKey()).append('=').append(m.getValue());
-            }
+        for (int r = 0; r < KEYS; r++) {
+            int e = order[r];
+            if (totals[e] == 0) break;
+            sb.append(charOf(e)).append(" -> ");
+            appendCounts(sb, misinputs, e * KEYS);
             sb.append('\n');
         }
 
         sb.append("\n=== Context (prev|expected -> misinput=count, ...) ===\n");
-        var ctxKeys = new ArrayList<>(ctx.keySet());
-        Collections.sort(ctxKeys);
-        for (String k : ctxKeys) {
-            var m = ctx.get(k);
-            if (m == null || m.isEmpty()) continue;
-            var list = new ArrayList<>(m.entrySet());
-            list.sort((x,y) -> {
-                int cmp = Integer.compare(y.getValue(), x.getValue());
-                return (cmp != 0) ? cmp : Character.compare(x.getKey(), y.getKey());
-            });
-            sb.append(k).append(" -> ");
-            boolean first = true;
-            for (var e2 : list) {
-                if (!first) sb.append(", ");
-                first = false;
-                sb.append(e2.getKey()).append('=').append(e2.getValue());
-            }
+        TreeMap<String, int[]> contexts = new TreeMap<>();
+        for (int i = 0; i < ctxKeys.length; i++) {
+            if (ctxKeys[i] == 0) continue;
+            int key = ctxKeys[i] - 1;
+            int a = key % KEYS;
+            int e = (key / KEYS) % KEYS;
+            int p = key / (KEYS * KEYS);
+            String label = (p == NO_PREV ? "\u0000" : String.valueOf(charOf(p))) + "|" + charOf(e);
+            contexts.computeIfAbsent(label, x -> new int[KEYS])[a] = ctxCounts[i];
+        }
+        for (var entry : contexts.entrySet()) {
+            sb.append(entry.getKey()).append(" -> ");
+            appendCounts(sb, entry.getValue(), 0);
             sb.append('\n');
         }
         return sb.toString();
     }
 
+    private static void appendCounts(StringBuilder sb, int[] counts, int offset) {
+        // Highest count first, ties in character order; only used for the debug dump.
+        boolean[] used = new boolean[KEYS];
+        boolean first = true;
+        while (true) {
+            int best = -1;
+            for (int a = 0; a < KEYS; a++) {
+                int n = counts[offset + a];
+                if (n > 0 && !used[a] && (best < 0 || n > counts[offset + best])) best = a;
+            }
+            if (best < 0) return;
+            used[best] = true;
+            if (!first) sb.append(", ");
+            first = false;
+            sb.append(charOf(best)).append('=').append(counts[offset + best]);
+        }
+    }
+
     /**
      * Returns an ordered map containing every trackable key with a count.
      */
@@ -234,10 +317,8 @@ public class WeakKeyTracker {
         // Return a stable map covering every key so UI rendering is easy.
         java.util.LinkedHashMap<Character, Integer> out = new java.util.LinkedHashMap<>(ALL_KEYS.size());
         for (char c : ALL_KEYS) {
-            out.put(c, totals.getOrDefault(c, 0));
+            out.put(c, totals[index(c)]);
         }
         return java.util.Collections.unmodifiableMap(out);
     }
-
-
 }
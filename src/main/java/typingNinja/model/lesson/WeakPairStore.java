@@ -0,0 +1,194 @@
+package typingNinja.model.lesson;
+
+import typingNinja.model.StatisticsRollup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Normalized storage for the weak previous/expected key pairs of completed custom lessons.
+ * <p>Every completed {@code CustomTopic} lesson contributes rows to {@code LessonWeakPair}
+ * (one per pair, with its count in that lesson), and the per-user totals in
+ * {@code UserWeakPair} are bumped in the same transaction. Looking up a user's weakest pairs
+ * is then a single indexed read instead of re-parsing every lesson's {@code WeakKeys} text.
+ * Both tables are created by the schema migrator.</p>
+ * <p>All writers expect the writer connection, normally from inside
+ * {@link typingNinja.model.SqliteConnection#write(typingNinja.model.SqliteConnection.SqlWork)}.</p>
+ */
+public final class WeakPairStore {
+
+    /** Lesson type whose weak pairs feed the PracticeWeakKeyCombos prompt. */
+    public static final String SOURCE_LESSON_TYPE = "CustomTopic";
+
+    private WeakPairStore() {}
+
+    /**
+     * Splits a stored {@code WeakKeys} string into two-character pairs, counting repeats.
+     * Padding tokens ({@code --}) and pairs with untrackable characters are skipped.
+     *
+     * @param weakKeys space-separated pair list as written on completion; may be {@code null}
+     * @return pair to occurrence count, in first-seen order
+     */
+    public static Map<String, Integer> parse(String weakKeys) {
+        // Same token rules the lesson history has always used for this column.
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        if (weakKeys == null || weakKeys.isBlank()) return counts;
+        for (String token : weakKeys.trim().split("\\s+")) {
+            if (token.equals("--")) continue;
+            String pair = token.replace("|", "");
+            if (pair.length() != 2) continue;
+            if (!WeakKeyTracker.trackable(pair.charAt(0)) || !WeakKeyTracker.trackable(pair.charAt(1))) continue;
+            counts.merge(pair, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Records the weak pairs of a lesson that has just been completed and adds them to its
+     * owner's totals. Lessons of other types, or without pairs, are ignored.
+     *
+     * @param conn writer connection
+     * @param lessonId lesson that has just been completed
+     * @throws SQLException when a write fails
+     */
+    public static void lessonCompleted(Connection conn, int lessonId) throws SQLException {
+        // Read back what was stored so queued and direct completions take the same path.
+        String sql = "SELECT UserID, WeakKeys, DateCompleted FROM Lesson WHERE LessonID = ? AND LessonType = ? AND "
+                + StatisticsRollup.COMPLETED;
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, lessonId);
+            ps.setString(2, SOURCE_LESSON_TYPE);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    insertLessonPairs(conn, rs.getInt("UserID"), lessonId,
+                            rs.getString("DateCompleted"), parse(rs.getString("WeakKeys")), true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recomputes the pair tables from the lesson history, for one user or for everyone.
+     *
+     * @param conn writer connection
+     * @param userId user to rebuild, or {@code null} for all users
+     * @throws SQLException when a statement fails
+     */
+    public static void rebuild(Connection conn, Integer userId) throws SQLException {
+        // Drop derived rows, replay every completed custom lesson, then re-sum the totals.
+        String filter = userId == null ? "" : " WHERE UserID = " + userId;
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("DELETE FROM LessonWeakPair" + filter);
+            st.executeUpdate("DELETE FROM UserWeakPair" + filter);
+        }
+        String sql = "SELECT LessonID, UserID, WeakKeys, DateCompleted FROM Lesson WHERE LessonType = ? AND "
+                + "WeakKeys IS NOT NULL AND " + StatisticsRollup.COMPLETED
+                + (userId == null ? "" : " AND UserID = ?");
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, SOURCE_LESSON_TYPE);
+            if (userId != null) ps.setInt(2, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    insertLessonPairs(conn, rs.getInt("UserID"), rs.getInt("LessonID"),
+                            rs.getString("DateCompleted"), parse(rs.getString("WeakKeys")), false);
+                }
+            }
+        }
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("INSERT INTO UserWeakPair (UserID, Prev, Expected, Count, LastSeen) "
+                    + "SELECT UserID, Prev, Expected, SUM(Count), MAX(CompletedAt) FROM LessonWeakPair"
+                    + filter + " GROUP BY UserID, Prev, Expected");
+        }
+    }
+
+    /**
+     * Returns whether a user has completed lessons whose weak pairs feed the totals, so empty
+     * totals can be told apart from totals that were never built.
+     *
+     * @param conn connection to read from
+     * @param userId user to check
+     * @return {@code true} when at least one completed custom lesson stored weak keys
+     * @throws SQLException when the query fails
+     */
+    public static boolean hasSourceLessons(Connection conn, int userId) throws SQLException {
+        // One probe through the (UserID, LessonType, DateCompleted) index.
+        String sql = "SELECT 1 FROM Lesson WHERE UserID = ? AND LessonType = ? AND WeakKeys IS NOT NULL "
+                + "AND TRIM(WeakKeys) <> '' AND " + StatisticsRollup.COMPLETED + " LIMIT 1";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, userId);
+            ps.setString(2, SOURCE_LESSON_TYPE);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Returns a user's most frequent weak pairs from the running totals.
+     *
+     * @param conn connection to read from
+     * @param userId user whose pairs are wanted
+     * @param k maximum number of pairs
+     * @return pairs as two-character strings, most frequent first, ties in character order
+     * @throws SQLException when the query fails
+     */
+    public static List<String> topPairs(Connection conn, int userId, int k) throws SQLException {
+        // Served straight from the (UserID, Count DESC, Prev, Expected) index.
+        String sql = "SELECT Prev, Expected FROM UserWeakPair WHERE UserID = ? "
+                + "ORDER BY Count DESC, Prev, Expected LIMIT ?";
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, userId);
+            ps.setInt(2, k);
+            return readPairs(ps, k);
+        }
+    }
+
+    private static List<String> readPairs(PreparedStatement ps, int k) throws SQLException {
+        List<String> out = new ArrayList<>(Math.max(0, k));
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) out.add(rs.getString("Prev") + rs.getString("Expected"));
+        }
+        return out;
+    }
+
+    private static void insertLessonPairs(Connection conn, int userId, int lessonId, String completedAt,
+                                          Map<String, Integer> pairs, boolean updateTotals) throws SQLException {
+        if (pairs.isEmpty()) return;
+        String insertLesson = "INSERT OR REPLACE INTO LessonWeakPair (UserID, LessonID, Prev, Expected, Count, CompletedAt) "
+                + "VALUES (?, ?, ?, ?, ?, ?)";
+        String upsertUser = "INSERT INTO UserWeakPair (UserID, Prev, Expected, Count, LastSeen) VALUES (?, ?, ?, ?, ?) "
+                + "ON CONFLICT(UserID, Prev, Expected) DO UPDATE SET Count = Count + excluded.Count, "
+                + "LastSeen = MAX(COALESCE(LastSeen, ''), excluded.LastSeen)";
+        try (PreparedStatement lesson = conn.prepareStatement(insertLesson);
+             PreparedStatement user = conn.prepareStatement(upsertUser)) {
+            for (Map.Entry<String, Integer> e : pairs.entrySet()) {
+                String prev = e.getKey().substring(0, 1);
+                String expected = e.getKey().substring(1, 2);
+                lesson.setInt(1, userId);
+                lesson.setInt(2, lessonId);
+                lesson.setString(3, prev);
+                lesson.setString(4, expected);
+                lesson.setInt(5, e.getValue());
+                lesson.setString(6, completedAt);
+                lesson.addBatch();
+                if (updateTotals) {
+                    user.setInt(1, userId);
+                    user.setString(2, prev);
+                    user.setString(3, expected);
+                    user.setInt(4, e.getValue());
+                    user.setString(5, completedAt);
+                    user.addBatch();
+                }
+            }
+            lesson.executeBatch();
+            if (updateTotals) user.executeBatch();
+        }
+    }
+}
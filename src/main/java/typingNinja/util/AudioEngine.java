@@ -0,0 +1,308 @@
+package typingNinja.util;
+
+import javafx.scene.media.AudioClip;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays the lesson sound cues through one shared audio line with a small software mixer.
+ * <p>Every cue is decoded once per application into 16-bit stereo PCM. A daemon thread owns a
+ * {@link SourceDataLine} and mixes up to {@value #MAX_VOICES} voices into short periods of
+ * {@value #PERIOD_FRAMES} frames, so overlapping clicks add up instead of cutting each other
+ * off. The line buffer holds only a few periods, which bounds the delay between a call to
+ * {@link #play(Cue)} and the sound reaching the device to roughly 25&nbsp;ms. After two seconds
+ * of silence the line is stopped and the thread parks until the next cue.</p>
+ * <p>A cue may ask for a minimum gap between starts: the buzzer does, so a cluster of typos
+ * sounds once rather than as a rattle. Requests inside the gap are dropped.</p>
+ * <p>{@code javax.sound.sampled} only decodes WAV/AIFF/AU out of the box. Cues that exist only as
+ * MP3 fall back to a single {@link AudioClip} loaded once here, and so does everything when no
+ * output line can be opened.</p>
+ */
+public final class AudioEngine {
+
+    /**
+     * Sound cues known to the engine, named after their files under {@code /typingNinja/Sounds}.
+     */
+    public enum Cue {
+        CLICK("keyboard_click", 0),
+        BUZZER("wrong_buzzer", 200),
+        COMPLETE("lesson_complete", 0);
+
+        private final String baseName;
+        private final int minGapMillis;
+
+        Cue(String baseName, int minGapMillis) {
+            this.baseName = baseName;
+            this.minGapMillis = minGapMillis;
+        }
+    }
+
+    /** Output format of the mixer: 44.1 kHz, 16-bit signed, stereo, little-endian. */
+    public static final AudioFormat FORMAT = new AudioFormat(44_100f, 16, 2, true, false);
+    static final int PERIOD_FRAMES = 256;
+    static final int MAX_VOICES = 16;
+    private static final int LINE_PERIODS = 3;
+    private static final int IDLE_PERIODS = 2 * 44_100 / PERIOD_FRAMES;
+    private static final String SOUND_DIR = "/typingNinja/Sounds/";
+
+    private static AudioEngine shared;
+
+    private final Cue[] cues = Cue.values();
+    private final short[][] pcm = new short[cues.length][];
+    private final AudioClip[] fallback = new AudioClip[cues.length];
+    private final AtomicIntegerArray pending = new AtomicIntegerArray(cues.length);
+    private final AtomicLongArray lastFallbackNanos = new AtomicLongArray(cues.length);
+    private final long[] lastStartFrame = new long[cues.length];
+    private final short[][] voiceData = new short[MAX_VOICES][];
+    private final int[] voicePos = new int[MAX_VOICES];
+    private final byte[] period = new byte[PERIOD_FRAMES * FORMAT.getFrameSize()];
+    private SourceDataLine line;
+    private Thread mixer;
+    private long mixedFrames;
+
+    private AudioEngine() {
+        // Every cue starts out free to play.
+        Arrays.fill(lastStartFrame, Long.MIN_VALUE / 2);
+        for (int i = 0; i < cues.length; i++) lastFallbackNanos.set(i, Long.MIN_VALUE / 2);
+    }
+
+    /**
+     * @return the application-wide engine, loading the cues and opening the line on first use
+     */
+    public static synchronized AudioEngine shared() {
+        // Lessons come and go; the decoded sounds and the line stay for the whole run.
+        if (shared == null) {
+            shared = new AudioEngine();
+            shared.load();
+        }
+        return shared;
+    }
+
+    /**
+     * Plays a cue. Safe to call from any thread; never blocks and never allocates on the mixed
+     * path.
+     *
+     * @param cue sound to play
+     */
+    public void play(Cue cue) {
+        // Mixed cues are handed to the mixer as a counter bump; the rest go to their clip.
+        int i = cue.ordinal();
+        if (pcm[i] != null && mixer != null) {
+            pending.incrementAndGet(i);
+            LockSupport.unpark(mixer);
+        } else if (fallback[i] != null) {
+            long now = System.nanoTime();
+            long gap = cue.minGapMillis * 1_000_000L;
+            if (voicesToStart(1, now - lastFallbackNanos.get(i), gap) == 0) return;
+            lastFallbackNanos.set(i, now);
+            fallback[i].play();
+        }
+    }
+
+    private void load() {
+        // Decode what javax.sound can read, then start the mixer if anything is mixable.
+        boolean mixable = false;
+        for (Cue cue : cues) {
+            pcm[cue.ordinal()] = decode(cue);
+            mixable |= pcm[cue.ordinal()] != null;
+        }
+        if (mixable) {
+            try {
+                line = AudioSystem.getSourceDataLine(FORMAT);
+                line.open(FORMAT, period.length * LINE_PERIODS);
+                mixer = new Thread(this::runMixer, "audio-mixer");
+                mixer.setDaemon(true);
+                mixer.setPriority(Thread.MAX_PRIORITY);
+                mixer.start();
+            } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+                e.printStackTrace();
+                line = null;
+                mixer = null;
+            }
+        }
+        for (Cue cue : cues) {
+            if (pcm[cue.ordinal()] != null && mixer != null) continue;
+            URL url = resource(cue);
+            if (url == null) continue;
+            try {
+                fallback[cue.ordinal()] = new AudioClip(url.toExternalForm());
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static URL resource(Cue cue) {
+        URL url = AudioEngine.class.getResource(SOUND_DIR + cue.baseName + ".wav");
+        return url != null ? url : AudioEngine.class.getResource(SOUND_DIR + cue.baseName + ".mp3");
+    }
+
+    private static short[] decode(Cue cue) {
+        // Only WAV is tried; a missing or unreadable file simply leaves the cue to the fallback.
+        InputStream raw = AudioEngine.class.getResourceAsStream(SOUND_DIR + cue.baseName + ".wav");
+        if (raw == null) return null;
+        try (AudioInputStream in = AudioSystem.getAudioInputStream(new BufferedInputStream(raw))) {
+            AudioFormat source = in.getFormat();
+            AudioFormat pcm16 = new AudioFormat(source.getSampleRate(), 16, source.getChannels(), true, false);
+            try (AudioInputStream converted = AudioSystem.getAudioInputStream(pcm16, in)) {
+                byte[] bytes = converted.readAllBytes();
+                short[] samples = new short[bytes.length / 2];
+                for (int i = 0; i < samples.length; i++) {
+                    samples[i] = (short) ((bytes[2 * i] & 0xFF) | (bytes[2 * i + 1] << 8));
+                }
+                return toOutputFormat(samples, source.getChannels(), source.getSampleRate());
+            }
+        } catch (UnsupportedAudioFileException | IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Converts interleaved 16-bit samples to the mixer's stereo rate. Mono is copied to both
+     * channels, extra channels are dropped and other rates are resampled linearly.
+     *
+     * @param samples    interleaved input samples
+     * @param channels   channels in {@code samples}
+     * @param sampleRate rate of {@code samples} in Hz
+     * @return interleaved stereo samples at {@link #FORMAT}'s rate
+     */
+    public static short[] toOutputFormat(short[] samples, int channels, float sampleRate) {
+        // Short effects only, so a straightforward linear interpolation is good enough.
+        int inFrames = samples.length / channels;
+        double step = sampleRate / FORMAT.getSampleRate();
+        int outFrames = (int) Math.floor((inFrames - 1) / step) + 1;
+        if (inFrames == 0) outFrames = 0;
+        short[] out = new short[outFrames * 2];
+        for (int f = 0; f < outFrames; f++) {
+            double at = f * step;
+            int i0 = (int) at;
+            int i1 = Math.min(i0 + 1, inFrames - 1);
+            double frac = at - i0;
+            for (int c = 0; c < 2; c++) {
+                int src = Math.min(c, channels - 1);
+                double a = samples[i0 * channels + src];
+                double b = samples[i1 * channels + src];
+                out[2 * f + c] = (short) Math.round(a + (b - a) * frac);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Mixes one period of the active voices into {@code out} as 16-bit little-endian samples.
+     * Voices are summed with saturation, advanced, and cleared once they run out.
+     *
+     * @param voices    sample data per voice slot, {@code null} for a free slot
+     * @param positions next sample index per voice slot
+     * @param out       period to fill; its length decides how many samples are mixed
+     * @return number of voices still playing after this period
+     */
+    public static int render(short[][] voices, int[] positions, byte[] out) {
+        // Sample-major so the period is written in one pass without a scratch buffer.
+        int samples = out.length / 2;
+        for (int s = 0; s < samples; s++) {
+            int sum = 0;
+            for (int v = 0; v < voices.length; v++) {
+                short[] data = voices[v];
+                if (data == null) continue;
+                int p = positions[v] + s;
+                if (p < data.length) sum += data[p];
+            }
+            if (sum > Short.MAX_VALUE) sum = Short.MAX_VALUE;
+            else if (sum < Short.MIN_VALUE) sum = Short.MIN_VALUE;
+            out[2 * s] = (byte) sum;
+            out[2 * s + 1] = (byte) (sum >> 8);
+        }
+        int active = 0;
+        for (int v = 0; v < voices.length; v++) {
+            if (voices[v] == null) continue;
+            positions[v] += samples;
+            if (positions[v] >= voices[v].length) voices[v] = null;
+            else active++;
+        }
+        return active;
+    }
+
+    /**
+     * Decides how many voices of one cue to start in the coming period.
+     *
+     * @param requested plays asked for since the previous period
+     * @param sinceLast time since the cue last started, in the same unit as {@code minGap}
+     * @param minGap    minimum time between starts of the cue, or {@code 0} for none
+     * @return voices to start; a throttled cue starts at most one
+     */
+    public static int voicesToStart(int requested, long sinceLast, long minGap) {
+        // Requests inside the gap are dropped, not deferred, so a typo burst never queues buzzes.
+        if (requested <= 0) return 0;
+        if (minGap <= 0) return Math.min(requested, MAX_VOICES);
+        return sinceLast >= minGap ? 1 : 0;
+    }
+
+    private void runMixer() {
+        // Keep writing periods while anything sounds; park once the line has been quiet a while.
+        int quiet = 0;
+        line.start();
+        while (true) {
+            boolean started = startPendingVoices();
+            int active = render(voiceData, voicePos, period);
+            line.write(period, 0, period.length);
+            mixedFrames += PERIOD_FRAMES;
+            if (started || active > 0) {
+                quiet = 0;
+            } else if (++quiet >= IDLE_PERIODS) {
+                line.drain();
+                line.stop();
+                while (!hasPending()) LockSupport.park(this);
+                line.start();
+                quiet = 0;
+            }
+        }
+    }
+
+    private boolean startPendingVoices() {
+        boolean started = false;
+        for (int i = 0; i < cues.length; i++) {
+            long gap = cues[i].minGapMillis * (long) FORMAT.getSampleRate() / 1000;
+            int n = voicesToStart(pending.getAndSet(i, 0), mixedFrames - lastStartFrame[i], gap);
+            if (n > 0) lastStartFrame[i] = mixedFrames;
+            for (int k = 0; k < n; k++) {
+                int slot = freeOrOldestVoice();
+                voiceData[slot] = pcm[i];
+                voicePos[slot] = 0;
+                started = true;
+            }
+        }
+        return started;
+    }
+
+    private int freeOrOldestVoice() {
+        // When every slot is busy, the one that has played longest is stolen.
+        int oldest = 0;
+        for (int v = 0; v < MAX_VOICES; v++) {
+            if (voiceData[v] == null) return v;
+            if (voicePos[v] > voicePos[oldest]) oldest = v;
+        }
+        return oldest;
+    }
+
+    private boolean hasPending() {
+        for (int i = 0; i < cues.length; i++) {
+            if (pending.get(i) != 0) return true;
+        }
+        return false;
+    }
+}
@@ -1,11 +1,14 @@
 package typingNinja.view;
 
+import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Group;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
@@ -13,11 +16,11 @@ import javafx.scene.text.Font;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.time.LocalDate;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 
 import javafx.scene.Cursor;
@@ -41,7 +44,15 @@ public class CertificatesScene {
     private static final double SCROLL_X = 178, SCROLL_Y = 249;
     private static final double SCROLL_W = 1569, SCROLL_H = 724;
 
-    private static final double CONTENT_W = 1569, CONTENT_H = 10000;
+    // certificate rows: fixed height so the list can virtualize
+    private static final double ROW_H = 64;
+    private static final int MAX_ROWS = 1000;
+
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "certificates-loader");
+        t.setDaemon(true);
+        return t;
+    });
 
     // buttum
     private static final double BACK_X = 1734, BACK_Y = 52;
@@ -141,7 +152,7 @@ public class CertificatesScene {
      * Build the Certificates view and return it as a scalable root node.
      * The UI is laid out at a fixed design size and uniformly scaled to fit
      * the available viewport while preserving aspect ratio. The view includes
-     * a scrollable results list populated from the database and a Back button
+     * a virtualized results list loaded from the database in the background and a Back button
      * that navigates to the Congratulations screen.
      * <p>Must be called on the JavaFX Application Thread.</p>
      *
@@ -167,24 +178,23 @@ public class CertificatesScene {
         sp.setPrefSize(SCROLL_W, SCROLL_H);
         sp.setMaxSize(SCROLL_W, SCROLL_H);
         sp.setFitToWidth(true);
-        sp.setFitToHeight(false);
+        sp.setFitToHeight(true);
         sp.setHbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
         sp.setVbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
         sp.setStyle("-fx-background-color: transparent; -fx-background-insets: 0; -fx-padding: 0;");
 
-        Pane content = new Pane();
-        content.setPrefSize(CONTENT_W, CONTENT_H);
-        content.setMinHeight(CONTENT_H);
-        content.setMaxHeight(CONTENT_H);
+        StackPane content = new StackPane();
+        content.setPadding(new Insets(40));
         content.setStyle("-fx-background-color: lightgray;");
 
-        VBox listBox = new VBox(16);
-        listBox.setLayoutX(40);
-        listBox.setLayoutY(40);
-        listBox.setPrefWidth(CONTENT_W - 80);
-        content.getChildren().add(listBox);
+        ListView<Row> list = new ListView<>();
+        list.setFixedCellSize(ROW_H);
+        list.setStyle("-fx-background-color: transparent; -fx-background-insets: 0;");
+        list.setCellFactory(lv -> new CertificateCell());
+        list.setPlaceholder(placeholder("Loading certificates..."));
+        content.getChildren().add(list);
 
-        populateListFromDb(listBox);
+        populateListFromDb(list);
 
         sp.setContent(content);
 
@@ -280,11 +290,11 @@ public class CertificatesScene {
     }
 
     /**
-     * Load up to {@code limit} recent results from the database, enrich each with
-     * lesson/user metadata, and return rows in oldest→newest order.
-     * If lookups or parsing fail, sensible defaults are used (e.g., "Unknown" lesson type,
-     * "Student Name", and {@link java.time.LocalDate#now()}).
-     * <p>This performs blocking DB I/O.</p>
+     * Load up to {@code limit} recent results with their lesson type and username, in
+     * oldest→newest order, from one joined query.
+     * Missing values fall back to sensible defaults ("Unknown" lesson type, "Student Name",
+     * and {@link java.time.LocalDate#now()}).
+     * <p>This performs blocking DB I/O; call it off the FX thread.</p>
      *
      * @param limit maximum number of results to fetch
      * @return a list of {@link Row} entries in chronological order (never {@code null})
@@ -293,49 +303,17 @@ public class CertificatesScene {
         java.util.List<Row> out = new java.util.ArrayList<>();
 
         try {
-            Connection conn = typingNinja.model.SqliteConnection.getInstance();
-            typingNinja.model.SqliteResultsDAO dao = new typingNinja.model.SqliteResultsDAO(conn);
-            java.util.List<typingNinja.model.Result> base = dao.getLastN(limit);
-            java.util.Collections.reverse(base);
-
-            try (PreparedStatement psLesson = conn.prepareStatement(
-                    "SELECT LessonType, UserID FROM Lesson WHERE LessonID=?");
-                 PreparedStatement psUser = conn.prepareStatement(
-                         "SELECT Username FROM Users WHERE UserID=?")) {
-
-                int idx = 1;
-                for (typingNinja.model.Result r : base) {
-                    int lessonId = r.id();
-                    String lessonType = "Unknown";
-                    int userId = -1;
-
-                    psLesson.setInt(1, lessonId);
-                    try (ResultSet rs = psLesson.executeQuery()) {
-                        if (rs.next()) {
-                            lessonType = rs.getString(1);
-                            userId = rs.getInt(2);
-                        }
-                    }
-
-                    String userName = "Student Name";
-                    if (userId > 0) {
-                        psUser.setInt(1, userId);
-                        try (ResultSet rs2 = psUser.executeQuery()) {
-                            if (rs2.next()) userName = rs2.getString(1);
-                        }
-                    }
-
-                    out.add(new Row(
-                            idx++,
-                            lessonId,
-                            r.wpm(),
-                            r.acc(),
-                            toLocalDate(r.createdAt()),
-                            lessonType,
-                            userName
-                    ));
-                }
-            }
+            typingNinja.model.ResultsBridge.ensureTable();
+            int[] idx = {1};
+            new typingNinja.model.SqliteResultsDAO().forEachCertificateRow(limit, r -> out.add(new Row(
+                    idx[0]++,
+                    r.lessonId(),
+                    r.wpm(),
+                    r.acc(),
+                    toLocalDate(r.completedAt()),
+                    r.lessonType() != null ? r.lessonType() : "Unknown",
+                    r.userName() != null ? r.userName() : "Student Name"
+            )));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -344,87 +322,116 @@ public class CertificatesScene {
 
 
     /**
-     * Populate the certificates list UI from the database.
+     * Populate the certificates list from the database on a background thread.
+     * The list shows a loading placeholder until the rows arrive.
      *
-     * @param listBox the VBox container to fill with certificate rows/items
+     * @param list the ListView to fill with certificate rows
      */
-    private static void populateListFromDb(VBox listBox) {
-        listBox.getChildren().clear();
+    private static void populateListFromDb(ListView<Row> list) {
+        CompletableFuture
+                .supplyAsync(() -> loadRowsFromDb(MAX_ROWS), LOADER)
+                .thenAccept(rows -> Platform.runLater(() -> {
+                    if (rows.isEmpty()) {
+                        list.setPlaceholder(placeholder("No results yet."));
+                    }
+                    list.getItems().setAll(rows);
+                }));
+    }
 
-        typingNinja.model.ResultsBridge.ensureTable();
 
-        java.util.List<Row> rows = loadRowsFromDb(1000);
+    /**
+     * Build the faded label shown while the list is loading or empty.
+     *
+     * @param text the message to show
+     * @return the placeholder Label
+     */
+    private static Label placeholder(String text) {
+        Label l = new Label(text);
+        l.setTextFill(Color.BLACK);
+        l.setStyle("-fx-opacity: 0.6;");
+        return l;
+    }
 
-        if (rows.isEmpty()) {
-            Label empty = new Label("No results yet.");
-            empty.setTextFill(Color.BLACK);
-            empty.setStyle("-fx-opacity: 0.6;");
-            listBox.getChildren().add(empty);
-            return;
-        }
 
-        for (Row r : rows) {
-            HBox row = new HBox(12);
-            row.setAlignment(Pos.CENTER_LEFT);
-            row.setPrefWidth(listBox.getPrefWidth());
-            row.setStyle("-fx-background-color: rgba(0,0,0,0.04); -fx-background-radius: 10;");
-            row.setPadding(new Insets(10, 12, 10, 12));
+    /**
+     * List cell for one certificate; its nodes are built once and reused as the list scrolls.
+     */
+    private static final class CertificateCell extends ListCell<Row> {
+        private final Label info = new Label();
+        private final Button downloadBtn = new Button("Download PDF");
+        private final HBox row;
 
-            Label info = new Label(String.format(
-                    "#%03d   WPM: %d   ACC: %d%%",
-                    r.index, r.wpm, r.acc
-            ));
+        CertificateCell() {
             info.setTextFill(Color.BLACK);
             info.setStyle("-fx-font-size: 20;");
 
             Region spacer = new Region();
             HBox.setHgrow(spacer, Priority.ALWAYS);
 
-            Button downloadBtn = new Button("Download PDF");
             downloadBtn.setPrefSize(180, 36);
             downloadBtn.setStyle("-fx-background-color: #2D9CDB; -fx-text-fill: white; -fx-background-radius: 10; -fx-font-size: 16;");
-
             downloadBtn.setOnAction(ev -> {
-                try {
-                    FileChooser chooser = new FileChooser();
-                    chooser.setTitle("Save Certificate PDF");
-                    chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PDF Files", "*.pdf")); // PDF (Portable Document Format)
-                    chooser.setInitialFileName(String.format(
-                            "certificate_%03d_%dwpm_%d%%.pdf",
-                            r.index, r.wpm, r.acc
-                    ));
-                    File file = chooser.showSaveDialog(listBox.getScene().getWindow());
-                    if (file == null) return;
-
-                    // —— 关键：全部换成数据库真实值 ——
-                    String name = r.userName;
-                    int typingSpeedWpm = r.wpm;
-                    double accuracyPercent = r.acc;
-                    LocalDate dateCompleted = r.date;
-                    String lesson = r.lessonType;
-
-                    typingNinja.view.pdf.CertificatePdfUtil.saveSimpleCertificate(
-                            file.toPath(),
-                            name,
-                            typingSpeedWpm,
-                            accuracyPercent,
-                            dateCompleted,
-                            lesson
-                    );
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                }
+                Row r = getItem();
+                if (r != null) downloadCertificate(r, getListView());
             });
 
-            row.getChildren().addAll(info, spacer, downloadBtn);
-            listBox.getChildren().add(row);
+            row = new HBox(12, info, spacer, downloadBtn);
+            row.setAlignment(Pos.CENTER_LEFT);
+            row.setStyle("-fx-background-color: rgba(0,0,0,0.04); -fx-background-radius: 10;");
+            row.setPadding(new Insets(10, 12, 10, 12));
+
+            setStyle("-fx-background-color: transparent; -fx-padding: 0 0 16 0;");
+        }
+
+        @Override
+        protected void updateItem(Row r, boolean empty) {
+            super.updateItem(r, empty);
+            if (empty || r == null) {
+                setGraphic(null);
+                return;
+            }
+            info.setText(String.format("#%03d   WPM: %d   ACC: %d%%", r.index, r.wpm, r.acc));
+            setGraphic(row);
         }
+    }
+
 
-        double estimatedHeight = 40 + rows.size() * 64.0;
-        Pane parent = (Pane) listBox.getParent();
-        parent.setMinHeight(Math.max(CONTENT_H, estimatedHeight));
-        parent.setPrefHeight(Math.max(CONTENT_H, estimatedHeight));
-        parent.setMaxHeight(Math.max(CONTENT_H, estimatedHeight));
+    /**
+     * Ask for a destination and write the certificate PDF for one row.
+     *
+     * @param r     the row whose values go on the certificate
+     * @param owner node whose window owns the file chooser
+     */
+    private static void downloadCertificate(Row r, Node owner) {
+        try {
+            FileChooser chooser = new FileChooser();
+            chooser.setTitle("Save Certificate PDF");
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PDF Files", "*.pdf")); // PDF (Portable Document Format)
+            chooser.setInitialFileName(String.format(
+                    "certificate_%03d_%dwpm_%d%%.pdf",
+                    r.index, r.wpm, r.acc
+            ));
+            File file = chooser.showSaveDialog(owner.getScene().getWindow());
+            if (file == null) return;
+
+            // —— 关键：全部换成数据库真实值 ——
+            String name = r.userName;
+            int typingSpeedWpm = r.wpm;
+            double accuracyPercent = r.acc;
+            LocalDate dateCompleted = r.date;
+            String lesson = r.lessonType;
+
+            typingNinja.view.pdf.CertificatePdfUtil.saveSimpleCertificate(
+                    file.toPath(),
+                    name,
+                    typingSpeedWpm,
+                    accuracyPercent,
+                    dateCompleted,
+                    lesson
+            );
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
     }
 
 
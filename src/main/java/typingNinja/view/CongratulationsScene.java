@@ -1,11 +1,14 @@
 package typingNinja.view;
 
+import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.geometry.Pos;
 import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.control.ToggleGroup;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.StackPane;
@@ -18,11 +21,16 @@ import javafx.stage.Stage;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import typingNinja.model.auth.Session;
+import typingNinja.model.lesson.KeyLatencyStore;
 import typingNinja.view.widgets.Keyboard;
 import typingNinja.view.widgets.Table;
 import typingNinja.view.widgets.Stars;
+import typingNinja.view.widgets.SpeedCurve;
 import javafx.scene.Parent;
 import typingNinja.util.SceneNavigator;
 
@@ -69,6 +77,24 @@ public class CongratulationsScene {
     private static final double KEY_W = 521;
     private static final double KEY_H = 223;
 
+    // heatmap layers
+    private static final double LAYER_Y = 290;
+    private static final double LAYER_GAP = 12;
+    private static final String ERROR_HINT = "Red indicates error frequency";
+    private static final String SLOW_HINT = "Orange indicates your slowest keys";
+
+    // speed curve
+    private static final double SPEED_X = 1530;
+    private static final double SPEED_Y = 584;
+    private static final double SPEED_W = 340;
+    private static final double SPEED_H = 250;
+
+    private static final ExecutorService LOADER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "results-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
     /**
      * Display the congratulations view on the supplied stage while keeping the existing scene.
      *
@@ -96,7 +122,7 @@ public class CongratulationsScene {
 
 
         // explination
-        Label redHint = label("Red indicates error frequency", Font.font("Jaro", FontWeight.BOLD, TEXT_SIZE), Color.WHITE, RED_HINT_X, RED_HINT_Y);
+        Label redHint = label(ERROR_HINT, Font.font("Jaro", FontWeight.BOLD, TEXT_SIZE), Color.WHITE, RED_HINT_X, RED_HINT_Y);
         Label prev10  = label("Previous 10 results", Font.font("Jaro", FontWeight.BOLD, TEXT_SIZE), Color.WHITE, PREV10_X,  PREV10_Y);
 
         //frame
@@ -106,80 +132,111 @@ public class CongratulationsScene {
         Rectangle accBox = whiteBox(ACC_X, ACC_Y);
         Label accLabel   = label("Accuracy", Font.font("Jaro", FontWeight.BOLD, 28), Color.BLACK, ACC_X + 19, ACC_Y + 10);
 
-        // read database
-        typingNinja.model.ResultsBridge.getLatest().ifPresent(latest -> {
-            wpmLabel.setText("Words per minute: " + latest[0]);
-            accLabel.setText("Accuracy: " + latest[1] + "%");
-        });
-
         Button printBtn = greenButton("Print Certificate", PRINT_X, PRINT_Y);
         Button backBtn  = greenButton("Return to Main Menu", BACK_X, BACK_Y);
         printBtn.setOnAction(e -> CertificatesScene.show(stage));
         backBtn.setOnAction(e -> new typingNinja.view.MainMenu().show(stage));
 
 
-        typingNinja.model.ResultsBridge.ensureTable();
-        var m = typingNinja.model.ResultsBridge.loadLastN(10);      // 旧→新顺序
-        List<Integer> wpmData = m.wpm();
-        List<Integer> accData = m.acc();
-
-        typingNinja.model.ResultsBridge.getLatest().ifPresent(latest -> {
-            int latestWpm = (int) Math.round(latest[0]);
-            int latestAcc = (int) Math.round(latest[1]);
-            wpmLabel.setText("Words per minute: " + latestWpm);
-            accLabel.setText("Accuracy: " + latestAcc + "%");
-        });
-
-
-// creat table
-        Node resultsChart = typingNinja.view.widgets.Table.create(TABLE_W, TABLE_H, wpmData, accData);
+        // read database off the FX thread; the table and stars fill their slots once it answers
+        Group resultsChart = new Group();
         resultsChart.setLayoutX(TABLE_X);
         resultsChart.setLayoutY(TABLE_Y);
-
-        design.getChildren().add(resultsChart);
-
-
-
-        int latestAcc = accData.isEmpty() ? 0 : accData.get(accData.size() - 1);
-        int accPercent = Math.max(0, Math.min(100, latestAcc)); // 夹紧到 0..100
-        HBox stars = typingNinja.view.widgets.Stars.create(accPercent, STAR_HEIGHT, STAR_GAP);
+        Group stars = new Group();
         stars.setLayoutX(STARS_X);
         stars.setLayoutY(STARS_Y);
-        design.getChildren().add(stars);
+        design.getChildren().addAll(resultsChart, stars);
+
+        CompletableFuture
+                .supplyAsync(() -> {
+                    typingNinja.model.ResultsBridge.ensureTable();
+                    return typingNinja.model.ResultsBridge.loadLastN(10);      // 旧→新顺序
+                }, LOADER)
+                .whenComplete((m, ex) -> Platform.runLater(() -> {
+                    if (ex != null) { ex.printStackTrace(); return; }
+                    List<Integer> wpmData = m.wpm();
+                    List<Integer> accData = m.acc();
+
+                    int latestAcc = accData.isEmpty() ? 0 : accData.get(accData.size() - 1);
+                    if (!wpmData.isEmpty()) {
+                        wpmLabel.setText("Words per minute: " + wpmData.get(wpmData.size() - 1));
+                        accLabel.setText("Accuracy: " + latestAcc + "%");
+                    }
+
+// creat table
+                    resultsChart.getChildren().add(typingNinja.view.widgets.Table.create(TABLE_W, TABLE_H, wpmData, accData));
+
+                    int accPercent = Math.max(0, Math.min(100, latestAcc)); // 夹紧到 0..100
+                    stars.getChildren().add(typingNinja.view.widgets.Stars.create(accPercent, STAR_HEIGHT, STAR_GAP));
+                }));
 
 
 // heatmap
         {
-            String[][] rows = new String[][]{
-                    {"`","1","2","3","4","5","6","7","8","9","0","-","+","="},
-                    {"Tab","Q","W","E","R","T","Y","U","I","O","P","[","]"},
-                    {"Cap","A","S","D","F","G","H","J","K","L",";","'","Enter"},
-                    {"Shift","Z","X","C","V","B","N","M",",",".","/","Shift"},
-                    {"ctrl","fn","alt","Space","ctrl","alt"}
-            };
-            java.util.Map<String,Integer> heat = new java.util.LinkedHashMap<>();
-            for (String[] row : rows) for (String k : row) heat.put(k, 0);
-
-            java.util.Map<String,Integer> totals = typingNinja.model.auth.Session.getLatestTotals();
-            if (totals != null) {
-                for (java.util.Map.Entry<String,Integer> e : totals.entrySet()) {
-                    String k = e.getKey();
-                    if (" ".equals(k)) k = "Space";
-                    String Ku = k.toUpperCase();
-
-                    if      (heat.containsKey(k))  heat.put(k,  e.getValue());
-                    else if (heat.containsKey(Ku)) heat.put(Ku, e.getValue());
-                    else {
-                        String Kl = k.toLowerCase();
-                        if (heat.containsKey(Kl)) heat.put(Kl, e.getValue());
-                    }
-                }
-            }
-
-            javafx.scene.Node keyboard = Keyboard.create(KEY_W, KEY_H, heat);
+            javafx.scene.Node keyboard = Keyboard.create(KEY_W, KEY_H,
+                    keyLabelMap(typingNinja.model.auth.Session.getLatestTotals()));
             keyboard.setLayoutX(KEY_X);
             keyboard.setLayoutY(KEY_Y);
-            design.getChildren().add(keyboard);
+
+            // slow layer: medians over every completed lesson, read off the FX thread
+            Group slowKeyboard = new Group();
+            slowKeyboard.setLayoutX(KEY_X);
+            slowKeyboard.setLayoutY(KEY_Y);
+            slowKeyboard.setVisible(false);
+            int userId = Session.getCurrentUserId();
+            CompletableFuture
+                    .supplyAsync(() -> {
+                        try {
+                            return KeyLatencyStore.load(userId).medianMillisAllKeys();
+                        } catch (java.sql.SQLException e) {
+                            e.printStackTrace();
+                            return Map.<Character, Integer>of();
+                        }
+                    }, LOADER)
+                    .thenAccept(medians -> {
+                        Map<String, Integer> byLabel = new java.util.LinkedHashMap<>(medians.size());
+                        for (Map.Entry<Character, Integer> e : medians.entrySet()) {
+                            byLabel.merge(String.valueOf(Character.toUpperCase(e.getKey())), e.getValue(), Math::max);
+                        }
+                        Platform.runLater(() -> slowKeyboard.getChildren().add(
+                                Keyboard.createSlowness(KEY_W, KEY_H, keyLabelMap(byLabel))));
+                    });
+
+            ToggleGroup layers = new ToggleGroup();
+            ToggleButton errorsLayer = layerToggle("Errors", layers);
+            ToggleButton slowLayer = layerToggle("Slowest keys", layers);
+            errorsLayer.setSelected(true);
+            layers.selectedToggleProperty().addListener((obs, was, now) -> {
+                if (now == null) { was.setSelected(true); return; }
+                boolean slow = now == slowLayer;
+                slowKeyboard.setVisible(slow);
+                keyboard.setVisible(!slow);
+                redHint.setText(slow ? SLOW_HINT : ERROR_HINT);
+            });
+            HBox layerBar = new HBox(LAYER_GAP, errorsLayer, slowLayer);
+            layerBar.setLayoutX(KEY_X);
+            layerBar.setLayoutY(LAYER_Y);
+
+            design.getChildren().addAll(keyboard, slowKeyboard, layerBar);
+        }
+
+
+// speed curve
+        {
+            int[] speed = Session.getLatestSpeedSeries();
+            if (speed.length >= 2) {
+                Node curve = SpeedCurve.create(SPEED_W, SPEED_H, speed);
+                curve.setLayoutX(SPEED_X);
+                curve.setLayoutY(SPEED_Y);
+                Label speedLabel = label("Peak " + Session.getLatestPeakWpm() + " / Burst " + Session.getLatestBurstWpm(),
+                        Font.font("Jaro", FontWeight.BOLD, 28), Color.WHITE, SPEED_X, SPEED_Y - 50);
+                design.getChildren().addAll(curve, speedLabel);
+            }
+            String latency = Session.getLatestLatency();
+            if (!latency.isEmpty()) {
+                design.getChildren().add(label("Key to frame " + latency,
+                        Font.font("Jaro", 16), Color.WHITE, SPEED_X, SPEED_Y + SPEED_H + 12));
+            }
         }
 
 
@@ -212,6 +269,55 @@ public class CongratulationsScene {
         return viewport;
     }
 
+    /**
+     * Map per-character values onto the heatmap's key labels; characters without a key are dropped.
+     *
+     * @param source values keyed by character, e.g. "a" or " "; may be null
+     * @return values keyed by key label, with every label present
+     */
+    private static Map<String, Integer> keyLabelMap(Map<String, Integer> source) {
+        String[][] rows = new String[][]{
+                {"`","1","2","3","4","5","6","7","8","9","0","-","+","="},
+                {"Tab","Q","W","E","R","T","Y","U","I","O","P","[","]"},
+                {"Cap","A","S","D","F","G","H","J","K","L",";","'","Enter"},
+                {"Shift","Z","X","C","V","B","N","M",",",".","/","Shift"},
+                {"ctrl","fn","alt","Space","ctrl","alt"}
+        };
+        Map<String,Integer> heat = new java.util.LinkedHashMap<>();
+        for (String[] row : rows) for (String k : row) heat.put(k, 0);
+
+        if (source != null) {
+            for (Map.Entry<String,Integer> e : source.entrySet()) {
+                String k = e.getKey();
+                if (" ".equals(k)) k = "Space";
+                String Ku = k.toUpperCase();
+
+                if      (heat.containsKey(k))  heat.put(k,  e.getValue());
+                else if (heat.containsKey(Ku)) heat.put(Ku, e.getValue());
+                else {
+                    String Kl = k.toLowerCase();
+                    if (heat.containsKey(Kl)) heat.put(Kl, e.getValue());
+                }
+            }
+        }
+        return heat;
+    }
+
+    /**
+     * Create a toggle that switches the heatmap between its layers.
+     *
+     * @param text the toggle label text
+     * @param group the group shared by all layer toggles
+     * @return the ToggleButton node
+     */
+    private static ToggleButton layerToggle(String text, ToggleGroup group) {
+        ToggleButton t = new ToggleButton(text);
+        t.setToggleGroup(group);
+        t.setFont(Font.font("Jaro", FontWeight.BOLD, 20));
+        t.setFocusTraversable(false);
+        return t;
+    }
+
     /**
      * Create the white rounded rectangle background used as the statistics box.
      *
@@ -12,6 +12,7 @@ import javafx.scene.text.Text;
 import javafx.scene.text.FontWeight;
 
 import java.util.Map;
+import java.util.function.IntToDoubleFunction;
 
 public final class Keyboard {
 
@@ -53,6 +54,47 @@ public final class Keyboard {
      */
 
     public static Node create(double width, double height, Map<String, Integer> counts) {
+        //counting the misstake
+        int total = 0;
+        if (counts != null) {
+            for (Integer v : counts.values()) {
+                total += (v == null ? 0 : Math.max(0, v));
+            }
+        }
+        final int totalErrors = total;
+        return build(width, height, counts,
+                count -> (totalErrors > 0) ? (count / (double) totalErrors) : 0.0, // 0.0 ~ 1.0
+                Color.web("#FF6B6B"), Color.web("#D80000"));
+    }
+
+    /**
+     * Build a keyboard heatmap node colored by how slowly each key is typed.
+     * Keys without a value stay white; the rest are shaded from the fastest to the slowest.
+     *
+     * @param width  the desired width of the keyboard node in pixels
+     * @param height the desired height of the keyboard node in pixels
+     * @param millis a map from key label to median milliseconds before the key, 0 when unknown
+     * @return the assembled Node representing the keyboard heatmap
+     */
+    public static Node createSlowness(double width, double height, Map<String, Integer> millis) {
+        int min = Integer.MAX_VALUE, max = 0;
+        if (millis != null) {
+            for (Integer v : millis.values()) {
+                if (v == null || v <= 0) continue;
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+            }
+        }
+        final int fastest = min, slowest = max;
+        return build(width, height, millis, ms -> {
+            if (ms <= 0) return 0.0;
+            if (slowest == fastest) return 0.5;
+            return 0.15 + 0.85 * (ms - fastest) / (double) (slowest - fastest);
+        }, Color.web("#FFB347"), Color.web("#E06A00"));
+    }
+
+    private static Node build(double width, double height, Map<String, Integer> counts,
+                              IntToDoubleFunction intensity, Color mid, Color hot) {
         Rectangle bg = new Rectangle(width, height);
         bg.setArcWidth(32);
         bg.setArcHeight(32);
@@ -69,15 +111,6 @@ public final class Keyboard {
         double gapY = 8;
         int rows = ROWS.length;
 
-        //counting the misstake
-        int total = 0;
-        if (counts != null) {
-            for (Integer v : counts.values()) {
-                total += (v == null ? 0 : Math.max(0, v));
-            }
-        }
-        final int totalErrors = total;
-
         double keyH = (height - pad * 2 - gapY * (rows - 1)) / rows;
 
         double y = pad;
@@ -103,12 +136,12 @@ public final class Keyboard {
                     count = (v == null) ? 0 : Math.max(0, v);
                 }
 
-                double t = (totalErrors > 0) ? (count / (double) totalErrors) : 0.0; // 0.0 ~ 1.0
+                double t = intensity.applyAsDouble(count);
 
                 Rectangle keyRect = new Rectangle(keyW, keyH);
                 keyRect.setArcWidth(10);
                 keyRect.setArcHeight(10);
-                keyRect.setFill(colorFor(t));
+                keyRect.setFill(colorFor(t, mid, hot));
                 keyRect.setStroke(Color.web("#B3B3B3"));
                 keyRect.setStrokeWidth(1.0);
 
@@ -142,16 +175,18 @@ public final class Keyboard {
      * Map a normalized intensity value to a heatmap color.
      *
      * @param t normalized intensity in [0, 1]
+     * @param mid the color at half intensity
+     * @param hot the color at full intensity
      * @return the Color corresponding to the intensity
      */
-    private static Color colorFor(double t) {
+    private static Color colorFor(double t, Color mid, Color hot) {
         t = clamp01(t);
         if (t < 0.5) {
             double u = t / 0.5;
-            return lerp(Color.web("#FFFFFF"), Color.web("#FF6B6B"), u);
+            return lerp(Color.web("#FFFFFF"), mid, u);
         } else {
             double u = (t - 0.5) / 0.5;
-            return lerp(Color.web("#FF6B6B"), Color.web("#D80000"), u);
+            return lerp(mid, hot, u);
         }
     }
 
@@ -0,0 +1,53 @@
+package typingNinja.view.widgets;
+
+import javafx.scene.Node;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Polyline;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.shape.StrokeLineJoin;
+
+public final class SpeedCurve {
+
+    private static final double PAD = 14;
+
+    private SpeedCurve() {}
+
+    /**
+     * Build a speed-over-time curve for one lesson: a single polyline over a rounded panel,
+     * scaled so the fastest sample touches the top.
+     *
+     * @param width  the desired panel width in pixels
+     * @param height the desired panel height in pixels
+     * @param series rolling WPM sampled once per second, oldest first
+     * @return the assembled Node; just the panel when there are fewer than two samples
+     */
+    public static Node create(double width, double height, int[] series) {
+        Rectangle bg = new Rectangle(width, height);
+        bg.setFill(Color.web("#D9D9D9"));
+        bg.setArcWidth(16 * 2);
+        bg.setArcHeight(16 * 2);
+
+        Pane pane = new Pane(bg);
+        pane.setPrefSize(width, height);
+        if (series == null || series.length < 2) return pane;
+
+        int max = 1;
+        for (int v : series) max = Math.max(max, v);
+        double plotW = width - 2 * PAD;
+        double plotH = height - 2 * PAD;
+
+        // One point per sample; a lesson is at most a few hundred seconds long.
+        double[] points = new double[series.length * 2];
+        for (int i = 0; i < series.length; i++) {
+            points[2 * i] = PAD + plotW * i / (series.length - 1);
+            points[2 * i + 1] = PAD + plotH * (1.0 - (double) series[i] / max);
+        }
+        Polyline line = new Polyline(points);
+        line.setStroke(Color.web("#140B38"));
+        line.setStrokeWidth(3);
+        line.setStrokeLineJoin(StrokeLineJoin.ROUND);
+        pane.getChildren().add(line);
+        return pane;
+    }
+}
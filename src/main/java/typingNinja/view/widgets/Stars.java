@@ -10,6 +10,29 @@ public class Stars {
     private static final String STAR_ON  = "/images/star_on.png";
     private static final String STAR_OFF = "/images/star_off.png";
 
+    private static Image on;
+    private static Image off;
+
+    /**
+     * Shared filled-star image, decoded once and reused by every star row.
+     *
+     * @return the "on" star image
+     */
+    public static synchronized Image onImage() {
+        if (on == null) on = new Image(Stars.class.getResourceAsStream(STAR_ON));
+        return on;
+    }
+
+    /**
+     * Shared empty-star image, decoded once and reused by every star row.
+     *
+     * @return the "off" star image
+     */
+    public static synchronized Image offImage() {
+        if (off == null) off = new Image(Stars.class.getResourceAsStream(STAR_OFF));
+        return off;
+    }
+
     /**
      * Convert a percentage value into a star count (e.g., 0–100% → 0–5 stars).
      *
@@ -36,8 +59,8 @@ public class Stars {
     //generate star
     public static HBox create(double percent, double starHeight, double gap) {
         int stars = percentToStars(percent);
-        Image on  = new Image(Stars.class.getResourceAsStream(STAR_ON));
-        Image off = new Image(Stars.class.getResourceAsStream(STAR_OFF));
+        Image on  = onImage();
+        Image off = offImage();
 
         HBox box = new HBox(gap);
         box.setAlignment(Pos.CENTER);
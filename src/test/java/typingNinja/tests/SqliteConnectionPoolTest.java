@@ -0,0 +1,102 @@
+package typingNinja.tests;
+
+import org.junit.jupiter.api.Test;
+import typingNinja.model.SqliteConnection;
+import typingNinja.tests.support.DatabaseTestHarness;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqliteConnectionPoolTest extends DatabaseTestHarness {
+
+    @Test
+    void writer_shouldRunInWalMode() throws SQLException {
+        try (Statement st = connection().createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA journal_mode")) {
+            assertTrue(rs.next());
+            assertEquals("wal", rs.getString(1).toLowerCase());
+        }
+    }
+
+    @Test
+    void reader_shouldBeQueryOnly() throws SQLException {
+        try (Connection reader = SqliteConnection.reader();
+             Statement st = reader.createStatement()) {
+            assertThrows(SQLException.class,
+                    () -> st.executeUpdate("DELETE FROM Lesson"));
+        }
+    }
+
+    @Test
+    void reader_closedHandle_shouldReturnToPool() throws SQLException {
+        Connection first = SqliteConnection.reader();
+        first.close();
+        assertTrue(first.isClosed(), "Returned handle should report closed");
+        assertThrows(SQLException.class, first::createStatement);
+
+        try (Connection second = SqliteConnection.reader()) {
+            assertFalse(second.isClosed(), "Pooled reader should still be usable");
+        }
+    }
+
+    @Test
+    void reader_shouldSeeCommittedWrites() throws SQLException {
+        SqliteConnection.write(c -> {
+            try (PreparedStatement ps = c.prepareStatement(
+                    "INSERT INTO Lesson (UserID, LessonType) VALUES (1, '1a')")) {
+                return ps.executeUpdate();
+            }
+        });
+        try (Connection reader = SqliteConnection.reader();
+             Statement st = reader.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM Lesson")) {
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void writeTransaction_isOnlyVisibleInsideWrite() throws Exception {
+        int[] seen = {-1, -1};
+        SqliteConnection.write(writer -> {
+            writer.setAutoCommit(false);
+            try {
+                try (Statement st = writer.createStatement()) {
+                    st.executeUpdate("INSERT INTO Lesson (UserID, LessonType) VALUES (1, '1a')");
+                }
+                seen[0] = countLessons();
+
+                Thread other = new Thread(() -> {
+                    try {
+                        seen[1] = countLessons();
+                    } catch (SQLException e) {
+                        e.printStackTrace();
+                    }
+                });
+                other.start();
+                other.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                writer.rollback();
+                writer.setAutoCommit(true);
+            }
+            return null;
+        });
+        assertEquals(1, seen[0], "The thread inside write() reads its own uncommitted row");
+        assertEquals(0, seen[1], "Another thread gets a pooled reader, not the open transaction");
+    }
+
+    private static int countLessons() throws SQLException {
+        try (Connection reader = SqliteConnection.reader();
+             Statement st = reader.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM Lesson")) {
+            return rs.next() ? rs.getInt(1) : -1;
+        }
+    }
+}
@@ -7,18 +7,22 @@ import typingNinja.model.NinjaUser;
 import typingNinja.model.SqliteConnection;
 import typingNinja.model.SqliteContactDAO;
 
-import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class SqliteContactDAOIntegrationTest {
 
-    private Connection conn;
+    private final List<String> created = new ArrayList<>();
     private SqliteContactDAO dao;
 
-    private static String unique(String base) {
-        return base + "_" + System.nanoTime();
+    private String unique(String base) {
+        String name = base + "_" + System.nanoTime();
+        created.add(name);
+        return name;
     }
 
     private static NinjaUser make(String name, String hash) {
@@ -26,19 +30,23 @@ class SqliteContactDAOIntegrationTest {
     }
 
     @BeforeEach
-    void setUp() throws SQLException {
-        conn = SqliteConnection.getInstance();
-        assertNotNull(conn, "DB connection should not be null");
-        conn.setAutoCommit(false);
+    void setUp() {
+        assertNotNull(SqliteConnection.getInstance(), "DB connection should not be null");
         dao = new SqliteContactDAO();
     }
 
     @AfterEach
     void tearDown() throws SQLException {
-        if (conn != null) {
-            conn.rollback();
-            conn.setAutoCommit(true);
-        }
+        // The DAO commits through write(), so remove the rows this test created the same way.
+        SqliteConnection.write(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement("DELETE FROM Users WHERE Username = ?")) {
+                for (String name : created) {
+                    ps.setString(1, name);
+                    ps.executeUpdate();
+                }
+            }
+            return null;
+        });
     }
 
     @Test
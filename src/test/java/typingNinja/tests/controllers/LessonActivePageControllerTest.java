@@ -9,6 +9,7 @@ import typingNinja.controllers.LessonActivePageController;
 import typingNinja.model.MainLessonDAO;
 import typingNinja.model.lesson.Lesson;
 import typingNinja.model.lesson.LessonDAO;
+import typingNinja.model.lesson.LessonWriteQueue;
 import typingNinja.tests.support.DatabaseTestHarness;
 
 import java.lang.reflect.Field;
@@ -52,6 +53,7 @@ class LessonActivePageControllerTest extends DatabaseTestHarness {
         setField(controller, "currentUserId", 1);
 
         invoke(controller, "cancelActiveLesson");
+        assertTrue(LessonWriteQueue.awaitIdle(5000), "Queued lesson writes should drain");
 
         try (Connection conn = connection();
              PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM Lesson")) {
@@ -77,6 +79,7 @@ class LessonActivePageControllerTest extends DatabaseTestHarness {
         setField(controller, "currentUserId", 1);
 
         invoke(controller, "cancelActiveLesson");
+        assertTrue(LessonWriteQueue.awaitIdle(5000), "Queued lesson writes should drain");
 
         try (Connection conn = connection();
              PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM Lesson")) {
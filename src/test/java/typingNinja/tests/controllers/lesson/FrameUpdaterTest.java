@@ -0,0 +1,101 @@
+package typingNinja.tests.controllers.lesson;
+
+import javafx.application.Platform;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import typingNinja.controllers.lesson.FrameUpdater;
+import typingNinja.model.lesson.Metrics;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameUpdaterTest {
+
+    @BeforeAll
+    static void initToolkit() {
+        try {
+            Platform.startup(() -> { /* no-op */ });
+        } catch (IllegalStateException ignore) { }
+    }
+
+    @Test
+    void burstOfRequests_runsEachActionOncePerFlush() {
+        runOnFxThread(() -> {
+            FrameUpdater frames = new FrameUpdater();
+            int[] runs = new int[3];
+            frames.on(FrameUpdater.HIGHLIGHT, () -> runs[0]++);
+            frames.on(FrameUpdater.STATS, () -> runs[1]++);
+            frames.on(FrameUpdater.SCROLL, () -> runs[2]++);
+
+            for (int i = 0; i < 50; i++) frames.request(FrameUpdater.HIGHLIGHT | FrameUpdater.STATS);
+            frames.flush();
+            assertArrayEquals(new int[]{1, 1, 0}, runs);
+
+            frames.flush();
+            assertArrayEquals(new int[]{1, 1, 0}, runs, "A clean flush runs nothing");
+            frames.cancel();
+        });
+    }
+
+    @Test
+    void requestsRaisedDuringFlush_runOnTheNextFrame() {
+        runOnFxThread(() -> {
+            FrameUpdater frames = new FrameUpdater();
+            int[] scrolls = new int[1];
+            frames.on(FrameUpdater.SCROLL, () -> scrolls[0]++);
+            frames.on(FrameUpdater.HIGHLIGHT, () -> frames.request(FrameUpdater.SCROLL));
+
+            frames.request(FrameUpdater.HIGHLIGHT);
+            frames.flush();
+            assertEquals(0, scrolls[0]);
+            frames.flush();
+            assertEquals(1, scrolls[0]);
+            frames.cancel();
+        });
+    }
+
+    @Test
+    void deferredMetrics_publishOnceForAKeyBurst() {
+        runOnFxThread(() -> {
+            Metrics metrics = new Metrics(60);
+            int[] requests = new int[1];
+            metrics.deferPublishing(() -> requests[0]++);
+
+            for (int i = 0; i < 20; i++) metrics.incTyped(i % 4 != 0);
+            assertEquals(1, requests[0], "Only the first change after a publish schedules one");
+            assertEquals(20, metrics.getCharsTyped(), "Counters are current before publishing");
+            assertEquals(5, metrics.getErrors());
+            assertEquals(0, metrics.errorsProperty().get(), "Properties wait for the publish");
+
+            metrics.publish();
+            assertEquals(5, metrics.errorsProperty().get());
+            assertEquals(20, metrics.charsTypedProperty().get());
+
+            metrics.decTypedIfBackspace(true);
+            assertEquals(2, requests[0]);
+        });
+    }
+
+    private static void runOnFxThread(Runnable r) {
+        RuntimeException[] ex = new RuntimeException[1];
+        Error[] err = new Error[1];
+        CountDownLatch latch = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try { r.run(); }
+            catch (RuntimeException e) { ex[0] = e; }
+            catch (Error e) { err[0] = e; }
+            finally { latch.countDown(); }
+        });
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS))
+                throw new AssertionError("Timed out waiting for FX thread");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError("Interrupted while waiting for FX thread", e);
+        }
+        if (ex[0] != null) throw ex[0];
+        if (err[0] != null) throw err[0];
+    }
+}
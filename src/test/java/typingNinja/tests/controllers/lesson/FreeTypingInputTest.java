@@ -0,0 +1,115 @@
+package typingNinja.tests.controllers.lesson;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Region;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import typingNinja.controllers.lesson.FreeTypingInput;
+import typingNinja.controllers.lesson.KeyboardHands;
+import typingNinja.model.lesson.Metrics;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FreeTypingInputTest {
+
+    @BeforeAll
+    static void initToolkit() {
+        try {
+            Platform.startup(() -> { /* no-op */ });
+        } catch (IllegalStateException ignore) { }
+    }
+
+    @Test
+    void longSession_keepsNodeCountBounded() {
+        runOnFxThread(() -> {
+            TextFlow flow = new TextFlow();
+            FreeTypingInput input = newInput(flow);
+            StringBuilder expected = new StringBuilder();
+            int maxNodes = 0;
+            for (int i = 0; i < 20_000; i++) {
+                char c = (i % 57 == 56) ? '\n' : (char) ('a' + i % 26);
+                input.onKeyTyped(typed(c));
+                expected.append(c);
+                maxNodes = Math.max(maxNodes, flow.getChildren().size());
+            }
+            assertEquals(expected.toString(), input.text());
+            assertTrue(maxNodes <= FreeTypingInput.ACTIVE_LIMIT + 3, "Nodes stay bounded, saw " + maxNodes);
+            assertTrue(shown(flow).length() < FreeTypingInput.WINDOW_CHARS + FreeTypingInput.ACTIVE_LIMIT + 2);
+            assertTrue((expected + "_").endsWith(shown(flow)), "The visible text is the tail of the session");
+
+            while (input.revealEarlier()) { /* page back to the start */ }
+            assertEquals(expected + "_", shown(flow), "Scrollback brings the hidden text back");
+        });
+    }
+
+    @Test
+    void backspace_crossesCommittedLines() {
+        runOnFxThread(() -> {
+            TextFlow flow = new TextFlow();
+            FreeTypingInput input = newInput(flow);
+            for (char c : "first line\nsecond\n".toCharArray()) input.onKeyTyped(typed(c));
+            assertEquals(3, flow.getChildren().size(), "Finished lines are merged into one run");
+
+            for (int i = 0; i < 8; i++) input.onKeyPressed(backspace());
+            assertEquals("first line", input.text());
+            assertEquals("first line_", shown(flow));
+
+            input.onKeyTyped(typed('!'));
+            assertEquals("first line!_", shown(flow));
+            for (int i = 0; i < 50; i++) input.onKeyPressed(backspace());
+            assertEquals("", input.text());
+            assertEquals(3, flow.getChildren().size());
+        });
+    }
+
+    private static FreeTypingInput newInput(TextFlow flow) {
+        KeyboardHands hands = new KeyboardHands(new GridPane(), new Region(), new Label());
+        return new FreeTypingInput(flow, null, hands, new Metrics(60), null);
+    }
+
+    private static String shown(TextFlow flow) {
+        // Skips the scrollback marker, which is always the first child.
+        StringBuilder sb = new StringBuilder();
+        for (Node n : flow.getChildren().subList(1, flow.getChildren().size())) sb.append(((Text) n).getText());
+        return sb.toString();
+    }
+
+    private static KeyEvent typed(char c) {
+        return new KeyEvent(KeyEvent.KEY_TYPED, String.valueOf(c), "", KeyCode.UNDEFINED, false, false, false, false);
+    }
+
+    private static KeyEvent backspace() {
+        return new KeyEvent(KeyEvent.KEY_PRESSED, "", "", KeyCode.BACK_SPACE, false, false, false, false);
+    }
+
+    private static void runOnFxThread(Runnable r) {
+        RuntimeException[] ex = new RuntimeException[1];
+        Error[] err = new Error[1];
+        CountDownLatch latch = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try { r.run(); }
+            catch (RuntimeException e) { ex[0] = e; }
+            catch (Error e) { err[0] = e; }
+            finally { latch.countDown(); }
+        });
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS))
+                throw new AssertionError("Timed out waiting for FX thread");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError("Interrupted while waiting for FX thread", e);
+        }
+        if (ex[0] != null) throw ex[0];
+        if (err[0] != null) throw err[0];
+    }
+}
@@ -0,0 +1,93 @@
+package typingNinja.tests.controllers.lesson;
+
+import javafx.application.Platform;
+import javafx.css.PseudoClass;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Region;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import typingNinja.controllers.lesson.KeyboardHands;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyboardHandsTest {
+
+    private static final PseudoClass LIT = PseudoClass.getPseudoClass("lit");
+
+    @BeforeAll
+    static void initToolkit() {
+        try {
+            Platform.startup(() -> { /* no-op */ });
+        } catch (IllegalStateException ignore) { }
+    }
+
+    @Test
+    void highlightExpected_litsBaseKeyAndShiftForShiftedChars() {
+        runOnFxThread(() -> {
+            GridPane grid = new GridPane();
+            KeyboardHands hands = new KeyboardHands(grid, new Region(), new Label());
+            hands.buildQwerty();
+
+            hands.highlightExpected('!');
+            assertEquals(List.of("1"), litKeys(grid).stream().filter(k -> !k.equals("Shift")).toList());
+            assertEquals(2, litKeys(grid).stream().filter(k -> k.equals("Shift")).count());
+
+            hands.highlightExpected('k');
+            assertEquals(List.of("K"), litKeys(grid), "Shift and the previous key go dark");
+
+            hands.highlightExpected(' ');
+            assertEquals(List.of("Space"), litKeys(grid));
+
+            hands.dim();
+            assertTrue(litKeys(grid).isEmpty());
+        });
+    }
+
+    @Test
+    void lightForChar_ignoresCharsWithoutAKeycap() {
+        runOnFxThread(() -> {
+            GridPane grid = new GridPane();
+            KeyboardHands hands = new KeyboardHands(grid, new Region(), new Label());
+            hands.buildQwerty();
+
+            hands.lightForChar('\n');
+            assertEquals(List.of("Enter"), litKeys(grid));
+            hands.lightForChar('é');
+            assertEquals(List.of("Enter"), litKeys(grid), "Unknown chars leave the current key lit");
+        });
+    }
+
+    private static List<String> litKeys(GridPane grid) {
+        return grid.getChildren().stream()
+                .filter(n -> n.getPseudoClassStates().contains(LIT))
+                .map(n -> ((Button) n).getText())
+                .toList();
+    }
+
+    private static void runOnFxThread(Runnable r) {
+        RuntimeException[] ex = new RuntimeException[1];
+        Error[] err = new Error[1];
+        CountDownLatch latch = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try { r.run(); }
+            catch (RuntimeException e) { ex[0] = e; }
+            catch (Error e) { err[0] = e; }
+            finally { latch.countDown(); }
+        });
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS))
+                throw new AssertionError("Timed out waiting for FX thread");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError("Interrupted while waiting for FX thread", e);
+        }
+        if (ex[0] != null) throw ex[0];
+        if (err[0] != null) throw err[0];
+    }
+}
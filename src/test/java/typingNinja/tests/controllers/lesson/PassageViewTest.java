@@ -0,0 +1,108 @@
+package typingNinja.tests.controllers.lesson;
+
+import javafx.application.Platform;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import typingNinja.controllers.lesson.PassageView;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PassageViewTest {
+
+    @BeforeAll
+    static void initToolkit() {
+        try {
+            Platform.startup(() -> { /* no-op */ });
+        } catch (IllegalStateException ignore) { }
+    }
+
+    @Test
+    void glyphState_tracksTypedAndClearedPositions() {
+        runOnFxThread(() -> {
+            PassageView view = new PassageView("abc", null);
+            view.setTyped(0, 'a', true);
+            view.setTyped(1, 'x', false);
+            assertEquals(PassageView.CORRECT, view.stateAt(0));
+            assertEquals(PassageView.WRONG, view.stateAt(1));
+            assertEquals(PassageView.UNTYPED, view.stateAt(2));
+
+            view.clearTyped(1);
+            assertEquals(PassageView.UNTYPED, view.stateAt(1));
+            assertEquals(PassageView.UNTYPED, view.stateAt(99), "Out-of-range positions read as untyped");
+        });
+    }
+
+    @Test
+    void wrapping_followsWidthAndExplicitLineBreaks() {
+        runOnFxThread(() -> {
+            String passage = "the quick brown fox jumps over the lazy dog ".repeat(20) + "\nend";
+            PassageView view = new PassageView(passage, null);
+
+            view.resize(100_000, view.prefHeight(100_000));
+            view.layout();
+            assertEquals(2, view.getLineCount(), "A wide view only breaks at the newline");
+
+            view.resize(300, view.prefHeight(300));
+            view.layout();
+            assertTrue(view.getLineCount() > 2, "A narrow view wraps the long line");
+            assertTrue(view.prefHeight(300) > view.prefHeight(100_000), "Wrapped lines make the view taller");
+        });
+    }
+
+    @Test
+    void caretMarker_movesDownWithTheCaret() {
+        runOnFxThread(() -> {
+            PassageView view = new PassageView("first\nsecond", null);
+            view.resize(600, view.prefHeight(600));
+            view.layout();
+
+            view.setCaret(0);
+            double firstLineY = view.caretNode().getLayoutY();
+            view.setCaret(7);
+            assertTrue(view.caretNode().getLayoutY() > firstLineY, "Caret on the second line sits lower");
+        });
+    }
+
+    @Test
+    void deferredPainting_requestsOneFrameForAKeyBurst() {
+        runOnFxThread(() -> {
+            PassageView view = new PassageView("abc def", null);
+            int[] requests = new int[1];
+            view.deferPainting(() -> requests[0]++);
+
+            view.setTyped(0, 'a', true);
+            view.setCaret(1);
+            view.setTyped(1, 'b', true);
+            view.setCaret(2);
+            assertEquals(1, requests[0]);
+
+            view.paintPending();
+            view.setCaret(3);
+            assertEquals(2, requests[0], "The first change after a paint asks for a new frame");
+        });
+    }
+
+    private static void runOnFxThread(Runnable r) {
+        RuntimeException[] ex = new RuntimeException[1];
+        Error[] err = new Error[1];
+        CountDownLatch latch = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try { r.run(); }
+            catch (RuntimeException e) { ex[0] = e; }
+            catch (Error e) { err[0] = e; }
+            finally { latch.countDown(); }
+        });
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS))
+                throw new AssertionError("Timed out waiting for FX thread");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError("Interrupted while waiting for FX thread", e);
+        }
+        if (ex[0] != null) throw ex[0];
+        if (err[0] != null) throw err[0];
+    }
+}
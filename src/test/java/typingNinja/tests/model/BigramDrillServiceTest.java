@@ -0,0 +1,92 @@
+package typingNinja.tests.model;
+
+import org.junit.jupiter.api.Test;
+import typingNinja.model.ai.BigramDrillService;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BigramDrillServiceTest {
+
+    private static final List<String> CORPUS = List.of(
+            "The quick brown fox jumps over the lazy dog.",
+            "Jack packed a thick black jacket.",
+            "A quiet queue formed at gate 7.",
+            "Send notes to help@example.com today.",
+            "Rain fell on the hills all night.",
+            "Birds sang as the sun rose over the river.",
+            "It's a calm, clear evening by the sea."
+    );
+
+    private static int count(String text, String pair) {
+        int c = 0;
+        for (int i = text.indexOf(pair); i >= 0; i = text.indexOf(pair, i + 1)) c++;
+        return c;
+    }
+
+    @Test
+    void generateDrill_prefersSentencesRichInTheTargetPairs() {
+        BigramDrillService service = new BigramDrillService(CORPUS);
+
+        String drill = service.generateDrill(List.of("ck"), 5, false, false, false, false);
+
+        assertTrue(drill.startsWith("jack packed a thick black jacket"), drill);
+        assertEquals(5, count(drill, "ck"));
+    }
+
+    @Test
+    void generateDrill_respectsTheLessonToggles() {
+        BigramDrillService service = new BigramDrillService(CORPUS);
+
+        String plain = service.generateDrill(List.of("qu", "Th"), 40, false, false, false, false);
+        assertEquals(plain.toLowerCase(), plain);
+        assertFalse(plain.matches(".*[0-9@.,'].*"), plain);
+        assertTrue(plain.contains("quiet queue") || plain.contains("quick"), plain);
+
+        for (String s : service.sentences(false, false, false, false)) {
+            assertFalse(s.contains("gate") || s.contains("help"), "Sentences needing digits or symbols are dropped");
+        }
+        assertTrue(service.sentences(true, true, true, true).contains("A quiet queue formed at gate 7."));
+
+        String full = service.generateDrill(List.of("Th"), 40, true, true, true, true);
+        assertTrue(full.startsWith("The quick brown fox"), full);
+    }
+
+    @Test
+    void generateDrill_returnsNullWhenTheCorpusLacksEveryPair() {
+        BigramDrillService service = new BigramDrillService(CORPUS);
+
+        assertNull(service.generateDrill(List.of("zq", "x"), 40, false, false, false, false));
+        assertNull(service.generateDrill(List.of(" 7"), 40, false, false, false, false), "Digits are off");
+        assertNotNull(BigramDrillService.shared().generateDrill(List.of("ck"), 60, false, false, false, false));
+    }
+
+    @Test
+    void generateDrill_neverRepeatsASentenceBackToBack() {
+        BigramDrillService service = new BigramDrillService(CORPUS);
+        for (List<String> pairs : List.of(List.of("ck"), List.of("th"), List.of("qu", "ra"))) {
+            assertNoSentenceFollowsItself(service, service.generateDrill(pairs, 120, false, false, false, false));
+        }
+
+        // Both sentences are used by the greedy pass, and padding starts at the one picked last.
+        BigramDrillService tiny = new BigramDrillService(List.of("cab", "ab abab"));
+        assertNoSentenceFollowsItself(tiny, tiny.generateDrill(List.of("ab"), 20, false, false, false, false));
+    }
+
+    private static void assertNoSentenceFollowsItself(BigramDrillService service, String drill) {
+        List<String> sentences = service.sentences(false, false, false, false);
+        String prev = null;
+        int start = 0;
+        while (start < drill.length()) {
+            String next = null;
+            for (String s : sentences) {
+                if (drill.startsWith(s, start) && (next == null || s.length() > next.length())) next = s;
+            }
+            assertNotNull(next, "Drill should be made of whole sentences: " + drill);
+            assertNotEquals(prev, next, "Sentence repeated back-to-back in: " + drill);
+            prev = next;
+            start += next.length() + 1;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package typingNinja.tests.model;
+
+import org.junit.jupiter.api.Test;
+import typingNinja.model.CertificateRow;
+import typingNinja.model.SqliteConnection;
+import typingNinja.model.SqliteResultsDAO;
+import typingNinja.tests.support.DatabaseTestHarness;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CertificateRowsTest extends DatabaseTestHarness {
+
+    @Test
+    void forEachCertificateRow_streamsLastNOldestFirstWithTypeAndUser() throws Exception {
+        insert("1a", "2025-10-01 10:00:00", 31.6);
+        insert("2b", "2025-10-02 10:00:00", 40);
+        insert("3c", "2025-10-03 10:00:00", 50);
+        insert("4d", null, 60);
+
+        List<CertificateRow> rows = new ArrayList<>();
+        new SqliteResultsDAO().forEachCertificateRow(2, rows::add);
+
+        assertEquals(2, rows.size());
+        assertEquals("2b", rows.get(0).lessonType());
+        assertEquals("3c", rows.get(1).lessonType());
+        assertEquals(50, rows.get(1).wpm());
+        assertEquals("test-user", rows.get(0).userName(), "Username should come from the joined Users row");
+    }
+
+    private void insert(String type, String completed, double wpm) throws Exception {
+        SqliteConnection.write(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO Lesson (UserID, LessonType, DateCompleted, WPM, Accuracy) VALUES (1, ?, ?, ?, 95)")) {
+                ps.setString(1, type);
+                ps.setString(2, completed);
+                ps.setDouble(3, wpm);
+                return ps.executeUpdate();
+            }
+        });
+    }
+}
@@ -0,0 +1,76 @@
+package typingNinja.tests.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import typingNinja.model.LessonCsvExporter;
+import typingNinja.model.SqliteConnection;
+import typingNinja.tests.support.DatabaseTestHarness;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LessonCsvExporterTest extends DatabaseTestHarness {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void export_writesAllColumnsAndQuotesText() throws Exception {
+        insert("2025-10-01 09:00:00", "topic, with \"quotes\"");
+        insert("2025-10-02 09:00:00", null);
+
+        Path out = dir.resolve("history.csv");
+        long[] last = new long[2];
+        long rows = new LessonCsvExporter().export(1, null, null, out,
+                (written, total) -> { last[0] = written; last[1] = total; }, () -> false);
+
+        List<String> lines = Files.readAllLines(out);
+        assertEquals(2, rows);
+        assertEquals(String.join(",", LessonCsvExporter.COLUMNS), lines.get(0));
+        assertTrue(lines.get(1).contains("\"topic, with \"\"quotes\"\"\""), "Text fields must be CSV-quoted");
+        assertTrue(lines.get(1).endsWith(",th he"), "Weak keys are exported");
+        assertArrayEquals(new long[]{2, 2}, last);
+    }
+
+    @Test
+    void export_honoursInclusiveDateRange() throws Exception {
+        insert("2025-10-01 09:00:00", null);
+        insert("2025-10-02 23:59:59", null);
+        insert("2025-10-03 00:00:00", null);
+
+        Path out = dir.resolve("range.csv");
+        long rows = new LessonCsvExporter().export(1,
+                LocalDate.of(2025, 10, 2), LocalDate.of(2025, 10, 2), out, null, () -> false);
+        assertEquals(1, rows);
+    }
+
+    @Test
+    void export_cancelledLeavesNoFileBehind() throws Exception {
+        insert("2025-10-01 09:00:00", null);
+
+        Path out = dir.resolve("cancelled.csv");
+        assertThrows(CancellationException.class, () ->
+                new LessonCsvExporter().export(1, null, null, out, null, () -> true));
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count(), "Neither the target nor the temp file should remain");
+        }
+    }
+
+    private void insert(String started, String prompt) throws Exception {
+        SqliteConnection.write(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO Lesson (UserID, LessonType, Prompt, LessonDuration, DateStarted, WPM, ErrorAmount, WeakKeys) " +
+                    "VALUES (1, 'CustomTopic', ?, 2, ?, 40, 3, 'th he')")) {
+                ps.setString(1, prompt);
+                ps.setString(2, started);
+                return ps.executeUpdate();
+            }
+        });
+    }
+}
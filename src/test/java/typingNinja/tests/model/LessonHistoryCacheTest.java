@@ -0,0 +1,150 @@
+package typingNinja.tests.model;
+
+import org.junit.jupiter.api.Test;
+import typingNinja.model.CertificateRow;
+import typingNinja.model.LessonHistoryCache;
+import typingNinja.model.MainLessonDAO;
+import typingNinja.model.ResultsRepository;
+import typingNinja.model.SqliteConnection;
+import typingNinja.model.SqliteResultsDAO;
+import typingNinja.model.lesson.Lesson;
+import typingNinja.model.lesson.LessonDAO;
+import typingNinja.model.lesson.LessonWriteQueue;
+import typingNinja.tests.support.DatabaseTestHarness;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LessonHistoryCacheTest extends DatabaseTestHarness {
+
+    private static final String DONE = "2025-10-20 10:00:00";
+
+    @Test
+    void historyPages_walkTheWholeHistoryNewestFirstWithoutGapsOrRepeats() throws Exception {
+        // Several lessons share a start time so the LessonID tie-break matters.
+        for (int i = 0; i < 23; i++) insert(1, "1a", "2025-10-0" + (1 + i % 5) + " 09:00:00", DONE, i, 3);
+        insert(1, "1a", null, DONE, 98, 3);
+        insert(1, "1a", "2025-10-08 09:00:00", null, 99, 5);
+        insert(2, "1a", "2025-10-09 09:00:00", DONE, 1, 3);
+
+        List<LessonHistoryCache.Row> all = walk(LessonHistoryCache.forUser(1), 5);
+
+        assertEquals(24, all.size(), "Every completed lesson of user 1 should appear exactly once");
+        for (int i = 1; i < 23; i++) {
+            LessonHistoryCache.Row prev = all.get(i - 1), cur = all.get(i);
+            int cmp = prev.dateStarted().compareTo(cur.dateStarted());
+            assertTrue(cmp > 0 || (cmp == 0 && prev.lessonId() > cur.lessonId()), "Rows must be newest first");
+        }
+        assertNull(all.get(23).dateStarted(), "Undated rows come last");
+        assertTrue(all.stream().noneMatch(row -> row.wpm() == 99), "Pending lessons are left out");
+        assertEquals(98, LessonHistoryCache.forUser(1).personalBest().wpm(), "Pending lessons are not a personal best");
+    }
+
+    @Test
+    void historyPages_stayConsistentWhenALessonCompletesMidScroll() throws Exception {
+        for (int i = 0; i < 8; i++) insert(1, "1a", "2025-10-0" + (1 + i) + " 09:00:00", DONE, i, 3);
+        LessonHistoryCache history = LessonHistoryCache.forUser(1);
+
+        LessonHistoryCache.Page first = history.historyPage(null, 3);
+        new MainLessonDAO().insertSelection(1, "2a");
+        Lesson latest = new LessonDAO().fetchLatestForUser(1);
+        LessonWriteQueue.shared().submitCompleted(latest.getLessonId(), 1, 4.0, 62.0, 97.0, 3, "")
+                .get(5, TimeUnit.SECONDS);
+
+        List<LessonHistoryCache.Row> rest = new ArrayList<>(first.rows());
+        for (LessonHistoryCache.Cursor c = first.next(); c != null; ) {
+            LessonHistoryCache.Page page = history.historyPage(c, 3);
+            rest.addAll(page.rows());
+            c = page.next();
+        }
+        assertEquals(8, rest.size(), "The new lesson sorts before the cursor, so no row repeats or goes missing");
+        assertEquals(8, rest.stream().map(LessonHistoryCache.Row::lessonId).distinct().count());
+        assertEquals(9, history.size());
+    }
+
+    @Test
+    void recentTrend_returnsLatestPointsInChronologicalOrder() throws Exception {
+        for (int i = 1; i <= 9; i++) insert(1, "1a", "2025-10-0" + i + " 09:00:00", DONE, i * 10, 3);
+        insert(1, "1a", null, DONE, 200, 3);
+
+        List<LessonHistoryCache.Row> trend = LessonHistoryCache.forUser(1).recentTrend(3);
+        assertEquals(3, trend.size());
+        assertEquals(70.0, trend.get(0).wpm());
+        assertEquals(90.0, trend.get(2).wpm());
+        assertEquals(200, LessonHistoryCache.forUser(1).personalBest().wpm());
+    }
+
+    @Test
+    void resultsAndCertificates_comeFromTheCache() throws Exception {
+        insert(1, "1a", null, "2025-10-01 10:00:00", 31.6, 3);
+        insert(1, "2b", null, "2025-10-03 10:00:00", 50, 4);
+        insert(1, "3c", null, "2025-10-02 10:00:00", 40, 2.5);
+        insert(2, "4d", null, "2025-10-04 10:00:00", 70, 5);
+
+        assertEquals(List.of(32, 40, 50), ResultsRepository.loadLastN(10).wpm());
+        assertEquals(3, new SqliteResultsDAO().count());
+
+        List<CertificateRow> rows = new ArrayList<>();
+        new SqliteResultsDAO().forEachCertificateRow(2, rows::add);
+        assertEquals("3c", rows.get(0).lessonType());
+        assertEquals("2b", rows.get(1).lessonType());
+        assertEquals("test-user", rows.get(1).userName());
+
+        LessonHistoryCache.Summary summary = LessonHistoryCache.forUser(1).summary();
+        assertEquals(3, summary.lessons());
+        assertEquals(4, summary.highestRating());
+        assertEquals(9, summary.totalStars(), "Stars are truncated per lesson like the rollup does");
+    }
+
+    @Test
+    void completedLessons_areAddedWithoutReloading() throws Exception {
+        LessonHistoryCache history = LessonHistoryCache.forUser(1);
+        assertEquals(0, history.size());
+
+        new MainLessonDAO().insertSelection(1, "2a");
+        Lesson latest = new LessonDAO().fetchLatestForUser(1);
+        LessonWriteQueue.shared().submitCompleted(latest.getLessonId(), 1, 4.0, 62.0, 97.0, 3, "")
+                .get(5, TimeUnit.SECONDS);
+
+        assertSame(history, LessonHistoryCache.forUser(1));
+        assertEquals(1, history.size());
+        LessonHistoryCache.Entry best = history.personalBest();
+        assertEquals(latest.getLessonId(), best.lessonId());
+        assertEquals("2a", best.lessonType());
+        assertEquals(3, best.errors());
+        assertEquals(List.of(62), ResultsRepository.loadLastN(1).wpm());
+    }
+
+    private static List<LessonHistoryCache.Row> walk(LessonHistoryCache history, int pageSize) {
+        List<LessonHistoryCache.Row> all = new ArrayList<>();
+        LessonHistoryCache.Cursor cursor = null;
+        do {
+            LessonHistoryCache.Page page = history.historyPage(cursor, pageSize);
+            assertTrue(page.rows().size() <= pageSize);
+            all.addAll(page.rows());
+            cursor = page.next();
+        } while (cursor != null);
+        return all;
+    }
+
+    private void insert(int userId, String type, String started, String completed, double wpm, double stars)
+            throws Exception {
+        SqliteConnection.write(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO Lesson (UserID, LessonType, DateStarted, DateCompleted, WPM, Accuracy, StarRating) "
+                            + "VALUES (?, ?, ?, ?, ?, 95, ?)")) {
+                ps.setInt(1, userId);
+                ps.setString(2, type);
+                ps.setString(3, started);
+                ps.setString(4, completed);
+                ps.setDouble(5, wpm);
+                ps.setDouble(6, stars);
+                return ps.executeUpdate();
+            }
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package typingNinja.tests.model;
+
+import org.junit.jupiter.api.Test;
+import typingNinja.model.MainLessonDAO;
+import typingNinja.model.SqliteConnection;
+import typingNinja.model.StatisticsRollup;
+import typingNinja.model.lesson.LessonDAO;
+import typingNinja.tests.support.DatabaseTestHarness;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MainLessonDaoBestTimeTest extends DatabaseTestHarness {
+
+    @Test
+    void bestTimes_keepFastestCompletionPerLessonType() throws Exception {
+        complete("1a", "2025-10-01 10:00:00", "2025-10-01 10:00:40");
+        complete("1a", "2025-10-02 10:00:00", "2025-10-02 10:00:25");
+        complete("1a", "2025-10-03 10:00:00", "2025-10-03 10:00:50");
+        complete("1b", "2025-10-04 10:00:00", "2025-10-04 10:01:00");
+
+        Map<String, String> best = new MainLessonDAO().getBestTimesAndDates(1);
+        assertEquals("Best time: 25 seconds\nCompleted 02/10/2025", best.get("1a"));
+        assertEquals("Best time: 60 seconds\nCompleted 04/10/2025", best.get("1b"));
+        assertFalse(best.containsKey("1c"), "Lessons never completed should be absent");
+    }
+
+    @Test
+    void bestTimes_surviveAFailedStatisticsUpdate() throws Exception {
+        try (Statement st = connection().createStatement()) {
+            st.execute("DROP TABLE Statistics");
+        }
+        complete("1a", "2025-10-01 10:00:00", "2025-10-01 10:00:30");
+
+        assertEquals("Best time: 30 seconds\nCompleted 01/10/2025", new MainLessonDAO().getBestTimesAndDates(1).get("1a"));
+    }
+
+    @Test
+    void getBestTimeAndDate_withoutCompletions_reportsNotCompleted() {
+        assertEquals("Not Yet Completed", new MainLessonDAO().getBestTimeAndDate("2a"));
+    }
+
+    private void complete(String type, String started, String completed) throws Exception {
+        new MainLessonDAO().insertSelection(1, type);
+        int lessonId = new LessonDAO().fetchLatestForUser(1).getLessonId();
+        SqliteConnection.write(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE Lesson SET DateStarted = ?, DateCompleted = ?, WPM = 30, Accuracy = 90, StarRating = 3 " +
+                    "WHERE LessonID = ?")) {
+                ps.setString(1, started);
+                ps.setString(2, completed);
+                ps.setInt(3, lessonId);
+                ps.executeUpdate();
+            }
+            StatisticsRollup.lessonCompleted(conn, lessonId);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,48 @@
+package typingNinja.tests.model;
+
+import org.junit.jupiter.api.Test;
+import typingNinja.model.SchemaMigrator;
+import typingNinja.model.SqliteConnection;
+import typingNinja.tests.support.DatabaseTestHarness;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigratorTest extends DatabaseTestHarness {
+
+    @Test
+    void openingDatabase_recordsLatestVersion() throws Exception {
+        assertEquals(SchemaMigrator.latestVersion(), SchemaMigrator.currentVersion(connection()));
+    }
+
+    @Test
+    void migrate_isNoOpWhenUpToDate() throws Exception {
+        Connection conn = connection();
+        SchemaMigrator.migrate(conn);
+        try (PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM schema_version");
+             ResultSet rs = ps.executeQuery()) {
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt(1), "schema_version should hold a single row");
+        }
+    }
+
+    @Test
+    void lessonIndexes_areCreated() throws Exception {
+        try (PreparedStatement ps = connection().prepareStatement(
+                "SELECT COUNT(*) FROM sqlite_master WHERE type = 'index' AND tbl_name = 'Lesson' AND name LIKE 'idx_lesson_%'");
+             ResultSet rs = ps.executeQuery()) {
+            assertTrue(rs.next());
+            assertEquals(4, rs.getInt(1));
+        }
+    }
+
+    @Test
+    void hotQueries_doNotScanLesson() throws Exception {
+        try (Connection reader = SqliteConnection.reader()) {
+            assertEquals(java.util.List.of(), SchemaMigrator.queriesScanningLesson(reader));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package typingNinja.tests.model;
+
+import org.junit.jupiter.api.Test;
+import typingNinja.model.SettingsCache;
+import typingNinja.model.SettingsDAO;
+import typingNinja.tests.support.DatabaseTestHarness;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SettingsCacheTest extends DatabaseTestHarness {
+
+    @Test
+    void load_withoutStoredRow_usesDefaults() {
+        SettingsCache cache = SettingsCache.load(1);
+        assertEquals("English", cache.displayLanguageProperty().get());
+        assertTrue(cache.isKeyboardSounds());
+        assertTrue(cache.isTypingErrors());
+    }
+
+    @Test
+    void forUser_returnsSameInstanceForSameUser() {
+        SettingsCache first = SettingsCache.load(1);
+        assertSame(first, SettingsCache.forUser(1));
+    }
+
+    @Test
+    void propertyChange_isWrittenThrough() throws Exception {
+        SettingsCache cache = SettingsCache.load(1);
+        cache.keyboardSoundsProperty().set(false);
+        cache.themeProperty().set("Light");
+        SettingsCache.flush().get(5, TimeUnit.SECONDS);
+
+        SettingsDAO.SettingsRecord stored = new SettingsDAO().load(1);
+        assertFalse(stored.keyboardSounds);
+        assertEquals("Light", stored.theme);
+    }
+
+    @Test
+    void listeners_seeToggleWithoutReload() {
+        SettingsCache cache = SettingsCache.load(1);
+        boolean[] seen = {true};
+        cache.typingErrorSoundsProperty().addListener((o, ov, nv) -> seen[0] = nv);
+        cache.typingErrorSoundsProperty().set(false);
+        assertFalse(seen[0]);
+    }
+}
@@ -0,0 +1,62 @@
+package typingNinja.tests.model;
+
+import org.junit.jupiter.api.Test;
+import typingNinja.model.MainLessonDAO;
+import typingNinja.model.SqliteConnection;
+import typingNinja.model.StatisticsRollup;
+import typingNinja.model.lesson.Lesson;
+import typingNinja.model.lesson.LessonDAO;
+import typingNinja.tests.support.DatabaseTestHarness;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatisticsRollupTest extends DatabaseTestHarness {
+
+    @Test
+    void completedLessons_areFoldedIntoTotals() throws Exception {
+        complete("1a", 4.0, 40.0, 90.0);
+        complete("1b", 2.0, 60.0, 80.0);
+
+        try (PreparedStatement ps = connection().prepareStatement(
+                "SELECT TotalLessons, AvgWPM, HighestRating, TotalStars, TotalWPMWeek, TotalAccuracyWeek " +
+                "FROM Statistics WHERE UserID = 1");
+             ResultSet rs = ps.executeQuery()) {
+            assertTrue(rs.next(), "Statistics row should be created on first completion");
+            assertEquals(2, rs.getInt(1));
+            assertEquals(50.0, rs.getDouble(2), 0.001);
+            assertEquals(4.0, rs.getDouble(3), 0.001);
+            assertEquals(6, rs.getInt(4));
+            assertEquals(50.0, rs.getDouble(5), 0.001, "Weekly WPM should average this week's lessons");
+            assertEquals(85.0, rs.getDouble(6), 0.001);
+        }
+        boolean consistent = SqliteConnection.write(conn -> StatisticsRollup.verify(conn, 1));
+        assertTrue(consistent);
+    }
+
+    @Test
+    void pendingLessons_doNotCount() throws Exception {
+        complete("1a", 3.0, 30.0, 95.0);
+        new MainLessonDAO().insertSelection(1, "1c");
+
+        boolean consistent = SqliteConnection.write(conn -> StatisticsRollup.verify(conn, 1));
+        assertTrue(consistent);
+        try (PreparedStatement ps = connection().prepareStatement(
+                "SELECT TotalLessons FROM Statistics WHERE UserID = 1");
+             ResultSet rs = ps.executeQuery()) {
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt(1));
+        }
+    }
+
+    private int complete(String type, double stars, double wpm, double accuracy) throws Exception {
+        new MainLessonDAO().insertSelection(1, type);
+        LessonDAO lessonDAO = new LessonDAO();
+        Lesson latest = lessonDAO.fetchLatestForUser(1);
+        lessonDAO.markStarted(latest.getLessonId(), 1);
+        lessonDAO.markCompleted(latest.getLessonId(), 1, stars, wpm, accuracy, 0, "ab");
+        return latest.getLessonId();
+    }
+}
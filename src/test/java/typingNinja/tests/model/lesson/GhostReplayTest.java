@@ -0,0 +1,76 @@
+package typingNinja.tests.model.lesson;
+
+import org.junit.jupiter.api.Test;
+import typingNinja.model.MainLessonDAO;
+import typingNinja.model.SqliteConnection;
+import typingNinja.model.lesson.GhostReplay;
+import typingNinja.model.lesson.KeystrokeJournal;
+import typingNinja.model.lesson.KeystrokeJournalStore;
+import typingNinja.model.lesson.LessonDAO;
+import typingNinja.tests.support.DatabaseTestHarness;
+
+import java.sql.PreparedStatement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GhostReplayTest extends DatabaseTestHarness {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void replay_followsPlacedKeysAndBackspaces() {
+        KeystrokeJournal journal = new KeystrokeJournal();
+        journal.record(100 * MS, 'a', 'a', KeystrokeJournal.CORRECT);
+        journal.record(200 * MS, 'b', 'x', 0);
+        journal.record(300 * MS, 'b', 'x', KeystrokeJournal.BACKSPACE);
+        journal.record(400 * MS, 'b', 'b', KeystrokeJournal.CORRECT);
+        journal.record(450 * MS, 'c', 'q', KeystrokeJournal.REJECTED);
+        journal.record(500 * MS, 'c', 'c', KeystrokeJournal.CORRECT);
+
+        GhostReplay replay = GhostReplay.of(journal);
+
+        assertEquals(0, replay.positionAt(50 * MS));
+        assertEquals(1, replay.positionAt(100 * MS));
+        assertEquals(2, replay.positionAt(250 * MS));
+        assertEquals(1, replay.positionAt(350 * MS), "Backspace moves the ghost back");
+        assertEquals(2, replay.positionAt(460 * MS), "Rejected keys leave the ghost in place");
+        assertFalse(replay.isFinished(460 * MS));
+        assertEquals(3, replay.positionAt(900 * MS));
+        assertTrue(replay.isFinished(900 * MS));
+
+        assertEquals(1, replay.positionAt(150 * MS), "A clock that jumps back is searched");
+        assertEquals(500 * MS, replay.durationNanos());
+    }
+
+    @Test
+    void personalBest_isTheFastestCompletedLessonWithAJournal() throws Exception {
+        completed("2025-10-01 10:00:00", "2025-10-01 10:01:40", 'x');
+        completed("2025-10-02 10:00:00", "2025-10-02 10:00:50", 'y');
+        completed("2025-10-03 10:00:00", "2025-10-03 10:00:30", '\0');
+
+        KeystrokeJournal best = KeystrokeJournalStore.loadPersonalBest(1, "1a");
+        assertNotNull(best);
+        assertEquals('y', best.expectedAt(0), "The 30 s lesson has no journal, so the 50 s one wins");
+        assertNull(KeystrokeJournalStore.loadPersonalBest(1, "1b"));
+    }
+
+    private void completed(String started, String finished, char marker) throws Exception {
+        new MainLessonDAO().insertSelection(1, "1a");
+        int lessonId = new LessonDAO().fetchLatestForUser(1).getLessonId();
+        SqliteConnection.write(conn -> {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "UPDATE Lesson SET DateStarted = ?, DateCompleted = ? WHERE LessonID = ?")) {
+                ps.setString(1, started);
+                ps.setString(2, finished);
+                ps.setInt(3, lessonId);
+                ps.executeUpdate();
+            }
+            if (marker != '\0') {
+                KeystrokeJournal journal = new KeystrokeJournal();
+                journal.record(MS, marker, marker, KeystrokeJournal.CORRECT);
+                KeystrokeJournalStore.save(conn, lessonId, 1, journal);
+            }
+            return null;
+        });
+    }
+}
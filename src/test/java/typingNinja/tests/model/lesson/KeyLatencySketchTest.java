@@ -0,0 +1,105 @@
+package typingNinja.tests.model.lesson;
+
+import org.junit.jupiter.api.Test;
+import typingNinja.model.MainLessonDAO;
+import typingNinja.model.SqliteConnection;
+import typingNinja.model.lesson.KeyLatencySketch;
+import typingNinja.model.lesson.KeyLatencyStore;
+import typingNinja.model.lesson.KeystrokeJournal;
+import typingNinja.model.lesson.Lesson;
+import typingNinja.model.lesson.LessonDAO;
+import typingNinja.model.lesson.LessonWriteQueue;
+import typingNinja.tests.support.DatabaseTestHarness;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyLatencySketchTest extends DatabaseTestHarness {
+
+    private static final long MS = 1_000_000L;
+
+    private static KeystrokeJournal typed(String text, int repeats, char slowKey) {
+        KeystrokeJournal journal = new KeystrokeJournal();
+        long t = 0;
+        for (int r = 0; r < repeats; r++) {
+            for (char c : text.toCharArray()) {
+                t += (c == slowKey ? 600 : 150) * MS;
+                journal.record(t, c, c, KeystrokeJournal.CORRECT);
+            }
+        }
+        return journal;
+    }
+
+    @Test
+    void fromJournal_ranksSlowKeysAndBigrams() {
+        KeyLatencySketch sketch = KeyLatencySketch.fromJournal(typed("the lazy dog ", 10, 'z'));
+
+        assertEquals('z', sketch.slowestKeys(1).get(0));
+        long slow = sketch.percentileMillis('z', 50);
+        long fast = sketch.percentileMillis('e', 50);
+        assertTrue(slow > 520 && slow < 680, "Median within a bucket of 600ms, got " + slow);
+        assertTrue(fast > 130 && fast < 170, "Median within a bucket of 150ms, got " + fast);
+        assertEquals(10, sketch.count('a', 'z'));
+        assertEquals(slow, sketch.percentileMillis('a', 'z', 50));
+        assertEquals(0, sketch.count('z', 'a'));
+        assertEquals(List.of("az"), sketch.slowestPairs(1));
+        assertEquals(5, sketch.slowestPairs(5).size());
+    }
+
+    @Test
+    void fromJournal_skipsIntervalsAroundMistakes() {
+        KeystrokeJournal journal = new KeystrokeJournal();
+        journal.record(100 * MS, 'a', 'a', KeystrokeJournal.CORRECT);
+        journal.record(200 * MS, 'b', 'b', KeystrokeJournal.CORRECT);
+        journal.record(300 * MS, 'c', 'x', 0);
+        journal.record(400 * MS, 'c', 'x', KeystrokeJournal.BACKSPACE);
+        journal.record(500 * MS, 'c', 'c', KeystrokeJournal.CORRECT);
+        journal.record(600 * MS, 'd', 'd', KeystrokeJournal.CORRECT);
+
+        KeyLatencySketch sketch = KeyLatencySketch.fromJournal(journal);
+
+        assertEquals(2, sketch.samples());
+        assertEquals(1, sketch.count('b'));
+        assertEquals(0, sketch.count('c'));
+        assertEquals(1, sketch.count('c', 'd'));
+    }
+
+    @Test
+    void encodeDecodeAndMerge_addCountsExactly() {
+        KeyLatencySketch a = KeyLatencySketch.fromJournal(typed("the lazy dog ", 10, 'z'));
+        KeyLatencySketch b = KeyLatencySketch.decode(a.encode());
+
+        assertEquals(a.samples(), b.samples());
+        for (char c : "thelazydog ".toCharArray()) {
+            assertEquals(a.count(c), b.count(c));
+            assertEquals(a.percentileMillis(c, 90), b.percentileMillis(c, 90));
+        }
+        b.merge(a);
+        assertEquals(2 * a.samples(), b.samples());
+        assertEquals(2 * a.count('a', 'z'), b.count('a', 'z'));
+        assertThrows(IllegalArgumentException.class, () -> KeyLatencySketch.decode(new byte[]{1, 1, 95}));
+    }
+
+    @Test
+    void completedLessons_mergeIntoTheUsersTotals() throws Exception {
+        KeystrokeJournal journal = typed("the lazy dog ", 10, 'z');
+        long perLesson = KeyLatencySketch.fromJournal(journal).samples();
+        for (int i = 0; i < 2; i++) {
+            new MainLessonDAO().insertSelection(1, "2a");
+            Lesson latest = new LessonDAO().fetchLatestForUser(1);
+            LessonWriteQueue.shared().submitCompleted(latest.getLessonId(), 1, 3.0, 40.0, 90.0, 0, "", journal)
+                    .get(5, TimeUnit.SECONDS);
+        }
+
+        KeyLatencySketch stored = KeyLatencyStore.load(1);
+        assertEquals(2 * perLesson, stored.samples());
+        assertEquals(List.of('z'), stored.slowestKeys(1));
+        assertEquals(List.of("az"), stored.slowestPairs(1));
+        assertEquals(0, KeyLatencyStore.load(2).samples());
+
+        SqliteConnection.write(conn -> { KeyLatencyStore.rebuild(conn, 1); return null; });
+        assertEquals(2 * perLesson, KeyLatencyStore.load(1).samples());
+    }
+}
@@ -0,0 +1,97 @@
+package typingNinja.tests.model.lesson;
+
+import org.junit.jupiter.api.Test;
+import typingNinja.model.MainLessonDAO;
+import typingNinja.model.SqliteConnection;
+import typingNinja.model.lesson.KeystrokeJournal;
+import typingNinja.model.lesson.Lesson;
+import typingNinja.model.lesson.LessonDAO;
+import typingNinja.model.lesson.LessonWriteQueue;
+import typingNinja.tests.support.DatabaseTestHarness;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeystrokeJournalTest extends DatabaseTestHarness {
+
+    @Test
+    void encodeDecode_roundTripsEveryField() {
+        KeystrokeJournal journal = new KeystrokeJournal();
+        long t = 0;
+        for (int i = 0; i < 3000; i++) {
+            t += 80_000_000L + (i % 7) * 13_579L;
+            char expected = (char) ('a' + i % 26);
+            boolean wrong = i % 11 == 0;
+            journal.record(t, expected, wrong ? 'x' : expected, wrong ? 0 : KeystrokeJournal.CORRECT);
+        }
+        journal.record(t + 1, 'é', 'é', KeystrokeJournal.BACKSPACE | KeystrokeJournal.CORRECT);
+
+        byte[] blob = journal.encode();
+        KeystrokeJournal back = KeystrokeJournal.decode(blob);
+
+        assertEquals(journal.size(), back.size());
+        for (int i = 0; i < journal.size(); i++) {
+            assertEquals(journal.timeAt(i), back.timeAt(i));
+            assertEquals(journal.expectedAt(i), back.expectedAt(i));
+            assertEquals(journal.actualAt(i), back.actualAt(i));
+            assertEquals(journal.flagsAt(i), back.flagsAt(i));
+        }
+        assertTrue(blob.length < journal.size() * 7, "About six bytes per key, got " + blob.length);
+    }
+
+    @Test
+    void decode_rejectsTruncatedData() {
+        KeystrokeJournal journal = new KeystrokeJournal();
+        journal.record(5, 'a', 'a', KeystrokeJournal.CORRECT);
+        byte[] blob = journal.encode();
+        byte[] cut = java.util.Arrays.copyOf(blob, blob.length - 1);
+        assertThrows(IllegalArgumentException.class, () -> KeystrokeJournal.decode(cut));
+    }
+
+    @Test
+    void completedLesson_storesJournalNextToTheRow() throws Exception {
+        new MainLessonDAO().insertSelection(1, "2a");
+        Lesson latest = new LessonDAO().fetchLatestForUser(1);
+        KeystrokeJournal journal = new KeystrokeJournal();
+        journal.record(1_000, 't', 't', KeystrokeJournal.CORRECT);
+        journal.record(2_000, 'h', 'j', 0);
+
+        LessonWriteQueue.shared().submitCompleted(latest.getLessonId(), 1, 3.0, 40.0, 90.0, 1, "th", journal)
+                .get(5, TimeUnit.SECONDS);
+
+        KeystrokeJournal stored = KeystrokeJournal.decode(storedData(latest.getLessonId()));
+        assertEquals(2, stored.size());
+        assertEquals('j', stored.actualAt(1));
+        assertEquals(2_000, stored.timeAt(1));
+        assertNull(storedData(latest.getLessonId() + 1));
+    }
+
+    @Test
+    void dropOldest_keepsTheNewestEventsInOrder() {
+        KeystrokeJournal journal = new KeystrokeJournal();
+        for (int i = 0; i < 2000; i++) journal.record(i, (char) ('a' + i % 26), 'x', i % 3);
+
+        journal.dropOldest(1500);
+        assertEquals(500, journal.size());
+        assertEquals(1500, journal.timeAt(0));
+        assertEquals((char) ('a' + 1500 % 26), journal.expectedAt(0));
+        assertEquals(1999 % 3, journal.flagsAt(499));
+
+        journal.dropOldest(10_000);
+        assertEquals(0, journal.size());
+    }
+
+    private static byte[] storedData(int lessonId) throws Exception {
+        try (Connection conn = SqliteConnection.reader();
+             PreparedStatement ps = conn.prepareStatement("SELECT Data FROM LessonJournal WHERE LessonID = ?")) {
+            ps.setInt(1, lessonId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getBytes(1) : null;
+            }
+        }
+    }
+}
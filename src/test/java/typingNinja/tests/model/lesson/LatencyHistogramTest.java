@@ -0,0 +1,58 @@
+package typingNinja.tests.model.lesson;
+
+import org.junit.jupiter.api.Test;
+import typingNinja.model.lesson.LatencyHistogram;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentiles_areWithinBucketPrecision() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int ms = 1; ms <= 100; ms++) h.record(ms * 1_000_000L);
+
+        assertEquals(100, h.count());
+        assertEquals(100_000, h.maxMicros());
+        assertWithin(50_000, h.percentileMicros(50));
+        assertWithin(95_000, h.percentileMicros(95));
+        assertWithin(99_000, h.percentileMicros(99));
+        assertEquals(100_000, h.percentileMicros(100), "The top percentile is capped at the max");
+    }
+
+    @Test
+    void emptyAndReset_reportZero() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.percentileMicros(99));
+        h.record(5_000);
+        h.record(Long.MAX_VALUE);
+        assertEquals(2, h.count());
+        h.reset();
+        assertEquals(0, h.count());
+        assertEquals(0, h.maxMicros());
+        assertTrue(h.summary().startsWith("n=0 "));
+    }
+
+    @Test
+    void concurrentWriters_loseNoSamples() throws Exception {
+        LatencyHistogram h = new LatencyHistogram();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            pool.submit(() -> { for (int i = 0; i < 10_000; i++) h.record(i * 1_000L); });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(40_000, h.count());
+        assertEquals(9_999, h.maxMicros());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        // Log-linear buckets with 16 sub-buckets keep the error under 1/16.
+        assertTrue(actual >= expected && actual <= expected + expected / 16,
+                "expected about " + expected + " but was " + actual);
+    }
+}
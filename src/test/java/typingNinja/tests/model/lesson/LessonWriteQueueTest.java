@@ -0,0 +1,76 @@
+package typingNinja.tests.model.lesson;
+
+import org.junit.jupiter.api.Test;
+import typingNinja.model.MainLessonDAO;
+import typingNinja.model.lesson.Lesson;
+import typingNinja.model.lesson.LessonDAO;
+import typingNinja.model.lesson.LessonWriteQueue;
+import typingNinja.tests.support.DatabaseTestHarness;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LessonWriteQueueTest extends DatabaseTestHarness {
+
+    @Test
+    void startedThenCompleted_areAppliedInOrder() throws Exception {
+        new MainLessonDAO().insertSelection(1, "3a");
+        Lesson latest = new LessonDAO().fetchLatestForUser(1);
+        assertNotNull(latest);
+
+        LessonWriteQueue queue = LessonWriteQueue.shared();
+        queue.submitStarted(latest.getLessonId(), 1);
+        queue.submitCompleted(latest.getLessonId(), 1, 3.0, 42.0, 91.0, 4, "th")
+                .get(5, TimeUnit.SECONDS);
+
+        try (Connection conn = connection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT DateStarted, DateCompleted, WPM, WeakKeys FROM Lesson WHERE LessonID = ?")) {
+            ps.setInt(1, latest.getLessonId());
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next());
+                assertNotNull(rs.getString("DateStarted"));
+                assertNotNull(rs.getString("DateCompleted"));
+                assertEquals(42.0, rs.getDouble("WPM"), 0.001);
+                assertEquals("th", rs.getString("WeakKeys"));
+            }
+        }
+    }
+
+    @Test
+    void startedThenCancelled_removesPendingLesson() throws Exception {
+        new MainLessonDAO().insertSelection(1, "3b");
+        Lesson latest = new LessonDAO().fetchLatestForUser(1);
+        assertNotNull(latest);
+
+        LessonWriteQueue queue = LessonWriteQueue.shared();
+        queue.submitStarted(latest.getLessonId(), 1);
+        queue.submitCancelled(latest.getLessonId(), 1).get(5, TimeUnit.SECONDS);
+
+        try (Connection conn = connection();
+             PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM Lesson")) {
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next());
+                assertEquals(0, rs.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    void flush_completesAfterEarlierWrites() throws Exception {
+        new MainLessonDAO().insertSelection(1, "3c");
+        Lesson latest = new LessonDAO().fetchLatestForUser(1);
+        assertNotNull(latest);
+
+        LessonWriteQueue queue = LessonWriteQueue.shared();
+        var started = queue.submitStarted(latest.getLessonId(), 1);
+        queue.flush().get(5, TimeUnit.SECONDS);
+
+        assertTrue(started.isDone(), "Writes queued before a flush must finish first");
+        assertFalse(started.isCompletedExceptionally());
+    }
+}
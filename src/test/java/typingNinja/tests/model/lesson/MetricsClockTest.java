@@ -0,0 +1,131 @@
+package typingNinja.tests.model.lesson;
+
+import javafx.application.Platform;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import typingNinja.model.lesson.Metrics;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsClockTest {
+
+    private static final long SECOND = 1_000_000_000L;
+    private long now;
+
+    @BeforeAll
+    static void initToolkit() {
+        try {
+            Platform.startup(() -> { /* no-op */ });
+        } catch (IllegalStateException ignore) { }
+    }
+
+    @Test
+    void pausedTime_isExcludedExactly() {
+        runOnFxThread(() -> {
+            Metrics metrics = new Metrics(60, () -> now);
+            now = 0;
+            metrics.start();
+            now = 2 * SECOND;
+            metrics.pause();
+            now += 5 * SECOND;
+            assertEquals(2 * SECOND, metrics.elapsedNanos(), "The clock stands still while paused");
+            metrics.resume();
+            now += 1_500_000_000L;
+            assertEquals(3_500_000_000L, metrics.elapsedNanos());
+            metrics.reset();
+        });
+    }
+
+    @Test
+    void rollingBurstAndSeries_followTheKeystrokeTimes() {
+        runOnFxThread(() -> {
+            Metrics metrics = new Metrics(60, () -> now);
+            now = 0;
+            metrics.start();
+            // 50 correct keys evenly over 10 s: 10 words in 1/6 minute.
+            for (int i = 1; i <= 50; i++) {
+                now = i * SECOND / 5;
+                metrics.incTyped(true);
+            }
+            assertEquals(60, metrics.getLiveWpm());
+            assertEquals(60, metrics.getBurstWpm());
+
+            // A quick burst of 15 keys in about a second.
+            for (int i = 0; i < 15; i++) {
+                now = 10 * SECOND + i * 66_000_000L;
+                metrics.incTyped(true);
+            }
+            now = 12 * SECOND;
+            assertEquals(104, metrics.getBurstWpm());
+
+            int[] series = metrics.speedSeries();
+            assertEquals(12, series.length, "One sample per whole second");
+            assertEquals(60, series[9]);
+            assertEquals(61, series[10]);
+            assertEquals(72, metrics.getPeakWpm());
+
+            metrics.publish();
+            assertEquals(65, metrics.getWpm(), "Average uses the exact elapsed time");
+            metrics.reset();
+        });
+    }
+
+    @Test
+    void erasedCorrectKeys_doNotCountTowardLiveSpeed() {
+        runOnFxThread(() -> {
+            Metrics metrics = new Metrics(60, () -> now);
+            now = 0;
+            metrics.start();
+            for (int i = 1; i <= 50; i++) {
+                now = i * SECOND / 5;
+                metrics.incTyped(true);
+            }
+            for (int i = 0; i < 25; i++) metrics.decTypedIfBackspace(false);
+            metrics.incTyped(false);
+            metrics.decTypedIfBackspace(true);
+
+            assertEquals(30, metrics.getLiveWpm(), "Only the 25 surviving keys count");
+            metrics.publish();
+            assertEquals(30, metrics.liveWpmProperty().get());
+            metrics.reset();
+        });
+    }
+
+    @Test
+    void endLessonNow_freezesTheClock() {
+        runOnFxThread(() -> {
+            Metrics metrics = new Metrics(60, () -> now);
+            now = 0;
+            metrics.start();
+            now = 4 * SECOND;
+            metrics.endLessonNow();
+            now = 40 * SECOND;
+            assertEquals(4 * SECOND, metrics.elapsedNanos());
+            assertEquals(4, metrics.speedSeries().length);
+        });
+    }
+
+    private static void runOnFxThread(Runnable r) {
+        RuntimeException[] ex = new RuntimeException[1];
+        Error[] err = new Error[1];
+        CountDownLatch latch = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try { r.run(); }
+            catch (RuntimeException e) { ex[0] = e; }
+            catch (Error e) { err[0] = e; }
+            finally { latch.countDown(); }
+        });
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS))
+                throw new AssertionError("Timed out waiting for FX thread");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError("Interrupted while waiting for FX thread", e);
+        }
+        if (ex[0] != null) throw ex[0];
+        if (err[0] != null) throw err[0];
+    }
+}
@@ -0,0 +1,104 @@
+package typingNinja.tests.model.lesson;
+
+import org.junit.jupiter.api.Test;
+import typingNinja.model.MainLessonDAO;
+import typingNinja.model.SqliteConnection;
+import typingNinja.model.lesson.KeystrokeJournal;
+import typingNinja.model.lesson.Lesson;
+import typingNinja.model.lesson.LessonDAO;
+import typingNinja.model.lesson.LessonWriteQueue;
+import typingNinja.model.lesson.NgramErrorModel;
+import typingNinja.model.lesson.NgramModelStore;
+import typingNinja.tests.support.DatabaseTestHarness;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NgramErrorModelTest extends DatabaseTestHarness {
+
+    private static final long MS = 1_000_000L;
+    private static final String TEXT = "the quick brown fox jumps over the lazy dog ";
+
+    /** Types TEXT {@code repeats} times, missing the second key of {@code bad} every other time. */
+    private static KeystrokeJournal typed(int repeats, String bad) {
+        KeystrokeJournal journal = new KeystrokeJournal();
+        long t = 0;
+        for (int r = 0; r < repeats; r++) {
+            for (int i = 0; i < TEXT.length(); i++) {
+                char c = TEXT.charAt(i);
+                t += 150 * MS;
+                if (i > 0 && TEXT.substring(i - 1, i + 1).equals(bad) && r % 2 == 0) {
+                    journal.record(t, c, 'x', 0);
+                    t += 100 * MS;
+                    journal.record(t, c, 'x', KeystrokeJournal.BACKSPACE);
+                    t += 150 * MS;
+                }
+                journal.record(t, c, c, KeystrokeJournal.CORRECT);
+            }
+        }
+        return journal;
+    }
+
+    @Test
+    void weakest_ranksTheMissedNgramsOfEveryOrder() {
+        NgramErrorModel model = new NgramErrorModel();
+        model.addLesson(typed(20, "ck"), 20_000);
+
+        assertEquals(List.of("ck"), model.weakest(2, 5));
+        assertEquals("ick", model.weakest(3, 1).get(0));
+        assertEquals("k", model.weakest(1, 1).get(0));
+        assertEquals(30, model.attempts("ck"), 1e-9, "Twenty clean keys plus ten misses");
+        assertTrue(model.errorRate("ck") > 10 * model.errorRate("th"));
+        assertEquals(List.of(), model.weakest(4, 3));
+    }
+
+    @Test
+    void olderLessons_fadeWithTheHalfLife() {
+        NgramErrorModel model = new NgramErrorModel();
+        model.addLesson(typed(20, "ck"), 20_000);
+        model.addLesson(typed(20, "az"), 20_000 + 2 * NgramErrorModel.HALF_LIFE_DAYS);
+
+        assertEquals(List.of("az", "ck"), model.weakest(2, 5));
+        assertEquals(30 * 0.25 + 20, model.attempts("ck"), 1e-9);
+
+        NgramErrorModel late = new NgramErrorModel();
+        late.addLesson(typed(20, "az"), 20_000 + 2 * NgramErrorModel.HALF_LIFE_DAYS);
+        late.addLesson(typed(20, "ck"), 20_000);
+        assertEquals(30 * 0.25 + 20, late.attempts("ck"), 1e-9, "Out-of-order lessons are discounted");
+    }
+
+    @Test
+    void encodeDecode_keepsTheRanking() {
+        NgramErrorModel model = new NgramErrorModel();
+        model.addLesson(typed(20, "ck"), 20_000);
+        model.addLesson(typed(20, "az"), 20_005);
+
+        NgramErrorModel back = NgramErrorModel.decode(model.encode());
+
+        assertEquals(model.size(), back.size());
+        for (int order = 1; order <= 3; order++) {
+            assertEquals(model.weakest(order, 10), back.weakest(order, 10));
+        }
+        assertEquals(model.updatedDay(), back.updatedDay(), 1e-5);
+        assertThrows(IllegalArgumentException.class, () -> NgramErrorModel.decode(new byte[]{2}));
+    }
+
+    @Test
+    void completedLessons_updateTheStoredModel() throws Exception {
+        assertTrue(NgramModelStore.cached(1).weakest(2, 3).isEmpty());
+
+        new MainLessonDAO().insertSelection(1, "2a");
+        Lesson latest = new LessonDAO().fetchLatestForUser(1);
+        LessonWriteQueue.shared().submitCompleted(latest.getLessonId(), 1, 3.0, 40.0, 90.0, 10, "", typed(20, "ck"))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("ck"), NgramModelStore.cached(1).weakest(2, 3));
+        assertSame(NgramModelStore.cached(1), NgramModelStore.cached(1));
+        assertTrue(NgramModelStore.cached(2).weakest(2, 3).isEmpty());
+
+        SqliteConnection.write(conn -> { NgramModelStore.rebuild(conn, 1); return null; });
+        assertEquals(List.of("ck"), NgramModelStore.cached(1).weakest(2, 3));
+    }
+}
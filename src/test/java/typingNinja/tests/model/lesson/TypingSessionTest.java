@@ -0,0 +1,138 @@
+package typingNinja.tests.model.lesson;
+
+import org.junit.jupiter.api.Test;
+import typingNinja.model.lesson.TypingSession;
+import typingNinja.model.lesson.WeakKeyTracker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TypingSessionTest {
+
+    @Test
+    void perfectRun_placesEveryCharAndCompletesOnce() {
+        TypingSession session = new TypingSession("Hi there.", null);
+        List<Integer> events = new ArrayList<>();
+        session.addListener((event, position, ch) -> events.add(event));
+
+        session.type('h', true);
+        for (char c : "i there".toCharArray()) session.type(c, false);
+        session.type('.', false);
+
+        assertTrue(session.isComplete());
+        assertTrue(session.isPerfect());
+        assertTrue(session.passes());
+        assertEquals(9, session.correctPositions());
+        assertEquals(100.0, session.accuracyPercent());
+        assertEquals(1, events.stream().filter(e -> e == TypingSession.COMPLETED).count());
+        assertEquals(0, session.type('x', false), "Input past the end is ignored");
+    }
+
+    @Test
+    void strictMode_rejectsWrongKeysWithoutMovingTheCursor() {
+        TypingSession session = new TypingSession("ab", null);
+        assertEquals(TypingSession.REJECTED, session.type('x', false));
+        assertEquals(0, session.index());
+        assertEquals(TypingSession.UNTYPED, session.stateAt(0));
+        assertEquals(1, session.errors());
+        assertEquals(TypingSession.TYPED, session.type('a', false));
+        assertEquals(1, session.index());
+    }
+
+    @Test
+    void relaxedMode_placesMistakesAndBackspaceUndoesThem() {
+        TypingSession session = new TypingSession("abc", null);
+        session.setStrictMode(false);
+        List<String> log = new ArrayList<>();
+        session.addListener((event, position, ch) -> log.add(event + "@" + position + ":" + ch));
+
+        session.type('a', false);
+        assertEquals(TypingSession.MISTYPED, session.type('x', false));
+        assertEquals(TypingSession.WRONG, session.stateAt(1));
+        assertEquals('x', session.typedAt(1));
+        assertEquals(2, session.keystrokes());
+        assertEquals(1, session.errors());
+
+        assertEquals(TypingSession.ERASED_ERROR, session.backspace());
+        assertEquals(1, session.index());
+        assertEquals(0, session.errors());
+        assertEquals(1, session.keystrokes());
+        assertEquals(TypingSession.UNTYPED, session.stateAt(1));
+        assertEquals(List.of("1@0:a", "2@1:x", "5@1:x"), log);
+
+        assertEquals(TypingSession.ERASED, session.backspace());
+        assertEquals(0, session.correctPositions());
+        assertEquals(0, session.backspace(), "Backspace at the start is a no-op");
+    }
+
+    @Test
+    void enter_onlyAdvancesOverANewline() {
+        TypingSession session = new TypingSession("a\nb\nc", null);
+        assertEquals(TypingSession.REJECTED, session.enter());
+        session.type('a', false);
+        assertEquals(TypingSession.TYPED, session.enter());
+        assertEquals('b', session.peekExpected());
+        session.type('b', false);
+        assertEquals(TypingSession.TYPED, session.type('\r', false), "A carriage return is typed as a newline");
+        assertEquals(0, session.type('\t', false), "Other control characters are ignored");
+    }
+
+    @Test
+    void weakKeys_recordOnlyTheFirstMistakeAtEachPosition() {
+        WeakKeyTracker tracker = new WeakKeyTracker();
+        TypingSession session = new TypingSession("the", tracker);
+        session.type('t', false);
+        session.type('j', false);
+        session.type('k', false);
+        assertEquals(1, tracker.totals().get('h'));
+    }
+
+    @Test
+    void passes_requiresMoreThan40PercentOfThePassage() {
+        TypingSession session = new TypingSession("abcde", null);
+        session.setStrictMode(false);
+        for (char c : "abxxx".toCharArray()) session.type(c, false);
+        assertTrue(session.isComplete());
+        assertFalse(session.passes(), "2 of 5 correct is not enough");
+
+        TypingSession better = new TypingSession("abcde", null);
+        better.setStrictMode(false);
+        for (char c : "abcxx".toCharArray()) better.type(c, false);
+        assertTrue(better.passes());
+    }
+
+    @Test
+    void syntheticTypist_keepsCountersConsistentOverManyKeystrokes() {
+        String passage = "the quick brown fox jumps over the lazy dog\n".repeat(200);
+        TypingSession session = new TypingSession(passage, new WeakKeyTracker());
+        session.setStrictMode(false);
+        int[] placed = new int[1];
+        session.addListener((event, position, ch) -> {
+            if (event == TypingSession.TYPED || event == TypingSession.MISTYPED) placed[0]++;
+            if (event == TypingSession.ERASED || event == TypingSession.ERASED_ERROR) placed[0]--;
+        });
+
+        long seed = 42;
+        while (!session.isComplete()) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            int roll = (int) ((seed >>> 33) % 100);
+            char expected = session.peekExpected();
+            if (roll < 3) session.backspace();
+            else if (roll < 8) session.type('#', false);
+            else if (expected == '\n') session.enter();
+            else session.type(expected, false);
+        }
+
+        assertEquals(passage.length(), placed[0]);
+        int correct = 0, wrong = 0;
+        for (int i = 0; i < passage.length(); i++) {
+            if (session.stateAt(i) == TypingSession.CORRECT) correct++;
+            if (session.stateAt(i) == TypingSession.WRONG) wrong++;
+        }
+        assertEquals(correct, session.correctPositions());
+        assertEquals(wrong, session.errors());
+        assertEquals(passage.length(), session.keystrokes());
+    }
+}
@@ -0,0 +1,83 @@
+package typingNinja.tests.model.lesson;
+
+import org.junit.jupiter.api.Test;
+import typingNinja.model.lesson.WeakKeyTracker;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeakKeyTrackerTest {
+
+    @Test
+    void topPairs_rankKeysByMistakesThenCharacter() {
+        WeakKeyTracker tracker = new WeakKeyTracker();
+        tracker.record('a', 'e', 'r');
+        tracker.record('a', 'e', 'w');
+        tracker.record('a', 'e', 'r');
+        tracker.record('t', 'h', 'j');
+        tracker.record('t', 'd', 's');
+
+        assertEquals("er ds hj", tracker.topPairsString(3));
+        assertEquals("er ds", tracker.topPairsString(2));
+        assertEquals("er ds hj --", tracker.topPairsString(4));
+        assertEquals("-- --", new WeakKeyTracker().topPairsString(2));
+    }
+
+    @Test
+    void misinputTie_isBrokenByStrongestContextThenCharacter() {
+        WeakKeyTracker tracker = new WeakKeyTracker();
+        tracker.record('a', 'e', 'w');
+        tracker.record('b', 'e', 'w');
+        tracker.record('c', 'e', 'r');
+        tracker.record('c', 'e', 'r');
+        tracker.record('d', 'e', 'w');
+        tracker.record('f', 'e', 'r');
+
+        // Both misinputs seen three times; 'r' came twice after 'c', 'w' never twice in one context.
+        assertEquals("er", tracker.topPairsString(1));
+
+        WeakKeyTracker even = new WeakKeyTracker();
+        even.record('a', 'e', 'w');
+        even.record('a', 'e', 'r');
+        assertEquals("er", even.topPairsString(1));
+    }
+
+    @Test
+    void topPrevExpected_ignoresMissingPreviousCharacter() {
+        WeakKeyTracker tracker = new WeakKeyTracker();
+        tracker.record((Character) null, 'h', 'j');
+        tracker.record((Character) null, 'h', 'j');
+        tracker.record('t', 'h', 'g');
+        tracker.record('s', 'h', 'g');
+        tracker.record('s', 'k', 'l');
+        tracker.record('\0', 'q', 'w');
+
+        assertEquals("sh sk --", tracker.topPrevExpectedPairsString(3));
+        assertEquals(4, tracker.totals().get('h'));
+        assertEquals(2, tracker.misinputs().get('h').get('j'));
+    }
+
+    @Test
+    void untrackedCharacters_areIgnored() {
+        WeakKeyTracker tracker = new WeakKeyTracker();
+        tracker.record('a', '\n', 'x');
+        tracker.record('a', 'x', '\t');
+        tracker.record('a', 'é', 'e');
+
+        assertTrue(tracker.totals().isEmpty());
+        assertEquals(95, tracker.totalsAllKeys().size());
+        assertEquals(0, tracker.totalsAllKeys().get(' '));
+    }
+
+    @Test
+    void debugDump_listsContextsByPreviousAndExpected() {
+        WeakKeyTracker tracker = new WeakKeyTracker();
+        tracker.record('a', 'h', 'j');
+        tracker.record('a', 'h', 'j');
+        tracker.record('a', 'h', 'k');
+
+        String dump = tracker.debugDump();
+        assertTrue(dump.contains("h : 3\n"));
+        assertTrue(dump.contains("h -> j=2, k=1\n"));
+        assertTrue(dump.contains("a|h -> j=2, k=1\n"));
+    }
+}
@@ -0,0 +1,58 @@
+package typingNinja.tests.model.lesson;
+
+import org.junit.jupiter.api.Test;
+import typingNinja.model.MainLessonDAO;
+import typingNinja.model.SqliteConnection;
+import typingNinja.model.lesson.LessonDAO;
+import typingNinja.model.lesson.WeakPairStore;
+import typingNinja.tests.support.DatabaseTestHarness;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeakPairStoreTest extends DatabaseTestHarness {
+
+    @Test
+    void parse_skipsPaddingAndCountsRepeats() {
+        Map<String, Integer> pairs = WeakPairStore.parse(" th he -- th x ");
+        assertEquals(Map.of("th", 2, "he", 1), pairs);
+    }
+
+    @Test
+    void completedCustomLessons_feedTopPairsInFrequencyOrder() throws Exception {
+        LessonDAO dao = new LessonDAO();
+        completeCustom(dao, "th er -- -- --");
+        completeCustom(dao, "er in th -- --");
+        completeCustom(dao, "er an -- -- --");
+        new MainLessonDAO().insertSelection(1, "1a");
+        dao.markCompleted(dao.fetchLatestForUser(1).getLessonId(), 1, 3, 40, 90, 1, "zz zz zz");
+
+        assertEquals(List.of("er", "th", "an"), dao.topWeakPairsForUserFromCompletedCustomLessons(1, 3),
+                "Only custom lessons count, ties broken by pair");
+    }
+
+    @Test
+    void rebuild_matchesIncrementalTotals() throws Exception {
+        LessonDAO dao = new LessonDAO();
+        completeCustom(dao, "th er -- -- --");
+        completeCustom(dao, "er in -- -- --");
+        List<String> before = dao.topWeakPairsForUserFromCompletedCustomLessons(1, 5);
+
+        SqliteConnection.write(conn -> {
+            WeakPairStore.rebuild(conn, 1);
+            return null;
+        });
+
+        assertEquals(before, dao.topWeakPairsForUserFromCompletedCustomLessons(1, 5));
+    }
+
+    private int completeCustom(LessonDAO dao, String weakKeys) throws Exception {
+        new MainLessonDAO().insertCustomTopic(1, "topic", 1, false, false, false, false);
+        int lessonId = dao.fetchLatestForUser(1).getLessonId();
+        dao.markCompleted(lessonId, 1, 3, 40, 90, 2, weakKeys);
+        return lessonId;
+    }
+}
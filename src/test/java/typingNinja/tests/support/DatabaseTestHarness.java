@@ -92,6 +92,21 @@ public abstract class DatabaseTestHarness {
                         LessonCompleteSound INTEGER
                     )
                     """);
+            st.execute("""
+                    CREATE TABLE IF NOT EXISTS Statistics (
+                        UserID INTEGER NOT NULL UNIQUE,
+                        TotalTimeActive REAL NOT NULL DEFAULT 0.0,
+                        TimeActiveWeek REAL NOT NULL DEFAULT 0.0,
+                        TotalWPMWeek REAL NOT NULL DEFAULT 0.0,
+                        TotalAccuracyWeek REAL NOT NULL DEFAULT 0.0,
+                        AvgWPM REAL NOT NULL DEFAULT 0.0,
+                        TotalStars INTEGER NOT NULL DEFAULT 0,
+                        TotalLessons INTEGER NOT NULL DEFAULT 0,
+                        AvgRating REAL NOT NULL DEFAULT 0.0,
+                        HighestRating REAL NOT NULL DEFAULT 0.0,
+                        Belt TEXT NOT NULL DEFAULT 'White'
+                    )
+                    """);
             st.execute("""
                     CREATE TABLE IF NOT EXISTS Users (
                         UserID INTEGER PRIMARY KEY AUTOINCREMENT,
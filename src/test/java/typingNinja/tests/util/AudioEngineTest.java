@@ -0,0 +1,62 @@
+package typingNinja.tests.util;
+
+import org.junit.jupiter.api.Test;
+import typingNinja.util.AudioEngine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioEngineTest {
+
+    @Test
+    void overlappingVoices_areSummedNotDropped() {
+        short[][] voices = { {1000, 1000, 1000, 1000}, {-300, 200} };
+        int[] positions = new int[2];
+        byte[] out = new byte[6];
+
+        int active = AudioEngine.render(voices, positions, out);
+
+        assertEquals(700, sample(out, 0));
+        assertEquals(1200, sample(out, 1));
+        assertEquals(1000, sample(out, 2));
+        assertNull(voices[1], "A finished voice frees its slot");
+        assertEquals(1, active);
+        assertEquals(3, positions[0]);
+
+        AudioEngine.render(voices, positions, out);
+        assertEquals(1000, sample(out, 0));
+        assertEquals(0, sample(out, 1), "Silence after the last voice ends");
+        assertNull(voices[0]);
+    }
+
+    @Test
+    void loudMix_isClampedToSixteenBits() {
+        short[][] voices = { {30000, -30000}, {30000, -30000}, null };
+        byte[] out = new byte[4];
+
+        AudioEngine.render(voices, new int[3], out);
+
+        assertEquals(Short.MAX_VALUE, sample(out, 0));
+        assertEquals(Short.MIN_VALUE, sample(out, 1));
+    }
+
+    @Test
+    void monoAtHalfRate_isUpsampledToStereo() {
+        short[] mono = {0, 100, 200};
+
+        short[] stereo = AudioEngine.toOutputFormat(mono, 1, 22_050f);
+
+        assertArrayEquals(new short[]{0, 0, 50, 50, 100, 100, 150, 150, 200, 200}, stereo);
+    }
+
+    @Test
+    void throttledCue_startsOncePerGap() {
+        assertEquals(0, AudioEngine.voicesToStart(0, 10_000, 8_820));
+        assertEquals(1, AudioEngine.voicesToStart(5, 8_820, 8_820), "A burst of requests starts one voice");
+        assertEquals(0, AudioEngine.voicesToStart(1, 8_819, 8_820), "Requests inside the gap are dropped");
+        assertEquals(3, AudioEngine.voicesToStart(3, 0, 0), "Unthrottled cues start every request");
+    }
+
+    private static int sample(byte[] out, int index) {
+        return (short) ((out[2 * index] & 0xFF) | (out[2 * index + 1] << 8));
+    }
+}